@@ -0,0 +1,60 @@
+package org.adbcj;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects update statements and runs them as one batch, see {@link DbSession#executeBatch(List)}.
+ * The statements are sent together with a single write and complete a single future.
+ * Created with {@link DbSession#newBatch()}.
+ *
+ * A builder can be executed again, for example after adding more statements. It is not thread safe.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class BatchBuilder {
+    private final DbSession session;
+    private final List<String> statements = new ArrayList<String>();
+
+    public BatchBuilder(DbSession session) {
+        if (null == session) {
+            throw new IllegalArgumentException("session can NOT be null");
+        }
+        this.session = session;
+    }
+
+    /**
+     * @param sql an update statement, without parameters
+     */
+    public BatchBuilder add(String sql) {
+        if (null == sql) {
+            throw new IllegalArgumentException("sql can NOT be null");
+        }
+        statements.add(sql);
+        return this;
+    }
+
+    public BatchBuilder addAll(Iterable<String> sql) {
+        for (String statement : sql) {
+            add(statement);
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of statements added so far
+     */
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * Sends the statements added so far as one batch.
+     *
+     * @return future with the result of each statement, in the order they were added.
+     * Fails with the error of the first statement which failed
+     */
+    public DbFuture<List<Result>> execute() {
+        return session.executeBatch(new ArrayList<String>(statements));
+    }
+}
@@ -19,6 +19,7 @@ package org.adbcj;
 import org.adbcj.support.OneArgFunction;
 
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -30,7 +31,8 @@ import java.util.concurrent.TimeoutException;
  * {@link #get()}, {@link #get(long, TimeUnit)}, or {@link #getUninterruptably()} when the operation has completed.
  * These methods will block if necessary until the operation completes.  Cancellation is performed with
  * {@link #cancel(boolean)}.  Additional methods are provided to determine if the operation completed normally or was
- * cancelled.  Once an operation has completed, it cannot be cancelled.  However, you may still use
+ * cancelled.  An operation which was already sent is stopped on the database server, where the driver supports that.
+ * Once an operation has completed, it cannot be cancelled.  However, you may still use
  * {@link #addListener(DbListener)} when an operation has completed and the {@link DbListener#onCompletion(DbFuture)}
  * method will be invoked immediately.
  *
@@ -49,6 +51,20 @@ public interface DbFuture<T> extends Future<T> {
 	 * @return this <tt>DbFuture</tt> object.  Used for chained invocations.
 	 */
 	DbFuture<T> addListener(DbListener<T> listener);
+
+	/**
+	 * Adds a {@link DbListener} which is invoked on the given executor when the database operation completes.
+	 * Use this for listeners which do expensive work, so that they do not run on the thread completing the future,
+	 * which usually is the I/O thread of the driver.
+	 *
+	 * Listeners added with {@link #addListener(DbListener)} run on the callback executor of the connection manager,
+	 * configured by {@link StandardProperties#CALLBACK_EXECUTOR}. By default that is the completing thread.
+	 *
+	 * @param listener  The listener that will be invoked when this future completes
+	 * @param executor  The executor which runs the listener
+	 * @return this <tt>DbFuture</tt> object.  Used for chained invocations.
+	 */
+	DbFuture<T> addListener(DbListener<T> listener, Executor executor);
 	
 	/**
 	 * Removes a {@link DbListener} instance from the list of <tt>DbListener</tt>s that will be invoked when this
@@ -112,5 +128,26 @@ public interface DbFuture<T> extends Future<T> {
      * @return the result
      */
     public DbException getException();
-	
+
+    /**
+     * Where the request spent its time. Only available when the connection manager times requests,
+     * see {@link StandardProperties#REQUEST_TIMINGS}.
+     * @return the timings, complete once this future is done. Null if the request is not timed
+     */
+    public RequestTimings getTimings();
+
+    /**
+     * Fails this future with a {@link DbTimeoutException} unless it completes within the given time.
+     *
+     * When the deadline passes while the request still waits to be sent, it is cancelled and never sent.
+     * When the request is already sent, the future fails right away. The driver asks the database to stop the request,
+     * if it supports that, and ignores the response once it arrives.
+     * The connection manager applies a default deadline to every request, see {@link StandardProperties#REQUEST_TIMEOUT_MILLIS}.
+     *
+     * @param timeout the time from now on, in which the future has to complete
+     * @param unit the time unit of the timeout
+     * @return this <tt>DbFuture</tt> object.  Used for chained invocations.
+     */
+    public DbFuture<T> withDeadline(long timeout, TimeUnit unit);
+
 }
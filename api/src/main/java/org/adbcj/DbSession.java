@@ -16,6 +16,9 @@
  */
 package org.adbcj;
 
+import java.util.List;
+import java.util.concurrent.Flow;
+
 public interface DbSession {
 
     /**
@@ -60,13 +63,77 @@ public interface DbSession {
 
 
 	DbFuture<ResultSet> executeQuery(String sql);
+
+	/**
+	 * Like {@link #executeQuery(String)}, but stores the result in the given layout
+	 * instead of the default layout of the connection.
+	 *
+	 * @param sql the query
+	 * @param layout how the result is stored
+	 */
+	DbFuture<ResultSet> executeQuery(String sql, ResultSetLayout layout);
 	
 	<T> DbFuture<T> executeQuery(String sql,
                                         ResultHandler<T> eventHandler,
                                         T accumulator);
 
+	/**
+	 * Runs the query for every subscriber and publishes the rows as they arrive.
+	 *
+	 * Unlike {@link #executeQuery(String, ResultHandler, Object)} the rows are only read as fast
+	 * as the subscriber requests them: The driver stops reading from the database when the subscriber falls behind.
+	 * So large results can be processed without holding them in memory.
+	 * While reading is paused, the other requests on this connection have to wait as well.
+	 *
+	 * @param sql the query
+	 * @return publisher of the rows. The subscriber is completed after the last row, or gets the error of the query
+	 */
+	Flow.Publisher<Row> streamQuery(String sql);
+
 	DbFuture<Result> executeUpdate(String sql);
 
+	/**
+	 * Runs the given updates in one go. Unlike calling {@link #executeUpdate(String)} for each statement,
+	 * the statements are sent together, as one request with a single write, and complete a single future.
+	 *
+	 * The statements run in order. Whether the statements after a failed one still run depends on the driver,
+	 * so use a transaction when the batch should only be applied as a whole.
+	 *
+	 * @param statements the update statements, without parameters
+	 * @return future with the result of each statement, in the order of the statements.
+	 * Fails with the error of the first statement which failed
+	 */
+	DbFuture<List<Result>> executeBatch(List<String> statements);
+
+	/**
+	 * Starts a batch of update statements, which is sent like {@link #executeBatch(List)} once executed.
+	 *
+	 * @return a builder collecting the statements of the batch
+	 */
+	BatchBuilder newBatch();
+
+	/**
+	 * Runs the given code, which issues requests on this session, and sends all of these requests together.
+	 * The requests are encoded into one buffer and flushed with a single write, once the code returns.
+	 * Each request still completes its own future.
+	 *
+	 * Drivers which do not write to a socket themselves just run the code.
+	 * See {@link StandardProperties#WRITE_COALESCING}
+	 *
+	 * @param requests issues the requests
+	 */
+	void batch(Runnable requests);
+
+	/**
+	 * Tells when this session accepts requests again without parking them, see {@link StandardProperties#QUEUE_OVERFLOW}.
+	 * A producer issuing many requests can wait for this future once it is not done right away,
+	 * to stay just under the {@link StandardProperties#MAX_QUEUE_LENGTH}.
+	 *
+	 * @return future which completes once no more than the maximum requests are pending and none is parked.
+	 * Completed right away when that is already the case
+	 */
+	DbFuture<Void> whenWritable();
+
 	DbFuture<PreparedQuery> prepareQuery(String sql);
 	DbFuture<PreparedUpdate> prepareUpdate(String sql);
 
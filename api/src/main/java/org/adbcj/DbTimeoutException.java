@@ -0,0 +1,16 @@
+package org.adbcj;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A request did not complete before its deadline, see {@link DbFuture#withDeadline(long, TimeUnit)}.
+ */
+public class DbTimeoutException extends DbException {
+
+	private static final long serialVersionUID = 1L;
+
+	public DbTimeoutException(String message) {
+		super(message);
+	}
+
+}
@@ -16,7 +16,23 @@
  */
 package org.adbcj;
 
+import java.util.List;
+
 public interface PreparedUpdate extends PreparedStatement {
 
     DbFuture<Result> execute(Object... params);
+
+    /**
+     * Executes this statement once for each parameter set. The parameter sets are sent in chunks,
+     * each chunk as one request, instead of one request per parameter set.
+     *
+     * The parameter sets are taken from the iterable while the batch runs, and only a few chunks are
+     * held in memory at a time. So the iterable may produce far more parameter sets than fit into memory.
+     * Once a chunk fails, no further chunks are sent.
+     *
+     * @param parameterSets the parameters for each execution
+     * @return future with the result of each execution, in the order of the parameter sets.
+     * Fails with the error of the first chunk which failed, or when a parameter set does not match the statement
+     */
+    DbFuture<List<Result>> executeBatch(Iterable<Object[]> parameterSets);
 }
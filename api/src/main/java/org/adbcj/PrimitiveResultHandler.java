@@ -0,0 +1,65 @@
+package org.adbcj;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link ResultHandler} which receives numeric and raw columns without boxing them into a {@link Value}.
+ *
+ * <p>Drivers which support this handler call exactly one of the column callbacks for each column of a row,
+ * in column order. Columns which have no primitive representation, like dates, are still passed to
+ * {@link #value(Value, Object)}. Drivers which do not support this handler call {@link #value(Value, Object)}
+ * for every column.
+ *
+ * @author roman.stoffel@gamlor.info
+ * @param <T>  The accumulator type.
+ */
+public interface PrimitiveResultHandler<T> extends ResultHandler<T> {
+
+    /**
+     * Invoked for an integer column.
+     *
+     * @param column the index of the column, starting at 0
+     * @param value the value of the column
+     * @param accumulator
+     */
+    void intValue(int column, int value, T accumulator);
+
+    /**
+     * Invoked for a big integer column.
+     *
+     * @param column the index of the column, starting at 0
+     * @param value the value of the column
+     * @param accumulator
+     */
+    void longValue(int column, long value, T accumulator);
+
+    /**
+     * Invoked for a floating point column.
+     *
+     * @param column the index of the column, starting at 0
+     * @param value the value of the column
+     * @param accumulator
+     */
+    void doubleValue(int column, double value, T accumulator);
+
+    /**
+     * Invoked for a column which is null.
+     *
+     * @param column the index of the column, starting at 0
+     * @param accumulator
+     */
+    void nullValue(int column, T accumulator);
+
+    /**
+     * Invoked for a column which the database sent as raw bytes, like text or decimals.
+     * The bytes are encoded in the character set of the connection.
+     *
+     * The buffer is reused by the driver and only valid during this call.
+     * Copy the bytes to keep them.
+     *
+     * @param column the index of the column, starting at 0
+     * @param value the content of the column, from the buffers position to its limit
+     * @param accumulator
+     */
+    void bytesValue(int column, ByteBuffer value, T accumulator);
+}
@@ -0,0 +1,81 @@
+package org.adbcj;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where a request spent its time, from the moment it was queued on the connection until its future completed.
+ * Available from {@link DbFuture#getTimings()} once the future is completed, when the connection manager
+ * was configured with {@link StandardProperties#REQUEST_TIMINGS} or {@link StandardProperties#SLOW_QUERY_THRESHOLD_MILLIS}.
+ *
+ * The request passes through following points:
+ * <ol>
+ *     <li>queued on the connection</li>
+ *     <li>written: the request is sent to the database</li>
+ *     <li>first response: the driver starts reading the response of this request</li>
+ *     <li>last row: the whole response is read</li>
+ *     <li>completed: the future is completed</li>
+ * </ol>
+ * Points a driver cannot observe for a request take the time of the next observed point.
+ * Note that requests are pipelined: the time between written and first response includes
+ * the time the database spends on the requests sent earlier on the same connection.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public abstract class RequestTimings {
+
+    /**
+     * Only the drivers record timings, see {@link org.adbcj.support.DefaultRequestTimings}
+     */
+    protected RequestTimings() {
+    }
+
+    /**
+     * @return the SQL or the kind of request
+     */
+    public abstract String getDescription();
+
+    /**
+     * @return nanoseconds from queuing the request until it was sent to the database
+     */
+    public abstract long getQueuedNanos();
+
+    /**
+     * @return nanoseconds from sending the request until its response started to arrive
+     */
+    public abstract long getServerNanos();
+
+    /**
+     * @return nanoseconds spent reading and decoding the response
+     */
+    public abstract long getReceiveNanos();
+
+    /**
+     * @return nanoseconds from reading the response until the future was completed
+     */
+    public abstract long getCompletionNanos();
+
+    /**
+     * @return nanoseconds from queuing the request until the future was completed
+     */
+    public abstract long getTotalNanos();
+
+    public abstract boolean isCompleted();
+
+    @Override
+    public final String toString() {
+        if (!isCompleted()) {
+            return "RequestTimings{" + getDescription() + ", not completed}";
+        }
+        return "RequestTimings{" + getDescription() +
+                ", total=" + micros(getTotalNanos()) +
+                "us, queued=" + micros(getQueuedNanos()) +
+                "us, server=" + micros(getServerNanos()) +
+                "us, receive=" + micros(getReceiveNanos()) +
+                "us, completion=" + micros(getCompletionNanos()) +
+                "us}";
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,56 @@
+package org.adbcj;
+
+import org.adbcj.support.ColumnarResultEventsHandler;
+import org.adbcj.support.ColumnarResultSet;
+import org.adbcj.support.DefaultResultEventsHandler;
+import org.adbcj.support.DefaultResultSet;
+
+/**
+ * How the {@link ResultSet} of a query is stored in memory.
+ *
+ * The default for a connection is set with {@link StandardProperties#RESULT_SET_LAYOUT}.
+ * A single query can choose its layout with {@link DbSession#executeQuery(String, ResultSetLayout)}.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public enum ResultSetLayout {
+    /**
+     * Each row holds its values. Good for small results.
+     */
+    ROWS {
+        @Override
+        public DbFuture<ResultSet> executeQuery(DbSession session, String sql) {
+            return (DbFuture) session.executeQuery(sql, new DefaultResultEventsHandler(), new DefaultResultSet());
+        }
+
+        @Override
+        public DbFuture<ResultSet> execute(PreparedQuery query, Object... params) {
+            return (DbFuture) query.executeWithCallback(new DefaultResultEventsHandler(), new DefaultResultSet(), params);
+        }
+    },
+    /**
+     * Values are stored per column in primitive arrays, see {@link ColumnarResultSet}.
+     * Needs far less memory and objects for large results.
+     */
+    COLUMNAR {
+        @Override
+        public DbFuture<ResultSet> executeQuery(DbSession session, String sql) {
+            return (DbFuture) session.executeQuery(sql, new ColumnarResultEventsHandler(), new ColumnarResultSet());
+        }
+
+        @Override
+        public DbFuture<ResultSet> execute(PreparedQuery query, Object... params) {
+            return (DbFuture) query.executeWithCallback(new ColumnarResultEventsHandler(), new ColumnarResultSet(), params);
+        }
+    };
+
+    /**
+     * Runs the query and collects the result in this layout
+     */
+    public abstract DbFuture<ResultSet> executeQuery(DbSession session, String sql);
+
+    /**
+     * Runs the prepared query and collects the result in this layout
+     */
+    public abstract DbFuture<ResultSet> execute(PreparedQuery query, Object... params);
+}
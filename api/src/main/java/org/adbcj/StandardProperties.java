@@ -18,6 +18,22 @@ public final class StandardProperties {
      */
     public final static String MAX_QUEUE_LENGTH= "adbcj.maxQueueLength";
 
+    /**
+     * What happens to requests over the {@link #MAX_QUEUE_LENGTH} of a connection.
+     *
+     * Possible values:
+     * 'fail' throws a {@link DbException} for such a request. This is the default.
+     * 'park' accepts the request and parks it until responses to the earlier requests arrived.
+     * Up to {@link #QUEUE_OVERFLOW_LENGTH} requests are parked, beyond that the requests fail.
+     * {@link DbSession#whenWritable()} tells when requests are accepted again without being parked.
+     */
+    public final static String QUEUE_OVERFLOW= "adbcj.queueOverflow";
+
+    /**
+     * How many requests a connection parks with 'park' {@link #QUEUE_OVERFLOW}. Default is 1024.
+     */
+    public final static String QUEUE_OVERFLOW_LENGTH= "adbcj.queueOverflow.length";
+
     /**
      * ADBCJ allows you to capture the stack trace of the location which issues a request.
      * However this is a expensive operation, so it's optional. You can force a driver to capture
@@ -25,7 +41,180 @@ public final class StandardProperties {
      *
      * If not set, the JVM global property 'org.adbcj.debug' set to true will force capturing stack trace.
      *
+     * Possible values:
+     * 'true' captures the full stack of every request.
+     * 'caller' only records the frame which called into ADBCJ. Its cost does not grow with the depth of the stack.
+     * 'sampled' captures the full stack of one in {@link #CAPTURE_CALL_STACK_SAMPLE_RATE} requests.
+     * 'after-failure' captures the full stack for {@link #CAPTURE_CALL_STACK_WINDOW_MILLIS} after a request failed.
+     * Other values are logged and keep the default.
+     *
      * This is disabled by default
      */
     public final static String CAPTURE_CALL_STACK= "org.adbcj.debug.capture.callstack";
+
+    /**
+     * When capturing 'sampled' call stacks, the stack of one in this many requests is captured.
+     * Default is 100.
+     */
+    public final static String CAPTURE_CALL_STACK_SAMPLE_RATE= "org.adbcj.debug.capture.callstack.sampleRate";
+
+    /**
+     * When capturing call stacks 'after-failure', the time in milliseconds after a failure
+     * during which the stacks are captured. Default is 10000.
+     */
+    public final static String CAPTURE_CALL_STACK_WINDOW_MILLIS= "org.adbcj.debug.capture.callstack.windowMillis";
+
+    /**
+     * Executor on which listeners of futures are run, unless a listener is added
+     * with an explicit executor. By default listeners run on the thread which completes the future,
+     * which is the I/O thread for the MySQL and H2 driver. A slow listener then delays all connections
+     * sharing that thread.
+     *
+     * Possible values:
+     * 'inline' runs listeners on the completing thread. This is the default.
+     * 'common-pool' runs listeners on the {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+     * Otherwise a class name of a {@link java.util.concurrent.Executor} with a public no argument constructor.
+     * Such an executor is shut down when the connection manager is closed, if it is an {@link java.util.concurrent.ExecutorService}.
+     */
+    public final static String CALLBACK_EXECUTOR= "adbcj.callbackExecutor";
+
+    /**
+     * How the results of {@link DbSession#executeQuery(String)} and {@link PreparedQuery#execute(Object...)}
+     * are stored, see {@link ResultSetLayout}.
+     *
+     * Possible values:
+     * 'rows' stores each row with its values. This is the default.
+     * 'columnar' stores the values per column in primitive arrays.
+     */
+    public final static String RESULT_SET_LAYOUT= "adbcj.resultSetLayout";
+
+    /**
+     * When set to 'true', the values of rows are only decoded when they are accessed.
+     * The rows then keep a compact copy of their raw bytes, instead of a Java object for each column.
+     * This saves work when only some columns of a result are read.
+     *
+     * This is disabled by default
+     */
+    public final static String LAZY_VALUE_DECODING= "adbcj.lazyValueDecoding";
+
+    /**
+     * When set to 'true', repeated text values within one result share one String instance.
+     * This saves memory and garbage for low cardinality columns, like a status or a country code.
+     * Values which are not repeated cost a lookup. The MySQL driver supports this, unless {@link #LAZY_VALUE_DECODING} is enabled.
+     *
+     * This is disabled by default
+     */
+    public final static String STRING_DEDUPLICATION= "adbcj.stringDeduplication";
+
+    /**
+     * Where the metrics of the connections are reported, like request latency, queue depth, bytes read and written
+     * and the time waiting for a pooled connection. The recorder is available from
+     * {@link org.adbcj.support.AbstractConnectionManager#metrics()}.
+     *
+     * Possible values:
+     * 'none' ignores all metrics. This is the default and costs nothing.
+     * 'histogram' records them in a {@link org.adbcj.support.metrics.HistogramMetrics}.
+     * Otherwise a class name of a {@link org.adbcj.support.metrics.MetricsRecorder} with a public no argument constructor.
+     */
+    public final static String METRICS= "adbcj.metrics";
+
+    /**
+     * When set to 'true', requests record where they spent their time, available from {@link DbFuture#getTimings()}.
+     * Setting a {@link #SLOW_QUERY_THRESHOLD_MILLIS} also enables the timings.
+     *
+     * This is disabled by default
+     */
+    public final static String REQUEST_TIMINGS= "adbcj.requestTimings";
+
+    /**
+     * Requests which take longer than this many milliseconds, from being queued until completed,
+     * are logged as warning together with their {@link RequestTimings}.
+     *
+     * This is disabled by default
+     */
+    public final static String SLOW_QUERY_THRESHOLD_MILLIS= "adbcj.slowQuery.thresholdMillis";
+
+    /**
+     * Only one in this many slow requests is logged, to keep the log small under load.
+     * Default is 1, which logs every slow request.
+     */
+    public final static String SLOW_QUERY_SAMPLE_RATE= "adbcj.slowQuery.sampleRate";
+
+    /**
+     * Default deadline for every request, in milliseconds from queuing the request.
+     * See {@link DbFuture#withDeadline(long, java.util.concurrent.TimeUnit)}.
+     *
+     * This is disabled by default
+     */
+    public final static String REQUEST_TIMEOUT_MILLIS= "adbcj.requestTimeoutMillis";
+
+    /**
+     * The I/O threads used by the connections of the MySQL and H2 driver, see {@code org.adbcj.netty.EventLoopRuntime}.
+     *
+     * Possible values:
+     * 'dedicated' gives the connection manager its own threads, which are shut down when it is closed. This is the default.
+     * 'shared' uses the threads of {@code EventLoopRuntime.shared()} for all connection managers.
+     * Otherwise the name of a runtime registered with {@code EventLoopRuntime.register}.
+     */
+    public final static String EVENT_LOOP_RUNTIME= "adbcj.eventLoop.runtime";
+
+    /**
+     * The number of I/O threads of a 'dedicated' {@link #EVENT_LOOP_RUNTIME}.
+     * Default is twice the number of processors.
+     */
+    public final static String EVENT_LOOP_THREADS= "adbcj.eventLoop.threads";
+
+    /**
+     * The transport of a 'dedicated' {@link #EVENT_LOOP_RUNTIME}.
+     *
+     * Possible values:
+     * 'nio' uses Java NIO sockets. This is the default.
+     * 'epoll' uses the native Linux transport of Netty if it is on the class path, otherwise 'nio'.
+     */
+    public final static String EVENT_LOOP_TRANSPORT= "adbcj.eventLoop.transport";
+
+    /**
+     * The socket receive buffer size (SO_RCVBUF) in bytes of the connections of a 'dedicated' {@link #EVENT_LOOP_RUNTIME}.
+     * By default the operating system decides.
+     */
+    public final static String SOCKET_RECEIVE_BUFFER= "adbcj.socket.receiveBuffer";
+
+    /**
+     * The socket send buffer size (SO_SNDBUF) in bytes of the connections of a 'dedicated' {@link #EVENT_LOOP_RUNTIME}.
+     * By default the operating system decides.
+     */
+    public final static String SOCKET_SEND_BUFFER= "adbcj.socket.sendBuffer";
+
+    /**
+     * When set to 'true', connections are bound to the event loop of the thread asking for them.
+     * A connection opened from an I/O thread of the MySQL or H2 driver is served by that same thread,
+     * and the connection pool hands out an idle connection of the caller's I/O thread first.
+     * A chain of requests issued from callbacks then stays on one thread: the requests are written,
+     * decoded and their callbacks run without handing work to another thread.
+     * This only works with the default 'inline' {@link #CALLBACK_EXECUTOR}.
+     *
+     * This is disabled by default, so that the connections are spread over all I/O threads.
+     */
+    public final static String EVENT_LOOP_AFFINITY= "adbcj.eventLoop.affinity";
+
+    /**
+     * When 'true', the requests which a connection of the MySQL or H2 driver writes close together are encoded into
+     * one buffer and flushed with a single write, see {@code org.adbcj.netty.WriteCoalescer}.
+     * {@link DbSession#batch(Runnable)} holds back the requests until all of them are written.
+     * 'false' flushes every request on its own.
+     *
+     * This is enabled by default
+     */
+    public final static String WRITE_COALESCING= "adbcj.writeCoalescing";
+
+    /**
+     * How long in microseconds a request may wait for other requests to be flushed together.
+     * Default is 0, which flushes at the end of the event loop tick in which the request was written.
+     */
+    public final static String WRITE_COALESCING_MAX_DELAY_MICROS= "adbcj.writeCoalescing.maxDelayMicros";
+
+    /**
+     * Requests are flushed without further delay once they add up to this many bytes. Default is 65536.
+     */
+    public final static String WRITE_COALESCING_MAX_BYTES= "adbcj.writeCoalescing.maxBytes";
 }
@@ -1,10 +1,19 @@
 package org.adbcj.support;
 
 import org.adbcj.*;
+import org.adbcj.support.metrics.HistogramMetrics;
+import org.adbcj.support.metrics.MetricsRecorder;
+import org.adbcj.support.metrics.NoMetrics;
 import org.adbcj.support.stacktracing.StackTracingOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract implementation of a {@link ConnectionManager}. It does following things for you:
@@ -12,15 +21,44 @@ import java.util.Map;
  * @author roman.stoffel@gamlor.info
  */
 public abstract class AbstractConnectionManager implements ConnectionManager {
-
+    private static final Logger logger = LoggerFactory.getLogger(AbstractConnectionManager.class);
 
     protected final Map<String, String> properties;
     private final StackTracingOptions stackTracingOption;
+    private final Executor callbackExecutor;
+    private final ResultSetLayout resultSetLayout;
+    private final boolean lazyValueDecoding;
+    private final boolean stringDeduplication;
+    private final MetricsRecorder metrics;
+    private final RequestTimer requestTimer;
+    private final long requestTimeoutMillis;
+    private final DeadlineTimer deadlineTimer;
+    private final boolean eventLoopAffinity;
+    private final CoalescingPolicy coalescingPolicy;
+    private final int queueOverflowLength;
     private volatile DbFuture<Void> closeFuture = null;
 
     public AbstractConnectionManager(Map<String, String> properties) {
+        this(properties, DeadlineTimer.shared());
+    }
+
+    /**
+     * @param deadlineTimer keeps the default deadline of the requests, see {@link #applyDefaultDeadline(DbFuture)}
+     */
+    public AbstractConnectionManager(Map<String, String> properties, DeadlineTimer deadlineTimer) {
+        this.deadlineTimer = deadlineTimer;
         this.properties = Collections.unmodifiableMap(properties);
         this.stackTracingOption = readStackTracingOption(properties);
+        this.callbackExecutor = readCallbackExecutor(properties);
+        this.resultSetLayout = readResultSetLayout(properties);
+        this.lazyValueDecoding = "true".equalsIgnoreCase(properties.get(StandardProperties.LAZY_VALUE_DECODING));
+        this.stringDeduplication = "true".equalsIgnoreCase(properties.get(StandardProperties.STRING_DEDUPLICATION));
+        this.metrics = readMetrics(properties);
+        this.requestTimer = readRequestTimer(properties);
+        this.requestTimeoutMillis = readNumber(properties, StandardProperties.REQUEST_TIMEOUT_MILLIS, 0);
+        this.eventLoopAffinity = "true".equalsIgnoreCase(properties.get(StandardProperties.EVENT_LOOP_AFFINITY));
+        this.coalescingPolicy = CoalescingPolicy.fromProperties(properties);
+        this.queueOverflowLength = readQueueOverflowLength(properties);
     }
 
     public DbFuture<Void> close() {
@@ -33,6 +71,7 @@ public abstract class AbstractConnectionManager implements ConnectionManager {
             synchronized (this) {
                 if (!isClosed()) {
                     closeFuture = doClose(mode);
+                    shutdownCallbackExecutorOn(closeFuture);
                 }
             }
         }
@@ -53,19 +92,250 @@ public abstract class AbstractConnectionManager implements ConnectionManager {
         }
     }
 
+    /**
+     * @return how many requests over the {@link #maxQueueLength()} a connection parks, 0 when they fail.
+     * See {@link StandardProperties#QUEUE_OVERFLOW}
+     */
+    public int queueOverflowLength() {
+        return queueOverflowLength;
+    }
+
     public StackTracingOptions stackTracingOptions(){
         return stackTracingOption;
     }
 
+    /**
+     * @return the layout of result sets, unless a query asks for a specific layout.
+     * See {@link StandardProperties#RESULT_SET_LAYOUT}
+     */
+    public ResultSetLayout resultSetLayout(){
+        return resultSetLayout;
+    }
+
+    /**
+     * See {@link StandardProperties#LAZY_VALUE_DECODING}
+     */
+    public boolean lazyValueDecoding(){
+        return lazyValueDecoding;
+    }
+
+    /**
+     * See {@link StandardProperties#STRING_DEDUPLICATION}
+     */
+    public boolean stringDeduplication(){
+        return stringDeduplication;
+    }
+
+    /**
+     * @return the receiver of the metrics of this manager and its connections.
+     * See {@link StandardProperties#METRICS}
+     */
+    public MetricsRecorder metrics(){
+        return metrics;
+    }
+
+    /**
+     * @return the timer for the requests of the connections. {@link RequestTimer#DISABLED} unless
+     * {@link StandardProperties#REQUEST_TIMINGS} or {@link StandardProperties#SLOW_QUERY_THRESHOLD_MILLIS} is set
+     */
+    public RequestTimer requestTimer(){
+        return requestTimer;
+    }
+
+    /**
+     * @return the default deadline of requests in milliseconds, 0 for none.
+     * See {@link StandardProperties#REQUEST_TIMEOUT_MILLIS}
+     */
+    public long requestTimeoutMillis(){
+        return requestTimeoutMillis;
+    }
+
+    /**
+     * Gives a request which is queued the default deadline, if there is one
+     */
+    public void applyDefaultDeadline(DbFuture<?> request){
+        if (requestTimeoutMillis <= 0) {
+            return;
+        }
+        if (request instanceof DefaultDbFuture) {
+            ((DefaultDbFuture<?>) request).withDeadline(requestTimeoutMillis, TimeUnit.MILLISECONDS, deadlineTimer);
+        } else {
+            request.withDeadline(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * See {@link StandardProperties#WRITE_COALESCING}
+     */
+    public CoalescingPolicy coalescingPolicy(){
+        return coalescingPolicy;
+    }
+
+    /**
+     * See {@link StandardProperties#EVENT_LOOP_AFFINITY}
+     */
+    public boolean eventLoopAffinity(){
+        return eventLoopAffinity;
+    }
+
+    /**
+     * @return the event loop of the calling thread, if it is one of the I/O threads of this manager's connections.
+     * Null otherwise, and for drivers without event loops. See {@link EventLoopBound}
+     */
+    public Executor callerEventLoop(){
+        return null;
+    }
+
+    /**
+     * @return the timer for the deadlines of requests
+     */
+    public DeadlineTimer deadlineTimer(){
+        return deadlineTimer;
+    }
+
+    private static RequestTimer readRequestTimer(Map<String, String> properties) {
+        final boolean timeRequests = "true".equalsIgnoreCase(properties.get(StandardProperties.REQUEST_TIMINGS));
+        final long thresholdMillis = readNumber(properties, StandardProperties.SLOW_QUERY_THRESHOLD_MILLIS, -1);
+        if (!timeRequests && thresholdMillis < 0) {
+            return RequestTimer.DISABLED;
+        }
+        final long thresholdNanos = thresholdMillis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        return new RequestTimer(thresholdNanos,
+                (int) readNumber(properties, StandardProperties.SLOW_QUERY_SAMPLE_RATE, 1));
+    }
+
+    private static int readQueueOverflowLength(Map<String, String> properties) {
+        final String overflow = properties.get(StandardProperties.QUEUE_OVERFLOW);
+        if (null == overflow || overflow.equalsIgnoreCase("fail")) {
+            return 0;
+        }
+        if (!overflow.equalsIgnoreCase("park")) {
+            throw new IllegalArgumentException("The property " + StandardProperties.QUEUE_OVERFLOW
+                    + " has to be 'fail' or 'park', but was " + overflow);
+        }
+        final long length = readNumber(properties, StandardProperties.QUEUE_OVERFLOW_LENGTH, 1024);
+        if (length <= 0 || length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The property " + StandardProperties.QUEUE_OVERFLOW_LENGTH
+                    + " has to be positive number, but was " + length);
+        }
+        return (int) length;
+    }
+
+    private static MetricsRecorder readMetrics(Map<String, String> properties) {
+        final String metrics = properties.get(StandardProperties.METRICS);
+        if (null == metrics || metrics.equalsIgnoreCase("none")) {
+            return NoMetrics.INSTANCE;
+        }
+        if (metrics.equalsIgnoreCase("histogram")) {
+            return new HistogramMetrics();
+        }
+        try {
+            final Object instance = Class.forName(metrics).getDeclaredConstructor().newInstance();
+            if (!(instance instanceof MetricsRecorder)) {
+                throw new IllegalArgumentException("The property " + StandardProperties.METRICS
+                        + " has to be 'none', 'histogram' or the name of a " + MetricsRecorder.class.getName() + " class. Got: " + metrics);
+            }
+            return (MetricsRecorder) instance;
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Could not find the metrics class " + metrics
+                    + " of the property " + StandardProperties.METRICS, e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Could not create the metrics recorder " + metrics, e);
+        }
+    }
+
+    private static ResultSetLayout readResultSetLayout(Map<String, String> properties) {
+        final String layout = properties.get(StandardProperties.RESULT_SET_LAYOUT);
+        if (null == layout || layout.equalsIgnoreCase("rows")) {
+            return ResultSetLayout.ROWS;
+        } else if (layout.equalsIgnoreCase("columnar")) {
+            return ResultSetLayout.COLUMNAR;
+        } else {
+            throw new IllegalArgumentException("The property " + StandardProperties.RESULT_SET_LAYOUT
+                    + " has to be 'rows' or 'columnar', but was " + layout);
+        }
+    }
+
     private static StackTracingOptions readStackTracingOption(Map<String, String> properties) {
         final String callStackEnabled = properties.get(StandardProperties.CAPTURE_CALL_STACK);
-        if(null!= callStackEnabled && callStackEnabled.equalsIgnoreCase("true")){
+        if(null==callStackEnabled || callStackEnabled.equalsIgnoreCase("false")){
+            return StackTracingOptions.GLOBAL_DEFAULT;
+        } else if(callStackEnabled.equalsIgnoreCase("true")){
             return StackTracingOptions.FORCED_BY_INSTANCE;
+        } else if(callStackEnabled.equalsIgnoreCase("caller")){
+            return StackTracingOptions.CALLER_FRAME;
+        } else if(callStackEnabled.equalsIgnoreCase("sampled")){
+            return StackTracingOptions.sampled(
+                    (int) readNumber(properties, StandardProperties.CAPTURE_CALL_STACK_SAMPLE_RATE, 100));
+        } else if(callStackEnabled.equalsIgnoreCase("after-failure")){
+            return StackTracingOptions.afterFailure(
+                    readNumber(properties, StandardProperties.CAPTURE_CALL_STACK_WINDOW_MILLIS, 10000),
+                    TimeUnit.MILLISECONDS);
         } else{
+            // Like before there were more modes than 'true', unknown values keep the default
+            logger.warn("The property " + StandardProperties.CAPTURE_CALL_STACK
+                    + " should be 'true', 'false', 'caller', 'sampled' or 'after-failure', but was '"
+                    + callStackEnabled + "'. Using the default");
             return StackTracingOptions.GLOBAL_DEFAULT;
         }
     }
 
+    private static long readNumber(Map<String, String> properties, String property, long defaultValue) {
+        final String value = properties.get(property);
+        if(null==value){
+            return defaultValue;
+        }
+        try{
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e){
+            throw new IllegalArgumentException("The property " + property + " has to be a number, but was " + value);
+        }
+    }
+
+
+    /**
+     * @return the executor for listeners which are added without an explicit executor.
+     * Null means the listeners are run by the thread completing the future.
+     * See {@link StandardProperties#CALLBACK_EXECUTOR}
+     */
+    public Executor callbackExecutor(){
+        return callbackExecutor;
+    }
+
+    private static Executor readCallbackExecutor(Map<String, String> properties) {
+        final String executor = properties.get(StandardProperties.CALLBACK_EXECUTOR);
+        if (null == executor || executor.equalsIgnoreCase("inline")) {
+            return null;
+        }
+        if (executor.equalsIgnoreCase("common-pool")) {
+            return ForkJoinPool.commonPool();
+        }
+        try {
+            final Object instance = Class.forName(executor).getDeclaredConstructor().newInstance();
+            if (!(instance instanceof Executor)) {
+                throw new IllegalArgumentException("The property " + StandardProperties.CALLBACK_EXECUTOR
+                        + " has to be 'inline', 'common-pool' or the name of a " + Executor.class.getName() + " class. Got: " + executor);
+            }
+            return (Executor) instance;
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Could not find the executor class " + executor
+                    + " of the property " + StandardProperties.CALLBACK_EXECUTOR, e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Could not create the executor " + executor, e);
+        }
+    }
+
+    private void shutdownCallbackExecutorOn(DbFuture<Void> closed) {
+        if (!(callbackExecutor instanceof ExecutorService) || callbackExecutor == ForkJoinPool.commonPool()) {
+            return;
+        }
+        closed.addListener(new DbListener<Void>() {
+            @Override
+            public void onCompletion(DbFuture<Void> future) {
+                ((ExecutorService) callbackExecutor).shutdown();
+            }
+        });
+    }
 
     public final boolean isClosed() {
         return closeFuture != null;
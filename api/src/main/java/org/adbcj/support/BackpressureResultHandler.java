@@ -0,0 +1,14 @@
+package org.adbcj.support;
+
+import org.adbcj.ResultHandler;
+
+/**
+ * A {@link ResultHandler} which wants to slow down the driver when it cannot keep up.
+ * Drivers supporting backpressure pass their {@link ReadFlowControl} to this handler,
+ * before the query is sent.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public interface BackpressureResultHandler<T> extends ResultHandler<T> {
+    void useFlowControl(ReadFlowControl flowControl);
+}
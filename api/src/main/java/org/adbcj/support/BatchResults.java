@@ -0,0 +1,106 @@
+package org.adbcj.support;
+
+import org.adbcj.DbException;
+import org.adbcj.DbFuture;
+import org.adbcj.DbListener;
+import org.adbcj.Result;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the results of the statements of a batch, see {@link org.adbcj.DbSession#executeBatch(List)}.
+ * Once every statement reported back, the future of the batch is completed with the results in statement order,
+ * or fails with the error of the first statement which failed.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class BatchResults {
+    private final DefaultDbFuture<List<Result>> batchFuture;
+    private final Result[] results;
+    private int pending;
+    private int failedStatement = -1;
+    private Throwable failure;
+
+    public BatchResults(DefaultDbFuture<List<Result>> batchFuture, int statements) {
+        this.batchFuture = batchFuture;
+        this.results = new Result[statements];
+        this.pending = statements;
+    }
+
+    public void succeeded(int statement, Result result) {
+        synchronized (this) {
+            results[statement] = result;
+            if (0 != --pending) {
+                return;
+            }
+        }
+        complete();
+    }
+
+    public void failed(int statement, Throwable error) {
+        synchronized (this) {
+            if (null == failure || statement < failedStatement) {
+                failure = error;
+                failedStatement = statement;
+            }
+            if (0 != --pending) {
+                return;
+            }
+        }
+        complete();
+    }
+
+    /**
+     * Fails the batch right away, because of the given statement. For when no statement of the batch runs
+     */
+    public void abort(int statement, Throwable error) {
+        synchronized (this) {
+            failure = error;
+            failedStatement = statement;
+            pending = 0;
+        }
+        complete();
+    }
+
+    /**
+     * @return a future for a single statement, which reports to this batch when completed
+     */
+    public DefaultDbFuture<Result> statementFuture(final int statement) {
+        final DefaultDbFuture<Result> future = new DefaultDbFuture<Result>();
+        future.addInlineListener(new DbListener<Result>() {
+            @Override
+            public void onCompletion(DbFuture<Result> completed) {
+                switch (completed.getState()) {
+                    case SUCCESS:
+                        succeeded(statement, completed.getResult());
+                        break;
+                    case FAILURE:
+                        failed(statement, completed.getException());
+                        break;
+                    default:
+                        failed(statement, new DbException("Statement was cancelled"));
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Every statement reported back, so the results are not changed anymore
+     */
+    private void complete() {
+        final Throwable failure;
+        final int failedStatement;
+        synchronized (this) {
+            failure = this.failure;
+            failedStatement = this.failedStatement;
+        }
+        if (null == failure) {
+            batchFuture.trySetResult(Arrays.asList(results));
+        } else {
+            batchFuture.trySetException(new DbException("Statement " + (failedStatement + 1) + " of "
+                    + results.length + " in the batch failed: " + failure.getMessage(), failure));
+        }
+    }
+}
@@ -9,6 +9,11 @@ public final class CancellationToken implements CancellationAction {
     public static final CancellationToken NO_CANCELLATION = new CancellationToken(CancelState.TOO_LATE_TO_CANCEL);
 
     private AtomicReference<CancelState> state;
+    /**
+     * Cancels the operation on the server, once it was sent. Null if the operation cannot be cancelled then,
+     * or when that was already requested.
+     */
+    private CancellationAction cancelWhileRunning;
 
     public CancellationToken() {
         this.state = new AtomicReference<CancelState>(CancelState.NOT_CANCELLED);
@@ -17,11 +22,47 @@ public final class CancellationToken implements CancellationAction {
         this.state = new AtomicReference<CancelState>(state);
     }
 
+    /**
+     * Cancels the operation if it was not started yet. Otherwise asks the server to stop it,
+     * if the operation supports that, see {@link #cancelWhileRunningWith(CancellationAction)}.
+     * The server still answers a stopped operation, with an error or the partial result.
+     */
     @Override
     public boolean cancel() {
+        if (cancelIfNotStarted()) {
+            return true;
+        }
+        final CancellationAction serverCancellation = takeCancelWhileRunning();
+        return null != serverCancellation && serverCancellation.cancel();
+    }
+
+    /**
+     * Cancels the operation only if it was not started yet
+     */
+    public boolean cancelIfNotStarted() {
         return state.compareAndSet(CancelState.NOT_CANCELLED, CancelState.CANCELLED);
     }
 
+    /**
+     * Sets the action which asks the server to stop the operation, once it was started.
+     * The action is run at most once.
+     */
+    public synchronized void cancelWhileRunningWith(CancellationAction serverCancellation) {
+        if (this == NO_CANCELLATION) {
+            throw new IllegalStateException("The shared token for operations which cannot be cancelled is not changeable");
+        }
+        this.cancelWhileRunning = serverCancellation;
+    }
+
+    private synchronized CancellationAction takeCancelWhileRunning() {
+        if (state.get() != CancelState.TOO_LATE_TO_CANCEL) {
+            return null;
+        }
+        final CancellationAction action = cancelWhileRunning;
+        cancelWhileRunning = null;
+        return action;
+    }
+
     /**
      * Tries to start this operation. If it can, it will return true.
      * If it returns false, the action is cancelled and should be aborted
@@ -0,0 +1,162 @@
+package org.adbcj.support;
+
+import org.adbcj.DbException;
+import org.adbcj.DbFuture;
+import org.adbcj.DbListener;
+import org.adbcj.FutureState;
+import org.adbcj.Result;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Executes a prepared update for a stream of parameter sets, see {@link org.adbcj.PreparedUpdate#executeBatch(Iterable)}.
+ *
+ * The parameter sets are taken from the iterator in chunks, and the driver sends each chunk as one request.
+ * Only {@link #CHUNKS_IN_FLIGHT} chunks are sent ahead: the next chunk is taken from the iterator when a chunk
+ * completed. So the memory for the parameter sets stays bounded, while the connection still has work queued.
+ *
+ * Once a chunk failed no more chunks are sent, and the batch fails when the chunks in flight completed.
+ * Cancelling the batch stops sending further chunks.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public abstract class ChunkedBatch {
+    /**
+     * Default amount of parameter sets sent in one request
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+    static final int CHUNKS_IN_FLIGHT = 2;
+
+    private final Iterator<Object[]> parameterSets;
+    private final DefaultDbFuture<List<Result>> batchFuture;
+    private final int chunkSize;
+    private final List<List<Result>> chunkResults = new ArrayList<List<Result>>();
+    private int parameterSetsTaken = 0;
+    private int chunksInFlight = 0;
+    private boolean sending = false;
+    private boolean completed = false;
+    private DbException failure;
+
+    protected ChunkedBatch(Iterable<Object[]> parameterSets, DefaultDbFuture<List<Result>> batchFuture, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size has to be positive, but was " + chunkSize);
+        }
+        this.parameterSets = parameterSets.iterator();
+        this.batchFuture = batchFuture;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sends the parameter sets as one request.
+     *
+     * @return future which completes with one result per parameter set
+     */
+    protected abstract DbFuture<List<Result>> executeChunk(List<Object[]> chunk);
+
+    /**
+     * Sends the first chunks.
+     *
+     * @return the future of the whole batch
+     */
+    public DbFuture<List<Result>> start() {
+        sendChunks();
+        return batchFuture;
+    }
+
+    private void sendChunks() {
+        synchronized (this) {
+            if (sending) {
+                // The sending thread checks again for room before it stops
+                return;
+            }
+            sending = true;
+        }
+        while (true) {
+            final List<Object[]> chunk;
+            final int chunkIndex;
+            final int firstParameterSet;
+            synchronized (this) {
+                if (null != failure || chunksInFlight >= CHUNKS_IN_FLIGHT
+                        || batchFuture.isDone() || !parameterSets.hasNext()) {
+                    sending = false;
+                    break;
+                }
+                firstParameterSet = parameterSetsTaken;
+                chunk = new ArrayList<Object[]>(chunkSize);
+                while (chunk.size() < chunkSize && parameterSets.hasNext()) {
+                    chunk.add(parameterSets.next());
+                }
+                parameterSetsTaken += chunk.size();
+                chunkIndex = chunkResults.size();
+                chunkResults.add(null);
+                chunksInFlight++;
+            }
+            final DbFuture<List<Result>> chunkFuture;
+            try {
+                chunkFuture = executeChunk(chunk);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    chunksInFlight--;
+                    failed(firstParameterSet, e);
+                }
+                continue;
+            }
+            chunkFuture.addListener(new DbListener<List<Result>>() {
+                @Override
+                public void onCompletion(DbFuture<List<Result>> future) {
+                    chunkCompleted(chunkIndex, firstParameterSet, future);
+                }
+            });
+        }
+        completeWhenDone();
+    }
+
+    private void chunkCompleted(int chunkIndex, int firstParameterSet, DbFuture<List<Result>> chunk) {
+        synchronized (this) {
+            chunksInFlight--;
+            if (FutureState.SUCCESS == chunk.getState()) {
+                chunkResults.set(chunkIndex, chunk.getResult());
+            } else if (FutureState.FAILURE == chunk.getState()) {
+                failed(firstParameterSet, chunk.getException());
+            } else {
+                failed(firstParameterSet, new DbException("Request was cancelled"));
+            }
+        }
+        sendChunks();
+    }
+
+    private void failed(int firstParameterSet, Throwable cause) {
+        if (null == failure) {
+            failure = new DbException("Batch failed in the parameter sets starting at "
+                    + (firstParameterSet + 1) + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    private void completeWhenDone() {
+        final DbException failure;
+        final List<Result> results;
+        synchronized (this) {
+            if (completed || sending || 0 != chunksInFlight) {
+                return;
+            }
+            if (null == this.failure && parameterSets.hasNext()) {
+                return;
+            }
+            completed = true;
+            failure = this.failure;
+            results = new ArrayList<Result>(parameterSetsTaken);
+            if (null == failure) {
+                for (List<Result> chunkResult : chunkResults) {
+                    results.addAll(chunkResult);
+                }
+            }
+        }
+        if (null == failure) {
+            batchFuture.trySetResult(results);
+        } else {
+            batchFuture.trySetException(failure);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.adbcj.support;
+
+import org.adbcj.StandardProperties;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When the requests of a connection are flushed to the socket, see {@link StandardProperties#WRITE_COALESCING}.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class CoalescingPolicy {
+    public static final int DEFAULT_MAX_BYTES = 64 * 1024;
+
+    /**
+     * Every request is flushed on its own
+     */
+    public static final CoalescingPolicy DISABLED = new CoalescingPolicy(false, 0, 0);
+
+    /**
+     * Requests are flushed at the end of the event loop tick in which they were written
+     */
+    public static final CoalescingPolicy SAME_TICK = new CoalescingPolicy(true, 0, DEFAULT_MAX_BYTES);
+
+    private final boolean enabled;
+    private final long maxDelayNanos;
+    private final int maxBytes;
+
+    private CoalescingPolicy(boolean enabled, long maxDelayNanos, int maxBytes) {
+        this.enabled = enabled;
+        this.maxDelayNanos = maxDelayNanos;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param maxDelay how long a request may wait for others to be flushed with. 0 flushes at the end of the current event loop tick
+     * @param maxBytes the requests are flushed once they add up to this many bytes, without waiting any longer
+     */
+    public static CoalescingPolicy coalesce(long maxDelay, TimeUnit unit, int maxBytes) {
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("The delay cannot be negative, but was " + maxDelay);
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("The max bytes has to be positive, but was " + maxBytes);
+        }
+        return new CoalescingPolicy(true, unit.toNanos(maxDelay), maxBytes);
+    }
+
+    public static CoalescingPolicy fromProperties(Map<String, String> properties) {
+        final String enabled = properties.get(StandardProperties.WRITE_COALESCING);
+        if (null != enabled && enabled.equalsIgnoreCase("false")) {
+            return DISABLED;
+        }
+        if (null != enabled && !enabled.equalsIgnoreCase("true")) {
+            throw new IllegalArgumentException("The property " + StandardProperties.WRITE_COALESCING
+                    + " has to be 'true' or 'false', but was " + enabled);
+        }
+        return coalesce(readNumber(properties, StandardProperties.WRITE_COALESCING_MAX_DELAY_MICROS, 0),
+                TimeUnit.MICROSECONDS,
+                (int) readNumber(properties, StandardProperties.WRITE_COALESCING_MAX_BYTES, DEFAULT_MAX_BYTES));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long maxDelayNanos() {
+        return maxDelayNanos;
+    }
+
+    public int maxBytes() {
+        return maxBytes;
+    }
+
+    private static long readNumber(Map<String, String> properties, String property, long defaultValue) {
+        final String value = properties.get(property);
+        if (null == value) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The property " + property + " has to be a number, but was " + value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return enabled
+                ? "CoalescingPolicy{maxDelayNanos=" + maxDelayNanos + ", maxBytes=" + maxBytes + "}"
+                : "CoalescingPolicy{disabled}";
+    }
+}
@@ -0,0 +1,73 @@
+package org.adbcj.support;
+
+import org.adbcj.Field;
+import org.adbcj.PrimitiveResultHandler;
+import org.adbcj.Value;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fills a {@link ColumnarResultSet}.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class ColumnarResultEventsHandler implements PrimitiveResultHandler<ColumnarResultSet> {
+    private int column;
+
+    public void startFields(ColumnarResultSet accumulator) {
+    }
+
+    public void field(Field field, ColumnarResultSet accumulator) {
+        accumulator.addField(field);
+    }
+
+    public void endFields(ColumnarResultSet accumulator) {
+    }
+
+    public void startResults(ColumnarResultSet accumulator) {
+    }
+
+    public void startRow(ColumnarResultSet accumulator) {
+        column = 0;
+    }
+
+    public void value(Value value, ColumnarResultSet accumulator) {
+        accumulator.appendObject(column, value.getValue());
+        column++;
+    }
+
+    public void intValue(int column, int value, ColumnarResultSet accumulator) {
+        accumulator.appendInt(column, value);
+        this.column = column + 1;
+    }
+
+    public void longValue(int column, long value, ColumnarResultSet accumulator) {
+        accumulator.appendLong(column, value);
+        this.column = column + 1;
+    }
+
+    public void doubleValue(int column, double value, ColumnarResultSet accumulator) {
+        accumulator.appendDouble(column, value);
+        this.column = column + 1;
+    }
+
+    public void nullValue(int column, ColumnarResultSet accumulator) {
+        accumulator.appendNull(column);
+        this.column = column + 1;
+    }
+
+    public void bytesValue(int column, ByteBuffer value, ColumnarResultSet accumulator) {
+        accumulator.appendText(column, value);
+        this.column = column + 1;
+    }
+
+    public void endRow(ColumnarResultSet accumulator) {
+        accumulator.endRow();
+    }
+
+    public void endResults(ColumnarResultSet accumulator) {
+    }
+
+    public void exception(Throwable t, ColumnarResultSet accumulator) {
+    }
+}
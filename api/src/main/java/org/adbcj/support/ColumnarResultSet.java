@@ -0,0 +1,688 @@
+package org.adbcj.support;
+
+import org.adbcj.Field;
+import org.adbcj.ResultSet;
+import org.adbcj.Row;
+import org.adbcj.Type;
+import org.adbcj.Value;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * A {@link ResultSet} which stores its values per column instead of per row.
+ * Numbers are kept in primitive arrays, null values in a bit set per column and
+ * the text of character columns in a dictionary per column, so that repeated text is only stored once.
+ * Raw bytes are stored by the {@link Type} of their column: decimals as {@link BigDecimal},
+ * binary columns as byte arrays and other columns as strings, like the row based results return them.
+ *
+ * The rows of this result set are views onto the columns, created on access.
+ * For scanning large results without creating row objects use the accessors
+ * like {@link #getInt(int, int)} directly.
+ *
+ * Is filled by a {@link ColumnarResultEventsHandler}.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class ColumnarResultSet extends AbstractList<Row> implements ResultSet {
+    private static final Charset TEXT_CHARSET = Charset.forName("UTF-8");
+    private static final Charset NUMBER_CHARSET = Charset.forName("US-ASCII");
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final DefaultResultSet fields = new DefaultResultSet();
+    private Column[] columns = new Column[0];
+    private int size = 0;
+
+    @Override
+    public Row get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new ColumnarRow(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public List<? extends Field> getFields() {
+        return fields.getFields();
+    }
+
+    public Field getField(Object key) {
+        return fields.getField(key);
+    }
+
+    public boolean isNull(int row, int column) {
+        return columns[column].nulls.get(row);
+    }
+
+    /**
+     * @return the value as int, or 0 if it is null
+     */
+    public int getInt(int row, int column) {
+        return columns[column].getInt(row);
+    }
+
+    /**
+     * @return the value as long, or 0 if it is null
+     */
+    public long getLong(int row, int column) {
+        return columns[column].getLong(row);
+    }
+
+    /**
+     * @return the value as double, or 0 if it is null
+     */
+    public double getDouble(int row, int column) {
+        return columns[column].getDouble(row);
+    }
+
+    /**
+     * @return the value as string, or null if it is null
+     */
+    public String getString(int row, int column) {
+        final Object value = getObject(row, column);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * @return the value in its native type, or null if it is null
+     */
+    public Object getObject(int row, int column) {
+        if (isNull(row, column)) {
+            return null;
+        }
+        return columns[column].get(row);
+    }
+
+    void addField(Field field) {
+        fields.addField(field);
+        columns = Arrays.copyOf(columns, columns.length + 1);
+        columns[columns.length - 1] = new EmptyColumn(new BitSet());
+    }
+
+    void appendNull(int column) {
+        final Column current = columns[column];
+        current.nulls.set(size);
+        current.appendDefault(size);
+    }
+
+    void appendInt(int column, int value) {
+        columnFor(column, IntColumn.class).appendInt(size, value);
+    }
+
+    void appendLong(int column, long value) {
+        columnFor(column, LongColumn.class).appendLong(size, value);
+    }
+
+    void appendDouble(int column, double value) {
+        columnFor(column, DoubleColumn.class).appendDouble(size, value);
+    }
+
+    void appendText(int column, ByteBuffer value) {
+        final Type type = fields.getFields().get(column).getColumnType();
+        if (isCharacterType(type)) {
+            columnFor(column, StringColumn.class).appendText(size, value);
+        } else if (type == Type.DECIMAL || type == Type.NUMERIC) {
+            appendObject(column, new BigDecimal(NUMBER_CHARSET.decode(value.duplicate()).toString()));
+        } else if (isBinaryType(type)) {
+            final byte[] bytes = new byte[value.remaining()];
+            value.duplicate().get(bytes);
+            appendObject(column, bytes);
+        } else {
+            columnFor(column, ObjectColumn.class).appendText(size, value);
+        }
+    }
+
+    void appendObject(int column, Object value) {
+        if (value == null) {
+            appendNull(column);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            appendInt(column, ((Number) value).intValue());
+        } else if (value instanceof Long) {
+            appendLong(column, (Long) value);
+        } else if (value instanceof Double) {
+            appendDouble(column, (Double) value);
+        } else if (value instanceof String && isCharacterType(fields.getFields().get(column).getColumnType())) {
+            columnFor(column, StringColumn.class).appendString(size, (String) value);
+        } else {
+            columnFor(column, ObjectColumn.class).appendObject(size, value);
+        }
+    }
+
+    void endRow() {
+        size++;
+    }
+
+    /**
+     * Returns a column which can store the given kind of values, converting the existing column if required
+     */
+    private Column columnFor(int column, Class<? extends Column> kind) {
+        final Column current = columns[column];
+        if (kind.isInstance(current) || current instanceof ObjectColumn) {
+            return current;
+        }
+        final Column converted;
+        if (current instanceof EmptyColumn) {
+            converted = newColumn(kind, current.nulls);
+        } else if (current instanceof IntColumn && kind == LongColumn.class) {
+            converted = new LongColumn(current.nulls);
+        } else if (current instanceof LongColumn && kind == IntColumn.class) {
+            return current;
+        } else {
+            converted = new ObjectColumn(current.nulls);
+        }
+        for (int row = 0; row < size; row++) {
+            if (current.nulls.get(row)) {
+                converted.appendDefault(row);
+            } else if (converted instanceof LongColumn) {
+                converted.appendLong(row, current.getLong(row));
+            } else {
+                converted.appendObject(row, current.get(row));
+            }
+        }
+        columns[column] = converted;
+        return converted;
+    }
+
+    private static Column newColumn(Class<? extends Column> kind, BitSet nulls) {
+        if (kind == IntColumn.class) {
+            return new IntColumn(nulls);
+        } else if (kind == LongColumn.class) {
+            return new LongColumn(nulls);
+        } else if (kind == DoubleColumn.class) {
+            return new DoubleColumn(nulls);
+        } else if (kind == StringColumn.class) {
+            return new StringColumn(nulls);
+        } else {
+            return new ObjectColumn(nulls);
+        }
+    }
+
+    private static boolean isCharacterType(Type type) {
+        return type == Type.CHAR || type == Type.VARCHAR || type == Type.LONGVARCHAR || type == Type.CLOB;
+    }
+
+    private static boolean isBinaryType(Type type) {
+        return type == Type.BINARY || type == Type.VARBINARY || type == Type.LONGVARBINARY || type == Type.BLOB;
+    }
+
+    static int grownCapacity(int currentCapacity, int requiredIndex) {
+        int capacity = Math.max(currentCapacity, INITIAL_CAPACITY);
+        while (capacity <= requiredIndex) {
+            capacity = capacity << 1;
+        }
+        return capacity;
+    }
+
+    private abstract static class Column {
+        final BitSet nulls;
+
+        Column(BitSet nulls) {
+            this.nulls = nulls;
+        }
+
+        abstract Object get(int row);
+
+        abstract void appendDefault(int row);
+
+        int getInt(int row) {
+            return isNullAt(row) ? 0 : new DefaultValue(get(row)).getInt();
+        }
+
+        long getLong(int row) {
+            return isNullAt(row) ? 0L : new DefaultValue(get(row)).getLong();
+        }
+
+        double getDouble(int row) {
+            return isNullAt(row) ? 0d : new DefaultValue(get(row)).getDouble();
+        }
+
+        void appendInt(int row, int value) {
+            throw new UnsupportedOperationException("Cannot store int in " + getClass().getSimpleName());
+        }
+
+        void appendLong(int row, long value) {
+            throw new UnsupportedOperationException("Cannot store long in " + getClass().getSimpleName());
+        }
+
+        void appendDouble(int row, double value) {
+            throw new UnsupportedOperationException("Cannot store double in " + getClass().getSimpleName());
+        }
+
+        void appendObject(int row, Object value) {
+            throw new UnsupportedOperationException("Cannot store object in " + getClass().getSimpleName());
+        }
+
+        void appendString(int row, String value) {
+            throw new UnsupportedOperationException("Cannot store text in " + getClass().getSimpleName());
+        }
+
+        void appendText(int row, ByteBuffer value) {
+            throw new UnsupportedOperationException("Cannot store text in " + getClass().getSimpleName());
+        }
+
+        final boolean isNullAt(int row) {
+            return nulls.get(row);
+        }
+    }
+
+    /**
+     * A column which only had null values so far
+     */
+    private static final class EmptyColumn extends Column {
+        EmptyColumn(BitSet nulls) {
+            super(nulls);
+        }
+
+        @Override
+        Object get(int row) {
+            return null;
+        }
+
+        @Override
+        void appendDefault(int row) {
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        IntColumn(BitSet nulls) {
+            super(nulls);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        int getInt(int row) {
+            return values[row];
+        }
+
+        @Override
+        long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        void appendDefault(int row) {
+            appendInt(row, 0);
+        }
+
+        @Override
+        void appendInt(int row, int value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grownCapacity(values.length, row));
+            }
+            values[row] = value;
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        LongColumn(BitSet nulls) {
+            super(nulls);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        int getInt(int row) {
+            return (int) values[row];
+        }
+
+        @Override
+        long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        void appendDefault(int row) {
+            appendLong(row, 0L);
+        }
+
+        @Override
+        void appendInt(int row, int value) {
+            appendLong(row, value);
+        }
+
+        @Override
+        void appendLong(int row, long value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grownCapacity(values.length, row));
+            }
+            values[row] = value;
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        DoubleColumn(BitSet nulls) {
+            super(nulls);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        int getInt(int row) {
+            return (int) values[row];
+        }
+
+        @Override
+        long getLong(int row) {
+            return (long) values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        void appendDefault(int row) {
+            appendDouble(row, 0d);
+        }
+
+        @Override
+        void appendDouble(int row, double value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grownCapacity(values.length, row));
+            }
+            values[row] = value;
+        }
+    }
+
+    /**
+     * Stores a code per row, which points into a dictionary of the distinct texts of this column
+     */
+    private static final class StringColumn extends Column {
+        private int[] codes = new int[INITIAL_CAPACITY];
+        private final List<String> dictionary = new ArrayList<String>();
+        private final Map<String, Integer> codesByText = new HashMap<String, Integer>();
+        private final Map<ByteBuffer, Integer> codesByBytes = new HashMap<ByteBuffer, Integer>();
+
+        StringColumn(BitSet nulls) {
+            super(nulls);
+        }
+
+        @Override
+        Object get(int row) {
+            return dictionary.get(codes[row]);
+        }
+
+        @Override
+        void appendDefault(int row) {
+            appendCode(row, -1);
+        }
+
+        @Override
+        void appendString(int row, String value) {
+            Integer code = codesByText.get(value);
+            if (code == null) {
+                code = addToDictionary(value);
+            }
+            appendCode(row, code);
+        }
+
+        /**
+         * Looks up the text by its bytes, so that known texts are not decoded again
+         */
+        @Override
+        void appendText(int row, ByteBuffer value) {
+            Integer code = codesByBytes.get(value);
+            if (code == null) {
+                final ByteBuffer key = ByteBuffer.allocate(value.remaining());
+                key.put(value.duplicate()).flip();
+                final String text = TEXT_CHARSET.decode(value.duplicate()).toString();
+                code = codesByText.get(text);
+                if (code == null) {
+                    code = addToDictionary(text);
+                }
+                codesByBytes.put(key, code);
+            }
+            appendCode(row, code);
+        }
+
+        private Integer addToDictionary(String value) {
+            final Integer code = dictionary.size();
+            dictionary.add(value);
+            codesByText.put(value, code);
+            return code;
+        }
+
+        private void appendCode(int row, int code) {
+            if (row >= codes.length) {
+                codes = Arrays.copyOf(codes, grownCapacity(codes.length, row));
+            }
+            codes[row] = code;
+        }
+    }
+
+    /**
+     * Values without a primitive representation, like dates or decimals
+     */
+    private static final class ObjectColumn extends Column {
+        private Object[] values = new Object[INITIAL_CAPACITY];
+
+        ObjectColumn(BitSet nulls) {
+            super(nulls);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void appendDefault(int row) {
+            appendObject(row, null);
+        }
+
+        @Override
+        void appendInt(int row, int value) {
+            appendObject(row, value);
+        }
+
+        @Override
+        void appendLong(int row, long value) {
+            appendObject(row, value);
+        }
+
+        @Override
+        void appendDouble(int row, double value) {
+            appendObject(row, value);
+        }
+
+        @Override
+        void appendString(int row, String value) {
+            appendObject(row, value);
+        }
+
+        @Override
+        void appendText(int row, ByteBuffer value) {
+            appendObject(row, TEXT_CHARSET.decode(value.duplicate()).toString());
+        }
+
+        @Override
+        void appendObject(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grownCapacity(values.length, row));
+            }
+            values[row] = value;
+        }
+    }
+
+    /**
+     * A row is a view onto the columns of the result set.
+     */
+    private final class ColumnarRow extends AbstractMap<Object, Value> implements Row {
+        private final int row;
+
+        ColumnarRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public ResultSet getResultSet() {
+            return ColumnarResultSet.this;
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return getField(key) != null;
+        }
+
+        @Override
+        public Value get(Object key) {
+            return new CellValue(row, getField(key).getIndex());
+        }
+
+        @Override
+        public Value remove(Object key) {
+            throw new UnsupportedOperationException("Results set rows are read-only");
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException("Results set rows are read-only");
+        }
+
+        @Override
+        public Set<Entry<Object, Value>> entrySet() {
+            return new AbstractSet<Entry<Object, Value>>() {
+                @Override
+                public Iterator<Entry<Object, Value>> iterator() {
+                    return new Iterator<Entry<Object, Value>>() {
+                        private int column = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return column < columns.length;
+                        }
+
+                        @Override
+                        public Entry<Object, Value> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            final Field field = getFields().get(column);
+                            final Value value = new CellValue(row, column);
+                            column++;
+                            return new SimpleImmutableEntry<Object, Value>(field, value);
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException("Results set rows are read-only");
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return columns.length;
+                }
+            };
+        }
+    }
+
+    private final class CellValue implements Value {
+        private final int row;
+        private final int column;
+
+        CellValue(int row, int column) {
+            this.row = row;
+            this.column = column;
+        }
+
+        @Override
+        public BigDecimal getBigDecimal() {
+            return asDefaultValue().getBigDecimal();
+        }
+
+        @Override
+        public boolean getBoolean() {
+            return asDefaultValue().getBoolean();
+        }
+
+        @Override
+        public Date getDate() {
+            return asDefaultValue().getDate();
+        }
+
+        @Override
+        public double getDouble() {
+            return ColumnarResultSet.this.getDouble(row, column);
+        }
+
+        @Override
+        public float getFloat() {
+            return (float) getDouble();
+        }
+
+        @Override
+        public int getInt() {
+            return ColumnarResultSet.this.getInt(row, column);
+        }
+
+        @Override
+        public long getLong() {
+            return ColumnarResultSet.this.getLong(row, column);
+        }
+
+        @Override
+        public String getString() {
+            return ColumnarResultSet.this.getString(row, column);
+        }
+
+        @Override
+        public Object getValue() {
+            return getObject(row, column);
+        }
+
+        @Override
+        public boolean isNull() {
+            return ColumnarResultSet.this.isNull(row, column);
+        }
+
+        private DefaultValue asDefaultValue() {
+            return new DefaultValue(getValue());
+        }
+
+        @Override
+        public String toString() {
+            String s = getString();
+            return s == null ? "null" : s;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.adbcj.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hashed wheel timer for request deadlines, see {@link org.adbcj.DbFuture#withDeadline(long, TimeUnit)}.
+ *
+ * Scheduling and cancelling a deadline is O(1) and does not take a lock, so that every request can have one.
+ * The price is precision: deadlines expire on the next tick after they are due. Nearly all deadlines are
+ * cancelled, because the request completes in time. Cancelled deadlines are dropped when the wheel passes them.
+ *
+ * A single daemon thread drives the wheel. It is started with the first deadline and shared by all connections.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class DeadlineTimer {
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineTimer.class);
+    private static final long DEFAULT_TICK_MILLIS = 10;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final class SharedInstance {
+        static final DeadlineTimer INSTANCE = new DeadlineTimer(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    private final long tickNanos;
+    private final Deadline[] wheel;
+    private final int mask;
+    private final ConcurrentLinkedQueue<Deadline> newDeadlines = new ConcurrentLinkedQueue<Deadline>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final long startTime = System.nanoTime();
+    private long tick = 0;
+
+    /**
+     * A timer of its own, for example for an {@code org.adbcj.netty.EventLoopRuntime}. Usually the {@link #shared()} timer is enough.
+     *
+     * @param wheelSize rounded up to a power of two
+     */
+    public DeadlineTimer(long tickMillis, int wheelSize) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("The tick has to be at least a millisecond, but was " + tickMillis);
+        }
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheel = new Deadline[size];
+        this.mask = size - 1;
+    }
+
+    public static DeadlineTimer shared() {
+        return SharedInstance.INSTANCE;
+    }
+
+    /**
+     * Runs the task on the timer thread once the delay passed, unless the returned deadline is cancelled before.
+     * The task has to be short, it delays all other deadlines.
+     */
+    public Deadline schedule(Runnable task, long delay, TimeUnit unit) {
+        final Deadline deadline = new Deadline(task, System.nanoTime() + unit.toNanos(delay));
+        newDeadlines.add(deadline);
+        if (!started.get() && started.compareAndSet(false, true)) {
+            startWorker();
+        }
+        return deadline;
+    }
+
+    private void startWorker() {
+        final Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    waitForNextTick();
+                    runTick();
+                }
+            }
+        }, "adbcj-deadline-timer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void waitForNextTick() {
+        final long nextTick = startTime + (tick + 1) * tickNanos;
+        long sleepNanos;
+        while ((sleepNanos = nextTick - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                // The timer runs as long as the JVM
+            }
+        }
+    }
+
+    /**
+     * Runs on the timer thread only, so the wheel itself needs no synchronisation
+     */
+    void runTick() {
+        tick++;
+        final long now = System.nanoTime();
+        transferNewDeadlines();
+        final int bucket = (int) (tick & mask);
+        Deadline previous = null;
+        Deadline current = wheel[bucket];
+        while (null != current) {
+            final Deadline next = current.next;
+            boolean remove = current.isCancelled();
+            if (!remove && current.remainingRounds <= 0 && current.dueTime - now <= 0) {
+                remove = true;
+                current.expire();
+            } else if (!remove) {
+                current.remainingRounds--;
+            }
+            if (remove) {
+                if (null == previous) {
+                    wheel[bucket] = next;
+                } else {
+                    previous.next = next;
+                }
+                current.next = null;
+            } else {
+                previous = current;
+            }
+            current = next;
+        }
+    }
+
+    private void transferNewDeadlines() {
+        Deadline deadline;
+        while (null != (deadline = newDeadlines.poll())) {
+            if (deadline.isCancelled()) {
+                continue;
+            }
+            final long ticksFromStart = Math.max(tick, (deadline.dueTime - startTime + tickNanos - 1) / tickNanos);
+            deadline.remainingRounds = (ticksFromStart - tick) / wheel.length;
+            final int bucket = (int) (ticksFromStart & mask);
+            deadline.next = wheel[bucket];
+            wheel[bucket] = deadline;
+        }
+    }
+
+    /**
+     * A scheduled task
+     */
+    public static final class Deadline {
+        private volatile Runnable task;
+        private final long dueTime;
+        // Only accessed by the timer thread
+        private long remainingRounds;
+        private Deadline next;
+
+        Deadline(Runnable task, long dueTime) {
+            this.task = task;
+            this.dueTime = dueTime;
+        }
+
+        /**
+         * Cancels the task, unless it already runs. Drops the reference to the task right away.
+         */
+        public void cancel() {
+            task = null;
+        }
+
+        public boolean isCancelled() {
+            return null == task;
+        }
+
+        private void expire() {
+            final Runnable toRun = task;
+            task = null;
+            if (null == toRun) {
+                return;
+            }
+            try {
+                toRun.run();
+            } catch (Throwable e) {
+                logger.error("Deadline task failed: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -19,20 +19,46 @@ package org.adbcj.support;
 import org.adbcj.DbException;
 import org.adbcj.DbFuture;
 import org.adbcj.DbListener;
+import org.adbcj.DbTimeoutException;
 import org.adbcj.FutureState;
+import org.adbcj.support.DefaultRequestTimings;
 import org.adbcj.support.stacktracing.MarkEntryPointToAdbcjException;
 import org.adbcj.support.stacktracing.StackTracingOptions;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Default future implementation.
+ *
+ * Listeners and blocked threads are kept in two lock free stacks. Completing the future
+ * swaps each stack with a marker node. So completing a future which nobody waits on costs
+ * two atomic swaps, no monitor is entered and no thread is woken up.
+ *
+ * Listeners without an executor run on the completing thread, through a trampoline, so that
+ * completing a long chain of dependent futures does not recurse.
+ */
 public class DefaultDbFuture<T> implements DbFuture<T> {
 
-    private final List<DbListener<T>> otherListeners = new ArrayList<DbListener<T>>(1);
+    private static final AtomicReferenceFieldUpdater<DefaultDbFuture,ListenerNode> LISTENERS
+            = AtomicReferenceFieldUpdater.newUpdater(DefaultDbFuture.class, ListenerNode.class, "listeners");
+    private static final AtomicReferenceFieldUpdater<DefaultDbFuture,WaitNode> WAITERS
+            = AtomicReferenceFieldUpdater.newUpdater(DefaultDbFuture.class, WaitNode.class, "waiters");
+
+    /**
+     * Top of the listener stack. {@link ListenerNode#DRAINED} after completion
+     */
+    private volatile ListenerNode listeners = null;
+    /**
+     * Top of the stack of threads blocked in get(). {@link WaitNode#DRAINED} after completion
+     */
+    private volatile WaitNode waiters = null;
 
     private final CancellationAction optionalCancellation;
 
@@ -40,30 +66,63 @@ public class DefaultDbFuture<T> implements DbFuture<T> {
 
     private final MarkEntryPointToAdbcjException entryPointMarking;
 
+    /**
+     * Told about failures, can be null
+     */
+    private final StackTracingOptions stackTracingOptions;
+
+    /**
+     * Executor for listeners added without an explicit executor. Null runs them on the completing thread.
+     */
+    private final Executor callbackExecutor;
+
+    /**
+     * Set before the request is sent, null when the request is not timed
+     */
+    private volatile DefaultRequestTimings timings;
+    private RequestTimer timer;
+
 
     public DefaultDbFuture(StackTracingOptions stackTraceOption,CancellationAction cancelAction) {
-        this.entryPointMarking = stackTraceOption.captureStacktraceAtEntryPoint();
-        this.optionalCancellation = cancelAction;
+        this(stackTraceOption, cancelAction, null);
     }
 
     public DefaultDbFuture(StackTracingOptions stackTraceOption) {
+        this(stackTraceOption, null, null);
+    }
+
+    /**
+     * @param cancelAction action to cancel the operation, or null if it cannot be cancelled
+     * @param callbackExecutor executor for listeners added with {@link #addListener(DbListener)},
+     *                         or null to run them on the thread completing this future
+     */
+    public DefaultDbFuture(StackTracingOptions stackTraceOption,CancellationAction cancelAction, Executor callbackExecutor) {
         this.entryPointMarking = stackTraceOption.captureStacktraceAtEntryPoint();
-        this.optionalCancellation = null;
+        this.stackTracingOptions = stackTraceOption;
+        this.optionalCancellation = cancelAction;
+        this.callbackExecutor = callbackExecutor;
     }
 
     /**
      * Intended for internal use, for example for transformation adaptors
      */
     protected DefaultDbFuture() {
-        this.entryPointMarking = null;
-        this.optionalCancellation = null;
+        this((CancellationAction) null);
     }
     /**
      * Intended for internal use, for example for transformation adaptors
      */
     protected DefaultDbFuture(CancellationAction cancelAction) {
+        this(cancelAction, null);
+    }
+    /**
+     * Intended for internal use, for example for transformation adaptors
+     */
+    protected DefaultDbFuture(CancellationAction cancelAction, Executor callbackExecutor) {
         this.entryPointMarking = null;
+        this.stackTracingOptions = null;
         this.optionalCancellation = cancelAction;
+        this.callbackExecutor = callbackExecutor;
     }
 
 
@@ -81,27 +140,138 @@ public class DefaultDbFuture<T> implements DbFuture<T> {
     }
 
     public DbFuture<T> addListener(DbListener<T> listener) {
+        return addListenerWithExecutor(listener, callbackExecutor);
+    }
+
+    public DbFuture<T> addListener(DbListener<T> listener, Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor can NOT be null");
+        }
+        return addListenerWithExecutor(listener, executor);
+    }
+
+    /**
+     * Adds a listener which runs on the completing thread, regardless of the callback executor.
+     * For cheap internal listeners, like transformations.
+     */
+    DbFuture<T> addInlineListener(DbListener<T> listener) {
+        return addListenerWithExecutor(listener, null);
+    }
+
+    /**
+     * Times this request. See {@link RequestTimer#start(DefaultDbFuture, String)}
+     */
+    void startTimings(DefaultRequestTimings timings, RequestTimer timer) {
+        this.timer = timer;
+        this.timings = timings;
+    }
+
+    @Override
+    public DefaultRequestTimings getTimings() {
+        return timings;
+    }
+
+    @Override
+    public DbFuture<T> withDeadline(long timeout, TimeUnit unit) {
+        return withDeadline(timeout, unit, DeadlineTimer.shared());
+    }
+
+    /**
+     * Like {@link #withDeadline(long, TimeUnit)}, with the deadline kept by the given timer
+     */
+    public DbFuture<T> withDeadline(final long timeout, final TimeUnit unit, DeadlineTimer timer) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("The timeout cannot be negative, but was " + timeout);
+        }
+        if (isDone()) {
+            return this;
+        }
+        final DeadlineTimer.Deadline deadline = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                expire(unit.toMillis(timeout));
+            }
+        }, timeout, unit);
+        addInlineListener(new DbListener<T>() {
+            @Override
+            public void onCompletion(DbFuture<T> future) {
+                deadline.cancel();
+            }
+        });
+        return this;
+    }
+
+    /**
+     * The deadline passed: cancel the request, on the server if it was sent already, and stop waiting for it
+     */
+    private void expire(long timeoutMillis) {
+        boolean cancelled = false;
+        if (null != optionalCancellation) {
+            synchronized (optionalCancellation) {
+                if (isDone()) {
+                    return;
+                }
+                try {
+                    cancelled = optionalCancellation.cancel();
+                } catch (RuntimeException e) {
+                    // Some requests refuse to be cancelled this way. Then stop waiting for them
+                }
+            }
+        }
+        trySetException(new DbTimeoutException("Request did not complete within " + timeoutMillis + "ms"
+                + (cancelled ? ". It was cancelled" : ". Its response will be ignored")));
+    }
+
+    /**
+     * @return the executor for listeners added without an explicit one. Null means on the completing thread
+     */
+    Executor callbackExecutor() {
+        return callbackExecutor;
+    }
+
+    private DbFuture<T> addListenerWithExecutor(DbListener<T> listener, Executor executor) {
         if (listener == null) {
             throw new IllegalArgumentException("listener can NOT be null");
         }
-        synchronized (otherListeners) {
-            if (isDone()) {
-                notifyListener(listener);
-            } else {
-                otherListeners.add(listener);
-
+        ListenerNode node = null;
+        while (true) {
+            final ListenerNode head = listeners;
+            if (head == ListenerNode.DRAINED) {
+                notifyListener(listener, executor);
+                return this;
+            }
+            if (node == null) {
+                node = new ListenerNode(listener, executor);
+            }
+            node.next = head;
+            if (LISTENERS.compareAndSet(this, head, node)) {
+                return this;
             }
         }
-        return this;
     }
 
     public boolean removeListener(DbListener<T> listener) {
         if (listener == null) {
             throw new IllegalArgumentException("listener can NOT be null");
         }
+        for (ListenerNode node = listeners; node != null && node != ListenerNode.DRAINED; node = node.next) {
+            if (node.listener == listener && node.claim(listener)) {
+                unlinkRemovedHeads();
+                return true;
+            }
+        }
+        return false;
+    }
 
-        synchronized (otherListeners) {
-            return otherListeners.remove(listener);
+    /**
+     * Removed listeners are only marked. Pop them of the top of the stack, so
+     * that adding and removing listeners repeatedly doesn't grow the stack
+     */
+    private void unlinkRemovedHeads() {
+        ListenerNode head = listeners;
+        while (head != null && head != ListenerNode.DRAINED && head.listener == null) {
+            LISTENERS.compareAndSet(this, head, head.next);
+            head = listeners;
         }
     }
 
@@ -127,36 +297,92 @@ public class DefaultDbFuture<T> implements DbFuture<T> {
 
 
     public final T get() throws InterruptedException, DbException {
-        if (isDone()) {
-            return getResult();
-        }
-        synchronized (this) {
-            while (!isDone()) {
-                this.wait();
-            }
+        if (!isDone()) {
+            awaitCompletion(false, 0L);
         }
         return getResult();
     }
 
     public final T get(long timeout, TimeUnit unit) throws InterruptedException, DbException, TimeoutException {
-        long timeoutMillis = unit.toMillis(timeout);
-        long timeoutNanos = unit.toNanos(timeout);
+        if (!isDone() && !awaitCompletion(true, unit.toNanos(timeout))) {
+            throw new TimeoutException();
+        }
+        return getResult();
+    }
 
+    /**
+     * Parks the current thread until this future is completed.
+     *
+     * @return false if the timeout elapsed before the future completed
+     */
+    private boolean awaitCompletion(boolean timed, long timeoutNanos) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        final long deadline = timed ? System.nanoTime() + timeoutNanos : 0L;
+        // A listener blocking on a future may wait for listeners queued behind it on this thread
+        ListenerTrampoline.runPendingOfCurrentThread();
         if (isDone()) {
-            return getResult();
+            return true;
         }
-        synchronized (this) {
-            final long startTime = System.nanoTime();
-            while (!isDone() && (startTime + timeoutNanos) > System.nanoTime()) {
-                this.wait(timeoutMillis);
+        final WaitNode node = new WaitNode(Thread.currentThread());
+        while (true) {
+            final WaitNode head = waiters;
+            if (head == WaitNode.DRAINED) {
+                return true;
             }
-            if (!isDone()) {
-                throw new TimeoutException();
+            node.next = head;
+            if (WAITERS.compareAndSet(this, head, node)) {
+                break;
             }
         }
-        return getResult();
+        while (!isDone()) {
+            if (timed) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    removeWaiter(node);
+                    return isDone();
+                }
+                LockSupport.parkNanos(this, remaining);
+            } else {
+                LockSupport.park(this);
+            }
+            if (Thread.interrupted()) {
+                removeWaiter(node);
+                throw new InterruptedException();
+            }
+        }
+        return true;
     }
 
+    /**
+     * A thread stopped waiting before completion. Unlink its node and any other abandoned ones,
+     * so that polling with a timeout doesn't grow the stack of waiters
+     */
+    private void removeWaiter(WaitNode node) {
+        node.thread = null;
+        retry:
+        while (true) {
+            WaitNode predecessor = null;
+            WaitNode current = waiters;
+            while (current != null && current != WaitNode.DRAINED) {
+                final WaitNode successor = current.next;
+                if (current.thread != null) {
+                    predecessor = current;
+                } else if (predecessor != null) {
+                    predecessor.next = successor;
+                    if (predecessor.thread == null) {
+                        // The predecessor was abandoned meanwhile, start over
+                        continue retry;
+                    }
+                } else if (!WAITERS.compareAndSet(this, current, successor)) {
+                    continue retry;
+                }
+                current = successor;
+            }
+            return;
+        }
+    }
 
     public final T getResult() throws DbException {
         final MyState myState = state.get();
@@ -213,21 +439,56 @@ public class DefaultDbFuture<T> implements DbFuture<T> {
         return tryStateTransition(new Completed<T>(result));
     }
 
-    private void notifyListener(DbListener<T> listener) {
-        listener.onCompletion(this);
+    private void notifyListener(DbListener<T> listener, Executor executor) {
+        if (executor != null) {
+            try {
+                executor.execute(new ListenerTrampoline.ListenerCall(listener, this));
+                return;
+            } catch (RejectedExecutionException e) {
+                // Executor is shut down. Do not lose the notification, run it here instead
+            }
+        }
+        ListenerTrampoline.notifyListener(listener, this);
     }
 
     private void notifyChanges() {
-        List<DbListener<T>> listenersToCall;
-        synchronized (otherListeners) {
-            listenersToCall = new ArrayList<DbListener<T>>(otherListeners);
-            otherListeners.clear();
+        final ListenerNode pendingListeners = LISTENERS.getAndSet(this, ListenerNode.DRAINED);
+        if (pendingListeners != null) {
+            notifyInRegistrationOrder(pendingListeners);
+        }
+        final WaitNode blockedThreads = WAITERS.getAndSet(this, WaitNode.DRAINED);
+        for (WaitNode node = blockedThreads; node != null; node = node.next) {
+            final Thread thread = node.thread;
+            if (thread != null) {
+                node.thread = null;
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    private void notifyInRegistrationOrder(ListenerNode stack) {
+        if (stack.next == null) {
+            notifyIfNotRemoved(stack);
+            return;
+        }
+        // The nodes may still be traversed by removeListener, so do not relink them
+        int count = 0;
+        for (ListenerNode node = stack; node != null; node = node.next) {
+            count++;
         }
-        for (DbListener<T> l : listenersToCall) {
-            notifyListener(l);
+        final ListenerNode[] inOrder = new ListenerNode[count];
+        for (ListenerNode node = stack; node != null; node = node.next) {
+            inOrder[--count] = node;
         }
-        synchronized (this){
-            this.notifyAll();
+        for (ListenerNode node : inOrder) {
+            notifyIfNotRemoved(node);
+        }
+    }
+
+    private void notifyIfNotRemoved(ListenerNode node) {
+        final DbListener listener = node.listener;
+        if (listener != null && node.claim(listener)) {
+            notifyListener(listener, node.executor);
         }
     }
 
@@ -259,7 +520,13 @@ public class DefaultDbFuture<T> implements DbFuture<T> {
      * @return true when state of future could be changed to a failure. False otherwise
      */
     public boolean trySetException(Throwable exception) {
-        return tryStateTransition(new Failed(exception));
+        if (tryStateTransition(new Failed(exception))) {
+            if (null != stackTracingOptions) {
+                stackTracingOptions.failureOccurred();
+            }
+            return true;
+        }
+        return false;
     }
 
 
@@ -277,9 +544,17 @@ public class DefaultDbFuture<T> implements DbFuture<T> {
          * Remember, the future can only have on state transition
          * There if it fails, we're too late and don't change the state at all
          */
+        final DefaultRequestTimings timings = this.timings;
+        if (null != timings) {
+            // Before the state change, so that whoever sees the future completed sees complete timings
+            timings.markCompleted();
+        }
         boolean changedState = state.compareAndSet(currentState, newState);
         if(changedState){
             notifyChanges();
+            if (null != timings) {
+                timer.completed(timings);
+            }
         }
         return changedState;
     }
@@ -352,4 +627,37 @@ public class DefaultDbFuture<T> implements DbFuture<T> {
             super(FutureState.CANCELLED);
         }
     }
+
+    static final class ListenerNode {
+        private static final AtomicReferenceFieldUpdater<ListenerNode,DbListener> LISTENER
+                = AtomicReferenceFieldUpdater.newUpdater(ListenerNode.class, DbListener.class, "listener");
+        static final ListenerNode DRAINED = new ListenerNode(null, null);
+
+        volatile DbListener listener;
+        final Executor executor;
+        ListenerNode next;
+
+        ListenerNode(DbListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        /**
+         * Either the completing thread or a remove call takes the listener out, never both.
+         */
+        boolean claim(DbListener expected) {
+            return LISTENER.compareAndSet(this, expected, null);
+        }
+    }
+
+    static final class WaitNode {
+        static final WaitNode DRAINED = new WaitNode(null);
+
+        volatile Thread thread;
+        volatile WaitNode next;
+
+        WaitNode(Thread thread) {
+            this.thread = thread;
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package org.adbcj.support;
+
+import org.adbcj.RequestTimings;
+
+/**
+ * The timings a driver records for a request, see {@link RequestTimer#start(DefaultDbFuture, String)}.
+ * The points are marked from the I/O thread and read from the threads of the user, so they are volatile.
+ * The completion is marked last, so that whoever sees the timings completed sees all points.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class DefaultRequestTimings extends RequestTimings {
+    private final String description;
+    private final long queued;
+    private volatile long written;
+    private volatile long firstResponse;
+    private volatile long lastRow;
+    private volatile long completed;
+
+    DefaultRequestTimings(String description) {
+        this.description = description;
+        this.queued = System.nanoTime();
+    }
+
+    public void markWritten() {
+        if (0L == written) {
+            written = System.nanoTime();
+        }
+    }
+
+    public void markFirstResponse() {
+        if (0L == firstResponse) {
+            firstResponse = System.nanoTime();
+        }
+    }
+
+    public void markLastRow() {
+        if (0L == lastRow) {
+            lastRow = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the completion and fills in the points which where not observed.
+     * Only called by the future when it completes.
+     */
+    void markCompleted() {
+        if (0L != completed) {
+            return;
+        }
+        final long now = System.nanoTime();
+        if (0L == lastRow) {
+            lastRow = now;
+        }
+        if (0L == firstResponse) {
+            firstResponse = lastRow;
+        }
+        if (0L == written) {
+            written = firstResponse;
+        }
+        completed = now;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public long getQueuedNanos() {
+        return written - queued;
+    }
+
+    @Override
+    public long getServerNanos() {
+        return firstResponse - written;
+    }
+
+    @Override
+    public long getReceiveNanos() {
+        return lastRow - firstResponse;
+    }
+
+    @Override
+    public long getCompletionNanos() {
+        return completed - lastRow;
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return completed - queued;
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return 0L != completed;
+    }
+}
@@ -0,0 +1,17 @@
+package org.adbcj.support;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A connection whose I/O, encoding and decoding all run on a single event loop thread.
+ * Requests issued from that thread are written without handing them over to another thread.
+ * See {@link org.adbcj.StandardProperties#EVENT_LOOP_AFFINITY}
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public interface EventLoopBound {
+    /**
+     * @return the event loop of this connection
+     */
+    Executor eventLoop();
+}
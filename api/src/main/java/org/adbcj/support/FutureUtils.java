@@ -1,9 +1,31 @@
 package org.adbcj.support;
 
+import org.adbcj.DbException;
 import org.adbcj.DbFuture;
 import org.adbcj.DbListener;
+import org.adbcj.FutureState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 /**
+ * Combinators for {@link DbFuture}s.
+ *
+ * All combinators propagate cancellation: Cancelling the returned future cancels the futures it depends on.
+ * When the source futures are already completed, no intermediate future or listener is created.
+ * Functions of the user run on the callback executor of the source future.
+ * With the default inline callback executor that is the thread completing the source future,
+ * which may be an I/O thread, or the calling thread when the source future is already done.
+ *
  * @author roman.stoffel@gamlor.info
  */
 public final class FutureUtils {
@@ -20,7 +42,14 @@ public final class FutureUtils {
             public void onCompletion(DbFuture<TArgument> future) {
                 switch (future.getState()){
                     case SUCCESS:
-                        completion.trySetResult(transformation.apply(future.getResult()));
+                        final TResult result;
+                        try {
+                            result = transformation.apply(future.getResult());
+                        } catch (Exception e) {
+                            completion.trySetException(e);
+                            return;
+                        }
+                        completion.trySetResult(result);
                         break;
                     case FAILURE:
                         completion.trySetException(future.getException());
@@ -35,13 +64,406 @@ public final class FutureUtils {
 
     public static <TArgument,TResult> DefaultDbFuture<TResult> map(final DbFuture<TArgument> originalFuture,
                                                              final OneArgFunction<TArgument, TResult> tranformation) {
-        DefaultDbFuture<TResult> completion = new DefaultDbFuture<TResult>(new CancellationAction() {
+        if (originalFuture.isDone()) {
+            final DefaultDbFuture<TResult> completed = new DefaultDbFuture<TResult>(null, callbackExecutorOf(originalFuture));
+            createTransformationListener(tranformation, completed).onCompletion(originalFuture);
+            return completed;
+        }
+        DefaultDbFuture<TResult> completion = new DefaultDbFuture<TResult>(cancelling(originalFuture),
+                callbackExecutorOf(originalFuture));
+        addUserListener(originalFuture, createTransformationListener(tranformation, completion));
+        return completion;
+    }
+
+    /**
+     * Chains an asynchronous operation to a future. When the original future succeeds, the function is applied
+     * to its result and the returned future completes with the future returned by the function.
+     *
+     * Cancelling the returned future cancels the original future, or the future of the function if it already runs.
+     */
+    public static <TArgument,TResult> DbFuture<TResult> flatMap(final DbFuture<TArgument> originalFuture,
+                                                                final OneArgFunction<TArgument, DbFuture<TResult>> function) {
+        if (originalFuture.getState() == FutureState.SUCCESS) {
+            return applyAsync(function, originalFuture.getResult(), callbackExecutorOf(originalFuture));
+        }
+        final AtomicReference<DbFuture<?>> currentStep = new AtomicReference<DbFuture<?>>(originalFuture);
+        final DefaultDbFuture<TResult> completion = new DefaultDbFuture<TResult>(new CancellationAction() {
             @Override
             public boolean cancel() {
-                return originalFuture.cancel(true);
+                return currentStep.get().cancel(true);
+            }
+        }, callbackExecutorOf(originalFuture));
+        if (originalFuture.isDone()) {
+            failLike(originalFuture, completion);
+            return completion;
+        }
+        addUserListener(originalFuture, new DbListener<TArgument>() {
+            @Override
+            public void onCompletion(DbFuture<TArgument> future) {
+                if (future.getState() != FutureState.SUCCESS) {
+                    failLike(future, completion);
+                    return;
+                }
+                final DbFuture<TResult> nextStep = applyAsync(function, future.getResult(), null);
+                currentStep.set(nextStep);
+                if (completion.isCancelled()) {
+                    nextStep.cancel(true);
+                }
+                addInlineListener(nextStep, new DbListener<TResult>() {
+                    @Override
+                    public void onCompletion(DbFuture<TResult> future) {
+                        completeLike(future, completion);
+                    }
+                });
             }
         });
-        originalFuture.addListener(createTransformationListener(tranformation,completion));
         return completion;
     }
+
+    /**
+     * Combines the result of two futures. The returned future fails or is cancelled as soon as one of the
+     * futures fails or is cancelled. Cancelling the returned future cancels both futures.
+     */
+    public static <TFirst,TSecond,TResult> DbFuture<TResult> thenCombine(final DbFuture<TFirst> first,
+                                                                         final DbFuture<TSecond> second,
+                                                                         final TwoArgFunction<TFirst, TSecond, TResult> combination) {
+        final Executor callbackExecutor = callbackExecutorOf(first);
+        if (first.isDone() && second.isDone()) {
+            final DefaultDbFuture<TResult> completed = new DefaultDbFuture<TResult>(null, callbackExecutor);
+            combineWhenBothCompleted(first, second, combination, completed);
+            return completed;
+        }
+        final DefaultDbFuture<TResult> completion = new DefaultDbFuture<TResult>(new CancellationAction() {
+            @Override
+            public boolean cancel() {
+                final boolean firstCancelled = first.cancel(true);
+                final boolean secondCancelled = second.cancel(true);
+                return firstCancelled || secondCancelled;
+            }
+        }, callbackExecutor);
+        final AtomicInteger pending = new AtomicInteger(2);
+        final DbListener<Object> onEach = new DbListener<Object>() {
+            @Override
+            public void onCompletion(DbFuture<Object> future) {
+                if (future.getState() != FutureState.SUCCESS) {
+                    failLike(future, completion);
+                } else if (pending.decrementAndGet() == 0) {
+                    combineWhenBothCompleted(first, second, combination, completion);
+                }
+            }
+        };
+        addUserListener((DbFuture) first, onEach);
+        addUserListener((DbFuture) second, onEach);
+        return completion;
+    }
+
+    /**
+     * Waits for all futures to complete. The returned future contains the results in the order of the futures.
+     *
+     * If a future fails, the returned future fails with the first failure, once all futures completed.
+     * Otherwise, if a future is cancelled, the returned future is cancelled.
+     * Cancelling the returned future cancels all futures.
+     */
+    public static <T> DbFuture<List<T>> allOf(final Collection<? extends DbFuture<? extends T>> futures) {
+        final List<DbFuture<? extends T>> sources = new ArrayList<DbFuture<? extends T>>(futures);
+        final AllOfCompletion<T> completion = new AllOfCompletion<T>(sources,
+                sources.isEmpty() ? null : callbackExecutorOf(sources.get(0)));
+        for (DbFuture<? extends T> future : sources) {
+            if (future.isDone()) {
+                completion.onCompletion((DbFuture) future);
+            } else {
+                addInlineListener((DbFuture) future, completion);
+            }
+        }
+        return completion;
+    }
+
+    /**
+     * Completes like the first future which completes, successfully or not.
+     * Cancelling the returned future cancels all futures.
+     */
+    public static <T> DbFuture<T> anyOf(final Collection<? extends DbFuture<? extends T>> futures) {
+        final List<DbFuture<? extends T>> sources = new ArrayList<DbFuture<? extends T>>(futures);
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("Expect at least one future");
+        }
+        for (DbFuture<? extends T> future : sources) {
+            if (future.isDone()) {
+                final DefaultDbFuture<T> completed = new DefaultDbFuture<T>(null, callbackExecutorOf(future));
+                completeLike(future, completed);
+                return completed;
+            }
+        }
+        final DefaultDbFuture<T> completion = new DefaultDbFuture<T>(new CancellationAction() {
+            @Override
+            public boolean cancel() {
+                boolean anyCancelled = false;
+                for (DbFuture<? extends T> future : sources) {
+                    anyCancelled |= future.cancel(true);
+                }
+                return anyCancelled;
+            }
+        }, callbackExecutorOf(sources.get(0)));
+        final DbListener<T> firstWins = new DbListener<T>() {
+            @Override
+            public void onCompletion(DbFuture<T> future) {
+                completeLike(future, completion);
+            }
+        };
+        for (DbFuture<? extends T> future : sources) {
+            addInlineListener((DbFuture) future, firstWins);
+        }
+        return completion;
+    }
+
+    /**
+     * Views a {@link DbFuture} as {@link CompletionStage}. A failure is reported as {@link DbException},
+     * a cancellation as {@link CancellationException}. Cancelling the {@link CompletableFuture} of the stage
+     * cancels the database operation.
+     *
+     * Futures created by {@link #fromCompletionStage(CompletionStage)} return the original stage.
+     */
+    public static <T> CompletionStage<T> toCompletionStage(final DbFuture<T> future) {
+        if (future instanceof CompletionStageFuture) {
+            return ((CompletionStageFuture<T>) future).stage;
+        }
+        final DbFutureStage<T> stage = new DbFutureStage<T>(future);
+        if (future.isDone()) {
+            stage.onCompletion(future);
+        } else {
+            // Completing the stage runs the dependent stages of the user
+            addUserListener(future, stage);
+        }
+        return stage;
+    }
+
+    /**
+     * Views a {@link CompletionStage} as {@link DbFuture}. Cancelling the future cancels the
+     * {@link CompletableFuture} of the stage, if the stage supports it.
+     *
+     * Stages created by {@link #toCompletionStage(DbFuture)} return the original future.
+     */
+    public static <T> DbFuture<T> fromCompletionStage(final CompletionStage<T> stage) {
+        if (stage instanceof DbFutureStage) {
+            return ((DbFutureStage<T>) stage).source;
+        }
+        final CompletionStageFuture<T> future = new CompletionStageFuture<T>(stage);
+        stage.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T result, Throwable error) {
+                if (error == null) {
+                    future.trySetResult(result);
+                    return;
+                }
+                final Throwable cause = (error instanceof CompletionException && error.getCause() != null)
+                        ? error.getCause() : error;
+                if (cause instanceof CancellationException) {
+                    future.trySetCancelled();
+                } else {
+                    future.trySetException(cause);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Derived futures dispatch their listeners like the future they are derived from
+     */
+    static Executor callbackExecutorOf(DbFuture<?> future) {
+        if (future instanceof DefaultDbFuture) {
+            return ((DefaultDbFuture<?>) future).callbackExecutor();
+        }
+        return null;
+    }
+
+    /**
+     * For listeners which call functions of the user. They run on the callback executor of the future,
+     * like any other listener of the user.
+     */
+    static <T> void addUserListener(DbFuture<T> future, DbListener<T> listener) {
+        future.addListener(listener);
+    }
+
+    /**
+     * Bookkeeping, like completing a derived future, is cheap, so run it right away on the completing thread.
+     * The derived future then dispatches the listeners of the user.
+     */
+    static <T> void addInlineListener(DbFuture<T> future, DbListener<T> listener) {
+        if (future instanceof DefaultDbFuture) {
+            ((DefaultDbFuture<T>) future).addInlineListener(listener);
+        } else {
+            future.addListener(listener);
+        }
+    }
+
+    private static CancellationAction cancelling(final DbFuture<?> future) {
+        return new CancellationAction() {
+            @Override
+            public boolean cancel() {
+                return future.cancel(true);
+            }
+        };
+    }
+
+    private static <TArgument,TResult> DbFuture<TResult> applyAsync(OneArgFunction<TArgument, DbFuture<TResult>> function,
+                                                                    TArgument argument,
+                                                                    Executor callbackExecutor) {
+        try {
+            final DbFuture<TResult> result = function.apply(argument);
+            if (result == null) {
+                throw new NullPointerException("The function " + function + " returned null instead of a future");
+            }
+            return result;
+        } catch (Exception e) {
+            final DefaultDbFuture<TResult> failed = new DefaultDbFuture<TResult>(null, callbackExecutor);
+            failed.trySetException(e);
+            return failed;
+        }
+    }
+
+    private static <TFirst,TSecond,TResult> void combineWhenBothCompleted(DbFuture<TFirst> first,
+                                                                        DbFuture<TSecond> second,
+                                                                        TwoArgFunction<TFirst, TSecond, TResult> combination,
+                                                                        DefaultDbFuture<TResult> completion) {
+        if (first.getState() != FutureState.SUCCESS) {
+            failLike(first, completion);
+        } else if (second.getState() != FutureState.SUCCESS) {
+            failLike(second, completion);
+        } else {
+            final TResult result;
+            try {
+                result = combination.apply(first.getResult(), second.getResult());
+            } catch (Exception e) {
+                completion.trySetException(e);
+                return;
+            }
+            completion.trySetResult(result);
+        }
+    }
+
+    private static <T> void completeLike(DbFuture<? extends T> completed, DefaultDbFuture<T> toComplete) {
+        switch (completed.getState()) {
+            case SUCCESS:
+                toComplete.trySetResult(completed.getResult());
+                break;
+            case FAILURE:
+                toComplete.trySetException(completed.getException());
+                break;
+            case CANCELLED:
+                toComplete.trySetCancelled();
+                break;
+            default:
+                throw new IllegalStateException("Expect a completed future, but was " + completed);
+        }
+    }
+
+    /**
+     * Propagates a failure or cancellation to a future of another type
+     */
+    private static void failLike(DbFuture<?> unsuccessful, DefaultDbFuture<?> toComplete) {
+        if (unsuccessful.getState() == FutureState.CANCELLED) {
+            toComplete.trySetCancelled();
+        } else {
+            toComplete.trySetException(unsuccessful.getException());
+        }
+    }
+
+    /**
+     * The aggregating future and the listener for each source future of {@link #allOf(Collection)}, in one object.
+     */
+    private static final class AllOfCompletion<T> extends DefaultDbFuture<List<T>> implements DbListener<Object> {
+        private final List<DbFuture<? extends T>> sources;
+        private final AtomicInteger pending;
+
+        AllOfCompletion(final List<DbFuture<? extends T>> sources, Executor callbackExecutor) {
+            super(new CancellationAction() {
+                @Override
+                public boolean cancel() {
+                    boolean anyCancelled = false;
+                    for (DbFuture<? extends T> future : sources) {
+                        anyCancelled |= future.cancel(true);
+                    }
+                    return anyCancelled;
+                }
+            }, callbackExecutor);
+            this.sources = sources;
+            this.pending = new AtomicInteger(sources.size());
+            if (sources.isEmpty()) {
+                trySetResult(new ArrayList<T>(0));
+            }
+        }
+
+        @Override
+        public void onCompletion(DbFuture<Object> future) {
+            if (pending.decrementAndGet() != 0) {
+                return;
+            }
+            DbFuture<? extends T> cancelled = null;
+            final List<T> results = new ArrayList<T>(sources.size());
+            for (DbFuture<? extends T> source : sources) {
+                switch (source.getState()) {
+                    case SUCCESS:
+                        results.add(source.getResult());
+                        break;
+                    case FAILURE:
+                        trySetException(source.getException());
+                        return;
+                    default:
+                        cancelled = source;
+                }
+            }
+            if (cancelled != null) {
+                trySetCancelled();
+            } else {
+                trySetResult(results);
+            }
+        }
+    }
+
+    private static final class DbFutureStage<T> extends CompletableFuture<T> implements DbListener<T> {
+        private final DbFuture<T> source;
+
+        DbFutureStage(DbFuture<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public void onCompletion(DbFuture<T> future) {
+            switch (future.getState()) {
+                case SUCCESS:
+                    complete(future.getResult());
+                    break;
+                case FAILURE:
+                    completeExceptionally(future.getException());
+                    break;
+                case CANCELLED:
+                    super.cancel(false);
+                    break;
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return source.cancel(mayInterruptIfRunning) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    private static final class CompletionStageFuture<T> extends DefaultDbFuture<T> {
+        private final CompletionStage<T> stage;
+
+        CompletionStageFuture(final CompletionStage<T> stage) {
+            super(new CancellationAction() {
+                @Override
+                public boolean cancel() {
+                    try {
+                        return stage.toCompletableFuture().cancel(true);
+                    } catch (UnsupportedOperationException e) {
+                        return false;
+                    }
+                }
+            });
+            this.stage = stage;
+        }
+    }
 }
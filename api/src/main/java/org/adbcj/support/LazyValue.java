@@ -0,0 +1,76 @@
+package org.adbcj.support;
+
+import org.adbcj.Value;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * A value which keeps the raw bytes it was received as, and is only decoded when it is accessed.
+ * The decoded value is converted like a {@link DefaultValue}. Drivers override the accessors
+ * which they can answer directly from the raw bytes.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public abstract class LazyValue implements Value {
+    private volatile DefaultValue decoded;
+
+    /**
+     * @return the value in its native type, as the driver would have created it eagerly
+     */
+    protected abstract Object decode();
+
+    protected final DefaultValue decoded() {
+        DefaultValue value = decoded;
+        if (null == value) {
+            value = new DefaultValue(decode());
+            decoded = value;
+        }
+        return value;
+    }
+
+    public BigDecimal getBigDecimal() {
+        return decoded().getBigDecimal();
+    }
+
+    public boolean getBoolean() {
+        return decoded().getBoolean();
+    }
+
+    public Date getDate() {
+        return decoded().getDate();
+    }
+
+    public double getDouble() {
+        return decoded().getDouble();
+    }
+
+    public float getFloat() {
+        return decoded().getFloat();
+    }
+
+    public int getInt() {
+        return decoded().getInt();
+    }
+
+    public long getLong() {
+        return decoded().getLong();
+    }
+
+    public String getString() {
+        return decoded().getString();
+    }
+
+    public Object getValue() {
+        return decoded().getValue();
+    }
+
+    public boolean isNull() {
+        return decoded().isNull();
+    }
+
+    @Override
+    public String toString() {
+        return decoded().toString();
+    }
+}
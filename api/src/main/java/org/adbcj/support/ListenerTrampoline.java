@@ -0,0 +1,87 @@
+package org.adbcj.support;
+
+import org.adbcj.DbFuture;
+import org.adbcj.DbListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+
+/**
+ * Runs listeners on the current thread without nesting them.
+ *
+ * A listener often completes another future, for example the transformation of {@link FutureUtils#map}.
+ * Calling the listeners of that future directly would recurse and a long chain of futures
+ * overflows the stack of the I/O thread. Instead listeners triggered from within a listener
+ * are queued and run by the outermost call, after the current listener returned.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+final class ListenerTrampoline {
+    private static final Logger logger = LoggerFactory.getLogger(ListenerTrampoline.class);
+
+    private static final ThreadLocal<ListenerTrampoline> CURRENT = new ThreadLocal<ListenerTrampoline>() {
+        @Override
+        protected ListenerTrampoline initialValue() {
+            return new ListenerTrampoline();
+        }
+    };
+
+    private final ArrayDeque<ListenerCall> pending = new ArrayDeque<ListenerCall>();
+    private boolean running = false;
+
+    private ListenerTrampoline() {
+    }
+
+    static <T> void notifyListener(DbListener<T> listener, DbFuture<T> future) {
+        final ListenerTrampoline trampoline = CURRENT.get();
+        if (trampoline.running) {
+            trampoline.pending.add(new ListenerCall(listener, future));
+            return;
+        }
+        trampoline.running = true;
+        try {
+            listener.onCompletion(future);
+        } finally {
+            trampoline.runPending();
+            trampoline.running = false;
+        }
+    }
+
+    /**
+     * Run the listeners which are queued on this thread. Used when a listener blocks on another future,
+     * which might only be completed by one of the queued listeners.
+     */
+    static void runPendingOfCurrentThread() {
+        final ListenerTrampoline trampoline = CURRENT.get();
+        if (trampoline.running) {
+            trampoline.runPending();
+        }
+    }
+
+    private void runPending() {
+        ListenerCall call;
+        while ((call = pending.poll()) != null) {
+            try {
+                call.run();
+            } catch (RuntimeException e) {
+                logger.warn("Listener " + call.listener + " threw an exception", e);
+            }
+        }
+    }
+
+    static final class ListenerCall implements Runnable {
+        private final DbListener listener;
+        private final DbFuture future;
+
+        ListenerCall(DbListener listener, DbFuture future) {
+            this.listener = listener;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            listener.onCompletion(future);
+        }
+    }
+}
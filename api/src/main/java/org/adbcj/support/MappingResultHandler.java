@@ -0,0 +1,141 @@
+package org.adbcj.support;
+
+import org.adbcj.DbException;
+import org.adbcj.Field;
+import org.adbcj.PrimitiveResultHandler;
+import org.adbcj.Value;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps each row of a result to an object of the given class and adds it to the list.
+ * The columns are bound to a constructor or to setters once per result shape,
+ * after that rows are written straight into the target objects.
+ * <p/>
+ * A handler instance keeps state about the current result, so use one instance per query:
+ * <pre>
+ * connection.executeQuery(sql, MappingResultHandler.of(Person.class), new ArrayList&lt;Person&gt;());
+ * </pre>
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class MappingResultHandler<T> implements PrimitiveResultHandler<List<T>> {
+    private final Class<T> type;
+    private final List<Field> fields = new ArrayList<Field>();
+    private RowMapping<T> mapping;
+    private Object row;
+    private int column;
+
+    public MappingResultHandler(Class<T> type) {
+        if (null == type) {
+            throw new IllegalArgumentException("type cannot be null");
+        }
+        this.type = type;
+    }
+
+    public static <T> MappingResultHandler<T> of(Class<T> type) {
+        return new MappingResultHandler<T>(type);
+    }
+
+    public void startFields(List<T> accumulator) {
+        fields.clear();
+    }
+
+    public void field(Field field, List<T> accumulator) {
+        fields.add(field);
+    }
+
+    public void endFields(List<T> accumulator) {
+        mapping = RowMapping.forFields(type, fields);
+    }
+
+    public void startResults(List<T> accumulator) {
+    }
+
+    public void startRow(List<T> accumulator) {
+        column = 0;
+        try {
+            row = mapping.startRow();
+        } catch (Throwable e) {
+            throw mappingFailed(e);
+        }
+    }
+
+    public void value(Value value, List<T> accumulator) {
+        try {
+            mapping.column(column).value(row, value);
+        } catch (Throwable e) {
+            throw mappingFailed(e);
+        }
+        column++;
+    }
+
+    public void intValue(int column, int value, List<T> accumulator) {
+        try {
+            mapping.column(column).intValue(row, value);
+        } catch (Throwable e) {
+            throw mappingFailed(e);
+        }
+        this.column = column + 1;
+    }
+
+    public void longValue(int column, long value, List<T> accumulator) {
+        try {
+            mapping.column(column).longValue(row, value);
+        } catch (Throwable e) {
+            throw mappingFailed(e);
+        }
+        this.column = column + 1;
+    }
+
+    public void doubleValue(int column, double value, List<T> accumulator) {
+        try {
+            mapping.column(column).doubleValue(row, value);
+        } catch (Throwable e) {
+            throw mappingFailed(e);
+        }
+        this.column = column + 1;
+    }
+
+    public void nullValue(int column, List<T> accumulator) {
+        try {
+            mapping.column(column).nullValue(row);
+        } catch (Throwable e) {
+            throw mappingFailed(e);
+        }
+        this.column = column + 1;
+    }
+
+    public void bytesValue(int column, ByteBuffer value, List<T> accumulator) {
+        try {
+            mapping.column(column).bytesValue(row, value);
+        } catch (Throwable e) {
+            throw mappingFailed(e);
+        }
+        this.column = column + 1;
+    }
+
+    public void endRow(List<T> accumulator) {
+        try {
+            accumulator.add(mapping.endRow(row));
+        } catch (Throwable e) {
+            throw mappingFailed(e);
+        }
+        row = null;
+    }
+
+    public void endResults(List<T> accumulator) {
+    }
+
+    public void exception(Throwable t, List<T> accumulator) {
+    }
+
+    private DbException mappingFailed(Throwable cause) {
+        if (cause instanceof DbException) {
+            return (DbException) cause;
+        }
+        return new DbException("Could not map row to " + type.getName(), cause);
+    }
+}
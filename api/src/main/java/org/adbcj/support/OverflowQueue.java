@@ -0,0 +1,130 @@
+package org.adbcj.support;
+
+import org.adbcj.DbException;
+import org.adbcj.DbFuture;
+import org.adbcj.StandardProperties;
+import org.adbcj.support.stacktracing.StackTracingOptions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Requests which a connection accepts over its {@link StandardProperties#MAX_QUEUE_LENGTH}.
+ * They are parked here in order and queued as the responses of the earlier requests arrive,
+ * see {@link StandardProperties#QUEUE_OVERFLOW}. Without overflow the requests over the limit fail right away.
+ *
+ * This class is not thread safe. The connection guards it with its own lock.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class OverflowQueue<T> {
+    private final int maxQueueSize;
+    private final int maxParked;
+    private final ArrayDeque<T> parked = new ArrayDeque<T>();
+    private List<DefaultDbFuture<Void>> waitingForWritable = null;
+
+    /**
+     * @param maxQueueSize the connection parks requests while more than this many are pending
+     * @param maxParked how many requests can be parked, 0 to fail the requests over the maximum
+     */
+    public OverflowQueue(int maxQueueSize, int maxParked) {
+        if (maxParked < 0) {
+            throw new IllegalArgumentException("The overflow length cannot be negative, but was " + maxParked);
+        }
+        this.maxQueueSize = maxQueueSize;
+        this.maxParked = maxParked;
+    }
+
+    /**
+     * @param pending the requests the connection has queued
+     * @return true if the request can be queued right away, false if it was parked
+     * @throws DbException if the request can neither be queued nor parked
+     */
+    public boolean offer(T request, int pending) {
+        if (parked.isEmpty() && pending <= maxQueueSize) {
+            return true;
+        }
+        if (parked.size() >= maxParked) {
+            throw new DbException("To many pending requests. The current maximum is " + maxQueueSize + "." +
+                    "Ensure that your not overloading the database with requests. " +
+                    "Also check the " + StandardProperties.MAX_QUEUE_LENGTH + " and " +
+                    StandardProperties.QUEUE_OVERFLOW + " property");
+        }
+        parked.add(request);
+        return false;
+    }
+
+    /**
+     * For requests which are always accepted, like closing the connection.
+     * They are only parked behind the requests already parked, so that the order is kept.
+     *
+     * @return true if the request can be queued right away, false if it was parked
+     */
+    public boolean offerForced(T request) {
+        if (parked.isEmpty()) {
+            return true;
+        }
+        parked.add(request);
+        return false;
+    }
+
+    /**
+     * Called when the connection queued fewer requests, because a response arrived.
+     * Once all parked requests are queued and there is room, the {@link #whenWritable} futures complete.
+     *
+     * @param pending the requests the connection has queued
+     * @return the next parked request to queue, null if there is none or no room yet
+     */
+    public T poll(int pending) {
+        if (pending > maxQueueSize) {
+            return null;
+        }
+        final T next = parked.poll();
+        if (null == next) {
+            signalWritable();
+        }
+        return next;
+    }
+
+    /**
+     * @param pending the requests the connection has queued
+     * @return future which completes once a request can be queued without being parked or failed
+     */
+    public DbFuture<Void> whenWritable(int pending, StackTracingOptions stackTracingOptions, Executor callbackExecutor) {
+        if (parked.isEmpty() && pending <= maxQueueSize) {
+            return DefaultDbFuture.completed(null);
+        }
+        final DefaultDbFuture<Void> writable = new DefaultDbFuture<Void>(stackTracingOptions, null, callbackExecutor);
+        if (null == waitingForWritable) {
+            waitingForWritable = new ArrayList<DefaultDbFuture<Void>>();
+        }
+        waitingForWritable.add(writable);
+        return writable;
+    }
+
+    /**
+     * Removes all parked requests, for failing them when the connection is closed
+     */
+    public List<T> drain() {
+        final List<T> drained = new ArrayList<T>(parked);
+        parked.clear();
+        return drained;
+    }
+
+    public int size() {
+        return parked.size();
+    }
+
+    private void signalWritable() {
+        final List<DefaultDbFuture<Void>> waiting = waitingForWritable;
+        if (null == waiting) {
+            return;
+        }
+        waitingForWritable = null;
+        for (DefaultDbFuture<Void> writable : waiting) {
+            writable.trySetResult(null);
+        }
+    }
+}
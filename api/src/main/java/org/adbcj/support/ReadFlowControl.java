@@ -0,0 +1,32 @@
+package org.adbcj.support;
+
+/**
+ * Lets a consumer of results stop the driver from reading more results from the database,
+ * until it caught up again. For the Netty based drivers this toggles the auto read of the channel,
+ * so the TCP window fills up and the database server stops sending.
+ *
+ * Both methods may be called from any thread and calling them repeatedly has no additional effect.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public interface ReadFlowControl {
+    /**
+     * Stop reading from the database. Results which are already received may still be delivered.
+     */
+    void pauseReading();
+
+    /**
+     * Continue reading from the database
+     */
+    void resumeReading();
+
+    ReadFlowControl NO_FLOW_CONTROL = new ReadFlowControl() {
+        @Override
+        public void pauseReading() {
+        }
+
+        @Override
+        public void resumeReading() {
+        }
+    };
+}
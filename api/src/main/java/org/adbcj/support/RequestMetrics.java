@@ -0,0 +1,35 @@
+package org.adbcj.support;
+
+import org.adbcj.DbFuture;
+import org.adbcj.DbListener;
+import org.adbcj.FutureState;
+import org.adbcj.support.metrics.ConnectionMetrics;
+import org.adbcj.support.metrics.NoMetrics;
+
+/**
+ * Reports the requests of a connection to its {@link ConnectionMetrics}.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class RequestMetrics {
+    private RequestMetrics() {
+    }
+
+    /**
+     * Reports the queued request and its latency once the future completes.
+     * Does nothing when metrics are disabled, not even taking the time.
+     */
+    public static <T> void track(final ConnectionMetrics metrics, DefaultDbFuture<T> request, int queueDepth) {
+        if (NoMetrics.INSTANCE == metrics) {
+            return;
+        }
+        metrics.requestQueued(queueDepth);
+        final long queued = System.nanoTime();
+        request.addInlineListener(new DbListener<T>() {
+            @Override
+            public void onCompletion(DbFuture<T> future) {
+                metrics.requestCompleted(System.nanoTime() - queued, future.getState() == FutureState.SUCCESS);
+            }
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package org.adbcj.support;
+
+import org.adbcj.RequestTimings;
+import org.adbcj.StandardProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times the requests of connections and logs the slow ones.
+ * See {@link StandardProperties#REQUEST_TIMINGS} and {@link StandardProperties#SLOW_QUERY_THRESHOLD_MILLIS}.
+ *
+ * Timing a request costs a few {@link System#nanoTime()} calls. Only the slow requests
+ * are logged, and of those only one in the sample rate, so that the log cannot slow down
+ * an already overloaded database further.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class RequestTimer {
+    private static final Logger logger = LoggerFactory.getLogger(RequestTimer.class);
+
+    /**
+     * Does not time requests at all
+     */
+    public static final RequestTimer DISABLED = new RequestTimer(Long.MAX_VALUE, 1);
+
+    private final long thresholdNanos;
+    private final int sampleRate;
+    private final AtomicLong slowRequests = new AtomicLong();
+
+    /**
+     * @param thresholdNanos requests taking longer are logged. {@link Long#MAX_VALUE} to only time requests
+     * @param sampleRate one in this many slow requests is logged
+     */
+    public RequestTimer(long thresholdNanos, int sampleRate) {
+        if (thresholdNanos < 0) {
+            throw new IllegalArgumentException("The slow query threshold cannot be negative, but was " + thresholdNanos);
+        }
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("The slow query sample rate has to be positive, but was " + sampleRate);
+        }
+        this.thresholdNanos = thresholdNanos;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Starts timing a request which is about to be queued.
+     *
+     * @return the timings of the request, or null when requests are not timed
+     */
+    public DefaultRequestTimings start(DefaultDbFuture<?> request, String description) {
+        if (DISABLED == this) {
+            return null;
+        }
+        final DefaultRequestTimings timings = new DefaultRequestTimings(description);
+        request.startTimings(timings, this);
+        return timings;
+    }
+
+    /**
+     * Called with the completed timings of each timed request
+     */
+    void completed(RequestTimings timings) {
+        if (timings.getTotalNanos() < thresholdNanos) {
+            return;
+        }
+        final long slowRequest = slowRequests.incrementAndGet();
+        if (slowRequest % sampleRate == 0) {
+            logSlowRequest(timings, slowRequest);
+        }
+    }
+
+    /**
+     * @param timings the timings of the slow request
+     * @param slowRequests the number of slow requests so far, including the ones which where not logged
+     */
+    protected void logSlowRequest(RequestTimings timings, long slowRequests) {
+        if (logger.isWarnEnabled()) {
+            logger.warn("Slow request, took {}ms (slow request #{}): {}",
+                    TimeUnit.NANOSECONDS.toMillis(timings.getTotalNanos()), slowRequests, timings);
+        }
+    }
+
+    public long thresholdNanos() {
+        return thresholdNanos;
+    }
+
+    public int sampleRate() {
+        return sampleRate;
+    }
+}
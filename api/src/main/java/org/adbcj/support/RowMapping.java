@@ -0,0 +1,328 @@
+package org.adbcj.support;
+
+import org.adbcj.Field;
+import org.adbcj.Value;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Binds the columns of a result to the constructor or the setters of a class.
+ * A binding is created once per target class and column labels and then cached.
+ * The cache is kept with the target class, so it does not keep the class or its class loader alive,
+ * and holds the bindings of the last {@link #MAX_SHAPES_PER_CLASS} column label lists per class.
+ * <p/>
+ * Classes with a public no-arg constructor are filled through public setters or fields,
+ * which are matched to the column labels ignoring case and underscores. Columns without
+ * a matching member are skipped. Other classes need a public constructor which takes
+ * exactly one argument per column, in the order of the columns.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+final class RowMapping<T> {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+    static final int MAX_SHAPES_PER_CLASS = 32;
+    private static final ClassValue<Map<List<String>, RowMapping<?>>> CACHE
+            = new ClassValue<Map<List<String>, RowMapping<?>>>() {
+        @Override
+        protected Map<List<String>, RowMapping<?>> computeValue(Class<?> type) {
+            return Collections.synchronizedMap(new LinkedHashMap<List<String>, RowMapping<?>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<String>, RowMapping<?>> eldest) {
+                    return size() > MAX_SHAPES_PER_CLASS;
+                }
+            });
+        }
+    };
+
+    private final MethodHandle creator;
+    private final int constructorArguments;
+    private final ColumnBinding[] columns;
+
+    private RowMapping(MethodHandle creator, int constructorArguments, ColumnBinding[] columns) {
+        this.creator = creator;
+        this.constructorArguments = constructorArguments;
+        this.columns = columns;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> RowMapping<T> forFields(Class<T> type, List<Field> fields) {
+        final List<String> key = new ArrayList<String>(fields.size());
+        for (Field field : fields) {
+            key.add(field.getColumnLabel());
+        }
+        final Map<List<String>, RowMapping<?>> mappings = CACHE.get(type);
+        RowMapping<?> mapping = mappings.get(key);
+        if (null == mapping) {
+            // Binding twice in a race is harmless, both bindings are equal
+            mapping = bind(type, fields);
+            mappings.put(key, mapping);
+        }
+        return (RowMapping<T>) mapping;
+    }
+
+    /**
+     * @return the target object, or the array collecting the constructor arguments
+     */
+    Object startRow() throws Throwable {
+        if (constructorArguments >= 0) {
+            return new Object[constructorArguments];
+        }
+        return (Object) creator.invokeExact();
+    }
+
+    @SuppressWarnings("unchecked")
+    T endRow(Object row) throws Throwable {
+        if (constructorArguments >= 0) {
+            return (T) (Object) creator.invokeExact((Object[]) row);
+        }
+        return (T) row;
+    }
+
+    ColumnBinding column(int index) {
+        return columns[index];
+    }
+
+    private static <T> RowMapping<T> bind(Class<T> type, List<Field> fields) {
+        try {
+            final Constructor<?> noArgConstructor = publicConstructor(type, 0);
+            if (null != noArgConstructor) {
+                return bindMembers(type, noArgConstructor, fields);
+            }
+            final Constructor<?> constructor = publicConstructor(type, fields.size());
+            if (null != constructor) {
+                return bindConstructor(constructor);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access the members of " + type.getName(), e);
+        }
+        throw new IllegalArgumentException("Cannot map rows to " + type.getName()
+                + ". It needs a public no-arg constructor or a public constructor taking "
+                + fields.size() + " arguments");
+    }
+
+    private static <T> RowMapping<T> bindMembers(Class<T> type, Constructor<?> noArgConstructor, List<Field> fields)
+            throws IllegalAccessException {
+        final Map<String, MethodHandle> setters = new HashMap<String, MethodHandle>();
+        for (java.lang.reflect.Field member : type.getFields()) {
+            if (!Modifier.isStatic(member.getModifiers()) && !Modifier.isFinal(member.getModifiers())) {
+                setters.put(normalize(member.getName()), LOOKUP.unreflectSetter(member));
+            }
+        }
+        for (Method method : type.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers()) && method.getParameterTypes().length == 1
+                    && method.getName().length() > 3 && method.getName().startsWith("set")) {
+                setters.put(normalize(method.getName().substring(3)), LOOKUP.unreflect(method));
+            }
+        }
+        final ColumnBinding[] columns = new ColumnBinding[fields.size()];
+        for (int i = 0; i < columns.length; i++) {
+            final MethodHandle setter = setters.get(normalize(fields.get(i).getColumnLabel()));
+            columns[i] = null == setter ? ColumnBinding.IGNORED : new SetterBinding(setter);
+        }
+        final MethodHandle creator = LOOKUP.unreflectConstructor(noArgConstructor)
+                .asType(MethodType.methodType(Object.class));
+        return new RowMapping<T>(creator, -1, columns);
+    }
+
+    private static <T> RowMapping<T> bindConstructor(Constructor<?> constructor) throws IllegalAccessException {
+        final Class<?>[] parameters = constructor.getParameterTypes();
+        final ColumnBinding[] columns = new ColumnBinding[parameters.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ArgumentBinding(i, parameters[i]);
+        }
+        final MethodHandle creator = LOOKUP.unreflectConstructor(constructor)
+                .asType(MethodType.genericMethodType(parameters.length))
+                .asSpreader(Object[].class, parameters.length);
+        return new RowMapping<T>(creator, parameters.length, columns);
+    }
+
+    private static Constructor<?> publicConstructor(Class<?> type, int parameterCount) {
+        Constructor<?> found = null;
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (constructor.getParameterTypes().length == parameterCount) {
+                if (null != found) {
+                    throw new IllegalArgumentException("Cannot map rows to " + type.getName()
+                            + ". It has more than one public constructor taking " + parameterCount + " arguments");
+                }
+                found = constructor;
+            }
+        }
+        return found;
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ENGLISH);
+    }
+
+    static Object convert(Value value, Class<?> type) {
+        if (value.isNull()) {
+            return defaultOf(type);
+        }
+        if (type == int.class || type == Integer.class) {
+            return value.getInt();
+        } else if (type == long.class || type == Long.class) {
+            return value.getLong();
+        } else if (type == double.class || type == Double.class) {
+            return value.getDouble();
+        } else if (type == float.class || type == Float.class) {
+            return value.getFloat();
+        } else if (type == boolean.class || type == Boolean.class) {
+            return value.getBoolean();
+        } else if (type == String.class) {
+            return value.getString();
+        } else if (type == BigDecimal.class) {
+            return value.getBigDecimal();
+        } else if (type == java.util.Date.class) {
+            return value.getDate();
+        }
+        return value.getValue();
+    }
+
+    private static Object defaultOf(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        } else if (type == boolean.class) {
+            return Boolean.FALSE;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0.0;
+        } else if (type == float.class) {
+            return 0.0f;
+        }
+        throw new IllegalArgumentException("Cannot map columns to " + type.getName());
+    }
+
+    /**
+     * Writes one column of a row into the target.
+     */
+    static class ColumnBinding {
+        static final ColumnBinding IGNORED = new ColumnBinding();
+
+        void value(Object row, Value value) throws Throwable {
+        }
+
+        void intValue(Object row, int value) throws Throwable {
+            value(row, new DefaultValue(value));
+        }
+
+        void longValue(Object row, long value) throws Throwable {
+            value(row, new DefaultValue(value));
+        }
+
+        void doubleValue(Object row, double value) throws Throwable {
+            value(row, new DefaultValue(value));
+        }
+
+        void nullValue(Object row) throws Throwable {
+            value(row, new DefaultValue(null));
+        }
+
+        void bytesValue(Object row, ByteBuffer value) throws Throwable {
+            value(row, new DefaultValue(UTF8.decode(value).toString()));
+        }
+    }
+
+    /**
+     * Calls a setter. Numbers are passed unboxed if the setter takes a primitive they widen to.
+     */
+    private static final class SetterBinding extends ColumnBinding {
+        private final Class<?> type;
+        private final MethodHandle objects;
+        private final MethodHandle ints;
+        private final MethodHandle longs;
+        private final MethodHandle doubles;
+
+        SetterBinding(MethodHandle setter) {
+            this.type = setter.type().parameterType(1);
+            this.objects = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            this.ints = widensFrom(setter, int.class);
+            this.longs = widensFrom(setter, long.class);
+            this.doubles = widensFrom(setter, double.class);
+        }
+
+        private MethodHandle widensFrom(MethodHandle setter, Class<?> primitive) {
+            final boolean widens = type == primitive
+                    || (type == long.class && primitive == int.class)
+                    || (type == double.class && primitive != double.class);
+            return widens ? setter.asType(MethodType.methodType(void.class, Object.class, primitive)) : null;
+        }
+
+        @Override
+        void value(Object row, Value value) throws Throwable {
+            if (!(value.isNull() && type.isPrimitive())) {
+                objects.invokeExact(row, convert(value, type));
+            }
+        }
+
+        @Override
+        void intValue(Object row, int value) throws Throwable {
+            if (null != ints) {
+                ints.invokeExact(row, value);
+            } else {
+                super.intValue(row, value);
+            }
+        }
+
+        @Override
+        void longValue(Object row, long value) throws Throwable {
+            if (null != longs) {
+                longs.invokeExact(row, value);
+            } else {
+                super.longValue(row, value);
+            }
+        }
+
+        @Override
+        void doubleValue(Object row, double value) throws Throwable {
+            if (null != doubles) {
+                doubles.invokeExact(row, value);
+            } else {
+                super.doubleValue(row, value);
+            }
+        }
+
+        @Override
+        void nullValue(Object row) throws Throwable {
+            if (!type.isPrimitive()) {
+                objects.invokeExact(row, (Object) null);
+            }
+        }
+    }
+
+    /**
+     * Collects a constructor argument.
+     */
+    private static final class ArgumentBinding extends ColumnBinding {
+        private final int index;
+        private final Class<?> type;
+
+        ArgumentBinding(int index, Class<?> type) {
+            this.index = index;
+            this.type = type;
+        }
+
+        @Override
+        void value(Object row, Value value) {
+            ((Object[]) row)[index] = convert(value, type);
+        }
+    }
+}
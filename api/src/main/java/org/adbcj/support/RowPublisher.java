@@ -0,0 +1,275 @@
+package org.adbcj.support;
+
+import org.adbcj.*;
+
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the rows of a query. Every subscription runs the query again.
+ *
+ * Rows are only buffered up to a small limit. When the subscriber does not request
+ * more rows, the driver is told to stop reading via {@link ReadFlowControl}, so that a slow
+ * subscriber throttles the database instead of buffering the whole result in memory.
+ * Drivers which do not support {@link BackpressureResultHandler} buffer the rows instead.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class RowPublisher implements Flow.Publisher<Row> {
+    /**
+     * Reading is paused when this many rows are waiting for demand
+     */
+    static final int MAX_BUFFERED_ROWS = 64;
+
+    private final DbSession session;
+    private final String sql;
+
+    public RowPublisher(DbSession session, String sql) {
+        this.session = session;
+        this.sql = sql;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Row> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber can NOT be null");
+        }
+        final RowSubscription subscription = new RowSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        final DbFuture<RowSubscription> query;
+        try {
+            query = session.executeQuery(sql, subscription, subscription);
+        } catch (RuntimeException e) {
+            subscription.finish(e);
+            return;
+        }
+        subscription.runningQuery(query);
+    }
+
+    @Override
+    public String toString() {
+        return "RowPublisher{" + sql + '}';
+    }
+
+    static final class RowSubscription implements Flow.Subscription, BackpressureResultHandler<RowSubscription> {
+        private final Flow.Subscriber<? super Row> subscriber;
+        private final Queue<Row> buffer = new ConcurrentLinkedQueue<Row>();
+        private final AtomicInteger bufferedRows = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger drainRequests = new AtomicInteger();
+
+        private volatile ReadFlowControl flowControl = ReadFlowControl.NO_FLOW_CONTROL;
+        private volatile DbFuture<RowSubscription> query;
+        private volatile boolean cancelled = false;
+        private volatile boolean finished = false;
+        private volatile Throwable failure;
+
+        // Only accessed by the thread delivering results
+        private final DefaultResultSet fields = new DefaultResultSet();
+        private Value[] currentRow;
+        private int columnIndex;
+
+        // Only accessed within the drain loop
+        private boolean paused = false;
+        private boolean terminated = false;
+
+        RowSubscription(Flow.Subscriber<? super Row> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void runningQuery(DbFuture<RowSubscription> query) {
+            this.query = query;
+            if (cancelled) {
+                query.cancel(true);
+            }
+            query.addListener(new DbListener<RowSubscription>() {
+                @Override
+                public void onCompletion(DbFuture<RowSubscription> future) {
+                    switch (future.getState()) {
+                        case SUCCESS:
+                            finish(null);
+                            break;
+                        case FAILURE:
+                            finish(future.getException());
+                            break;
+                        case CANCELLED:
+                            finish(new CancellationException("Query was cancelled"));
+                            break;
+                    }
+                }
+            });
+        }
+
+        void finish(Throwable failure) {
+            if (!finished) {
+                this.failure = failure;
+                this.finished = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                finish(new IllegalArgumentException("Requested rows have to be positive, but was " + n));
+                return;
+            }
+            long current;
+            long updated;
+            do {
+                current = requested.get();
+                updated = current + n;
+                if (updated < 0) {
+                    updated = Long.MAX_VALUE;
+                }
+            } while (!requested.compareAndSet(current, updated));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            final DbFuture<RowSubscription> runningQuery = query;
+            if (runningQuery != null) {
+                runningQuery.cancel(true);
+            }
+            drain();
+        }
+
+        @Override
+        public void useFlowControl(ReadFlowControl flowControl) {
+            this.flowControl = flowControl;
+        }
+
+        @Override
+        public void startFields(RowSubscription accumulator) {
+        }
+
+        @Override
+        public void field(Field field, RowSubscription accumulator) {
+            fields.addField(field);
+        }
+
+        @Override
+        public void endFields(RowSubscription accumulator) {
+        }
+
+        @Override
+        public void startResults(RowSubscription accumulator) {
+        }
+
+        @Override
+        public void startRow(RowSubscription accumulator) {
+            currentRow = new Value[fields.getFields().size()];
+            columnIndex = 0;
+        }
+
+        @Override
+        public void value(Value value, RowSubscription accumulator) {
+            currentRow[columnIndex++] = value;
+        }
+
+        @Override
+        public void endRow(RowSubscription accumulator) {
+            final DefaultRow row = new DefaultRow(fields, currentRow);
+            currentRow = null;
+            if (cancelled) {
+                return;
+            }
+            buffer.add(row);
+            bufferedRows.incrementAndGet();
+            drain();
+        }
+
+        @Override
+        public void endResults(RowSubscription accumulator) {
+        }
+
+        @Override
+        public void exception(Throwable t, RowSubscription accumulator) {
+            finish(t);
+        }
+
+        /**
+         * Delivers rows and terminal signals. Only one thread runs the loop at a time,
+         * other threads just make it run another round.
+         */
+        private void drain() {
+            if (drainRequests.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!terminated) {
+                    deliver();
+                }
+                missed = drainRequests.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void deliver() {
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            final long demand = requested.get();
+            long emitted = 0;
+            while (emitted != demand && !cancelled) {
+                final Row row = buffer.poll();
+                if (row == null) {
+                    break;
+                }
+                bufferedRows.decrementAndGet();
+                subscriber.onNext(row);
+                emitted++;
+            }
+            if (emitted != 0 && demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            if (finished && (failure != null || buffer.isEmpty())) {
+                final Throwable error = failure;
+                terminate();
+                if (error == null) {
+                    subscriber.onComplete();
+                } else {
+                    subscriber.onError(error);
+                }
+                return;
+            }
+            final int waiting = bufferedRows.get();
+            if (!paused && waiting >= MAX_BUFFERED_ROWS) {
+                paused = true;
+                flowControl.pauseReading();
+            } else if (paused && waiting <= MAX_BUFFERED_ROWS / 2) {
+                paused = false;
+                flowControl.resumeReading();
+            }
+        }
+
+        /**
+         * No more signals to the subscriber. Keep reading, so that the rest of the result
+         * is consumed and the connection can continue with the next request.
+         */
+        private void terminate() {
+            terminated = true;
+            cancelled = true;
+            buffer.clear();
+            final DbFuture<RowSubscription> runningQuery = query;
+            if (runningQuery != null && !runningQuery.isDone()) {
+                runningQuery.cancel(true);
+            }
+            if (paused) {
+                paused = false;
+                flowControl.resumeReading();
+            }
+        }
+    }
+}
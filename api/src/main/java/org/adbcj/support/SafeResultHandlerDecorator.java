@@ -1,13 +1,18 @@
 package org.adbcj.support;
 
 import org.adbcj.Field;
+import org.adbcj.PrimitiveResultHandler;
 import org.adbcj.ResultHandler;
 import org.adbcj.Value;
 
+import java.nio.ByteBuffer;
+
 /**
  * In case of an exception this handler will
  * pass that exception to the underlying result handlers {@link ResultHandler#exception(Throwable, Object)}
  *
+ * A {@link PrimitiveResultHandler} stays a {@link PrimitiveResultHandler} when wrapped.
+ *
  * @author roman.stoffel@gamlor.info
  */
 public class SafeResultHandlerDecorator<T> implements ResultHandler<T> {
@@ -23,6 +28,8 @@ public class SafeResultHandlerDecorator<T> implements ResultHandler<T> {
     public static <T> ResultHandler<T> wrap(ResultHandler<T> eventHandler, DefaultDbFuture<T> resultFuture) {
         if(eventHandler instanceof SafeResultHandlerDecorator){
             return eventHandler;
+        } else if(eventHandler instanceof PrimitiveResultHandler){
+            return new SafePrimitiveResultHandlerDecorator<T>((PrimitiveResultHandler<T>) eventHandler, resultFuture);
         } else{
             return new SafeResultHandlerDecorator<T>(eventHandler, resultFuture);
         }
@@ -96,4 +103,54 @@ public class SafeResultHandlerDecorator<T> implements ResultHandler<T> {
         future.trySetException(t);
         original.exception(t, accumulator);
     }
+
+    private static class SafePrimitiveResultHandlerDecorator<T>
+            extends SafeResultHandlerDecorator<T> implements PrimitiveResultHandler<T> {
+        private final PrimitiveResultHandler<T> original;
+
+        private SafePrimitiveResultHandlerDecorator(PrimitiveResultHandler<T> original, DefaultDbFuture<T> future) {
+            super(original, future);
+            this.original = original;
+        }
+
+        public void intValue(int column, int value, T accumulator) {
+            try {
+                original.intValue(column, value, accumulator);
+            } catch (Throwable e) {
+                exception(e, accumulator);
+            }
+        }
+
+        public void longValue(int column, long value, T accumulator) {
+            try {
+                original.longValue(column, value, accumulator);
+            } catch (Throwable e) {
+                exception(e, accumulator);
+            }
+        }
+
+        public void doubleValue(int column, double value, T accumulator) {
+            try {
+                original.doubleValue(column, value, accumulator);
+            } catch (Throwable e) {
+                exception(e, accumulator);
+            }
+        }
+
+        public void nullValue(int column, T accumulator) {
+            try {
+                original.nullValue(column, accumulator);
+            } catch (Throwable e) {
+                exception(e, accumulator);
+            }
+        }
+
+        public void bytesValue(int column, ByteBuffer value, T accumulator) {
+            try {
+                original.bytesValue(column, value, accumulator);
+            } catch (Throwable e) {
+                exception(e, accumulator);
+            }
+        }
+    }
 }
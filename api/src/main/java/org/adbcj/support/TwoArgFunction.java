@@ -0,0 +1,6 @@
+package org.adbcj.support;
+
+
+public interface TwoArgFunction<TFirst, TSecond, TReturn> {
+    TReturn apply(TFirst first, TSecond second);
+}
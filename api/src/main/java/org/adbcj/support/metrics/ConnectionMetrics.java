@@ -0,0 +1,25 @@
+package org.adbcj.support.metrics;
+
+/**
+ * Receives the metrics of one connection.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public interface ConnectionMetrics {
+    /**
+     * @param queueDepth number of requests waiting on the connection, including this one
+     */
+    void requestQueued(int queueDepth);
+
+    /**
+     * @param latencyNanos time from queuing the request until it completed
+     * @param success false if the request failed or was cancelled
+     */
+    void requestCompleted(long latencyNanos, boolean success);
+
+    void bytesRead(long bytes);
+
+    void bytesWritten(long bytes);
+
+    void connectionClosed();
+}
@@ -0,0 +1,174 @@
+package org.adbcj.support.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The built in {@link MetricsRecorder}. Keeps a latency histogram, a queue depth histogram and
+ * byte counters per connection. Recording uses striped counters and lock free histograms.
+ * <p/>
+ * The totals include the connections which are already closed.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class HistogramMetrics implements MetricsRecorder {
+    private final Set<ConnectionStats> openConnections
+            = Collections.newSetFromMap(new ConcurrentHashMap<ConnectionStats, Boolean>());
+    private final ConnectionStats closedConnections = new ConnectionStats(null);
+    private final Histogram poolWait = new Histogram();
+
+    public ConnectionMetrics connectionOpened() {
+        final ConnectionStats stats = new ConnectionStats(this);
+        openConnections.add(stats);
+        return stats;
+    }
+
+    public void poolWait(long nanos) {
+        poolWait.record(nanos);
+    }
+
+    /**
+     * @return the stats of the open connections
+     */
+    public Collection<ConnectionStats> connections() {
+        return new ArrayList<ConnectionStats>(openConnections);
+    }
+
+    /**
+     * @return latency of all requests in nanoseconds
+     */
+    public Histogram requestLatency() {
+        final Histogram total = new Histogram();
+        total.add(closedConnections.requestLatency);
+        for (ConnectionStats connection : openConnections) {
+            total.add(connection.requestLatency);
+        }
+        return total;
+    }
+
+    /**
+     * @return number of requests waiting on a connection when a request was queued
+     */
+    public Histogram queueDepth() {
+        final Histogram total = new Histogram();
+        total.add(closedConnections.queueDepth);
+        for (ConnectionStats connection : openConnections) {
+            total.add(connection.queueDepth);
+        }
+        return total;
+    }
+
+    /**
+     * @return time in nanoseconds the connection pool took to hand out connections
+     */
+    public Histogram poolWait() {
+        final Histogram copy = new Histogram();
+        copy.add(poolWait);
+        return copy;
+    }
+
+    public long failedRequests() {
+        long total = closedConnections.failedRequests();
+        for (ConnectionStats connection : openConnections) {
+            total += connection.failedRequests();
+        }
+        return total;
+    }
+
+    public long bytesRead() {
+        long total = closedConnections.bytesRead();
+        for (ConnectionStats connection : openConnections) {
+            total += connection.bytesRead();
+        }
+        return total;
+    }
+
+    public long bytesWritten() {
+        long total = closedConnections.bytesWritten();
+        for (ConnectionStats connection : openConnections) {
+            total += connection.bytesWritten();
+        }
+        return total;
+    }
+
+    private void closed(ConnectionStats connection) {
+        if (openConnections.remove(connection)) {
+            closedConnections.requestLatency.add(connection.requestLatency);
+            closedConnections.queueDepth.add(connection.queueDepth);
+            closedConnections.failedRequests.add(connection.failedRequests());
+            closedConnections.bytesRead.add(connection.bytesRead());
+            closedConnections.bytesWritten.add(connection.bytesWritten());
+        }
+    }
+
+    /**
+     * The metrics of one connection
+     */
+    public static final class ConnectionStats implements ConnectionMetrics {
+        private final HistogramMetrics owner;
+        private final Histogram requestLatency = new Histogram();
+        private final Histogram queueDepth = new Histogram();
+        private final LongAdder failedRequests = new LongAdder();
+        private final LongAdder bytesRead = new LongAdder();
+        private final LongAdder bytesWritten = new LongAdder();
+        private volatile int currentQueueDepth;
+
+        ConnectionStats(HistogramMetrics owner) {
+            this.owner = owner;
+        }
+
+        public void requestQueued(int queueDepth) {
+            this.queueDepth.record(queueDepth);
+            this.currentQueueDepth = queueDepth;
+        }
+
+        public void requestCompleted(long latencyNanos, boolean success) {
+            requestLatency.record(latencyNanos);
+            if (!success) {
+                failedRequests.increment();
+            }
+        }
+
+        public void bytesRead(long bytes) {
+            bytesRead.add(bytes);
+        }
+
+        public void bytesWritten(long bytes) {
+            bytesWritten.add(bytes);
+        }
+
+        public void connectionClosed() {
+            owner.closed(this);
+        }
+
+        /**
+         * @return latency of the requests in nanoseconds. This is the live histogram, not a copy.
+         */
+        public Histogram requestLatency() {
+            return requestLatency;
+        }
+
+        /**
+         * @return the queue depth when the last request was queued
+         */
+        public int currentQueueDepth() {
+            return currentQueueDepth;
+        }
+
+        public long failedRequests() {
+            return failedRequests.sum();
+        }
+
+        public long bytesRead() {
+            return bytesRead.sum();
+        }
+
+        public long bytesWritten() {
+            return bytesWritten.sum();
+        }
+    }
+}
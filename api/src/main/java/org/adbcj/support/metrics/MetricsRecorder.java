@@ -0,0 +1,23 @@
+package org.adbcj.support.metrics;
+
+/**
+ * Receives the metrics of a connection manager. Configured with {@link org.adbcj.StandardProperties#METRICS}.
+ * <p/>
+ * The methods are called on the I/O threads and on the threads issuing requests,
+ * so implementations have to be thread safe and must not block.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public interface MetricsRecorder {
+    /**
+     * Called for each new connection.
+     *
+     * @return the receiver of the metrics of that connection
+     */
+    ConnectionMetrics connectionOpened();
+
+    /**
+     * @param nanos time a connection pool took to hand out a connection
+     */
+    void poolWait(long nanos);
+}
@@ -0,0 +1,38 @@
+package org.adbcj.support.metrics;
+
+/**
+ * Ignores all metrics. This is the default.
+ * <p/>
+ * Drivers compare against {@link #INSTANCE} and skip taking time stamps and registering listeners,
+ * so the remaining calls are empty methods on a single implementation, which the JIT removes.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class NoMetrics implements MetricsRecorder, ConnectionMetrics {
+    public static final NoMetrics INSTANCE = new NoMetrics();
+
+    private NoMetrics() {
+    }
+
+    public ConnectionMetrics connectionOpened() {
+        return this;
+    }
+
+    public void poolWait(long nanos) {
+    }
+
+    public void requestQueued(int queueDepth) {
+    }
+
+    public void requestCompleted(long latencyNanos, boolean success) {
+    }
+
+    public void bytesRead(long bytes) {
+    }
+
+    public void bytesWritten(long bytes) {
+    }
+
+    public void connectionClosed() {
+    }
+}
@@ -5,7 +5,27 @@ package org.adbcj.support.stacktracing;
  * @author roman.stoffel@gamlor.info
  */
 public final class MarkEntryPointToAdbcjException extends Exception {
+    private final StackWalker.StackFrame callSite;
+
     public MarkEntryPointToAdbcjException() {
         super("The operation which caused this issue started in this stack-frame");
+        this.callSite = null;
+    }
+
+    /**
+     * Only marks the given frame, without filling in the stack trace.
+     * The frame is resolved to a {@link StackTraceElement} when the stack trace is requested.
+     */
+    MarkEntryPointToAdbcjException(StackWalker.StackFrame callSite) {
+        super("The operation which caused this issue started in this stack-frame", null, false, false);
+        this.callSite = callSite;
+    }
+
+    @Override
+    public StackTraceElement[] getStackTrace() {
+        if (null != callSite) {
+            return new StackTraceElement[]{callSite.toStackTraceElement()};
+        }
+        return super.getStackTrace();
     }
 }
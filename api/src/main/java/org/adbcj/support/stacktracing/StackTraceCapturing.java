@@ -1,16 +1,65 @@
 package org.adbcj.support.stacktracing;
 
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
 /**
  * @author roman.stoffel@gamlor.info
  */
 abstract class StackTraceCapturing {
     private static final StackTraceCapturing defaultCapturer = initializeCapturer();
+    /**
+     * The caller is a few frames away, so only fetch a small batch of frames
+     */
+    private static final StackWalker WALKER
+            = StackWalker.getInstance(Collections.<StackWalker.Option>emptySet(), 8);
+    private static final Function<Stream<StackWalker.StackFrame>, StackWalker.StackFrame> FIRST_CALLER_FRAME
+            = new Function<Stream<StackWalker.StackFrame>, StackWalker.StackFrame>() {
+        @Override
+        public StackWalker.StackFrame apply(Stream<StackWalker.StackFrame> frames) {
+            final Iterator<StackWalker.StackFrame> iterator = frames.iterator();
+            while (iterator.hasNext()) {
+                final StackWalker.StackFrame frame = iterator.next();
+                if (!isAdbcjFrame(frame.getClassName())) {
+                    return frame;
+                }
+            }
+            return null;
+        }
+    };
 
 
     static MarkEntryPointToAdbcjException defaultCapture(){
         return defaultCapturer.capture();
     }
 
+    static MarkEntryPointToAdbcjException captureCallerFrame() {
+        final StackWalker.StackFrame frame = WALKER.walk(FIRST_CALLER_FRAME);
+        if (null == frame) {
+            return new MarkEntryPointToAdbcjException();
+        }
+        return new MarkEntryPointToAdbcjException(frame);
+    }
+
+    /**
+     * Frames of the API classes and the drivers. The tests and the demos live in sub packages
+     * of org.adbcj as well, but they are callers.
+     */
+    static boolean isAdbcjFrame(String className) {
+        if (!className.startsWith("org.adbcj.")) {
+            return false;
+        }
+        final String name = className.substring("org.adbcj.".length());
+        return name.indexOf('.') < 0
+                || name.startsWith("support.")
+                || name.startsWith("mysql.")
+                || name.startsWith("h2.")
+                || name.startsWith("jdbc.")
+                || name.startsWith("connectionpool.");
+    }
+
     protected abstract MarkEntryPointToAdbcjException capture();
 
     static class CaputureByDefault extends StackTraceCapturing{
@@ -40,4 +89,3 @@ abstract class StackTraceCapturing {
         return Boolean.getBoolean(name);
     }
 }
-
@@ -1,27 +1,147 @@
 package org.adbcj.support.stacktracing;
 
-public enum StackTracingOptions{
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the call site of a request is captured. Capturing the full stack
+ * is expensive, so besides capturing always there are cheaper modes for production:
+ * only the caller frame, a sample of the requests or only the requests after a failure.
+ *
+ * This used to be an enum. The fixed modes are still available with {@link #values()} and {@link #valueOf(String)},
+ * but the options cannot be used in a switch statement anymore.
+ */
+public abstract class StackTracingOptions {
     /**
      * Only trace when the JVM "org.adbcj.debug" flag is set to true.
      *
      * So the user can activate it with -Dorg.adbcj.debug=true
      */
-    GLOBAL_DEFAULT{
+    public static final StackTracingOptions GLOBAL_DEFAULT = new StackTracingOptions() {
         @Override
         public MarkEntryPointToAdbcjException captureStacktraceAtEntryPoint() {
             return StackTraceCapturing.defaultCapture();
         }
-    },
+
+        @Override
+        public String toString() {
+            return "GLOBAL_DEFAULT";
+        }
+    };
     /**
      * This {@link org.adbcj.ConnectionManagerFactory} or connection wants to have a stack-trace captured,
      * no mather what.
      */
-    FORCED_BY_INSTANCE{
+    public static final StackTracingOptions FORCED_BY_INSTANCE = new StackTracingOptions() {
         @Override
         public MarkEntryPointToAdbcjException captureStacktraceAtEntryPoint() {
             return new MarkEntryPointToAdbcjException();
         }
+
+        @Override
+        public String toString() {
+            return "FORCED_BY_INSTANCE";
+        }
+    };
+    /**
+     * Only records the first frame outside of ADBCJ, which is the code issuing the request.
+     * This walks only a few frames instead of the whole stack.
+     */
+    public static final StackTracingOptions CALLER_FRAME = new StackTracingOptions() {
+        @Override
+        public MarkEntryPointToAdbcjException captureStacktraceAtEntryPoint() {
+            return StackTraceCapturing.captureCallerFrame();
+        }
+
+        @Override
+        public String toString() {
+            return "CALLER_FRAME";
+        }
     };
 
+    private static final StackTracingOptions[] FIXED_MODES = {GLOBAL_DEFAULT, FORCED_BY_INSTANCE, CALLER_FRAME};
+
     public abstract MarkEntryPointToAdbcjException captureStacktraceAtEntryPoint();
+
+    /**
+     * @return the modes which do not need a parameter
+     */
+    public static StackTracingOptions[] values() {
+        return FIXED_MODES.clone();
+    }
+
+    /**
+     * @return the mode without parameter with the given name, like {@link #GLOBAL_DEFAULT}
+     */
+    public static StackTracingOptions valueOf(String name) {
+        for (StackTracingOptions mode : FIXED_MODES) {
+            if (mode.toString().equals(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("No stack tracing mode named " + name);
+    }
+
+    /**
+     * Called when a request failed.
+     */
+    public void failureOccurred() {
+    }
+
+    /**
+     * Captures the stack of one in oneIn requests, picked at random.
+     */
+    public static StackTracingOptions sampled(final int oneIn) {
+        if (oneIn < 1) {
+            throw new IllegalArgumentException("Expect to sample one in at least one request, but was " + oneIn);
+        }
+        return new StackTracingOptions() {
+            @Override
+            public MarkEntryPointToAdbcjException captureStacktraceAtEntryPoint() {
+                if (ThreadLocalRandom.current().nextInt(oneIn) == 0) {
+                    return new MarkEntryPointToAdbcjException();
+                }
+                return null;
+            }
+
+            @Override
+            public String toString() {
+                return "SAMPLED(1/" + oneIn + ")";
+            }
+        };
+    }
+
+    /**
+     * Captures the stack of all requests issued during the given time after a request failed.
+     * Failures tend to come in bursts, so the following failures get their call site.
+     */
+    public static StackTracingOptions afterFailure(long window, TimeUnit unit) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Expect a positive time window, but was " + window);
+        }
+        final long windowInNanos = unit.toNanos(window);
+        return new StackTracingOptions() {
+            private volatile boolean failed = false;
+            private volatile long captureUntil;
+
+            @Override
+            public MarkEntryPointToAdbcjException captureStacktraceAtEntryPoint() {
+                if (failed && System.nanoTime() - captureUntil < 0) {
+                    return new MarkEntryPointToAdbcjException();
+                }
+                return null;
+            }
+
+            @Override
+            public void failureOccurred() {
+                captureUntil = System.nanoTime() + windowInNanos;
+                failed = true;
+            }
+
+            @Override
+            public String toString() {
+                return "AFTER_FAILURE(" + windowInNanos + "ns)";
+            }
+        };
+    }
 }
@@ -0,0 +1,31 @@
+package org.adbcj.sync;
+
+import org.adbcj.DbException;
+import org.adbcj.DbFuture;
+
+/**
+ * Blocks the calling thread until a request completes.
+ *
+ * {@link DbFuture#get()} parks the waiting thread instead of waiting on a monitor,
+ * so a waiting virtual thread releases its carrier thread.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+final class Await {
+    private Await() {
+    }
+
+    /**
+     * @throws DbException when the request failed, or the thread was interrupted while waiting.
+     * An interrupted request is cancelled and the interrupt flag of the thread is kept
+     */
+    static <T> T result(DbFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new DbException("Interrupted while waiting for the database", e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.adbcj.sync;
+
+import org.adbcj.DbException;
+import org.adbcj.Row;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The rows of a query, pulled one by one while the query still runs.
+ *
+ * Only a window of rows is requested ahead of the iteration. Once half of it is consumed, the next
+ * half is requested. The driver stops reading from the socket while the rows it read are not requested,
+ * see {@link org.adbcj.support.RowPublisher}. So a slow consumer throttles the database
+ * instead of buffering the whole result.
+ *
+ * {@link #hasNext()} parks the calling thread until the next row arrives.
+ * Close the iterator when not reading all rows, so that the connection can continue with the next request.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class RowIterator implements Iterator<Row>, AutoCloseable, Flow.Subscriber<Row> {
+    static final int DEFAULT_PREFETCH = 32;
+
+    private final int prefetch;
+    private final int requestBatch;
+    private final Queue<Row> rows = new ConcurrentLinkedQueue<Row>();
+    private volatile Flow.Subscription subscription;
+    private volatile boolean finished = false;
+    private volatile Throwable failure;
+    private volatile Thread waiting;
+
+    // Only accessed by the iterating thread
+    private Row next;
+    private int consumedSinceRequest = 0;
+    private boolean closed = false;
+
+    RowIterator(int prefetch) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Has to prefetch at least one row, but was " + prefetch);
+        }
+        this.prefetch = prefetch;
+        this.requestBatch = Math.max(1, prefetch / 2);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (null != next) {
+            return true;
+        }
+        while (!closed) {
+            final Row row = rows.poll();
+            if (null != row) {
+                next = row;
+                consumed();
+                return true;
+            }
+            if (finished) {
+                if (!rows.isEmpty()) {
+                    // Rows delivered right before the end
+                    continue;
+                }
+                closed = true;
+                throwFailure();
+                return false;
+            }
+            awaitRows();
+        }
+        return false;
+    }
+
+    @Override
+    public Row next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows");
+        }
+        final Row row = next;
+        next = null;
+        return row;
+    }
+
+    /**
+     * Stops the iteration. A query which still runs is cancelled, its remaining rows are skipped.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        next = null;
+        rows.clear();
+        if (!finished) {
+            subscription.cancel();
+        }
+    }
+
+    private void consumed() {
+        if (++consumedSinceRequest == requestBatch) {
+            consumedSinceRequest = 0;
+            subscription.request(requestBatch);
+        }
+    }
+
+    private void awaitRows() {
+        waiting = Thread.currentThread();
+        if (rows.isEmpty() && !finished) {
+            LockSupport.park(this);
+        }
+        waiting = null;
+        if (Thread.interrupted()) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new DbException("Interrupted while waiting for rows");
+        }
+    }
+
+    private void throwFailure() {
+        final Throwable error = failure;
+        if (null == error) {
+            return;
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        throw new DbException(error);
+    }
+
+    private void wakeUp() {
+        final Thread thread = waiting;
+        if (null != thread) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(Row row) {
+        rows.add(row);
+        wakeUp();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        failure = throwable;
+        finished = true;
+        wakeUp();
+    }
+
+    @Override
+    public void onComplete() {
+        finished = true;
+        wakeUp();
+    }
+}
@@ -0,0 +1,110 @@
+package org.adbcj.sync;
+
+import org.adbcj.Connection;
+import org.adbcj.ConnectionManager;
+import org.adbcj.DbException;
+import org.adbcj.Result;
+import org.adbcj.ResultSet;
+
+import java.util.List;
+
+/**
+ * Blocking view on a {@link Connection}, for code which runs on a thread per request,
+ * like virtual threads. Every method blocks until the database answered.
+ *
+ * The calling thread is parked while waiting, it never blocks on a monitor. So a virtual
+ * thread waiting for the database releases its carrier thread.
+ * Several threads may share one connection, their requests are pipelined like on the connection itself.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class SyncConnection implements AutoCloseable {
+    private final Connection connection;
+
+    public SyncConnection(Connection connection) {
+        if (null == connection) {
+            throw new IllegalArgumentException("connection can NOT be null");
+        }
+        this.connection = connection;
+    }
+
+    /**
+     * Opens a new connection and waits until it is established
+     */
+    public static SyncConnection connect(ConnectionManager connectionManager) {
+        return new SyncConnection(Await.result(connectionManager.connect()));
+    }
+
+    /**
+     * @return the underlying asynchronous connection
+     */
+    public Connection asyncConnection() {
+        return connection;
+    }
+
+    public void beginTransaction() {
+        connection.beginTransaction();
+    }
+
+    public void commit() {
+        Await.result(connection.commit());
+    }
+
+    public void rollback() {
+        Await.result(connection.rollback());
+    }
+
+    public boolean isInTransaction() {
+        return connection.isInTransaction();
+    }
+
+    public ResultSet executeQuery(String sql) {
+        return Await.result(connection.executeQuery(sql));
+    }
+
+    /**
+     * Runs a query and returns its rows as they arrive, instead of waiting for the complete result.
+     * See {@link RowIterator} for how many rows are read ahead.
+     * The iterator has to be read to the end or closed before the connection runs the next request.
+     */
+    public RowIterator iterate(String sql) {
+        return iterate(sql, RowIterator.DEFAULT_PREFETCH);
+    }
+
+    /**
+     * @param prefetch the number of rows which are read ahead of the iteration
+     */
+    public RowIterator iterate(String sql, int prefetch) {
+        final RowIterator rows = new RowIterator(prefetch);
+        connection.streamQuery(sql).subscribe(rows);
+        return rows;
+    }
+
+    public Result executeUpdate(String sql) {
+        return Await.result(connection.executeUpdate(sql));
+    }
+
+    public List<Result> executeBatch(List<String> statements) {
+        return Await.result(connection.executeBatch(statements));
+    }
+
+    public SyncPreparedQuery prepareQuery(String sql) {
+        return new SyncPreparedQuery(Await.result(connection.prepareQuery(sql)));
+    }
+
+    public SyncPreparedUpdate prepareUpdate(String sql) {
+        return new SyncPreparedUpdate(Await.result(connection.prepareUpdate(sql)));
+    }
+
+    public boolean isClosed() {
+        return connection.isClosed();
+    }
+
+    /**
+     * Closes the connection, after the pending requests completed
+     */
+    @Override
+    public void close() throws DbException {
+        Await.result(connection.close());
+    }
+}
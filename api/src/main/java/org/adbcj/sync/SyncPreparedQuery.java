@@ -0,0 +1,41 @@
+package org.adbcj.sync;
+
+import org.adbcj.DbException;
+import org.adbcj.PreparedQuery;
+import org.adbcj.ResultSet;
+
+/**
+ * Blocking view on a {@link PreparedQuery}, see {@link SyncConnection}
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class SyncPreparedQuery implements AutoCloseable {
+    private final PreparedQuery query;
+
+    public SyncPreparedQuery(PreparedQuery query) {
+        if (null == query) {
+            throw new IllegalArgumentException("query can NOT be null");
+        }
+        this.query = query;
+    }
+
+    /**
+     * @return the underlying asynchronous statement
+     */
+    public PreparedQuery asyncQuery() {
+        return query;
+    }
+
+    public ResultSet execute(Object... params) {
+        return Await.result(query.execute(params));
+    }
+
+    public boolean isClosed() {
+        return query.isClosed();
+    }
+
+    @Override
+    public void close() throws DbException {
+        Await.result(query.close());
+    }
+}
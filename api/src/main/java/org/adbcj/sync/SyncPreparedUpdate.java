@@ -0,0 +1,47 @@
+package org.adbcj.sync;
+
+import org.adbcj.DbException;
+import org.adbcj.PreparedUpdate;
+import org.adbcj.Result;
+
+import java.util.List;
+
+/**
+ * Blocking view on a {@link PreparedUpdate}, see {@link SyncConnection}
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class SyncPreparedUpdate implements AutoCloseable {
+    private final PreparedUpdate update;
+
+    public SyncPreparedUpdate(PreparedUpdate update) {
+        if (null == update) {
+            throw new IllegalArgumentException("update can NOT be null");
+        }
+        this.update = update;
+    }
+
+    /**
+     * @return the underlying asynchronous statement
+     */
+    public PreparedUpdate asyncUpdate() {
+        return update;
+    }
+
+    public Result execute(Object... params) {
+        return Await.result(update.execute(params));
+    }
+
+    public List<Result> executeBatch(Iterable<Object[]> parameterSets) {
+        return Await.result(update.executeBatch(parameterSets));
+    }
+
+    public boolean isClosed() {
+        return update.isClosed();
+    }
+
+    @Override
+    public void close() throws DbException {
+        Await.result(update.close());
+    }
+}
@@ -2,14 +2,20 @@ package org.adbcj;
 
 import org.adbcj.support.CancellationAction;
 import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.FutureUtils;
+import org.adbcj.support.OneArgFunction;
 import org.adbcj.support.stacktracing.StackTracingOptions;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author roman.stoffel@gamlor.info
@@ -179,6 +185,215 @@ public class TestDefaultFuture {
         Assert.assertEquals(1,count);
 
     }
+    @Test
+    public void listenersAreCalledInRegistrationOrder()throws InterruptedException{
+        final List<Integer> calls = new ArrayList<Integer>();
+        DefaultDbFuture<String> toComplete = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        for (int i = 0; i < 5; i++) {
+            final int number = i;
+            toComplete.addListener(new DbListener<String>() {
+                @Override
+                public void onCompletion(DbFuture<String> future) {
+                    calls.add(number);
+                }
+            });
+        }
+        toComplete.setResult("completed");
+        Assert.assertEquals(calls.toString(), "[0, 1, 2, 3, 4]");
+    }
+
+    @Test
+    public void everyListenerIsCalledExactlyOnceWhenRacingWithCompletion()throws Exception{
+        for (int round = 0; round < 100; round++) {
+            final DefaultDbFuture<String> toComplete = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+            final AtomicInteger calls = new AtomicInteger();
+            final CountDownLatch start = new CountDownLatch(1);
+            final int listenersPerThread = 100;
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        for (int i = 0; i < listenersPerThread; i++) {
+                            toComplete.addListener(new DbListener<String>() {
+                                @Override
+                                public void onCompletion(DbFuture<String> future) {
+                                    calls.incrementAndGet();
+                                }
+                            });
+                        }
+                    }
+                };
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            toComplete.setResult("completed");
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Assert.assertEquals(calls.get(), 4 * listenersPerThread);
+        }
+    }
+
+    @Test
+    public void removedListenerDoesNotPreventOthers()throws InterruptedException{
+        final AtomicInteger calls = new AtomicInteger();
+        DefaultDbFuture<String> toComplete = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        final DbListener<String> listener = new DbListener<String>() {
+            @Override
+            public void onCompletion(DbFuture<String> future) {
+                calls.incrementAndGet();
+            }
+        };
+        final DbListener<String> toRemove = new DbListener<String>() {
+            @Override
+            public void onCompletion(DbFuture<String> future) {
+                Assert.fail("Listener was removed");
+            }
+        };
+        toComplete.addListener(listener);
+        toComplete.addListener(toRemove);
+        toComplete.addListener(listener);
+        Assert.assertTrue(toComplete.removeListener(toRemove));
+        Assert.assertFalse(toComplete.removeListener(toRemove));
+        toComplete.setResult("completed");
+
+        Assert.assertEquals(calls.get(), 2);
+        Assert.assertFalse(toComplete.removeListener(listener));
+    }
+
+    @Test
+    public void wakesUpAllWaiters()throws InterruptedException{
+        final DefaultDbFuture<String> toComplete = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        final CountDownLatch finished = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            new Thread(){
+                @Override
+                public void run() {
+                    try {
+                        if("completed".equals(toComplete.get(10, TimeUnit.SECONDS))){
+                            finished.countDown();
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            }.start();
+        }
+        Thread.sleep(50);
+        toComplete.setResult("completed");
+        Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void getCanBeInterrupted()throws InterruptedException{
+        final DefaultDbFuture<String> neverCompleted = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Thread waiter = new Thread(){
+            @Override
+            public void run() {
+                try {
+                    neverCompleted.get();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        };
+        waiter.start();
+        Thread.sleep(50);
+        waiter.interrupt();
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void listenerRunsOnGivenExecutor()throws InterruptedException{
+        final RecordingExecutor executor = new RecordingExecutor();
+        final AtomicInteger calls = new AtomicInteger();
+        final DbListener<String> listener = new DbListener<String>() {
+            @Override
+            public void onCompletion(DbFuture<String> future) {
+                calls.incrementAndGet();
+            }
+        };
+        DefaultDbFuture<String> toComplete = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        toComplete.addListener(listener, executor);
+        toComplete.setResult("completed");
+        toComplete.addListener(listener, executor);
+
+        Assert.assertEquals(calls.get(), 0);
+        Assert.assertEquals(executor.runAll(), 2);
+        Assert.assertEquals(calls.get(), 2);
+    }
+
+    @Test
+    public void defaultExecutorIsUsedByMappedFutures()throws InterruptedException{
+        final RecordingExecutor executor = new RecordingExecutor();
+        final AtomicInteger calls = new AtomicInteger();
+        DefaultDbFuture<String> toComplete = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT, null, executor);
+        final DbFuture<Integer> mapped = FutureUtils.map(toComplete, new OneArgFunction<String, Integer>() {
+            @Override
+            public Integer apply(String arg) {
+                return arg.length();
+            }
+        });
+        mapped.addListener(new DbListener<Integer>() {
+            @Override
+            public void onCompletion(DbFuture<Integer> future) {
+                calls.incrementAndGet();
+            }
+        });
+        toComplete.setResult("completed");
+
+        // The transformation and the listener both run on the executor, not on the completing thread
+        Assert.assertFalse(mapped.isDone());
+        Assert.assertEquals(calls.get(), 0);
+        Assert.assertEquals(executor.runAll(), 2);
+        Assert.assertEquals(mapped.getResult(), Integer.valueOf(9));
+        Assert.assertEquals(calls.get(), 1);
+    }
+
+    @Test
+    public void longMapChainsDoNotOverflowTheStack()throws InterruptedException{
+        DefaultDbFuture<Integer> first = new DefaultDbFuture<Integer>(StackTracingOptions.GLOBAL_DEFAULT);
+        DbFuture<Integer> last = first;
+        for (int i = 0; i < 100000; i++) {
+            last = FutureUtils.map(last, new OneArgFunction<Integer, Integer>() {
+                @Override
+                public Integer apply(Integer arg) {
+                    return arg + 1;
+                }
+            });
+        }
+        first.setResult(0);
+        Assert.assertEquals(last.get(), Integer.valueOf(100000));
+    }
+
+    @Test
+    public void listenerCanWaitForFutureCompletedByLaterListener()throws InterruptedException{
+        final DefaultDbFuture<String> first = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        final DbFuture<String> mappedTwice = FutureUtils.map(FutureUtils.map(first, OneArgFunction.ID_FUNCTION),
+                OneArgFunction.ID_FUNCTION);
+        final List<String> results = new ArrayList<String>();
+        first.addListener(new DbListener<String>() {
+            @Override
+            public void onCompletion(DbFuture<String> future) {
+                try {
+                    results.add(mappedTwice.get(5, TimeUnit.SECONDS));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        first.setResult("completed");
+        Assert.assertEquals(results.toString(), "[completed]");
+    }
+
     @Test
     public void hasOriginalRequestStack()throws InterruptedException{
         DefaultDbFuture<String> toComplete = new DefaultDbFuture<String>(StackTracingOptions.FORCED_BY_INSTANCE);
@@ -240,6 +455,24 @@ public class TestDefaultFuture {
     }
 
 
+    static class RecordingExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        int runAll() {
+            int count = 0;
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+                count++;
+            }
+            return count;
+        }
+    }
+
     static interface ActionOnFuture{
         void apply(DefaultDbFuture future);
     }
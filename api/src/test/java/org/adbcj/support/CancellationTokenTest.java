@@ -0,0 +1,57 @@
+package org.adbcj.support;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class CancellationTokenTest {
+
+    @Test
+    public void cancelsNotStartedOperation() {
+        final AtomicInteger serverCancels = new AtomicInteger();
+        CancellationToken token = new CancellationToken();
+        token.cancelWhileRunningWith(countingAction(serverCancels));
+
+        Assert.assertTrue(token.cancel());
+        Assert.assertTrue(token.isCancelled());
+        Assert.assertFalse(token.tryStartOrIsCancel());
+        Assert.assertEquals(serverCancels.get(), 0);
+    }
+
+    @Test
+    public void cancelsStartedOperationOnServerOnce() {
+        final AtomicInteger serverCancels = new AtomicInteger();
+        CancellationToken token = new CancellationToken();
+        token.cancelWhileRunningWith(countingAction(serverCancels));
+        Assert.assertTrue(token.tryStartOrIsCancel());
+
+        Assert.assertFalse(token.cancelIfNotStarted());
+        Assert.assertTrue(token.cancel());
+        Assert.assertFalse(token.cancel());
+        Assert.assertEquals(serverCancels.get(), 1);
+        // The server still answers, so the operation is not skipped
+        Assert.assertFalse(token.isCancelled());
+    }
+
+    @Test
+    public void cannotCancelStartedOperationWithoutServerCancellation() {
+        CancellationToken token = new CancellationToken();
+        Assert.assertTrue(token.tryStartOrIsCancel());
+
+        Assert.assertFalse(token.cancel());
+    }
+
+    private static CancellationAction countingAction(final AtomicInteger counter) {
+        return new CancellationAction() {
+            @Override
+            public boolean cancel() {
+                counter.incrementAndGet();
+                return true;
+            }
+        };
+    }
+}
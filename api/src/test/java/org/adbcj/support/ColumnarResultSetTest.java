@@ -0,0 +1,145 @@
+package org.adbcj.support;
+
+import org.adbcj.Row;
+import org.adbcj.Type;
+import org.adbcj.Value;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class ColumnarResultSetTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void storesPrimitiveColumns() {
+        ColumnarResultEventsHandler handler = new ColumnarResultEventsHandler();
+        ColumnarResultSet resultSet = withFields(handler,
+                field(0, "id", Type.INTEGER), field(1, "amount", Type.DOUBLE), field(2, "name", Type.VARCHAR));
+        for (int i = 0; i < 100; i++) {
+            handler.startRow(resultSet);
+            handler.intValue(0, i, resultSet);
+            handler.doubleValue(1, i * 0.5, resultSet);
+            handler.bytesValue(2, ByteBuffer.wrap(("name" + (i % 3)).getBytes(UTF8)), resultSet);
+            handler.endRow(resultSet);
+        }
+
+        Assert.assertEquals(resultSet.size(), 100);
+        Assert.assertEquals(resultSet.getInt(42, 0), 42);
+        Assert.assertEquals(resultSet.getDouble(42, 1), 21.0);
+        Assert.assertEquals(resultSet.getString(42, 2), "name0");
+        Assert.assertSame(resultSet.getString(3, 2), resultSet.getString(42, 2));
+
+        Row row = resultSet.get(99);
+        Assert.assertEquals(row.get("id").getInt(), 99);
+        Assert.assertEquals(row.get("ID").getValue(), 99);
+        Assert.assertEquals(row.get(1).getDouble(), 49.5);
+        Assert.assertEquals(row.get("name").getString(), "name0");
+        Assert.assertSame(row.getResultSet(), resultSet);
+    }
+
+    @Test
+    public void tracksNullValues() {
+        ColumnarResultEventsHandler handler = new ColumnarResultEventsHandler();
+        ColumnarResultSet resultSet = withFields(handler, field(0, "id", Type.BIGINT), field(1, "name", Type.VARCHAR));
+        handler.startRow(resultSet);
+        handler.nullValue(0, resultSet);
+        handler.value(new DefaultValue(null), resultSet);
+        handler.endRow(resultSet);
+        handler.startRow(resultSet);
+        handler.longValue(0, 7L, resultSet);
+        handler.value(new DefaultValue("seven"), resultSet);
+        handler.endRow(resultSet);
+
+        Assert.assertTrue(resultSet.isNull(0, 0));
+        Assert.assertTrue(resultSet.get(0).get("id").isNull());
+        Assert.assertNull(resultSet.get(0).get("name").getString());
+        Assert.assertEquals(resultSet.get(0).get("id").getLong(), 0L);
+        Assert.assertFalse(resultSet.isNull(1, 0));
+        Assert.assertEquals(resultSet.getLong(1, 0), 7L);
+        Assert.assertEquals(resultSet.getString(1, 1), "seven");
+    }
+
+    @Test
+    public void widensColumnsWhenTypesDiffer() {
+        ColumnarResultEventsHandler handler = new ColumnarResultEventsHandler();
+        ColumnarResultSet resultSet = withFields(handler, field(0, "number", Type.BIGINT), field(1, "mixed", Type.OTHER));
+        handler.startRow(resultSet);
+        handler.intValue(0, 1, resultSet);
+        handler.intValue(1, 1, resultSet);
+        handler.endRow(resultSet);
+        handler.startRow(resultSet);
+        handler.longValue(0, Long.MAX_VALUE, resultSet);
+        handler.value(new DefaultValue(new BigDecimal("2.5")), resultSet);
+        handler.endRow(resultSet);
+
+        Assert.assertEquals(resultSet.getLong(0, 0), 1L);
+        Assert.assertEquals(resultSet.getLong(1, 0), Long.MAX_VALUE);
+        Assert.assertEquals(resultSet.getObject(0, 1), 1);
+        Assert.assertEquals(resultSet.get(1).get("mixed").getBigDecimal(), new BigDecimal("2.5"));
+    }
+
+    @Test
+    public void rowsAreMaps() {
+        ColumnarResultEventsHandler handler = new ColumnarResultEventsHandler();
+        ColumnarResultSet resultSet = withFields(handler, field(0, "id", Type.INTEGER), field(1, "name", Type.VARCHAR));
+        handler.startRow(resultSet);
+        handler.intValue(0, 1, resultSet);
+        handler.bytesValue(1, ByteBuffer.wrap("one".getBytes(UTF8)), resultSet);
+        handler.endRow(resultSet);
+
+        Row row = resultSet.get(0);
+        Assert.assertEquals(row.size(), 2);
+        Assert.assertTrue(row.containsKey("name"));
+        int entries = 0;
+        for (Map.Entry<Object, Value> entry : row.entrySet()) {
+            Assert.assertSame(entry.getKey(), resultSet.getFields().get(entries));
+            entries++;
+        }
+        Assert.assertEquals(entries, 2);
+    }
+
+    @Test
+    public void storesRawBytesByColumnType() {
+        ColumnarResultEventsHandler handler = new ColumnarResultEventsHandler();
+        ColumnarResultSet resultSet = withFields(handler,
+                field(0, "price", Type.DECIMAL), field(1, "data", Type.BLOB), field(2, "day", Type.DATE));
+        byte[] data = new byte[]{(byte) 0xff, 0, (byte) 0xc3};
+        for (int i = 0; i < 2; i++) {
+            handler.startRow(resultSet);
+            handler.bytesValue(0, ByteBuffer.wrap("12.50".getBytes(UTF8)), resultSet);
+            handler.bytesValue(1, ByteBuffer.wrap(data), resultSet);
+            handler.bytesValue(2, ByteBuffer.wrap("2012-04-12".getBytes(UTF8)), resultSet);
+            handler.endRow(resultSet);
+        }
+
+        Assert.assertEquals(resultSet.getObject(1, 0), new BigDecimal("12.50"));
+        Assert.assertEquals(resultSet.get(1).get("price").getBigDecimal(), new BigDecimal("12.50"));
+        Assert.assertEquals((byte[]) resultSet.getObject(1, 1), data);
+        Assert.assertEquals(resultSet.getString(1, 2), "2012-04-12");
+        // Only character columns share their text
+        Assert.assertNotSame(resultSet.getString(0, 2), resultSet.getString(1, 2));
+    }
+
+    private static DefaultField field(int index, String name, Type type) {
+        return new DefaultField(index, "catalog", "schema", "table", "table", type,
+                name, name, 0, 0, false, false, false, true, true, true, Object.class.getName());
+    }
+
+    private static ColumnarResultSet withFields(ColumnarResultEventsHandler handler, DefaultField... fields) {
+        ColumnarResultSet resultSet = new ColumnarResultSet();
+        handler.startFields(resultSet);
+        for (DefaultField field : fields) {
+            handler.field(field, resultSet);
+        }
+        handler.endFields(resultSet);
+        handler.startResults(resultSet);
+        return resultSet;
+    }
+}
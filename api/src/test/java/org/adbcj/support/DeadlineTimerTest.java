@@ -0,0 +1,105 @@
+package org.adbcj.support;
+
+import org.adbcj.DbTimeoutException;
+import org.adbcj.FutureState;
+import org.adbcj.support.stacktracing.StackTracingOptions;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class DeadlineTimerTest {
+
+    @Test
+    public void runsTaskAfterDelay() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        DeadlineTimer.shared().schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(ran.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void runsDueTaskOnNextTick() {
+        final AtomicBoolean ran = new AtomicBoolean(false);
+        DeadlineTimer timer = new DeadlineTimer(1000, 4);
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.set(true);
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+        // Not scheduled on the worker thread yet, so the tick is run by hand
+        timer.runTick();
+        Assert.assertTrue(ran.get());
+    }
+
+    @Test
+    public void cancelledTaskDoesNotRun() throws Exception {
+        final AtomicBoolean ran = new AtomicBoolean(false);
+        DeadlineTimer.Deadline deadline = DeadlineTimer.shared().schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.set(true);
+            }
+        }, 20, TimeUnit.MILLISECONDS);
+        deadline.cancel();
+
+        Thread.sleep(100);
+        Assert.assertTrue(deadline.isCancelled());
+        Assert.assertFalse(ran.get());
+    }
+
+    @Test
+    public void expiredRequestIsCancelledBeforeSent() throws Exception {
+        CancellationToken token = new CancellationToken();
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT, token);
+        future.withDeadline(10, TimeUnit.MILLISECONDS);
+
+        awaitCompletion(future);
+        Assert.assertEquals(future.getState(), FutureState.FAILURE);
+        Assert.assertTrue(future.getException() instanceof DbTimeoutException);
+        Assert.assertTrue(token.isCancelled());
+        Assert.assertFalse(token.tryStartOrIsCancel());
+    }
+
+    @Test
+    public void expiredRequestInFlightFails() throws Exception {
+        CancellationToken token = new CancellationToken();
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT, token);
+        Assert.assertTrue(token.tryStartOrIsCancel());
+        future.withDeadline(10, TimeUnit.MILLISECONDS);
+
+        awaitCompletion(future);
+        Assert.assertTrue(future.getException() instanceof DbTimeoutException);
+        // The late response is ignored
+        Assert.assertFalse(future.trySetResult("late"));
+    }
+
+    @Test
+    public void completedRequestDoesNotExpire() throws Exception {
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        future.withDeadline(10, TimeUnit.MILLISECONDS);
+        future.setResult("in time");
+
+        Thread.sleep(50);
+        Assert.assertEquals(future.getResult(), "in time");
+    }
+
+    private static void awaitCompletion(DefaultDbFuture<String> future) throws InterruptedException {
+        for (int i = 0; i < 500 && !future.isDone(); i++) {
+            Thread.sleep(10);
+        }
+    }
+}
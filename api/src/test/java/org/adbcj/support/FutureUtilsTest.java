@@ -0,0 +1,291 @@
+package org.adbcj.support;
+
+import org.adbcj.DbException;
+import org.adbcj.DbFuture;
+import org.adbcj.FutureState;
+import org.adbcj.support.stacktracing.StackTracingOptions;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class FutureUtilsTest {
+
+    private static final OneArgFunction<String, Integer> LENGTH = new OneArgFunction<String, Integer>() {
+        @Override
+        public Integer apply(String arg) {
+            return arg.length();
+        }
+    };
+    private static final TwoArgFunction<String, Integer, String> REPEAT = new TwoArgFunction<String, Integer, String>() {
+        @Override
+        public String apply(String text, Integer times) {
+            StringBuilder result = new StringBuilder();
+            for (int i = 0; i < times; i++) {
+                result.append(text);
+            }
+            return result.toString();
+        }
+    };
+
+    @Test
+    public void mapOfCompletedFutureIsCompletedRightAway() {
+        DbFuture<Integer> mapped = FutureUtils.map(DefaultDbFuture.completed("four"), LENGTH);
+        Assert.assertEquals(mapped.getState(), FutureState.SUCCESS);
+        Assert.assertEquals(mapped.getResult(), Integer.valueOf(4));
+    }
+
+    @Test
+    public void failingTransformationFailsFuture() {
+        DefaultDbFuture<String> source = newFuture();
+        DbFuture<Integer> mapped = FutureUtils.map(source, LENGTH);
+        source.setResult(null);
+        Assert.assertEquals(mapped.getState(), FutureState.FAILURE);
+    }
+
+    @Test
+    public void functionsRunOnCallbackExecutor() {
+        QueuedExecutor executor = new QueuedExecutor();
+        DefaultDbFuture<String> source = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT, null, executor);
+        DefaultDbFuture<Integer> times = new DefaultDbFuture<Integer>(StackTracingOptions.GLOBAL_DEFAULT, null, executor);
+        DbFuture<Integer> mapped = FutureUtils.map(source, LENGTH);
+        DbFuture<Integer> chained = FutureUtils.flatMap(source, new OneArgFunction<String, DbFuture<Integer>>() {
+            @Override
+            public DbFuture<Integer> apply(String arg) {
+                return DefaultDbFuture.completed(arg.length());
+            }
+        });
+        DbFuture<String> combined = FutureUtils.thenCombine(source, times, REPEAT);
+        CompletableFuture<String> stage = FutureUtils.toCompletionStage(source).toCompletableFuture();
+
+        // The completing thread, like the I/O thread of a connection, does not run the functions
+        times.setResult(2);
+        source.setResult("four");
+        Assert.assertFalse(mapped.isDone());
+        Assert.assertFalse(chained.isDone());
+        Assert.assertFalse(combined.isDone());
+        Assert.assertFalse(stage.isDone());
+
+        executor.runAll();
+        Assert.assertEquals(mapped.getResult(), Integer.valueOf(4));
+        Assert.assertEquals(chained.getResult(), Integer.valueOf(4));
+        Assert.assertEquals(combined.getResult(), "fourfour");
+        Assert.assertEquals(stage.getNow(null), "four");
+    }
+
+    @Test
+    public void flatMapChainsOperations() throws InterruptedException {
+        DefaultDbFuture<String> source = newFuture();
+        final DefaultDbFuture<Integer> secondStep = newFuture();
+        DbFuture<Integer> chained = FutureUtils.flatMap(source, new OneArgFunction<String, DbFuture<Integer>>() {
+            @Override
+            public DbFuture<Integer> apply(String arg) {
+                return secondStep;
+            }
+        });
+        source.setResult("first");
+        Assert.assertEquals(chained.getState(), FutureState.NOT_COMPLETED);
+        secondStep.setResult(42);
+        Assert.assertEquals(chained.get(), Integer.valueOf(42));
+    }
+
+    @Test
+    public void flatMapOfCompletedFutureReturnsNextStepDirectly() {
+        final DbFuture<Integer> secondStep = newFuture();
+        DbFuture<Integer> chained = FutureUtils.flatMap(DefaultDbFuture.completed("first"), new OneArgFunction<String, DbFuture<Integer>>() {
+            @Override
+            public DbFuture<Integer> apply(String arg) {
+                return secondStep;
+            }
+        });
+        Assert.assertSame(chained, secondStep);
+    }
+
+    @Test
+    public void cancellingFlatMapCancelsRunningStep() {
+        DefaultDbFuture<String> source = newFuture();
+        final DefaultDbFuture<Integer> secondStep = newCancellableFuture();
+        DbFuture<Integer> chained = FutureUtils.flatMap(source, new OneArgFunction<String, DbFuture<Integer>>() {
+            @Override
+            public DbFuture<Integer> apply(String arg) {
+                return secondStep;
+            }
+        });
+        source.setResult("first");
+        Assert.assertTrue(chained.cancel(true));
+        Assert.assertEquals(secondStep.getState(), FutureState.CANCELLED);
+        Assert.assertEquals(chained.getState(), FutureState.CANCELLED);
+    }
+
+    @Test
+    public void combinesTwoFutures() throws InterruptedException {
+        DefaultDbFuture<String> text = newFuture();
+        DefaultDbFuture<Integer> times = newFuture();
+        DbFuture<String> combined = FutureUtils.thenCombine(text, times, REPEAT);
+        times.setResult(3);
+        Assert.assertEquals(combined.getState(), FutureState.NOT_COMPLETED);
+        text.setResult("ab");
+        Assert.assertEquals(combined.get(), "ababab");
+    }
+
+    @Test
+    public void combineFailsWhenOneFails() {
+        DefaultDbFuture<String> text = newFuture();
+        DefaultDbFuture<Integer> times = newFuture();
+        DbFuture<String> combined = FutureUtils.thenCombine(text, times, REPEAT);
+        times.setException(new DbException("Expected"));
+        Assert.assertEquals(combined.getState(), FutureState.FAILURE);
+        Assert.assertEquals(combined.getException().getMessage(), "Expected");
+    }
+
+    @Test
+    public void allOfCollectsResultsInOrder() throws InterruptedException {
+        DefaultDbFuture<String> first = newFuture();
+        DefaultDbFuture<String> second = newFuture();
+        DbFuture<List<String>> all = FutureUtils.allOf(Arrays.asList(first, second, DefaultDbFuture.completed("third")));
+        second.setResult("second");
+        Assert.assertEquals(all.getState(), FutureState.NOT_COMPLETED);
+        first.setResult("first");
+        Assert.assertEquals(all.get(), Arrays.asList("first", "second", "third"));
+    }
+
+    @Test
+    public void allOfNothingIsCompleted() {
+        DbFuture<List<String>> all = FutureUtils.allOf(Collections.<DbFuture<String>>emptyList());
+        Assert.assertEquals(all.getState(), FutureState.SUCCESS);
+        Assert.assertTrue(all.getResult().isEmpty());
+    }
+
+    @Test
+    public void allOfFailsAfterAllCompleted() {
+        DefaultDbFuture<String> first = newFuture();
+        DefaultDbFuture<String> second = newFuture();
+        DbFuture<List<String>> all = FutureUtils.allOf(Arrays.asList(first, second));
+        first.setException(new DbException("Expected"));
+        Assert.assertEquals(all.getState(), FutureState.NOT_COMPLETED);
+        second.setResult("second");
+        Assert.assertEquals(all.getState(), FutureState.FAILURE);
+    }
+
+    @Test
+    public void cancellingAllOfCancelsAll() {
+        DefaultDbFuture<String> first = newCancellableFuture();
+        DefaultDbFuture<String> second = newCancellableFuture();
+        DbFuture<List<String>> all = FutureUtils.allOf(Arrays.asList(first, second));
+        Assert.assertTrue(all.cancel(true));
+        Assert.assertEquals(first.getState(), FutureState.CANCELLED);
+        Assert.assertEquals(second.getState(), FutureState.CANCELLED);
+        Assert.assertEquals(all.getState(), FutureState.CANCELLED);
+    }
+
+    @Test
+    public void anyOfCompletesWithFirst() {
+        DefaultDbFuture<String> first = newFuture();
+        DefaultDbFuture<String> second = newFuture();
+        DbFuture<String> any = FutureUtils.anyOf(Arrays.asList(first, second));
+        second.setResult("second");
+        first.setResult("first");
+        Assert.assertEquals(any.getResult(), "second");
+    }
+
+    @Test
+    public void completionStageSeesResult() throws Exception {
+        DefaultDbFuture<String> source = newFuture();
+        CompletionStage<String> stage = FutureUtils.toCompletionStage(source);
+        CompletableFuture<Integer> length = stage.thenApply(new java.util.function.Function<String, Integer>() {
+            @Override
+            public Integer apply(String s) {
+                return s.length();
+            }
+        }).toCompletableFuture();
+        source.setResult("four");
+        Assert.assertEquals(length.get(), Integer.valueOf(4));
+    }
+
+    @Test
+    public void completionStageSeesFailure() throws Exception {
+        DefaultDbFuture<String> source = newFuture();
+        CompletableFuture<String> stage = FutureUtils.toCompletionStage(source).toCompletableFuture();
+        source.setException(new DbException("Expected"));
+        try {
+            stage.get();
+            Assert.fail("Expect failure");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof DbException);
+        }
+    }
+
+    @Test
+    public void cancellingStageCancelsFuture() {
+        DefaultDbFuture<String> source = newCancellableFuture();
+        CompletableFuture<String> stage = FutureUtils.toCompletionStage(source).toCompletableFuture();
+        Assert.assertTrue(stage.cancel(true));
+        Assert.assertEquals(source.getState(), FutureState.CANCELLED);
+    }
+
+    @Test
+    public void futureFromStage() throws InterruptedException {
+        CompletableFuture<String> stage = new CompletableFuture<String>();
+        DbFuture<String> future = FutureUtils.fromCompletionStage(stage);
+        stage.complete("done");
+        Assert.assertEquals(future.get(), "done");
+
+        CompletableFuture<String> failingStage = new CompletableFuture<String>();
+        DbFuture<String> failing = FutureUtils.fromCompletionStage(failingStage);
+        failingStage.completeExceptionally(new IllegalStateException("Expected"));
+        Assert.assertEquals(failing.getState(), FutureState.FAILURE);
+        Assert.assertTrue(failing.getException().getCause() instanceof IllegalStateException);
+
+        CompletableFuture<String> cancelledStage = new CompletableFuture<String>();
+        DbFuture<String> cancelled = FutureUtils.fromCompletionStage(cancelledStage);
+        Assert.assertTrue(cancelled.cancel(true));
+        Assert.assertTrue(cancelledStage.isCancelled());
+    }
+
+    @Test
+    public void bridgesDoNotWrapTwice() {
+        DefaultDbFuture<String> source = newFuture();
+        Assert.assertSame(FutureUtils.fromCompletionStage(FutureUtils.toCompletionStage(source)), source);
+
+        CompletableFuture<String> stage = new CompletableFuture<String>();
+        Assert.assertSame(FutureUtils.toCompletionStage(FutureUtils.fromCompletionStage(stage)), stage);
+    }
+
+    private static class QueuedExecutor implements Executor {
+        private final List<Runnable> queued = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            queued.add(command);
+        }
+
+        void runAll() {
+            while (!queued.isEmpty()) {
+                queued.remove(0).run();
+            }
+        }
+    }
+
+    private static <T> DefaultDbFuture<T> newFuture() {
+        return new DefaultDbFuture<T>(StackTracingOptions.GLOBAL_DEFAULT);
+    }
+
+    private static <T> DefaultDbFuture<T> newCancellableFuture() {
+        return new DefaultDbFuture<T>(StackTracingOptions.GLOBAL_DEFAULT, new CancellationAction() {
+            @Override
+            public boolean cancel() {
+                return true;
+            }
+        });
+    }
+}
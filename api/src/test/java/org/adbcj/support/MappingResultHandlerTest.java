@@ -0,0 +1,118 @@
+package org.adbcj.support;
+
+import org.adbcj.Type;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class MappingResultHandlerTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void mapsToSettersAndFields() {
+        MappingResultHandler<Bean> handler = MappingResultHandler.of(Bean.class);
+        List<Bean> beans = withFields(handler, "ID", "total_amount", "name", "unknown");
+        handler.startRow(beans);
+        handler.intValue(0, 7, beans);
+        handler.intValue(1, 3, beans);
+        handler.bytesValue(2, ByteBuffer.wrap("seven".getBytes(UTF8)), beans);
+        handler.value(new DefaultValue("ignored"), beans);
+        handler.endRow(beans);
+        handler.startRow(beans);
+        handler.value(new DefaultValue(8), beans);
+        handler.nullValue(1, beans);
+        handler.value(new DefaultValue(null), beans);
+        handler.value(new DefaultValue(null), beans);
+        handler.endRow(beans);
+
+        Assert.assertEquals(beans.size(), 2);
+        Assert.assertEquals(beans.get(0).id, 7L);
+        Assert.assertEquals(beans.get(0).totalAmount, 3.0);
+        Assert.assertEquals(beans.get(0).name, "seven");
+        Assert.assertEquals(beans.get(1).id, 8L);
+        Assert.assertEquals(beans.get(1).totalAmount, -1.0, "NULL leaves primitives untouched");
+        Assert.assertNull(beans.get(1).name);
+    }
+
+    @Test
+    public void mapsToConstructor() {
+        MappingResultHandler<Point> handler = MappingResultHandler.of(Point.class);
+        List<Point> points = withFields(handler, "x", "y", "label");
+        handler.startRow(points);
+        handler.longValue(0, 1L, points);
+        handler.value(new DefaultValue("2"), points);
+        handler.nullValue(2, points);
+        handler.endRow(points);
+
+        Assert.assertEquals(points.size(), 1);
+        Assert.assertEquals(points.get(0).x, 1);
+        Assert.assertEquals(points.get(0).y, 2);
+        Assert.assertNull(points.get(0).label);
+    }
+
+    @Test
+    public void reusesBindingForSameShape() {
+        Assert.assertSame(RowMapping.forFields(Point.class, fields("x", "y", "label")),
+                RowMapping.forFields(Point.class, fields("x", "y", "label")));
+        Assert.assertNotSame(RowMapping.forFields(Point.class, fields("x", "y", "label")),
+                RowMapping.forFields(Point.class, fields("y", "x", "label")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsUnmappableClass() {
+        withFields(MappingResultHandler.of(Point.class), "x", "y");
+    }
+
+    private static <T> List<T> withFields(MappingResultHandler<T> handler, String... names) {
+        List<T> result = new ArrayList<T>();
+        handler.startFields(result);
+        for (org.adbcj.Field field : fields(names)) {
+            handler.field(field, result);
+        }
+        handler.endFields(result);
+        handler.startResults(result);
+        return result;
+    }
+
+    private static List<org.adbcj.Field> fields(String... names) {
+        List<org.adbcj.Field> fields = new ArrayList<org.adbcj.Field>();
+        for (int i = 0; i < names.length; i++) {
+            fields.add(new DefaultField(i, "catalog", "schema", "table", "table", Type.OTHER,
+                    names[i], names[i], 0, 0, false, false, false, true, true, true, Object.class.getName()));
+        }
+        return fields;
+    }
+
+    public static class Bean {
+        public String name;
+        private long id;
+        private double totalAmount = -1;
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public void setTotalAmount(double totalAmount) {
+            this.totalAmount = totalAmount;
+        }
+    }
+
+    public static class Point {
+        private final int x;
+        private final int y;
+        private final String label;
+
+        public Point(int x, int y, String label) {
+            this.x = x;
+            this.y = y;
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.adbcj.support;
+
+import org.adbcj.DbException;
+import org.adbcj.DbFuture;
+import org.adbcj.support.stacktracing.StackTracingOptions;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class OverflowQueueTest {
+
+    @Test
+    public void queuesRightAwayUpToTheMaximum() {
+        final OverflowQueue<String> overflow = new OverflowQueue<String>(2, 4);
+        Assert.assertTrue(overflow.offer("first", 0));
+        Assert.assertTrue(overflow.offer("second", 2));
+        Assert.assertEquals(overflow.size(), 0);
+    }
+
+    @Test
+    public void parksRequestsOverTheMaximumInOrder() {
+        final OverflowQueue<String> overflow = new OverflowQueue<String>(2, 4);
+        Assert.assertFalse(overflow.offer("first", 3));
+        Assert.assertFalse(overflow.offer("second", 0));
+        Assert.assertFalse(overflow.offerForced("close"));
+
+        Assert.assertNull(overflow.poll(3));
+        Assert.assertEquals(overflow.poll(2), "first");
+        Assert.assertEquals(overflow.poll(2), "second");
+        Assert.assertEquals(overflow.poll(2), "close");
+        Assert.assertNull(overflow.poll(2));
+    }
+
+    @Test(expectedExceptions = DbException.class)
+    public void failsOverTheMaximumWithoutOverflow() {
+        new OverflowQueue<String>(2, 0).offer("request", 3);
+    }
+
+    @Test
+    public void failsOnceTheOverflowIsFull() {
+        final OverflowQueue<String> overflow = new OverflowQueue<String>(2, 1);
+        Assert.assertFalse(overflow.offer("first", 3));
+        try {
+            overflow.offer("second", 3);
+            Assert.fail("Expected the overflow to be full");
+        } catch (DbException e) {
+            Assert.assertTrue(e.getMessage().contains("2"));
+        }
+        Assert.assertFalse(overflow.offerForced("close"));
+    }
+
+    @Test
+    public void signalsWritableOnceParkedRequestsAreQueued() {
+        final OverflowQueue<String> overflow = new OverflowQueue<String>(2, 4);
+        Assert.assertTrue(overflow.whenWritable(2, StackTracingOptions.GLOBAL_DEFAULT, null).isDone());
+
+        overflow.offer("first", 3);
+        final DbFuture<Void> writable = overflow.whenWritable(3, StackTracingOptions.GLOBAL_DEFAULT, null);
+        Assert.assertFalse(writable.isDone());
+
+        Assert.assertEquals(overflow.poll(2), "first");
+        Assert.assertFalse(writable.isDone());
+        Assert.assertNull(overflow.poll(3));
+        Assert.assertFalse(writable.isDone());
+        Assert.assertNull(overflow.poll(2));
+        Assert.assertTrue(writable.isDone());
+    }
+
+    @Test
+    public void drainRemovesParkedRequests() {
+        final OverflowQueue<String> overflow = new OverflowQueue<String>(2, 4);
+        overflow.offer("first", 3);
+        overflow.offer("second", 3);
+        Assert.assertEquals(overflow.drain().size(), 2);
+        Assert.assertEquals(overflow.size(), 0);
+        Assert.assertTrue(overflow.offer("third", 2));
+    }
+}
@@ -0,0 +1,76 @@
+package org.adbcj.support;
+
+import org.adbcj.RequestTimings;
+import org.adbcj.support.stacktracing.StackTracingOptions;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class RequestTimerTest {
+
+    @Test
+    public void disabledTimerDoesNotTime() {
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        Assert.assertNull(RequestTimer.DISABLED.start(future, "SELECT 1"));
+        future.setResult("done");
+        Assert.assertNull(future.getTimings());
+    }
+
+    @Test
+    public void completionFillsInMissingPoints() throws Exception {
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        DefaultRequestTimings timings = new RequestTimer(Long.MAX_VALUE, 1).start(future, "SELECT 1");
+        Assert.assertSame(future.getTimings(), timings);
+        Assert.assertFalse(timings.isCompleted());
+
+        timings.markWritten();
+        Thread.sleep(2);
+        future.setResult("done");
+
+        Assert.assertTrue(timings.isCompleted());
+        Assert.assertTrue(timings.getServerNanos() > 0);
+        Assert.assertEquals(timings.getReceiveNanos(), 0L);
+        Assert.assertEquals(timings.getCompletionNanos(), 0L);
+        Assert.assertEquals(timings.getQueuedNanos() + timings.getServerNanos(), timings.getTotalNanos());
+    }
+
+    @Test
+    public void logsOneInSampleRateSlowRequests() {
+        final List<Long> logged = new ArrayList<Long>();
+        RequestTimer timer = new RequestTimer(0, 3) {
+            @Override
+            protected void logSlowRequest(RequestTimings timings, long slowRequests) {
+                logged.add(slowRequests);
+            }
+        };
+        for (int i = 0; i < 7; i++) {
+            DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+            timer.start(future, "SELECT " + i);
+            future.setResult("done");
+        }
+        Assert.assertEquals(logged.size(), 2);
+        Assert.assertEquals(logged.get(0).longValue(), 3L);
+        Assert.assertEquals(logged.get(1).longValue(), 6L);
+    }
+
+    @Test
+    public void fastRequestsAreNotLogged() {
+        final List<Long> logged = new ArrayList<Long>();
+        RequestTimer timer = new RequestTimer(Long.MAX_VALUE, 1) {
+            @Override
+            protected void logSlowRequest(RequestTimings timings, long slowRequests) {
+                logged.add(slowRequests);
+            }
+        };
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        timer.start(future, "SELECT 1");
+        future.setException(new Exception("failed"));
+        Assert.assertTrue(future.getTimings().isCompleted());
+        Assert.assertTrue(logged.isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package org.adbcj.support.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class HistogramTest {
+    @Test
+    public void smallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(histogram.count(), 50);
+        Assert.assertEquals(histogram.max(), 50);
+        Assert.assertEquals(histogram.mean(), 25.5);
+        Assert.assertEquals(histogram.valueAtPercentile(50), 25);
+        Assert.assertEquals(histogram.valueAtPercentile(100), 50);
+    }
+
+    @Test
+    public void largeValuesAreWithinBucketPrecision() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000000L);
+        }
+        assertWithinPrecision(histogram.valueAtPercentile(50), 500000000L);
+        assertWithinPrecision(histogram.valueAtPercentile(99), 990000000L);
+        Assert.assertEquals(histogram.valueAtPercentile(100), 1000000000L);
+    }
+
+    @Test
+    public void bucketsCoverAllPositiveValues() {
+        long[] values = {0, 31, 32, 63, 64, 65, 1000, 123456789L, Long.MAX_VALUE};
+        for (long value : values) {
+            final int index = Histogram.indexOf(value);
+            Assert.assertTrue(Histogram.highestValueOf(index) >= value, "value " + value);
+            if (index > 0) {
+                Assert.assertTrue(Histogram.highestValueOf(index - 1) < value, "value " + value);
+            }
+        }
+    }
+
+    @Test
+    public void addsOtherHistograms() {
+        Histogram first = new Histogram();
+        first.record(10);
+        Histogram second = new Histogram();
+        second.record(20);
+        second.record(-5);
+
+        first.add(second);
+
+        Assert.assertEquals(first.count(), 3);
+        Assert.assertEquals(first.max(), 20);
+        Assert.assertEquals(first.valueAtPercentile(0), 0);
+    }
+
+    @Test
+    public void closedConnectionsStayInTotals() {
+        HistogramMetrics metrics = new HistogramMetrics();
+        ConnectionMetrics connection = metrics.connectionOpened();
+        connection.requestQueued(1);
+        connection.requestCompleted(1000, true);
+        connection.requestCompleted(2000, false);
+        connection.bytesRead(100);
+        connection.bytesWritten(50);
+        metrics.poolWait(300);
+
+        Assert.assertEquals(metrics.connections().size(), 1);
+        connection.connectionClosed();
+
+        Assert.assertEquals(metrics.connections().size(), 0);
+        Assert.assertEquals(metrics.requestLatency().count(), 2);
+        Assert.assertEquals(metrics.failedRequests(), 1);
+        Assert.assertEquals(metrics.bytesRead(), 100);
+        Assert.assertEquals(metrics.bytesWritten(), 50);
+        Assert.assertEquals(metrics.queueDepth().max(), 1);
+        Assert.assertEquals(metrics.poolWait().count(), 1);
+    }
+
+    private static void assertWithinPrecision(long actual, long expected) {
+        Assert.assertTrue(Math.abs(actual - expected) <= expected / 32, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -1,8 +1,11 @@
 package org.adbcj.support.stacktracing;
 
 import junit.framework.Assert;
+import org.adbcj.support.DefaultDbFuture;
 import org.testng.annotations.Test;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.adbcj.support.stacktracing.StackTracingOptions.FORCED_BY_INSTANCE;
 
 /**
@@ -15,5 +18,45 @@ public class StackTraceCapturingTest {
         Assert.assertNotNull(execption);
     }
 
+    @Test
+    public void callerFrameIsFirstFrameOutsideOfAdbcj() {
+        final Throwable execption = StackTracingOptions.CALLER_FRAME.captureStacktraceAtEntryPoint();
+        Assert.assertEquals(1, execption.getStackTrace().length);
+        // This test is in an ADBCJ package itself, so the caller is the test runner
+        Assert.assertFalse(StackTraceCapturing.isAdbcjFrame(execption.getStackTrace()[0].getClassName()));
+    }
+
+    @Test
+    public void sampledCapturesSomeRequests() {
+        final StackTracingOptions everyRequest = StackTracingOptions.sampled(1);
+        Assert.assertNotNull(everyRequest.captureStacktraceAtEntryPoint());
+
+        final StackTracingOptions sampled = StackTracingOptions.sampled(10);
+        int captured = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (null != sampled.captureStacktraceAtEntryPoint()) {
+                captured++;
+            }
+        }
+        Assert.assertTrue("Captured " + captured, captured > 500 && captured < 1500);
+    }
+
+    @Test
+    public void capturesAfterFailure() {
+        final StackTracingOptions afterFailure = StackTracingOptions.afterFailure(1, TimeUnit.HOURS);
+        Assert.assertNull(afterFailure.captureStacktraceAtEntryPoint());
+
+        new DefaultDbFuture<Object>(afterFailure).trySetException(new Exception("failure"));
 
+        Assert.assertNotNull(afterFailure.captureStacktraceAtEntryPoint());
+    }
+
+    @Test
+    public void recognizesAdbcjFrames() {
+        Assert.assertTrue(StackTraceCapturing.isAdbcjFrame("org.adbcj.DbSession"));
+        Assert.assertTrue(StackTraceCapturing.isAdbcjFrame("org.adbcj.support.DefaultDbFuture"));
+        Assert.assertTrue(StackTraceCapturing.isAdbcjFrame("org.adbcj.mysql.codec.MySqlConnection"));
+        Assert.assertFalse(StackTraceCapturing.isAdbcjFrame("org.adbcj.tck.test.SelectTest"));
+        Assert.assertFalse(StackTraceCapturing.isAdbcjFrame("com.example.Service"));
+    }
 }
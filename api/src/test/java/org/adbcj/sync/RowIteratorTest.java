@@ -0,0 +1,120 @@
+package org.adbcj.sync;
+
+import org.adbcj.DbException;
+import org.adbcj.Row;
+import org.adbcj.Value;
+import org.adbcj.support.DefaultResultSet;
+import org.adbcj.support.DefaultRow;
+import org.adbcj.support.DefaultValue;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class RowIteratorTest {
+
+    @Test
+    public void requestsRowsInWindows() {
+        RowIterator rows = new RowIterator(4);
+        RecordingSubscription subscription = new RecordingSubscription();
+        rows.onSubscribe(subscription);
+        Assert.assertEquals(subscription.requests, listOf(4));
+
+        for (int i = 0; i < 4; i++) {
+            rows.onNext(row(i));
+        }
+        Assert.assertEquals(valueOf(rows.next()), 0);
+        Assert.assertEquals(subscription.requests, listOf(4));
+        Assert.assertEquals(valueOf(rows.next()), 1);
+        Assert.assertEquals(subscription.requests, listOf(4, 2));
+    }
+
+    @Test
+    public void waitsForRowsFromOtherThread() throws Exception {
+        final RowIterator rows = new RowIterator(8);
+        rows.onSubscribe(new RecordingSubscription());
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 100; i++) {
+                    rows.onNext(row(i));
+                    Thread.yield();
+                }
+                rows.onComplete();
+            }
+        });
+        producer.start();
+
+        int expected = 0;
+        while (rows.hasNext()) {
+            Assert.assertEquals(valueOf(rows.next()), expected++);
+        }
+        Assert.assertEquals(expected, 100);
+        producer.join();
+    }
+
+    @Test
+    public void throwsFailureAfterDeliveredRows() {
+        RowIterator rows = new RowIterator(4);
+        rows.onSubscribe(new RecordingSubscription());
+        rows.onNext(row(1));
+        rows.onError(new DbException("failed"));
+
+        Assert.assertTrue(rows.hasNext());
+        rows.next();
+        try {
+            rows.hasNext();
+            Assert.fail("Expect the failure");
+        } catch (DbException expected) {
+            Assert.assertEquals(expected.getMessage(), "failed");
+        }
+    }
+
+    @Test
+    public void closeCancelsRunningQuery() {
+        RowIterator rows = new RowIterator(4);
+        RecordingSubscription subscription = new RecordingSubscription();
+        rows.onSubscribe(subscription);
+        rows.onNext(row(1));
+
+        rows.close();
+        Assert.assertTrue(subscription.cancelled);
+        Assert.assertFalse(rows.hasNext());
+    }
+
+    private static List<Long> listOf(long... requests) {
+        List<Long> list = new ArrayList<Long>();
+        for (long request : requests) {
+            list.add(request);
+        }
+        return list;
+    }
+
+    private static int valueOf(Row row) {
+        return ((DefaultRow) row).getValues()[0].getInt();
+    }
+
+    private static Row row(int value) {
+        return new DefaultRow(new DefaultResultSet(), new Value[]{new DefaultValue(value)});
+    }
+
+    static class RecordingSubscription implements Flow.Subscription {
+        final List<Long> requests = new ArrayList<Long>();
+        volatile boolean cancelled = false;
+
+        @Override
+        public synchronized void request(long n) {
+            requests.add(n);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
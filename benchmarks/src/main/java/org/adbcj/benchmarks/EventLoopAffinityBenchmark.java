@@ -0,0 +1,141 @@
+package org.adbcj.benchmarks;
+
+import io.netty.channel.EventLoop;
+import org.adbcj.netty.EventLoopRuntime;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chains of requests, where each request is issued from the callback of the previous one.
+ * With affinity the next request goes to a connection on the callback's event loop, as with
+ * {@link org.adbcj.StandardProperties#EVENT_LOOP_AFFINITY}. Otherwise connections are handed out
+ * round robin, so most requests are handed over to another event loop.
+ *
+ * The connections answer right away, without any database. The cross thread handoffs are
+ * reported as 'handoffs', the total of each iteration. With affinity only the first request of each
+ * chain is handed over, from the benchmark thread to an event loop.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventLoopAffinityBenchmark {
+    private static final int EVENT_LOOPS = 4;
+    private static final int CHAINS = 64;
+
+    @Param({"100"})
+    public int requestsPerChain;
+
+    private EventLoopRuntime runtime;
+    private FakeConnection[] connections;
+    private final Map<EventLoop, FakeConnection> connectionOfEventLoop = new HashMap<EventLoop, FakeConnection>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private final AtomicLong handoffs = new AtomicLong();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Handoffs {
+        public long handoffs;
+    }
+
+    @Setup
+    public void setup() {
+        runtime = EventLoopRuntime.builder().threads(EVENT_LOOPS).daemonThreads(true).build();
+        connections = new FakeConnection[EVENT_LOOPS];
+        for (int i = 0; i < EVENT_LOOPS; i++) {
+            final EventLoop eventLoop = runtime.eventLoopGroup().next();
+            connections[i] = new FakeConnection(eventLoop);
+            connectionOfEventLoop.put(eventLoop, connections[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        runtime.shutdown();
+    }
+
+    @Benchmark
+    public void affinity(Handoffs counter) throws InterruptedException {
+        runChains(true, counter);
+    }
+
+    @Benchmark
+    public void roundRobin(Handoffs counter) throws InterruptedException {
+        runChains(false, counter);
+    }
+
+    private void runChains(final boolean affinity, Handoffs counter) throws InterruptedException {
+        final long handoffsBefore = handoffs.get();
+        final CountDownLatch done = new CountDownLatch(CHAINS);
+        for (int i = 0; i < CHAINS; i++) {
+            connections[i % EVENT_LOOPS].query(new Chain(affinity, requestsPerChain, done));
+        }
+        done.await();
+        counter.handoffs += handoffs.get() - handoffsBefore;
+    }
+
+    private FakeConnection nextConnection(boolean affinity) {
+        if (affinity) {
+            final FakeConnection local = connectionOfEventLoop.get(runtime.currentEventLoop());
+            if (null != local) {
+                return local;
+            }
+        }
+        return connections[(roundRobin.incrementAndGet() & Integer.MAX_VALUE) % EVENT_LOOPS];
+    }
+
+    private final class Chain implements Runnable {
+        private final boolean affinity;
+        private final CountDownLatch done;
+        private int remaining;
+
+        Chain(boolean affinity, int requests, CountDownLatch done) {
+            this.affinity = affinity;
+            this.remaining = requests;
+            this.done = done;
+        }
+
+        /**
+         * The callback of a completed request, run on the event loop of its connection
+         */
+        @Override
+        public void run() {
+            remaining--;
+            if (remaining > 0) {
+                nextConnection(affinity).query(this);
+            } else {
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Writes on its event loop, like a channel does, and completes with the response right away
+     */
+    private final class FakeConnection {
+        private final EventLoop eventLoop;
+
+        FakeConnection(EventLoop eventLoop) {
+            this.eventLoop = eventLoop;
+        }
+
+        void query(final Runnable callback) {
+            if (eventLoop.inEventLoop()) {
+                callback.run();
+            } else {
+                handoffs.incrementAndGet();
+                eventLoop.execute(callback);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.adbcj.benchmarks;
+
+import org.adbcj.DbFuture;
+import org.adbcj.DbListener;
+import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.stacktracing.StackTracingOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cost of registering listeners on and completing a {@link DefaultDbFuture}.
+ *
+ * The contended case has several threads adding listeners to the same future,
+ * while one of them completes it, like the Netty I/O thread does.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FutureCompletionBenchmark {
+
+    private static final DbListener<String> NO_OP = new DbListener<String>() {
+        @Override
+        public void onCompletion(DbFuture<String> future) {
+        }
+    };
+
+    @Benchmark
+    public Object completeWithoutListeners() {
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        future.trySetResult("result");
+        return future;
+    }
+
+    @Benchmark
+    public Object addListenerThenComplete() {
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        future.addListener(NO_OP);
+        future.trySetResult("result");
+        return future;
+    }
+
+    @Benchmark
+    public Object addListenerToCompleted() {
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        future.trySetResult("result");
+        future.addListener(NO_OP);
+        return future;
+    }
+
+    /**
+     * A future shared by all benchmark threads. Every thread adds listeners to it
+     * and every {@link #LISTENERS_PER_FUTURE}th call completes and replaces it.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedFuture {
+        final AtomicReference<DefaultDbFuture<String>> future
+                = new AtomicReference<DefaultDbFuture<String>>(new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT));
+    }
+
+    @State(Scope.Thread)
+    public static class Calls {
+        int count;
+    }
+
+    private static final int LISTENERS_PER_FUTURE = 16;
+
+    @Benchmark
+    @Threads(4)
+    public boolean contendedAddAndComplete(SharedFuture shared, Calls calls) {
+        DefaultDbFuture<String> current = shared.future.get();
+        current.addListener(NO_OP);
+        if (++calls.count % LISTENERS_PER_FUTURE == 0
+                && shared.future.compareAndSet(current, new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT))) {
+            return current.trySetResult("result");
+        }
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package org.adbcj.benchmarks;
+
+import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.RequestMetrics;
+import org.adbcj.support.metrics.ConnectionMetrics;
+import org.adbcj.support.metrics.HistogramMetrics;
+import org.adbcj.support.metrics.NoMetrics;
+import org.adbcj.support.stacktracing.StackTracingOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per request cost of reporting metrics. Compares a request without any metrics calls
+ * to the default {@link NoMetrics} and to the built in {@link HistogramMetrics}.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+    private final ConnectionMetrics noMetrics = NoMetrics.INSTANCE.connectionOpened();
+    private final ConnectionMetrics histogram = new HistogramMetrics().connectionOpened();
+
+    @Benchmark
+    public Object withoutMetrics() {
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        future.trySetResult("result");
+        return future;
+    }
+
+    @Benchmark
+    public Object noMetrics() {
+        return request(noMetrics);
+    }
+
+    @Benchmark
+    public Object histogramMetrics() {
+        return request(histogram);
+    }
+
+    private Object request(ConnectionMetrics metrics) {
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(StackTracingOptions.GLOBAL_DEFAULT);
+        RequestMetrics.track(metrics, future, 1);
+        metrics.bytesWritten(64);
+        future.trySetResult("result");
+        metrics.bytesRead(128);
+        return future;
+    }
+}
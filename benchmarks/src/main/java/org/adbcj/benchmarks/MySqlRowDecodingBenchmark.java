@@ -0,0 +1,126 @@
+package org.adbcj.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.adbcj.AbstractResultHandler;
+import org.adbcj.Value;
+import org.adbcj.mysql.codec.FieldFlag;
+import org.adbcj.mysql.codec.IoUtils;
+import org.adbcj.mysql.codec.MySqlClientDecoder;
+import org.adbcj.mysql.codec.MysqlField;
+import org.adbcj.mysql.codec.MysqlType;
+import org.adbcj.mysql.codec.decoding.Row;
+import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.stacktracing.StackTracingOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes the row packets of a MySQL result, as they arrive in the buffer of a connection.
+ * Each operation decodes {@link #ROWS} rows of an int, a bigint, a unique name, a low cardinality status and a double,
+ * so the rows per second are the operations per second times {@link #ROWS}.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MySqlRowDecodingBenchmark {
+    private static final int ROWS = 1000;
+    private static final MysqlType[] COLUMNS = {
+            MysqlType.LONG, MysqlType.LONGLONG, MysqlType.VAR_STRING, MysqlType.VAR_STRING, MysqlType.DOUBLE};
+    private static final String[] STATUSES = {"active", "pending", "suspended", "closed"};
+
+    @Param({"STRING_BASED", "BINARY"})
+    public Row.RowDecodingType decoding;
+
+    @Param({"false", "true"})
+    public boolean stringDeduplication;
+
+    private ByteBuf packets;
+    private MySqlClientDecoder decoder;
+    private final ConsumingHandler handler = new ConsumingHandler();
+
+    @Setup
+    public void setup() throws IOException {
+        final List<MysqlField> fields = new ArrayList<MysqlField>();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            fields.add(new MysqlField(i, "catalog", "schema", "table", "table", COLUMNS[i], "column" + i, "column" + i,
+                    0, 0, null, 0, EnumSet.noneOf(FieldFlag.class), 0));
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < ROWS; i++) {
+            packet(out, decoding == Row.RowDecodingType.BINARY ? binaryRow(i) : textRow(i), i);
+        }
+        packets = Unpooled.wrappedBuffer(out.toByteArray());
+        decoder = new MySqlClientDecoder(new Row<Object>(decoding,
+                fields,
+                new DefaultDbFuture<Object>(StackTracingOptions.GLOBAL_DEFAULT),
+                null,
+                handler,
+                null,
+                false,
+                stringDeduplication));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long decodeRows() throws IOException {
+        packets.readerIndex(0);
+        while (packets.isReadable()) {
+            decoder.decode(packets, null);
+        }
+        return handler.consumed;
+    }
+
+    private static byte[] textRow(int row) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IoUtils.writeLengthCodedString(out, String.valueOf(row), "UTF8");
+        IoUtils.writeLengthCodedString(out, String.valueOf(row * 1000003L), "UTF8");
+        IoUtils.writeLengthCodedString(out, "name-" + row, "UTF8");
+        IoUtils.writeLengthCodedString(out, STATUSES[row % STATUSES.length], "UTF8");
+        IoUtils.writeLengthCodedString(out, String.valueOf(row / 7.0), "UTF8");
+        return out.toByteArray();
+    }
+
+    private static byte[] binaryRow(int row) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0x00); // packet header
+        out.write(0x00); // null bitmap, no column is null
+        IoUtils.writeInt(out, row);
+        IoUtils.writeLong(out, row * 1000003L, 8);
+        IoUtils.writeLengthCodedString(out, "name-" + row, "UTF8");
+        IoUtils.writeLengthCodedString(out, STATUSES[row % STATUSES.length], "UTF8");
+        IoUtils.writeLong(out, Double.doubleToLongBits(row / 7.0), 8);
+        return out.toByteArray();
+    }
+
+    private static void packet(ByteArrayOutputStream out, byte[] content, int packetNumber) throws IOException {
+        IoUtils.writeLong(out, content.length, 3);
+        out.write(packetNumber & 0xFF);
+        out.write(content);
+    }
+
+    /**
+     * Keeps the values alive, so that decoding them cannot be optimized away
+     */
+    private static final class ConsumingHandler extends AbstractResultHandler<Object> {
+        long consumed;
+
+        @Override
+        public void value(Value value, Object accumulator) {
+            if (null != value.getValue()) {
+                consumed++;
+            }
+        }
+    }
+}
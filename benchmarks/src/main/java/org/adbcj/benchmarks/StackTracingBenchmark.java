@@ -0,0 +1,65 @@
+package org.adbcj.benchmarks;
+
+import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.stacktracing.StackTracingOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per request cost of each call site capturing mode. Every request creates a {@link DefaultDbFuture},
+ * which captures the call site. The cost of a full capture grows with the depth of the stack,
+ * so the future is created below a configurable number of frames, like in an application.
+ *
+ * Run with: java -jar target/benchmarks.jar StackTracingBenchmark
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StackTracingBenchmark {
+
+    @Param({"none", "forced", "caller", "sampled", "after-failure"})
+    public String mode;
+
+    @Param({"20", "100"})
+    public int stackDepth;
+
+    private StackTracingOptions options;
+
+    @Setup
+    public void setup() {
+        if ("none".equals(mode)) {
+            options = StackTracingOptions.GLOBAL_DEFAULT;
+        } else if ("forced".equals(mode)) {
+            options = StackTracingOptions.FORCED_BY_INSTANCE;
+        } else if ("caller".equals(mode)) {
+            options = StackTracingOptions.CALLER_FRAME;
+        } else if ("sampled".equals(mode)) {
+            options = StackTracingOptions.sampled(100);
+        } else if ("after-failure".equals(mode)) {
+            // No failure happened, so this measures the check on the fast path
+            options = StackTracingOptions.afterFailure(10, TimeUnit.SECONDS);
+        } else {
+            throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+
+    @Benchmark
+    public Object createAndComplete() {
+        return createBelow(stackDepth);
+    }
+
+    private Object createBelow(int frames) {
+        if (frames > 0) {
+            return createBelow(frames - 1);
+        }
+        DefaultDbFuture<String> future = new DefaultDbFuture<String>(options);
+        future.trySetResult("result");
+        return future;
+    }
+}
@@ -0,0 +1,127 @@
+package org.adbcj.benchmarks;
+
+import org.adbcj.Connection;
+import org.adbcj.DbFuture;
+import org.adbcj.DbListener;
+import org.adbcj.ResultSet;
+import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.DefaultResultSet;
+import org.adbcj.support.stacktracing.StackTracingOptions;
+import org.adbcj.sync.SyncConnection;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many concurrent requests, issued from a thread per request over {@link SyncConnection},
+ * compared to issuing them with callbacks from one thread.
+ *
+ * The requests are answered by a single thread, like the Netty I/O thread, without any database.
+ * So this measures the cost of parking and waking the waiting threads.
+ * On a JVM with virtual threads every request runs on its own virtual thread,
+ * otherwise on a platform thread.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyncFacadeBenchmark {
+
+    @Param({"10000"})
+    public int concurrentRequests;
+
+    private ExecutorService ioThread;
+    private ExecutorService requestThreads;
+    private Connection connection;
+    private SyncConnection syncConnection;
+
+    @Setup
+    public void setup() {
+        ioThread = Executors.newSingleThreadExecutor();
+        requestThreads = threadPerTask();
+        connection = answeredBy(ioThread);
+        syncConnection = new SyncConnection(connection);
+    }
+
+    @TearDown
+    public void tearDown() {
+        requestThreads.shutdownNow();
+        ioThread.shutdownNow();
+    }
+
+    @Benchmark
+    public void blockingThreadPerRequest() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(concurrentRequests);
+        for (int i = 0; i < concurrentRequests; i++) {
+            requestThreads.execute(new Runnable() {
+                @Override
+                public void run() {
+                    syncConnection.executeQuery("SELECT 1");
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    @Benchmark
+    public void callbacks() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(concurrentRequests);
+        final DbListener<ResultSet> countDown = new DbListener<ResultSet>() {
+            @Override
+            public void onCompletion(DbFuture<ResultSet> future) {
+                done.countDown();
+            }
+        };
+        for (int i = 0; i < concurrentRequests; i++) {
+            connection.executeQuery("SELECT 1").addListener(countDown);
+        }
+        done.await();
+    }
+
+    /**
+     * A virtual thread per task when the JVM supports them, a platform thread otherwise
+     */
+    private static ExecutorService threadPerTask() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception noVirtualThreads) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * A connection which answers every query with an empty result, on the given thread
+     */
+    private static Connection answeredBy(final ExecutorService ioThread) {
+        final ResultSet emptyResult = new DefaultResultSet();
+        return (Connection) Proxy.newProxyInstance(SyncFacadeBenchmark.class.getClassLoader(),
+                new Class[]{Connection.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (!method.getName().equals("executeQuery")) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        final DefaultDbFuture<ResultSet> result
+                                = new DefaultDbFuture<ResultSet>(StackTracingOptions.GLOBAL_DEFAULT);
+                        ioThread.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                result.trySetResult(emptyResult);
+                            }
+                        });
+                        return result;
+                    }
+                });
+    }
+}
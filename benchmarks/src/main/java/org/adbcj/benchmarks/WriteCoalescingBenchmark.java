@@ -0,0 +1,145 @@
+package org.adbcj.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOutboundByteHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.MessageToByteEncoder;
+import org.adbcj.support.CoalescingPolicy;
+import org.adbcj.netty.EventLoopRuntime;
+import org.adbcj.netty.WriteCoalescer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pipelines small requests over a local TCP connection, written one by one with a flush each,
+ * or through a {@link WriteCoalescer} which flushes the requests of one event loop tick together.
+ * The server side reads and discards everything.
+ *
+ * The flushes which reach the socket are reported as 'flushes', the total of each iteration.
+ * Each of them costs at least one write system call.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteCoalescingBenchmark {
+    private static final byte[] REQUEST = new byte[48];
+
+    @Param({"64"})
+    public int requestsPerOp;
+
+    private EventLoopRuntime runtime;
+    private ServerSocket server;
+    private Channel channel;
+    private WriteCoalescer writes;
+    private final AtomicLong flushes = new AtomicLong();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Flushes {
+        public long flushes;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        server = new ServerSocket(0);
+        final Thread discard = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                discardConnection();
+            }
+        }, "discarding-server");
+        discard.setDaemon(true);
+        discard.start();
+
+        runtime = EventLoopRuntime.builder().threads(1).daemonThreads(true).build();
+        channel = runtime.newBootstrap()
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    public void initChannel(Channel ch) throws Exception {
+                        ch.pipeline().addLast(new CountingFlushes(), new RequestEncoder());
+                    }
+                })
+                .connect(new InetSocketAddress("127.0.0.1", server.getLocalPort()))
+                .sync()
+                .channel();
+        writes = new WriteCoalescer(channel, CoalescingPolicy.SAME_TICK);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        channel.close().awaitUninterruptibly();
+        runtime.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    public void flushEachWrite(Flushes counter) {
+        final long flushesBefore = flushes.get();
+        ChannelFuture last = null;
+        for (int i = 0; i < requestsPerOp; i++) {
+            last = channel.write(REQUEST);
+        }
+        last.awaitUninterruptibly();
+        counter.flushes += flushes.get() - flushesBefore;
+    }
+
+    @Benchmark
+    public void coalesced(Flushes counter) {
+        final long flushesBefore = flushes.get();
+        ChannelFuture last = null;
+        for (int i = 0; i < requestsPerOp; i++) {
+            last = writes.write(REQUEST, REQUEST.length);
+        }
+        last.awaitUninterruptibly();
+        counter.flushes += flushes.get() - flushesBefore;
+    }
+
+    private void discardConnection() {
+        try {
+            final Socket socket = server.accept();
+            final InputStream in = socket.getInputStream();
+            final byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) >= 0) {
+                // discard
+            }
+            socket.close();
+        } catch (IOException e) {
+            // the benchmark is done
+        }
+    }
+
+    private static final class RequestEncoder extends MessageToByteEncoder<byte[]> {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, byte[] request, ByteBuf out) throws Exception {
+            out.writeBytes(request);
+        }
+    }
+
+    /**
+     * Sits next to the socket and counts the flushes which reach it
+     */
+    private final class CountingFlushes extends ChannelOutboundByteHandlerAdapter {
+        @Override
+        protected void flush(ChannelHandlerContext ctx, ByteBuf in, ChannelPromise promise) throws Exception {
+            flushes.incrementAndGet();
+            ctx.nextOutboundByteBuffer().writeBytes(in);
+            ctx.flush(promise);
+        }
+    }
+}
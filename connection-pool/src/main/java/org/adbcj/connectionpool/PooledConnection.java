@@ -4,10 +4,12 @@ import org.adbcj.*;
 import org.adbcj.support.DefaultDbFuture;
 import org.adbcj.support.FutureUtils;
 import org.adbcj.support.OneArgFunction;
+import org.adbcj.support.RowPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.Flow;
 
 /**
  * @author roman.stoffel@gamlor.info
@@ -77,18 +79,53 @@ public final class PooledConnection implements Connection, PooledResource {
         return monitor(nativeConnection().executeQuery(sql));
     }
 
+    @Override
+    public DbFuture<ResultSet> executeQuery(String sql, ResultSetLayout layout) {
+        checkClosed();
+        return monitor(nativeConnection().executeQuery(sql, layout));
+    }
+
     @Override
     public <T> DbFuture<T> executeQuery(String sql, ResultHandler<T> eventHandler, T accumulator) {
         checkClosed();
         return monitor(nativeConnection().executeQuery(sql, eventHandler, accumulator));
     }
 
+    @Override
+    public Flow.Publisher<Row> streamQuery(String sql) {
+        checkClosed();
+        return new RowPublisher(this, sql);
+    }
+
     @Override
     public DbFuture<Result> executeUpdate(String sql) {
         checkClosed();
         return monitor(nativeConnection().executeUpdate(sql));
     }
 
+    @Override
+    public BatchBuilder newBatch() {
+        return new BatchBuilder(this);
+    }
+
+    @Override
+    public void batch(Runnable requests) {
+        checkClosed();
+        nativeConnection().batch(requests);
+    }
+
+    @Override
+    public DbFuture<Void> whenWritable() {
+        checkClosed();
+        return nativeConnection().whenWritable();
+    }
+
+    @Override
+    public DbFuture<List<Result>> executeBatch(List<String> statements) {
+        checkClosed();
+        return monitor(nativeConnection().executeBatch(statements));
+    }
+
     @Override
     public DbFuture<PreparedQuery> prepareQuery(final String sql) {
         checkClosed();
@@ -134,7 +171,7 @@ public final class PooledConnection implements Connection, PooledResource {
             if (isClosed()) {
                 return closingFuture;
             }
-            closingFuture = new DefaultDbFuture<Void>(pooledConnectionManager.stackTracingOptions());
+            closingFuture = new DefaultDbFuture<Void>(pooledConnectionManager.stackTracingOptions(),null,pooledConnectionManager.callbackExecutor());
             if (closeMode == CloseMode.CANCEL_PENDING_OPERATIONS) {
                 ArrayList<Map.Entry<DbFuture,DefaultDbFuture>> iterationCopy
                         = new ArrayList<Map.Entry<DbFuture,DefaultDbFuture>>(runningOperations.entrySet());
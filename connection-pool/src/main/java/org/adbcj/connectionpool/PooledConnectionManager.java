@@ -2,17 +2,22 @@ package org.adbcj.connectionpool;
 
 import org.adbcj.*;
 import org.adbcj.support.AbstractConnectionManager;
+import org.adbcj.support.DeadlineTimer;
 import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.EventLoopBound;
 import org.adbcj.support.FutureUtils;
 import org.adbcj.support.OneArgFunction;
+import org.adbcj.support.RequestTimer;
+import org.adbcj.support.metrics.MetricsRecorder;
+import org.adbcj.support.metrics.NoMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -23,13 +28,16 @@ public class PooledConnectionManager extends AbstractConnectionManager implement
 
     private final ConnectionManager connectionManager;
     private final ConcurrentLinkedQueue<ConnectionItem> poolOfConnections = new ConcurrentLinkedQueue<ConnectionItem>();
+    /**
+     * With {@link StandardProperties#EVENT_LOOP_AFFINITY} idle connections wait here, by their event loop
+     */
+    private final ConcurrentHashMap<Executor, ConcurrentLinkedQueue<ConnectionItem>> idleByEventLoop
+            = new ConcurrentHashMap<Executor, ConcurrentLinkedQueue<ConnectionItem>>();
     private final ConcurrentLinkedQueue<DefaultDbFuture<ConnectionItem>> waitingForConnection
             = new ConcurrentLinkedQueue<DefaultDbFuture<ConnectionItem>>();
     private final ConcurrentHashMap<PooledConnection,Boolean> aliveConnections = new ConcurrentHashMap<PooledConnection,Boolean>();
     private final ConfigInfo config;
 
-    private final Timer timeOutTimer = new Timer("PooledConnectionManager timeout timer",true);
-
     private final AtomicInteger allocatedConnectionsCount = new AtomicInteger();
     public PooledConnectionManager(ConnectionManager connectionManager,Map<String,String> properties, ConfigInfo config) {
         super(properties);
@@ -42,9 +50,14 @@ public class PooledConnectionManager extends AbstractConnectionManager implement
         if(isClosed()){
             throw new DbException("Connection manager is closed. Cannot open a new connection");
         }
+        final MetricsRecorder metrics = metrics();
+        final long requested = NoMetrics.INSTANCE == metrics ? 0 : System.nanoTime();
         return (DbFuture) FutureUtils.map(findOrGetNewConnection(), new OneArgFunction<ConnectionItem, PooledConnection>() {
             @Override
             public PooledConnection apply(ConnectionItem arg) {
+                if (NoMetrics.INSTANCE != metrics) {
+                    metrics.poolWait(System.nanoTime() - requested);
+                }
                 final PooledConnection pooledConnection = new PooledConnection(
                         arg,
                         PooledConnectionManager.this);
@@ -55,12 +68,52 @@ public class PooledConnectionManager extends AbstractConnectionManager implement
     }
 
 
+    /**
+     * Reports to the recorder of the pooled connection manager, so that the pool wait time
+     * ends up next to the metrics of the connections.
+     */
+    @Override
+    public MetricsRecorder metrics() {
+        if (connectionManager instanceof AbstractConnectionManager) {
+            return ((AbstractConnectionManager) connectionManager).metrics();
+        }
+        return super.metrics();
+    }
+
+    /**
+     * The requests run on the pooled connections, so they are timed by the connection manager of those connections
+     */
+    @Override
+    public RequestTimer requestTimer() {
+        if (connectionManager instanceof AbstractConnectionManager) {
+            return ((AbstractConnectionManager) connectionManager).requestTimer();
+        }
+        return super.requestTimer();
+    }
+
+    /**
+     * The connections are opened by the pooled connection manager, so it knows the event loops
+     */
+    @Override
+    public Executor callerEventLoop() {
+        if (eventLoopAffinity() && connectionManager instanceof AbstractConnectionManager) {
+            return ((AbstractConnectionManager) connectionManager).callerEventLoop();
+        }
+        return null;
+    }
+
     private DbFuture<ConnectionItem> findOrGetNewConnection() {
-        ConnectionItem connection = poolOfConnections.poll();
+        final Executor callerEventLoop = callerEventLoop();
+        ConnectionItem connection = null == callerEventLoop ? pollIdleConnection() : pollIdleConnection(callerEventLoop);
         if(null!=connection){
             return DefaultDbFuture.completed(connection);
         }
         if(allocatedConnectionsCount.get()>=config.getMaxConnections()){
+            // Rather hop to another event loop than wait
+            connection = null == callerEventLoop ? null : pollIdleConnection();
+            if(null!=connection){
+                return DefaultDbFuture.completed(connection);
+            }
             return waitForConnection();
         }  else{
             allocatedConnectionsCount.incrementAndGet();
@@ -73,24 +126,64 @@ public class PooledConnectionManager extends AbstractConnectionManager implement
         }
     }
 
+    private ConnectionItem pollIdleConnection(Executor eventLoop) {
+        final ConcurrentLinkedQueue<ConnectionItem> idle = idleByEventLoop.get(eventLoop);
+        return null == idle ? null : idle.poll();
+    }
+
+    private ConnectionItem pollIdleConnection() {
+        ConnectionItem connection = poolOfConnections.poll();
+        if (null != connection) {
+            return connection;
+        }
+        for (ConcurrentLinkedQueue<ConnectionItem> idle : idleByEventLoop.values()) {
+            connection = idle.poll();
+            if (null != connection) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    private ConcurrentLinkedQueue<ConnectionItem> idleQueueOf(ConnectionItem connection) {
+        if (!eventLoopAffinity() || !(connection.connection() instanceof EventLoopBound)) {
+            return poolOfConnections;
+        }
+        final Executor eventLoop = ((EventLoopBound) connection.connection()).eventLoop();
+        ConcurrentLinkedQueue<ConnectionItem> idle = idleByEventLoop.get(eventLoop);
+        if (null == idle) {
+            final ConcurrentLinkedQueue<ConnectionItem> newQueue = new ConcurrentLinkedQueue<ConnectionItem>();
+            idle = idleByEventLoop.putIfAbsent(eventLoop, newQueue);
+            if (null == idle) {
+                idle = newQueue;
+            }
+        }
+        return idle;
+    }
+
     private DbFuture<ConnectionItem> waitForConnection() {
-        final DefaultDbFuture<ConnectionItem> connectionWaiter =new DefaultDbFuture<ConnectionItem>(stackTracingOptions());
+        final DefaultDbFuture<ConnectionItem> connectionWaiter =new DefaultDbFuture<ConnectionItem>(stackTracingOptions(),null,callbackExecutor());
         waitingForConnection.offer(connectionWaiter);
         logger.info("Couldn't serve a connection, because the pool.maxPool limit of {} has been reached",config.getMaxConnections());
-        timeOutTimer.schedule(new TimerTask() {
+        final DeadlineTimer.Deadline timeOut = DeadlineTimer.shared().schedule(new Runnable() {
             @Override
             public void run() {
                 connectionWaiter.trySetException(new DbException("No connection available. Time out waiting for a connection. " +
                         "The "+ConfigInfo.MAX_WAIT_FOR_CONNECTIONS+" is set to "+config.getMaxWaitForConnectionsInMillisec() + ". " +
                         "The "+ConfigInfo.POOL_MAX_CONNECTIONS+" is set to "+config.getMaxConnections() + ". " ));
             }
-        }, config.getMaxWaitForConnectionsInMillisec());
+        }, config.getMaxWaitForConnectionsInMillisec(), TimeUnit.MILLISECONDS);
+        connectionWaiter.addListener(new DbListener<ConnectionItem>() {
+            @Override
+            public void onCompletion(DbFuture<ConnectionItem> future) {
+                timeOut.cancel();
+            }
+        });
         return connectionWaiter;
     }
 
     @Override
     public DbFuture<Void> doClose(CloseMode mode) throws DbException {
-        timeOutTimer.cancel();
         for (Connection pooledConnection : aliveConnections.keySet()) {
             pooledConnection.close(mode);
         }
@@ -98,7 +191,7 @@ public class PooledConnectionManager extends AbstractConnectionManager implement
     }
 
     public DbFuture<Void> returnConnection(PooledConnection pooledConnection) {
-        final DefaultDbFuture<Void> transactionReturned = new DefaultDbFuture<Void>(stackTracingOptions());
+        final DefaultDbFuture<Void> transactionReturned = new DefaultDbFuture<Void>(stackTracingOptions(),null,callbackExecutor());
         aliveConnections.remove(pooledConnection);
         if(pooledConnection.isMayBeCorrupted()){
             allocatedConnectionsCount.decrementAndGet();
@@ -126,7 +219,7 @@ public class PooledConnectionManager extends AbstractConnectionManager implement
 
     private void returnConnection(ConnectionItem nativeTx, DefaultDbFuture<Void> transactionReturned) {
         if(!tryCompleteWaitingConnectionRequests(nativeTx)){
-            poolOfConnections.offer(nativeTx);
+            idleQueueOf(nativeTx).offer(nativeTx);
         }
         transactionReturned.setResult(null);
     }
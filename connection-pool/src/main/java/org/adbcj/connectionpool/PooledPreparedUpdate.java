@@ -4,6 +4,8 @@ import org.adbcj.DbFuture;
 import org.adbcj.PreparedUpdate;
 import org.adbcj.Result;
 
+import java.util.List;
+
 /**
  * @author roman.stoffel@gamlor.info
  */
@@ -18,6 +20,12 @@ class PooledPreparedUpdate extends AbstractPooledPreparedStatement implements Pr
         return pooledConnection.monitor(nativeQuery().execute(params));
     }
 
+    @Override
+    public DbFuture<List<Result>> executeBatch(Iterable<Object[]> parameterSets) {
+        pooledConnection.checkClosed();
+        return pooledConnection.monitor(nativeQuery().executeBatch(parameterSets));
+    }
+
     private PreparedUpdate nativeQuery() {
         return (PreparedUpdate) stmt;
     }
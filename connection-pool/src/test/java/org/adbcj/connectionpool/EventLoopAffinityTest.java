@@ -0,0 +1,135 @@
+package org.adbcj.connectionpool;
+
+import org.adbcj.CloseMode;
+import org.adbcj.Connection;
+import org.adbcj.DbFuture;
+import org.adbcj.StandardProperties;
+import org.adbcj.support.AbstractConnectionManager;
+import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.EventLoopBound;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class EventLoopAffinityTest {
+    private final Executor loopA = new NamedLoop("A");
+    private final Executor loopB = new NamedLoop("B");
+
+    @Test
+    public void handsOutConnectionOfCallersEventLoop() throws Exception {
+        final LoopManager loops = new LoopManager();
+        final PooledConnectionManager pool = affinityPool(loops, "4");
+
+        loops.callerLoop.set(loopA);
+        final Connection onA = pool.connect().get();
+        onA.close().get();
+
+        loops.callerLoop.set(loopB);
+        final Connection onB = pool.connect().get();
+        Assert.assertNotSame(nativeOf(onB), nativeOf(onA), "The idle connection of another event loop is not used");
+        Assert.assertEquals(((EventLoopBound) nativeOf(onB)).eventLoop(), loopB);
+        onB.close().get();
+
+        loops.callerLoop.set(loopA);
+        Assert.assertSame(nativeOf(pool.connect().get()), nativeOf(onA));
+    }
+
+    @Test
+    public void usesConnectionOfOtherEventLoopAtLimit() throws Exception {
+        final LoopManager loops = new LoopManager();
+        final PooledConnectionManager pool = affinityPool(loops, "1");
+
+        loops.callerLoop.set(loopA);
+        final Connection onA = pool.connect().get();
+        onA.close().get();
+
+        loops.callerLoop.set(loopB);
+        Assert.assertSame(nativeOf(pool.connect().get()), nativeOf(onA));
+    }
+
+    @Test
+    public void callersWithoutEventLoopTakeAnyConnection() throws Exception {
+        final LoopManager loops = new LoopManager();
+        final PooledConnectionManager pool = affinityPool(loops, "4");
+
+        loops.callerLoop.set(loopA);
+        final Connection onA = pool.connect().get();
+        onA.close().get();
+
+        loops.callerLoop.remove();
+        Assert.assertSame(nativeOf(pool.connect().get()), nativeOf(onA));
+    }
+
+    private static PooledConnectionManager affinityPool(LoopManager loops, String maxConnections) {
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put(StandardProperties.EVENT_LOOP_AFFINITY, "true");
+        properties.put(ConfigInfo.POOL_MAX_CONNECTIONS, maxConnections);
+        return new PooledConnectionManager(loops, properties, new ConfigInfo(properties));
+    }
+
+    private static Connection nativeOf(Connection pooled) {
+        return ((PooledConnection) pooled).getNativeConnection();
+    }
+
+    private static class LoopManager extends AbstractConnectionManager {
+        final ThreadLocal<Executor> callerLoop = new ThreadLocal<Executor>();
+        private final MockConnectionManager counter = new MockConnectionManager();
+
+        LoopManager() {
+            super(new HashMap<String, String>());
+        }
+
+        @Override
+        public Executor callerEventLoop() {
+            return callerLoop.get();
+        }
+
+        @Override
+        public DbFuture<Connection> connect() {
+            return DefaultDbFuture.<Connection>completed(new BoundConnection(counter, callerLoop.get()));
+        }
+
+        @Override
+        protected DbFuture<Void> doClose(CloseMode mode) {
+            return DefaultDbFuture.completed(null);
+        }
+    }
+
+    private static class BoundConnection extends MockConnection implements EventLoopBound {
+        private final Executor eventLoop;
+
+        BoundConnection(MockConnectionManager manager, Executor eventLoop) {
+            super(manager);
+            this.eventLoop = eventLoop;
+        }
+
+        @Override
+        public Executor eventLoop() {
+            return eventLoop;
+        }
+    }
+
+    private static class NamedLoop implements Executor {
+        private final String name;
+
+        NamedLoop(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public String toString() {
+            return "loop " + name;
+        }
+    }
+}
@@ -5,8 +5,11 @@ import org.adbcj.*;
 import org.adbcj.support.DefaultDbFuture;
 import org.adbcj.support.DefaultResultEventsHandler;
 import org.adbcj.support.DefaultResultSet;
+import org.adbcj.support.RowPublisher;
 import org.adbcj.support.stacktracing.StackTracingOptions;
 
+import java.util.List;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class MockConnection implements Connection {
@@ -63,15 +66,45 @@ public class MockConnection implements Connection {
         return (DbFuture) executeQuery(sql,new DefaultResultEventsHandler(),new DefaultResultSet());
     }
 
+    @Override
+    public DbFuture<ResultSet> executeQuery(String sql, ResultSetLayout layout) {
+        return layout.executeQuery(this, sql);
+    }
+
     @Override
     public <T> DbFuture<T> executeQuery(String sql, ResultHandler<T> eventHandler, T accumulator) {
         return maySuccedingOperation(sql);
     }
+    @Override
+    public Flow.Publisher<Row> streamQuery(String sql) {
+        return new RowPublisher(this, sql);
+    }
+
     @Override
     public DbFuture<Result> executeUpdate(String sql) {
          return maySuccedingOperation(sql);
     }
 
+    @Override
+    public BatchBuilder newBatch() {
+        return new BatchBuilder(this);
+    }
+
+    @Override
+    public void batch(Runnable requests) {
+        requests.run();
+    }
+
+    @Override
+    public DbFuture<Void> whenWritable() {
+        return DefaultDbFuture.completed(null);
+    }
+
+    @Override
+    public DbFuture<List<Result>> executeBatch(List<String> statements) {
+        return maySuccedingOperation(statements.contains(FAIL_QUERY) ? FAIL_QUERY : "batch");
+    }
+
     @Override
     public DbFuture<PreparedQuery> prepareQuery(String sql) {
         if(sql.equals(FAIL_QUERY)){
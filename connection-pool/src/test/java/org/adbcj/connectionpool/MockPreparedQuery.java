@@ -4,6 +4,8 @@ import org.adbcj.*;
 import org.adbcj.support.DefaultDbFuture;
 import org.adbcj.support.stacktracing.StackTracingOptions;
 
+import java.util.List;
+
 class AbstractMockPreparedStatement {
     private final String sql;
     private final MockConnection connection;
@@ -56,4 +58,9 @@ class MockPreparedUpdate extends AbstractMockPreparedStatement implements Prepar
     public DbFuture<Result> execute(Object... params) {
         return executeOrFail();
     }
+
+    @Override
+    public DbFuture<List<Result>> executeBatch(Iterable<Object[]> parameterSets) {
+        return executeOrFail();
+    }
 }
@@ -0,0 +1,74 @@
+package org.adbcj.h2;
+
+import org.adbcj.DbException;
+import org.adbcj.Result;
+import org.adbcj.h2.decoding.StatementPrepare;
+import org.adbcj.support.BatchResults;
+import org.adbcj.support.DefaultDbFuture;
+
+import java.util.List;
+
+/**
+ * The statements of a batch are prepared all at once. When every statement is prepared,
+ * they are executed, again all at once. The protocol does not allow executing a statement
+ * which failed to prepare, so when a statement cannot be prepared, none of the statements is executed.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+class BatchPreparation {
+    private final H2Connection connection;
+    private final BatchResults results;
+    private final Request execution;
+    private final Request closing;
+    // Only accessed by the decoder
+    private int pending;
+    private int failedStatement = -1;
+    private DbException failure;
+
+    /**
+     * @param execution executes the statements
+     * @param closing closes the statements without executing them
+     */
+    BatchPreparation(H2Connection connection, BatchResults results, int statements, Request execution, Request closing) {
+        this.connection = connection;
+        this.results = results;
+        this.execution = execution;
+        this.closing = closing;
+        this.pending = statements;
+    }
+
+    StatementPrepare<List<Result>> prepareStatement(final int statement, DefaultDbFuture<List<Result>> batchFuture) {
+        return new StatementPrepare<List<Result>>(batchFuture, connection) {
+            @Override
+            protected void handleCompletion(H2Connection connection, int paramsCount) {
+                if (paramsCount == 0) {
+                    prepared(statement, null);
+                } else {
+                    prepared(statement, new DbException("Statements of a batch cannot have parameters, but got: " + paramsCount));
+                }
+            }
+
+            @Override
+            protected void requestFailedContinue(H2DbException exception) {
+                prepared(statement, exception);
+            }
+        };
+    }
+
+    private void prepared(int statement, DbException error) {
+        if (null != error && null == failure) {
+            failure = error;
+            failedStatement = statement;
+        }
+        pending--;
+        if (0 != pending) {
+            return;
+        }
+        if (null == failure) {
+            connection.sendFollowUpRequest(execution);
+        } else {
+            connection.sendFollowUpRequest(closing);
+            results.abort(failedStatement, failure);
+        }
+    }
+}
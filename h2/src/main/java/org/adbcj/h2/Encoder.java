@@ -5,6 +5,7 @@ import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 import org.adbcj.h2.packets.ClientToServerPacket;
+import org.adbcj.support.metrics.ConnectionMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,18 +16,25 @@ import java.io.DataOutputStream;
  */
 class Encoder extends MessageToByteEncoder<ClientToServerPacket> {
     private final static Logger logger = LoggerFactory.getLogger(Encoder.class);
+    private final ConnectionMetrics metrics;
+
+    Encoder(ConnectionMetrics metrics) {
+        this.metrics = metrics;
+    }
 
 
     @Override
     public void encode(ChannelHandlerContext ctx, ClientToServerPacket request, ByteBuf buffer) throws Exception {
 
         if(request.startWriteOrCancel()){
+            final int startIndex = buffer.writerIndex();
             ByteBufOutputStream out = new ByteBufOutputStream(buffer);
             DataOutputStream dataOutputStream = new DataOutputStream(out);
             request.writeToStream(dataOutputStream);
             dataOutputStream.close();
             out.flush();
             out.close();
+            metrics.bytesWritten(buffer.writerIndex() - startIndex);
             if(logger.isDebugEnabled()){
                 logger.debug("Sent {} to server",request);
             }
@@ -1,27 +1,45 @@
 package org.adbcj.h2;
 
 import org.adbcj.*;
+import org.adbcj.netty.AutoReadFlowControl;
+import org.adbcj.netty.WriteCoalescer;
 import org.adbcj.support.*;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import org.adbcj.support.DefaultRequestTimings;
+import org.adbcj.support.metrics.ConnectionMetrics;
 import org.adbcj.support.stacktracing.StackTracingOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author roman.stoffel@gamlor.info
  */
-public class H2Connection implements Connection {
+public class H2Connection implements Connection, EventLoopBound {
     private static final Logger logger = LoggerFactory.getLogger(H2Connection.class);
     private final String sessionId = StringUtils.convertBytesToHex(MathUtils.secureRandomBytes(32));
     private final ArrayDeque<Request> requestQueue;
-    private final int maxQueueSize;
+    /**
+     * Queued parts which are not the last part of their request.
+     * A request sending several commands counts as one pending request.
+     */
+    private int queuedLeadingParts = 0;
+    private final OverflowQueue<Request> overflow;
     private final H2ConnectionManager manager;
     private final Channel channel;
     private final Object lock = new Object();
+    private final ReadFlowControl readFlowControl;
+    private final WriteCoalescer writes;
+    private final ConnectionMetrics metrics;
     private volatile DefaultDbFuture<Void> closeFuture;
     private final AtomicInteger requestId = new AtomicInteger(0);
     private final int autoIdSession = nextId();
@@ -34,15 +52,23 @@ public class H2Connection implements Connection {
     private final RequestCreator requestCreator = new RequestCreator(this);
 
     public H2Connection(int maxQueueSize, H2ConnectionManager manager, Channel channel) {
-        this.maxQueueSize = maxQueueSize;
+        this.overflow = new OverflowQueue<Request>(maxQueueSize, manager.queueOverflowLength());
         this.manager = manager;
         this.channel = channel;
+        this.readFlowControl = new AutoReadFlowControl(channel);
+        this.writes = new WriteCoalescer(channel, manager.coalescingPolicy());
+        this.metrics = manager.metrics().connectionOpened();
         synchronized (lock){
             requestQueue = new ArrayDeque<Request>(maxQueueSize+1);
         }
     }
 
 
+    @Override
+    public Executor eventLoop() {
+        return channel.eventLoop();
+    }
+
     @Override
     public ConnectionManager getConnectionManager() {
         return manager;
@@ -96,15 +122,21 @@ public class H2Connection implements Connection {
 
     @Override
     public DbFuture<ResultSet> executeQuery(String sql) {
+        return executeQuery(sql, resultSetLayout());
+    }
+
+    @Override
+    public DbFuture<ResultSet> executeQuery(String sql, ResultSetLayout layout) {
         checkClosed();
-        ResultHandler<DefaultResultSet> eventHandler = new DefaultResultEventsHandler();
-        DefaultResultSet resultSet = new DefaultResultSet();
-        return (DbFuture) executeQuery(sql, eventHandler, resultSet);
+        return layout.executeQuery(this, sql);
     }
 
     @Override
     public <T> DbFuture<T> executeQuery(String sql, ResultHandler<T> eventHandler, T accumulator) {
         checkClosed();
+        if (eventHandler instanceof BackpressureResultHandler) {
+            ((BackpressureResultHandler<T>) eventHandler).useFlowControl(readFlowControl);
+        }
         synchronized (lock){
             final Request request = requestCreator.createQuery(sql, eventHandler, accumulator);
             queRequest(request);
@@ -112,6 +144,12 @@ public class H2Connection implements Connection {
         }
     }
 
+    @Override
+    public Flow.Publisher<Row> streamQuery(String sql) {
+        checkClosed();
+        return new RowPublisher(this, sql);
+    }
+
     @Override
     public DbFuture<Result> executeUpdate(String sql) {
         checkClosed();
@@ -120,6 +158,17 @@ public class H2Connection implements Connection {
         return (DbFuture) request.getToComplete();
     }
 
+    @Override
+    public DbFuture<List<Result>> executeBatch(List<String> statements) {
+        checkClosed();
+        if (statements.isEmpty()) {
+            return DefaultDbFuture.<List<Result>>completed(Collections.<Result>emptyList());
+        }
+        final Request request = requestCreator.executeBatch(statements);
+        queRequest(request);
+        return (DbFuture<List<Result>>) request.getToComplete();
+    }
+
     @Override
     public DbFuture<PreparedQuery> prepareQuery(String sql) {
         checkClosed();
@@ -157,6 +206,7 @@ public class H2Connection implements Connection {
                 @Override
                 public void onCompletion(DbFuture<Void> future) {
                     H2Connection.this.manager.removeConnection(H2Connection.this);
+                    metrics.connectionClosed();
                 }
             });
             return closeFuture;
@@ -175,58 +225,181 @@ public class H2Connection implements Connection {
 
     void queRequest(Request request) {
         synchronized (lock){
-            int requestsPending = requestQueue.size()
-                    +( (null!=blockingRequest) ? blockingRequest.waitingRequests.size() : 0);
-            if(requestsPending>maxQueueSize){
-                throw new DbException("To many pending requests. The current maximum is "+maxQueueSize+"."+
-                    "Ensure that your not overloading the database with requests. " +
-                    "Also check the "+StandardProperties.MAX_QUEUE_LENGTH+" property");
-            }
-            forceQueRequest(request);
+            accept(request, overflow.offer(request, pendingRequests()));
         }
     }
 
     public void forceQueRequest(Request request) {
         synchronized (lock){
-            if(blockingRequest==null){
-                requestQueue.add(request);
-                channel.write(request.getRequest());
-                if(request.isBlocking()){
-                    blockingRequest = new BlockingRequestInProgress(request);
-                    request.getToComplete().addListener(new DbListener<Object>() {
-                        @Override
-                        public void onCompletion(DbFuture<Object> future) {
-                            blockingRequest.continueWithRequests();
-                        }
-                    });
-                }
-            } else{
-                if(blockingRequest.unblockBy(request)){
-                    requestQueue.add(request);
-                    channel.write(request.getRequest());
-                } else {
-                    blockingRequest.add(request);
-                }
+            accept(request, overflow.offerForced(request));
+        }
+    }
+
+    /**
+     * Expects that it is executed withing the connection lock
+     */
+    private void accept(Request request, boolean sendNow) {
+        manager.requestTimer().start(request.getToComplete(), request.toString());
+        manager.applyDefaultDeadline(request.getToComplete());
+        if (sendNow) {
+            send(request);
+        }
+    }
+
+    /**
+     * Expects that it is executed withing the connection lock
+     */
+    private void send(Request request) {
+        RequestMetrics.track(metrics, request.getToComplete(), pendingRequests() + 1);
+        sendOrWaitForBlockingRequest(request);
+    }
+
+    /**
+     * Sends the parked requests for which there is room again.
+     * Expects that it is executed withing the connection lock
+     */
+    private void sendParkedRequests() {
+        Request parked = overflow.poll(pendingRequests());
+        while (null != parked) {
+            if (!parked.getRequest().wasCancelled()) {
+                send(parked);
+            }
+            parked = overflow.poll(pendingRequests());
+        }
+    }
+
+    @Override
+    public DbFuture<Void> whenWritable() {
+        synchronized (lock){
+            return overflow.whenWritable(pendingRequests(), stackTrachingOptions(), callbackExecutor());
+        }
+    }
+
+    /**
+     * Expects that it is executed withing the connection lock
+     */
+    private int pendingRequests() {
+        return requestQueue.size() - queuedLeadingParts
+                + ((null != blockingRequest) ? blockingRequest.waitingRequests.size() : 0);
+    }
+
+    /**
+     * Expects that it is executed withing the connection lock
+     */
+    private void sendOrWaitForBlockingRequest(Request request) {
+        if(blockingRequest==null){
+            expectResponses(request);
+            write(request);
+            if(request.isBlocking()){
+                blockingRequest = new BlockingRequestInProgress(request);
+                request.getToComplete().addListener(new DbListener<Object>() {
+                    @Override
+                    public void onCompletion(DbFuture<Object> future) {
+                        blockingRequest.continueWithRequests();
+                    }
+                });
+            }
+        } else{
+            if(blockingRequest.unblockBy(request)){
+                expectResponses(request);
+                write(request);
+            } else {
+                blockingRequest.add(request);
             }
         }
     }
 
+    /**
+     * Sends the follow up of a blocking request, which continues the operation of the blocking request.
+     * It is not tracked as request of its own.
+     */
+    public void sendFollowUpRequest(Request request) {
+        synchronized (lock){
+            expectResponses(request);
+            write(request);
+        }
+    }
+
+    private void expectResponses(Request request) {
+        final Request[] parts = request.getParts();
+        if (null == parts) {
+            requestQueue.add(request);
+        } else {
+            Collections.addAll(requestQueue, parts);
+            queuedLeadingParts += Math.max(0, parts.length - 1);
+        }
+    }
+
+    @Override
+    public BatchBuilder newBatch() {
+        return new BatchBuilder(this);
+    }
+
+    @Override
+    public void batch(Runnable requests) {
+        writes.beginBatch();
+        try {
+            requests.run();
+        } finally {
+            writes.endBatch();
+        }
+    }
+
+    private void write(Request request) {
+        final ChannelFuture written = writes.write(request.getRequest(), request.getRequest().getLength());
+        final DefaultRequestTimings timings = request.getToComplete().getTimings();
+        if (null != timings) {
+            written.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    timings.markWritten();
+                }
+            });
+        }
+    }
+
     public String getSessionId() {
         return sessionId;
     }
 
+    /**
+     * Stops the command of a request which was already sent, over a separate connection.
+     * The server answers the request with an error, so the decoding continues with the next request as usual.
+     *
+     * The server stops the command the next time it checks for cancellation. When it does not run yet,
+     * its next execution fails. So cancelling a prepared statement which completes meanwhile
+     * may fail its next execution.
+     *
+     * @return false if the request already completed
+     */
+    boolean cancelOnServer(Request request, int commandId) {
+        if (request.getToComplete().isDone()) {
+            return false;
+        }
+        manager.cancelStatement(sessionId, commandId);
+        return true;
+    }
+
     public Request dequeRequest() {
         synchronized (lock){
             final Request request = requestQueue.poll();
             if(logger.isDebugEnabled()){
                 logger.debug("Dequeued request: {}",request);
             }
+            if(request.morePartsFollow()){
+                queuedLeadingParts--;
+            }
+            sendParkedRequests();
             if(request.getRequest().wasCancelled()){
                 if(logger.isDebugEnabled()){
                     logger.debug("Request has been cancelled: {}",request);
                 }
                 return dequeRequest();
             }
+            final DefaultRequestTimings timings = request.getToComplete().getTimings();
+            if (null != timings) {
+                timings.markFirstResponse();
+            }
             return request;
         }
     }
@@ -276,6 +449,11 @@ public class H2Connection implements Connection {
                 }
             }
         }
+        for (Request parked : overflow.drain()) {
+            if(parked.getRequest().tryCancel()){
+                parked.getToComplete().trySetException(new DbSessionClosedException("Connection is closed"));
+            }
+        }
     }
 
     void checkClosed(){
@@ -288,6 +466,22 @@ public class H2Connection implements Connection {
         return this.manager.stackTracingOptions();
     }
 
+    public Executor callbackExecutor() {
+        return this.manager.callbackExecutor();
+    }
+
+    public ResultSetLayout resultSetLayout() {
+        return this.manager.resultSetLayout();
+    }
+
+    public boolean lazyValueDecoding() {
+        return this.manager.lazyValueDecoding();
+    }
+
+    public ConnectionMetrics metrics() {
+        return metrics;
+    }
+
     /**
      * Expects that it is executed withing the connection lock
      */
@@ -309,9 +503,11 @@ public class H2Connection implements Connection {
         }
 
         public void continueWithRequests() {
-            H2Connection.this.blockingRequest = null;
-            for (Request waitingRequest : waitingRequests) {
-                forceQueRequest(waitingRequest);
+            synchronized (lock) {
+                H2Connection.this.blockingRequest = null;
+                for (Request waitingRequest : waitingRequests) {
+                    sendOrWaitForBlockingRequest(waitingRequest);
+                }
             }
         }
     }
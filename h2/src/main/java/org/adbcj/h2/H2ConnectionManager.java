@@ -2,23 +2,25 @@ package org.adbcj.h2;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import org.adbcj.*;
 import org.adbcj.h2.decoding.Decoder;
+import org.adbcj.h2.packets.CancelStatement;
 import org.adbcj.h2.packets.ClientHandshake;
 import org.adbcj.support.AbstractConnectionManager;
 import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.netty.EventLoopRuntime;
+import org.adbcj.support.FutureUtils;
 import org.adbcj.support.LoginCredentials;
+import org.adbcj.support.metrics.NoMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author roman.stoffel@gamlor.info
@@ -26,7 +28,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class H2ConnectionManager extends AbstractConnectionManager {
     private final static Logger logger = LoggerFactory.getLogger(H2ConnectionManager.class);
 
+    private final EventLoopRuntime runtime;
+    private final InetSocketAddress address;
     private final Bootstrap bootstrap;
+    /**
+     * Opens the connections which only carry a {@link CancelStatement}, without the handlers of a session
+     */
+    private final Bootstrap cancelBootstrap;
     private static final String ENCODER = H2ConnectionManager.class.getName() + ".encoder";
     private static final String DECODER = H2ConnectionManager.class.getName() + ".decoder";
     private final String url;
@@ -39,22 +47,46 @@ public class H2ConnectionManager extends AbstractConnectionManager {
                                LoginCredentials credentials,
                                Map<String, String> properties,
                                Map<String,String> keys) {
-        super(properties);
+        this(url, host, port, credentials, properties, keys, EventLoopRuntime.forManager(properties));
+    }
+
+    /**
+     * @param runtime serves the connections. It is shut down with this manager if it is dedicated to it.
+     */
+    public H2ConnectionManager(String url,String host,
+                               int port,
+                               LoginCredentials credentials,
+                               Map<String, String> properties,
+                               Map<String,String> keys,
+                               EventLoopRuntime runtime) {
+        super(properties, runtime.deadlineTimer());
         this.url = url;
         this.credentials = credentials;
         this.keys = keys;
+        this.runtime = runtime;
+
+        this.address = new InetSocketAddress(host, port);
+        bootstrap = configure(runtime.newBootstrap());
+        cancelBootstrap = runtime.newBootstrap()
+                .option(ChannelOption.AUTO_READ, false)
+                .remoteAddress(address)
+                .handler(new ChannelInitializer() {
 
-        bootstrap = new Bootstrap()
-                .group(new NioEventLoopGroup())
-                .channel(NioSocketChannel.class)
-                .option(ChannelOption.TCP_NODELAY, true)
-                .option(ChannelOption.SO_KEEPALIVE, true)
-                .remoteAddress(new InetSocketAddress(host, port))
+                    @Override
+                    public void initChannel(Channel ch) throws Exception {
+                        ch.pipeline().addLast(ENCODER, new Encoder(NoMetrics.INSTANCE));
+                    }
+                });
+    }
+
+    private Bootstrap configure(Bootstrap bootstrap) {
+        return bootstrap
+                .remoteAddress(address)
                 .handler(new ChannelInitializer(){
 
                     @Override
                     public void initChannel(Channel ch) throws Exception {
-                        ch.pipeline().addLast(ENCODER, new Encoder());
+                        ch.pipeline().addLast(ENCODER, new Encoder(NoMetrics.INSTANCE));
                         ch.pipeline().addLast("handler", new Handler());
                     }
                 });
@@ -67,9 +99,12 @@ public class H2ConnectionManager extends AbstractConnectionManager {
         }
         logger.debug("Starting connection");
 
-        final ChannelFuture channelFuture = bootstrap.connect();
+        final EventLoop callerEventLoop = callerEventLoop();
+        final ChannelFuture channelFuture = null == callerEventLoop
+                ? bootstrap.connect()
+                : configure(runtime.newBootstrap(callerEventLoop)).connect();
 
-        final DefaultDbFuture<Connection> connectFuture = new DefaultDbFuture<Connection>(stackTracingOptions());
+        final DefaultDbFuture<Connection> connectFuture = new DefaultDbFuture<Connection>(stackTracingOptions(),null,callbackExecutor());
 
         channelFuture.addListener(new ChannelFutureListener() {
             @Override
@@ -87,6 +122,9 @@ public class H2ConnectionManager extends AbstractConnectionManager {
                 }
 
                 H2Connection connection = new H2Connection(maxQueueLength(),H2ConnectionManager.this,channel);
+                if (NoMetrics.INSTANCE != connection.metrics()) {
+                    channel.pipeline().replace(ENCODER, ENCODER, new Encoder(connection.metrics()));
+                }
                 channel.pipeline().addFirst(DECODER, new Decoder(connectFuture,connection));
                 channel.write(
                         new ClientHandshake(credentials.getDatabase(),url,
@@ -107,6 +145,40 @@ public class H2ConnectionManager extends AbstractConnectionManager {
         return connectFuture;
     }
 
+    /**
+     * Stops a command of a connection. The cancel request is sent over a new connection, because the server
+     * does not read from the connection of the running command until it completes.
+     * That connection only writes the cancel request and never reads, the server closes it without an answer.
+     */
+    void cancelStatement(String sessionId, int commandId) {
+        final CancelStatement cancel = new CancelStatement(sessionId, commandId);
+        cancelBootstrap.connect().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    logger.warn("Could not cancel command " + cancel, future.cause());
+                    return;
+                }
+                future.channel().write(cancel).addListener(ChannelFutureListener.CLOSE);
+            }
+        });
+    }
+
+    /**
+     * With {@link StandardProperties#EVENT_LOOP_AFFINITY} a connection opened from an I/O thread stays on that thread
+     */
+    @Override
+    public EventLoop callerEventLoop() {
+        return eventLoopAffinity() ? runtime.currentEventLoop() : null;
+    }
+
+    /**
+     * @return the I/O threads and buffers of the connections
+     */
+    public EventLoopRuntime runtime() {
+        return runtime;
+    }
+
     public void removeConnection(H2Connection connection) {
         synchronized (connections){
             connections.remove(connection);
@@ -119,22 +191,17 @@ public class H2ConnectionManager extends AbstractConnectionManager {
         synchronized (connections){
             connectionsCopy = new ArrayList<H2Connection>(connections);
         }
-        final AtomicInteger toCloseCount = new AtomicInteger(connectionsCopy.size());
-        final DefaultDbFuture closeFuture = new DefaultDbFuture<Void>(stackTracingOptions());
+        final DefaultDbFuture closeFuture = new DefaultDbFuture<Void>(stackTracingOptions(),null,callbackExecutor());
+        List<DbFuture<Void>> closingConnections = new ArrayList<DbFuture<Void>>(connectionsCopy.size());
         for (H2Connection connection : connectionsCopy) {
-            connection.close(mode).addListener(new DbListener<Void>() {
-                @Override
-                public void onCompletion(DbFuture<Void> future) {
-                    final int toCloseConnnectionCount = toCloseCount.decrementAndGet();
-                    if (toCloseConnnectionCount <= 0) {
-                        shutdownBootstrapper(closeFuture);
-                    }
-                }
-            });
-        }
-        if(connectionsCopy.isEmpty()){
-            shutdownBootstrapper(closeFuture);
+            closingConnections.add(connection.close(mode));
         }
+        FutureUtils.allOf(closingConnections).addListener(new DbListener<List<Void>>() {
+            @Override
+            public void onCompletion(DbFuture<List<Void>> future) {
+                shutdownBootstrapper(closeFuture);
+            }
+        });
         return closeFuture;
     }
 
@@ -142,7 +209,7 @@ public class H2ConnectionManager extends AbstractConnectionManager {
         new Thread("Closing H2 ConnectionManager") {
             @Override
             public void run() {
-                bootstrap.shutdown();
+                runtime.release();
                 closeFuture.setResult(null);
             }
         }.start();
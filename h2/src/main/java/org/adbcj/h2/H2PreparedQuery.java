@@ -4,8 +4,6 @@ import org.adbcj.DbFuture;
 import org.adbcj.PreparedQuery;
 import org.adbcj.ResultHandler;
 import org.adbcj.ResultSet;
-import org.adbcj.support.DefaultResultEventsHandler;
-import org.adbcj.support.DefaultResultSet;
 
 /**
  * @author roman.stoffel@gamlor.info
@@ -19,9 +17,7 @@ public class H2PreparedQuery extends AbstractStatement implements PreparedQuery
     @Override
     public DbFuture<ResultSet> execute(Object... params) {
         connection.checkClosed();
-        DefaultResultEventsHandler eventHandler = new DefaultResultEventsHandler();
-        DefaultResultSet resultSet = new DefaultResultSet();
-        return executeWithCallback((ResultHandler) eventHandler,resultSet,params);
+        return connection.resultSetLayout().execute(this, params);
     }
 
     @Override
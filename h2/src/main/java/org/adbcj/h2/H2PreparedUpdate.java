@@ -3,6 +3,10 @@ package org.adbcj.h2;
 import org.adbcj.DbFuture;
 import org.adbcj.PreparedUpdate;
 import org.adbcj.Result;
+import org.adbcj.support.ChunkedBatch;
+import org.adbcj.support.DefaultDbFuture;
+
+import java.util.List;
 
 /**
  * @author roman.stoffel@gamlor.info
@@ -22,4 +26,24 @@ public class H2PreparedUpdate extends AbstractStatement implements PreparedUpdat
         connection.queRequest(request);
         return (DbFuture<Result>) request.getToComplete();
     }
+
+    @Override
+    public DbFuture<List<Result>> executeBatch(Iterable<Object[]> parameterSets) {
+        connection.checkClosed();
+        DefaultDbFuture<List<Result>> batchFuture = new DefaultDbFuture<List<Result>>(
+                connection.stackTrachingOptions(),null,connection.callbackExecutor());
+        return new ChunkedBatch(parameterSets, batchFuture, ChunkedBatch.DEFAULT_CHUNK_SIZE) {
+            @Override
+            protected DbFuture<List<Result>> executeChunk(List<Object[]> chunk) {
+                for (Object[] params : chunk) {
+                    if(paramsCount!=params.length){
+                        throw new IllegalArgumentException("Expect "+paramsCount+" parameters, but got: "+params.length);
+                    }
+                }
+                final Request request = connection.requestCreator().executeUpdateStatementBatch(sessionId, chunk);
+                connection.queRequest(request);
+                return (DbFuture<List<Result>>) request.getToComplete();
+            }
+        }.start();
+    }
 }
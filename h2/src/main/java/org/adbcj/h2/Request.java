@@ -19,6 +19,15 @@ public class Request {
      * during the communication for such a request.
      */
     private final Request blocksFor;
+    /**
+     * A request which sends several commands at once expects a response for each.
+     * Those are decoded by these parts, in order. Null when the request expects a single response.
+     */
+    private final Request[] parts;
+    /**
+     * True for the parts of a request, except the last one
+     */
+    private boolean morePartsFollow = false;
 
     Request(String description,
             DefaultDbFuture toComplete,
@@ -29,6 +38,7 @@ public class Request {
         this.startState = startState;
         this.request = request;
         this.blocksFor = null;
+        this.parts = null;
     }
     Request(String description,
             DefaultDbFuture toComplete,
@@ -39,6 +49,22 @@ public class Request {
         this.startState = startState;
         this.request = request;
         this.blocksFor = blocksFor;
+        this.parts = null;
+    }
+    Request(String description,
+            DefaultDbFuture toComplete,
+            ClientToServerPacket request,
+            Request blocksFor,
+            Request[] parts) {
+        this.description = description;
+        this.toComplete = toComplete;
+        this.startState = null;
+        this.request = request;
+        this.blocksFor = blocksFor;
+        this.parts = parts;
+        for (int i = 0; i < parts.length - 1; i++) {
+            parts[i].morePartsFollow = true;
+        }
     }
 
     public DefaultDbFuture getToComplete() {
@@ -49,6 +75,20 @@ public class Request {
         return startState;
     }
 
+    /**
+     * @return the requests decoding the responses to this request, or null if this request decodes its single response
+     */
+    public Request[] getParts() {
+        return parts;
+    }
+
+    /**
+     * @return true if this is a part of a request and further parts of that request follow
+     */
+    public boolean morePartsFollow() {
+        return morePartsFollow;
+    }
+
     public boolean isBlocking() {
         return blocksFor!=null;
     }
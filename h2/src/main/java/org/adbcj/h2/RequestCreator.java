@@ -3,10 +3,14 @@ package org.adbcj.h2;
 import org.adbcj.*;
 import org.adbcj.h2.decoding.*;
 import org.adbcj.h2.packets.*;
+import org.adbcj.support.BatchResults;
+import org.adbcj.support.CancellationAction;
 import org.adbcj.support.CancellationToken;
 import org.adbcj.support.DefaultDbFuture;
 import org.adbcj.support.SafeResultHandlerDecorator;
 
+import java.util.List;
+
 /**
  * @author roman.stoffel@gamlor.info
  */
@@ -19,7 +23,7 @@ public class RequestCreator {
 
 
     public Request createCloseRequest() {
-        DefaultDbFuture<Void> future = new DefaultDbFuture<Void>(connection.stackTrachingOptions());
+        DefaultDbFuture<Void> future = new DefaultDbFuture<Void>(connection.stackTrachingOptions(),null,connection.callbackExecutor());
         return new Request("Close-Request", future, new CloseConnection(future, connection), new CloseCommand());
     }
 
@@ -29,7 +33,7 @@ public class RequestCreator {
         CancellationToken cancelSupport = new CancellationToken();
         final int sessionId = connection.nextId();
         final int queryId = connection.nextId();
-        DefaultDbFuture<T> resultFuture = new DefaultDbFuture<T>(connection.stackTrachingOptions(),cancelSupport);
+        DefaultDbFuture<T> resultFuture = new DefaultDbFuture<T>(connection.stackTrachingOptions(),cancelSupport,connection.callbackExecutor());
         final Request executeQuery = executeQueryAndClose(sql,
                 eventHandler,
                 accumulator,
@@ -37,27 +41,67 @@ public class RequestCreator {
                 cancelSupport,
                 sessionId,
                 queryId);
-        return new Request("Prepare Query: " + sql,
+        return cancellableOnServer(new Request("Prepare Query: " + sql,
                 resultFuture,
                 continueWithRequest(executeQuery, resultFuture),
                 new QueryPrepareCommand(sessionId, sql,cancelSupport),
-                executeQuery);
+                executeQuery), cancelSupport, sessionId);
     }
 
     public Request executeUpdate(String sql) {
         CancellationToken cancelSupport = new CancellationToken();
         final int sessionId = connection.nextId();
-        DefaultDbFuture<Result> resultFuture = new DefaultDbFuture<Result>(connection.stackTrachingOptions(),cancelSupport);
+        DefaultDbFuture<Result> resultFuture = new DefaultDbFuture<Result>(connection.stackTrachingOptions(),cancelSupport,connection.callbackExecutor());
         final Request executeQuery = executeUpdateAndClose(sql, resultFuture,cancelSupport, sessionId);
-        return new Request("Prepare Query: " + sql, resultFuture,
+        return cancellableOnServer(new Request("Prepare Query: " + sql, resultFuture,
                 continueWithRequest(executeQuery, resultFuture),
                 new QueryPrepareCommand(sessionId, sql,cancelSupport),
-                executeQuery);
+                executeQuery), cancelSupport, sessionId);
+    }
+
+    public Request executeBatch(List<String> statements) {
+        CancellationToken cancelSupport = new CancellationToken();
+        DefaultDbFuture<List<Result>> batchFuture = new DefaultDbFuture<List<Result>>(connection.stackTrachingOptions(),cancelSupport,connection.callbackExecutor());
+        final BatchResults results = new BatchResults(batchFuture, statements.size());
+        final int[] sessionIds = new int[statements.size()];
+        final ClientToServerPacket[] prepares = new ClientToServerPacket[statements.size()];
+        final ClientToServerPacket[] executes = new ClientToServerPacket[statements.size() * 3];
+        final ClientToServerPacket[] closes = new ClientToServerPacket[statements.size()];
+        for (int i = 0; i < statements.size(); i++) {
+            sessionIds[i] = connection.nextId();
+            prepares[i] = new QueryPrepareCommand(sessionIds[i], statements.get(i), cancelSupport);
+            executes[3 * i] = new UpdateExecute(sessionIds[i], CancellationToken.NO_CANCELLATION);
+            executes[3 * i + 1] = new QueryExecute(connection.idForAutoId(), connection.nextId(), CancellationToken.NO_CANCELLATION);
+            executes[3 * i + 2] = new CommandClose(sessionIds[i]);
+            closes[i] = new CommandClose(sessionIds[i]);
+        }
+
+        final CompoundCommand executeAll = new CompoundCommand(CancellationToken.NO_CANCELLATION, executes);
+        final Request[] executions = new Request[statements.size()];
+        for (int i = 0; i < statements.size(); i++) {
+            DefaultDbFuture<Result> statementFuture = results.statementFuture(i);
+            executions[i] = new Request("Batch UpdateExecute: " + statements.get(i), statementFuture,
+                    new UpdateResult(statementFuture, connection), executeAll);
+        }
+        final Request execution = new Request("Batch UpdateExecute: " + statements.size() + " statements", batchFuture,
+                executeAll, null, executions);
+        final Request closing = new Request("Batch Close: " + statements.size() + " statements", batchFuture,
+                new CompoundCommand(CancellationToken.NO_CANCELLATION, closes), null, new Request[0]);
+
+        final BatchPreparation preparation = new BatchPreparation(connection, results, statements.size(), execution, closing);
+        final CompoundCommand prepareAll = new CompoundCommand(cancelSupport, prepares);
+        final Request[] preparations = new Request[statements.size()];
+        for (int i = 0; i < statements.size(); i++) {
+            preparations[i] = new Request("Batch Prepare: " + statements.get(i), batchFuture,
+                    preparation.prepareStatement(i, batchFuture), prepareAll);
+        }
+        return new Request("Batch: " + statements.size() + " statements", batchFuture,
+                prepareAll, execution, preparations);
     }
 
     public Request executePrepareQuery(String sql) {
         CancellationToken cancelSupport = new CancellationToken();
-        DefaultDbFuture<PreparedQuery> resultFuture = new DefaultDbFuture<PreparedQuery>(connection.stackTrachingOptions(),cancelSupport);
+        DefaultDbFuture<PreparedQuery> resultFuture = new DefaultDbFuture<PreparedQuery>(connection.stackTrachingOptions(),cancelSupport,connection.callbackExecutor());
         final int sessionId = connection.nextId();
         return new Request("Prepare Query: " + sql, resultFuture,
                 createPrepareQuery(resultFuture, sessionId), new QueryPrepareCommand(sessionId, sql,cancelSupport));
@@ -66,7 +110,7 @@ public class RequestCreator {
 
     public Request executePrepareUpdate(String sql) {
         CancellationToken cancelSupport = new CancellationToken();
-        DefaultDbFuture<PreparedUpdate> resultFuture = new DefaultDbFuture<PreparedUpdate>(connection.stackTrachingOptions(),cancelSupport);
+        DefaultDbFuture<PreparedUpdate> resultFuture = new DefaultDbFuture<PreparedUpdate>(connection.stackTrachingOptions(),cancelSupport,connection.callbackExecutor());
         final int sessionId = connection.nextId();
         return new Request("Prepare Update: " + sql, resultFuture,
                 createPrepareUpdate(resultFuture, sessionId), new QueryPrepareCommand(sessionId, sql,cancelSupport));
@@ -77,25 +121,47 @@ public class RequestCreator {
                                                     int sessionId,
                                                     Object[] params) {
         CancellationToken cancelSupport = new CancellationToken();
-        DefaultDbFuture<T> resultFuture = new DefaultDbFuture<T>(connection.stackTrachingOptions(),cancelSupport);
+        DefaultDbFuture<T> resultFuture = new DefaultDbFuture<T>(connection.stackTrachingOptions(),cancelSupport,connection.callbackExecutor());
         int queryId = connection.nextId();
-        return new Request("ExecutePreparedQuery", resultFuture,
+        return cancellableOnServer(new Request("ExecutePreparedQuery", resultFuture,
                 new QueryHeader<T>(SafeResultHandlerDecorator.wrap(eventHandler, resultFuture),
                         accumulator,
-                        resultFuture,connection), new QueryExecute(sessionId, queryId,cancelSupport, params));
+                        resultFuture,connection), new QueryExecute(sessionId, queryId,cancelSupport, params)),
+                cancelSupport, sessionId);
     }
     public Request executeUpdateStatement(int sessionId,
                                                  Object[] params) {
         CancellationToken cancelSupport = new CancellationToken();
-        DefaultDbFuture<Result> resultFuture = new DefaultDbFuture<Result>(connection.stackTrachingOptions(),cancelSupport);
-        return new Request("ExecutePreparedUpdate: ", resultFuture,
+        DefaultDbFuture<Result> resultFuture = new DefaultDbFuture<Result>(connection.stackTrachingOptions(),cancelSupport,connection.callbackExecutor());
+        return cancellableOnServer(new Request("ExecutePreparedUpdate: ", resultFuture,
                 new UpdateResult(resultFuture,connection),
                 new CompoundCommand(cancelSupport,
                         new UpdateExecute(sessionId,cancelSupport,params),
-                        new QueryExecute(connection.idForAutoId(), connection.nextId(),cancelSupport)));
+                        new QueryExecute(connection.idForAutoId(), connection.nextId(),cancelSupport))),
+                cancelSupport, sessionId);
+    }
+    public Request executeUpdateStatementBatch(int sessionId,
+                                               List<Object[]> parameterSets) {
+        CancellationToken cancelSupport = new CancellationToken();
+        DefaultDbFuture<List<Result>> batchFuture = new DefaultDbFuture<List<Result>>(connection.stackTrachingOptions(),cancelSupport,connection.callbackExecutor());
+        final BatchResults results = new BatchResults(batchFuture, parameterSets.size());
+        final ClientToServerPacket[] executes = new ClientToServerPacket[parameterSets.size() * 2];
+        for (int i = 0; i < parameterSets.size(); i++) {
+            executes[2 * i] = new UpdateExecute(sessionId, CancellationToken.NO_CANCELLATION, parameterSets.get(i));
+            executes[2 * i + 1] = new QueryExecute(connection.idForAutoId(), connection.nextId(), CancellationToken.NO_CANCELLATION);
+        }
+        final CompoundCommand executeAll = new CompoundCommand(cancelSupport, executes);
+        final Request[] executions = new Request[parameterSets.size()];
+        for (int i = 0; i < parameterSets.size(); i++) {
+            DefaultDbFuture<Result> statementFuture = results.statementFuture(i);
+            executions[i] = new Request("ExecutePreparedUpdate: ", statementFuture,
+                    new UpdateResult(statementFuture, connection), executeAll);
+        }
+        return new Request("ExecutePreparedUpdate: " + parameterSets.size() + " parameter sets", batchFuture,
+                executeAll, null, executions);
     }
     public Request executeCloseStatement(int sessionId) {
-        DefaultDbFuture<Void> resultFuture = new DefaultDbFuture<Void>(connection.stackTrachingOptions());
+        DefaultDbFuture<Void> resultFuture = new DefaultDbFuture<Void>(connection.stackTrachingOptions(),null,connection.callbackExecutor());
         return new Request("ExecuteCloseStatement: ", resultFuture,
                 new AnswerNextRequest(connection), new CommandClose(sessionId, resultFuture));
     }
@@ -123,13 +189,13 @@ public class RequestCreator {
     }
 
     public Request beginTransaction(){
-        return new Request("Begin Transacton",new DefaultDbFuture(connection.stackTrachingOptions()),
+        return new Request("Begin Transacton",new DefaultDbFuture(connection.stackTrachingOptions(),null,connection.callbackExecutor()),
                 new AwaitOk(connection),
                 new AutoCommitChangeCommand(AutoCommitChangeCommand.AutoCommit.AUTO_COMMIT_OFF) );
 
     }
     public Request commitTransaction(){
-        final DefaultDbFuture future = new DefaultDbFuture(connection.stackTrachingOptions());
+        final DefaultDbFuture future = new DefaultDbFuture(connection.stackTrachingOptions(),null,connection.callbackExecutor());
         return new Request("Commit Transaction", future,
                 new CompleteTransaction(future,connection),
                 new CompoundCommand(CancellationToken.NO_CANCELLATION,
@@ -138,7 +204,7 @@ public class RequestCreator {
 
     }
     public Request rollbackTransaction(){
-        final DefaultDbFuture future = new DefaultDbFuture(connection.stackTrachingOptions());
+        final DefaultDbFuture future = new DefaultDbFuture(connection.stackTrachingOptions(),null,connection.callbackExecutor());
         return new Request("Rollback Transaction", future,
                 new CompleteTransaction(future,connection),
                 new CompoundCommand(CancellationToken.NO_CANCELLATION,
@@ -148,13 +214,26 @@ public class RequestCreator {
     }
 
 
+    /**
+     * Once sent, cancelling the request stops its command on the server
+     */
+    private Request cancellableOnServer(final Request request, CancellationToken cancelSupport, final int commandId) {
+        cancelSupport.cancelWhileRunningWith(new CancellationAction() {
+            @Override
+            public boolean cancel() {
+                return connection.cancelOnServer(request, commandId);
+            }
+        });
+        return request;
+    }
+
     <T> StatementPrepare<T> continueWithRequest(final Request followUpRequest,
                                                               DefaultDbFuture<T> resultFuture){
         return new StatementPrepare<T>(resultFuture,connection) {
             @Override
             protected void handleCompletion(H2Connection connection, int paramsCount) {
                 if(paramsCount==0){
-                    connection.forceQueRequest(followUpRequest);
+                    connection.sendFollowUpRequest(followUpRequest);
                 }else{
                     throw new DbException("Implementation error: Expect 0 parameters, but got: "+paramsCount);
                 }
@@ -27,6 +27,7 @@ public class Decoder extends ByteToMessageDecoder {
     public String decode(ChannelHandlerContext ctx, ByteBuf buffer) throws Exception {
         InputStream in = new ByteBufInputStream(buffer);
         in.mark(Integer.MAX_VALUE);
+        final int startIndex = buffer.readerIndex();
         try {
             final ResultAndState resultState = currentState.decode(new DataInputStream(in),ctx.channel());
             currentState = resultState.getNewState();
@@ -34,6 +35,7 @@ public class Decoder extends ByteToMessageDecoder {
                 in.reset();
                 return null;
             }
+            connection.metrics().bytesRead(buffer.readerIndex() - startIndex);
             return null;
         } catch (Exception ex){
             ex.printStackTrace();
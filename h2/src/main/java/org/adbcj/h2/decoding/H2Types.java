@@ -25,8 +25,10 @@ public enum H2Types {
     CLOB(16, Type.CLOB, String.class);
 
 
+    private static final H2Types[] TYPES = values();
+
     public static H2Types typeCodeToType(int typeCode) {
-        for (H2Types type : values()) {
+        for (H2Types type : TYPES) {
             if (typeCode == type.id) {
                 return type;
             }
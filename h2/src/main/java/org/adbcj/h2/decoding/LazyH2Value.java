@@ -0,0 +1,100 @@
+package org.adbcj.h2.decoding;
+
+import org.adbcj.h2.DateTimeUtils;
+import org.adbcj.support.LazyValue;
+
+import java.math.BigDecimal;
+
+/**
+ * A column value which is decoded from the raw bytes of its row when it is accessed.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+final class LazyH2Value extends LazyValue {
+    private final byte[] row;
+    private final int offset;
+    private final int length;
+    private final H2Types type;
+
+    LazyH2Value(byte[] row, int offset, int length, H2Types type) {
+        this.row = row;
+        this.offset = offset;
+        this.length = length;
+        this.type = type;
+    }
+
+    @Override
+    protected Object decode() {
+        switch (type) {
+            case INTEGER:
+                return readInt(offset);
+            case LONG:
+                return readLong(offset);
+            case DOUBLE:
+                return Double.longBitsToDouble(readLong(offset));
+            case DATE:
+                return DateTimeUtils.convertDateValueToDate(readLong(offset));
+            case TIME:
+                return DateTimeUtils.convertNanoToTime(readLong(offset));
+            case TIMESTAMP:
+                return DateTimeUtils.convertDateValueToTimestamp(readLong(offset), readLong(offset + 8));
+            case DECIMAL:
+                return new BigDecimal(readString());
+            case STRING:
+                return readString();
+            default:
+                throw new IllegalStateException("Type " + type + " is not decoded lazily");
+        }
+    }
+
+    @Override
+    public int getInt() {
+        if (type == H2Types.INTEGER) {
+            return readInt(offset);
+        }
+        return super.getInt();
+    }
+
+    @Override
+    public long getLong() {
+        if (type == H2Types.INTEGER) {
+            return readInt(offset);
+        } else if (type == H2Types.LONG) {
+            return readLong(offset);
+        }
+        return super.getLong();
+    }
+
+    @Override
+    public double getDouble() {
+        if (type == H2Types.DOUBLE) {
+            return Double.longBitsToDouble(readLong(offset));
+        }
+        return super.getDouble();
+    }
+
+    @Override
+    public boolean isNull() {
+        return false;
+    }
+
+    private int readInt(int at) {
+        return ((row[at] & 0xff) << 24)
+                | ((row[at + 1] & 0xff) << 16)
+                | ((row[at + 2] & 0xff) << 8)
+                | (row[at + 3] & 0xff);
+    }
+
+    private long readLong(int at) {
+        return ((long) readInt(at) << 32) | (readInt(at + 4) & 0xffffffffL);
+    }
+
+    private String readString() {
+        final char[] chars = new char[length / 2];
+        for (int i = 0; i < chars.length; i++) {
+            final int at = offset + 2 * i;
+            chars[i] = (char) (((row[at] & 0xff) << 8) | (row[at + 1] & 0xff));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,125 @@
+package org.adbcj.h2.decoding;
+
+import org.adbcj.Value;
+import org.adbcj.h2.packets.SizeConstants;
+import org.adbcj.h2.protocol.ReadUtils;
+import org.adbcj.support.DefaultValue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Reads the columns of a row without decoding them. The raw bytes of a row are collected
+ * in a scratch buffer, which is reused for all rows of a result. A complete row
+ * is copied into a compact array, which is shared by its {@link LazyH2Value}s.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+final class LazyRow {
+    private static final Value NULL_VALUE = new DefaultValue(null);
+
+    private final H2Types[] types;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final Value[] eagerValues;
+    private byte[] scratch = new byte[64];
+    private int position;
+
+    LazyRow(int columns) {
+        this.types = new H2Types[columns];
+        this.offsets = new int[columns];
+        this.lengths = new int[columns];
+        this.eagerValues = new Value[columns];
+    }
+
+    /**
+     * @return true if the complete row was read, false if we have to wait for more input
+     */
+    boolean tryRead(DataInputStream stream) throws IOException {
+        position = 0;
+        for (int i = 0; i < types.length; i++) {
+            if (stream.available() < SizeConstants.INT_SIZE) {
+                return false;
+            }
+            final H2Types type = H2Types.typeCodeToType(stream.readInt());
+            types[i] = type;
+            offsets[i] = position;
+            eagerValues[i] = null;
+            switch (type) {
+                case NULL:
+                    eagerValues[i] = NULL_VALUE;
+                    break;
+                case INTEGER:
+                    if (!copy(stream, SizeConstants.INT_SIZE)) {
+                        return false;
+                    }
+                    break;
+                case LONG:
+                case DOUBLE:
+                case DATE:
+                case TIME:
+                    if (!copy(stream, SizeConstants.LONG_SIZE)) {
+                        return false;
+                    }
+                    break;
+                case TIMESTAMP:
+                    if (!copy(stream, 2 * SizeConstants.LONG_SIZE)) {
+                        return false;
+                    }
+                    break;
+                case STRING:
+                case DECIMAL:
+                    if (stream.available() < SizeConstants.INT_SIZE) {
+                        return false;
+                    }
+                    final int stringLength = stream.readInt();
+                    if (stringLength < 0) {
+                        eagerValues[i] = NULL_VALUE;
+                    } else if (!copy(stream, stringLength * SizeConstants.CHAR_SIZE)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    final ResultOrWait<Value> value = ReadUtils.tryReadValue(stream, ResultOrWait.result(type.id()));
+                    if (!value.couldReadResult) {
+                        return false;
+                    }
+                    eagerValues[i] = value.result;
+            }
+            lengths[i] = position - offsets[i];
+        }
+        return true;
+    }
+
+    /**
+     * @return the values of the row which was read last
+     */
+    Value[] values() {
+        final byte[] row = new byte[position];
+        System.arraycopy(scratch, 0, row, 0, position);
+        final Value[] values = new Value[types.length];
+        for (int i = 0; i < values.length; i++) {
+            if (null != eagerValues[i]) {
+                values[i] = eagerValues[i];
+                eagerValues[i] = null;
+            } else {
+                values[i] = new LazyH2Value(row, offsets[i], lengths[i], types[i]);
+            }
+        }
+        return values;
+    }
+
+    private boolean copy(DataInputStream stream, int length) throws IOException {
+        if (stream.available() < length) {
+            return false;
+        }
+        if (scratch.length < position + length) {
+            final byte[] grown = new byte[Math.max(scratch.length * 2, position + length)];
+            System.arraycopy(scratch, 0, grown, 0, position);
+            scratch = grown;
+        }
+        stream.readFully(scratch, position, length);
+        position += length;
+        return true;
+    }
+}
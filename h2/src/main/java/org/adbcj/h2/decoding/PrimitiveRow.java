@@ -0,0 +1,97 @@
+package org.adbcj.h2.decoding;
+
+import org.adbcj.PrimitiveResultHandler;
+import org.adbcj.Value;
+import org.adbcj.h2.packets.SizeConstants;
+import org.adbcj.h2.protocol.ReadUtils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Holds the columns of a row for a {@link PrimitiveResultHandler}.
+ * A row is only passed on when it was read completely, so the numbers are kept
+ * unboxed in here until then. The instance is reused for all rows of a result.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+final class PrimitiveRow {
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte OTHER = 4;
+
+    private final byte[] kinds;
+    private final long[] numbers;
+    private final Value[] others;
+
+    PrimitiveRow(int columns) {
+        this.kinds = new byte[columns];
+        this.numbers = new long[columns];
+        this.others = new Value[columns];
+    }
+
+    /**
+     * @return true if the complete row was read, false if we have to wait for more input
+     */
+    boolean tryRead(DataInputStream stream) throws IOException {
+        for (int i = 0; i < kinds.length; i++) {
+            if (stream.available() < SizeConstants.INT_SIZE) {
+                return false;
+            }
+            final int typeCode = stream.readInt();
+            if (typeCode == H2Types.NULL.id()) {
+                kinds[i] = NULL;
+            } else if (typeCode == H2Types.INTEGER.id()) {
+                if (stream.available() < SizeConstants.INT_SIZE) {
+                    return false;
+                }
+                kinds[i] = INT;
+                numbers[i] = stream.readInt();
+            } else if (typeCode == H2Types.LONG.id()) {
+                if (stream.available() < SizeConstants.LONG_SIZE) {
+                    return false;
+                }
+                kinds[i] = LONG;
+                numbers[i] = stream.readLong();
+            } else if (typeCode == H2Types.DOUBLE.id()) {
+                if (stream.available() < SizeConstants.DOUBLE_SIZE) {
+                    return false;
+                }
+                kinds[i] = DOUBLE;
+                numbers[i] = Double.doubleToRawLongBits(stream.readDouble());
+            } else {
+                final ResultOrWait<Value> value = ReadUtils.tryReadValue(stream, ResultOrWait.result(typeCode));
+                if (!value.couldReadResult) {
+                    return false;
+                }
+                kinds[i] = OTHER;
+                others[i] = value.result;
+            }
+        }
+        return true;
+    }
+
+    <T> void deliver(PrimitiveResultHandler<T> handler, T accumulator) {
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+                case NULL:
+                    handler.nullValue(i, accumulator);
+                    break;
+                case INT:
+                    handler.intValue(i, (int) numbers[i], accumulator);
+                    break;
+                case LONG:
+                    handler.longValue(i, numbers[i], accumulator);
+                    break;
+                case DOUBLE:
+                    handler.doubleValue(i, Double.longBitsToDouble(numbers[i]), accumulator);
+                    break;
+                default:
+                    handler.value(others[i], accumulator);
+                    others[i] = null;
+            }
+        }
+    }
+}
@@ -2,12 +2,14 @@ package org.adbcj.h2.decoding;
 
 import io.netty.channel.Channel;
 import org.adbcj.Field;
+import org.adbcj.PrimitiveResultHandler;
 import org.adbcj.ResultHandler;
 import org.adbcj.Value;
 import org.adbcj.h2.H2Connection;
 import org.adbcj.h2.H2DbException;
 import org.adbcj.h2.protocol.ReadUtils;
 import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.DefaultRequestTimings;
 
 import java.io.DataInputStream;
 import java.io.IOException;
@@ -24,6 +26,8 @@ public class RowDecoder<T> implements DecoderState {
     private final List<Field> fields;
     private final int availableRows;
     private final int rowToRead;
+    private final PrimitiveRow primitiveRow;
+    private final LazyRow lazyRow;
 
     public RowDecoder(ResultHandler<T> eventHandler,
                       T accumulator,
@@ -41,6 +45,21 @@ public class RowDecoder<T> implements DecoderState {
                       List<Field> fields,
                       int availableRows,
                       int rowToRead) {
+        this(eventHandler, accumulator, resultFuture, connection, fields, availableRows, rowToRead,
+                eventHandler instanceof PrimitiveResultHandler ? new PrimitiveRow(fields.size()) : null,
+                !(eventHandler instanceof PrimitiveResultHandler) && connection.lazyValueDecoding()
+                        ? new LazyRow(fields.size()) : null);
+    }
+
+    private RowDecoder(ResultHandler<T> eventHandler,
+                      T accumulator,
+                      DefaultDbFuture<T> resultFuture,
+                      H2Connection connection,
+                      List<Field> fields,
+                      int availableRows,
+                      int rowToRead,
+                      PrimitiveRow primitiveRow,
+                      LazyRow lazyRow) {
         this.eventHandler = eventHandler;
         this.accumulator = accumulator;
         this.resultFuture = resultFuture;
@@ -48,6 +67,8 @@ public class RowDecoder<T> implements DecoderState {
         this.fields = fields;
         this.availableRows = availableRows;
         this.rowToRead = rowToRead;
+        this.primitiveRow = primitiveRow;
+        this.lazyRow = lazyRow;
     }
 
     @Override
@@ -59,6 +80,12 @@ public class RowDecoder<T> implements DecoderState {
         if(row.couldReadResult && !row.result){
             return finishResultRead();
         }
+        if (null != primitiveRow) {
+            return decodePrimitiveRow(stream, row);
+        }
+        if (null != lazyRow) {
+            return decodeLazyRow(stream, row);
+        }
         return decodeRow(stream, row);
 
     }
@@ -78,18 +105,46 @@ public class RowDecoder<T> implements DecoderState {
             }
             eventHandler.endRow(accumulator);
 
-            if((rowToRead+1)==availableRows){
-                return finishResultRead();
-            } else{
-                return ResultAndState.newState(
-                        new RowDecoder<T>(eventHandler, accumulator, resultFuture,connection, fields, availableRows,rowToRead+1)
-                );
+            return nextRow();
+        } else{
+            return ResultAndState.waitForMoreInput(this);
+        }
+    }
+
+    private ResultAndState decodePrimitiveRow(DataInputStream stream, ResultOrWait<Boolean> row) throws IOException {
+        if (row.couldReadResult && primitiveRow.tryRead(stream)) {
+            eventHandler.startRow(accumulator);
+            primitiveRow.deliver((PrimitiveResultHandler<T>) eventHandler, accumulator);
+            eventHandler.endRow(accumulator);
+            return nextRow();
+        } else{
+            return ResultAndState.waitForMoreInput(this);
+        }
+    }
+
+    private ResultAndState decodeLazyRow(DataInputStream stream, ResultOrWait<Boolean> row) throws IOException {
+        if (row.couldReadResult && lazyRow.tryRead(stream)) {
+            eventHandler.startRow(accumulator);
+            for (Value value : lazyRow.values()) {
+                eventHandler.value(value, accumulator);
             }
+            eventHandler.endRow(accumulator);
+            return nextRow();
         } else{
             return ResultAndState.waitForMoreInput(this);
         }
     }
 
+    private ResultAndState nextRow() {
+        if((rowToRead+1)==availableRows){
+            return finishResultRead();
+        } else{
+            return ResultAndState.newState(
+                    new RowDecoder<T>(eventHandler, accumulator, resultFuture,connection, fields, availableRows,rowToRead+1,primitiveRow,lazyRow)
+            );
+        }
+    }
+
     @Override
     public ResultAndState handleException(H2DbException exception) {
         resultFuture.trySetException(exception);
@@ -97,6 +152,10 @@ public class RowDecoder<T> implements DecoderState {
     }
 
     private ResultAndState finishResultRead() {
+        final DefaultRequestTimings timings = resultFuture.getTimings();
+        if (null != timings) {
+            timings.markLastRow();
+        }
         eventHandler.endResults(accumulator);
         resultFuture.trySetResult(accumulator);
         return ResultAndState.newState(new AnswerNextRequest(connection));
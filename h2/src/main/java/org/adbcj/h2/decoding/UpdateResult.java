@@ -35,7 +35,7 @@ public class UpdateResult  extends StatusReadingDecoder  {
         final ResultOrWait<Integer> affected = IoUtils.tryReadNextInt(stream, ResultOrWait.Start);
         final ResultOrWait<Boolean> autoCommit = IoUtils.tryReadNextBoolean(stream, affected);
         if(autoCommit.couldReadResult){
-            DefaultDbFuture<DefaultResultSet> futureForAutoKeys = new DefaultDbFuture<DefaultResultSet>(connection.stackTrachingOptions());
+            DefaultDbFuture<DefaultResultSet> futureForAutoKeys = new DefaultDbFuture<DefaultResultSet>(connection.stackTrachingOptions(),null,connection.callbackExecutor());
             DefaultResultSet result = new DefaultResultSet();
             DefaultResultEventsHandler handler = new DefaultResultEventsHandler();
 
@@ -68,8 +68,16 @@ public class UpdateResult  extends StatusReadingDecoder  {
         }
     }
 
+    /**
+     * The query for the generated keys is sent together with the update and is answered
+     * even when the update fails. Skip its result, otherwise the next request reads it.
+     */
     @Override
-    protected void requestFailedContinue(H2DbException exception) {
+    public ResultAndState handleException(H2DbException exception) {
         resultHandler.trySetException(exception);
+        DefaultDbFuture<DefaultResultSet> skippedAutoKeys = new DefaultDbFuture<DefaultResultSet>(connection.stackTrachingOptions(),null,connection.callbackExecutor());
+        return ResultAndState.newState(new QueryHeader<DefaultResultSet>(new DefaultResultEventsHandler(),
+                new DefaultResultSet(),
+                skippedAutoKeys,connection));
     }
 }
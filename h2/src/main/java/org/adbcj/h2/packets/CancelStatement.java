@@ -0,0 +1,59 @@
+package org.adbcj.h2.packets;
+
+import org.adbcj.h2.decoding.Constants;
+import org.adbcj.h2.decoding.IoUtils;
+import org.adbcj.h2.protocol.CommandCodes;
+import org.adbcj.support.CancellationToken;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Asks the server to stop a running command of another connection.
+ * It is the only packet sent over its own connection, in place of the handshake.
+ * The server closes the connection after reading it, without an answer.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class CancelStatement extends ClientToServerPacket {
+    private final String sessionId;
+    private final int commandId;
+
+    /**
+     * @param sessionId the session the other connection announced, see {@link AnnounceClientSession}
+     * @param commandId the command to stop
+     */
+    public CancelStatement(String sessionId, int commandId) {
+        super(CancellationToken.NO_CANCELLATION);
+        this.sessionId = sessionId;
+        this.commandId = commandId;
+    }
+
+    @Override
+    public void writeToStream(DataOutputStream stream) throws IOException {
+        stream.writeInt(Constants.TCP_PROTOCOL_VERSION_12);
+        stream.writeInt(Constants.TCP_PROTOCOL_VERSION_12);
+        IoUtils.writeString(stream, null); // no database, as this is not a new session
+        IoUtils.writeString(stream, null); // no url
+        IoUtils.writeString(stream, sessionId);
+        stream.writeInt(CommandCodes.SESSION_CANCEL_STATEMENT.getCommandValue());
+        stream.writeInt(commandId);
+    }
+
+    @Override
+    public int getLength() {
+        return SizeConstants.INT_SIZE + // Low version
+                SizeConstants.INT_SIZE + // High version
+                SizeConstants.sizeOf((String) null) + // database
+                SizeConstants.sizeOf((String) null) + // url
+                SizeConstants.sizeOf(sessionId) +
+                SizeConstants.INT_SIZE + // request type
+                SizeConstants.INT_SIZE + // command id
+                0;
+    }
+
+    @Override
+    public String toString() {
+        return "CancelStatement{" + commandId + '}';
+    }
+}
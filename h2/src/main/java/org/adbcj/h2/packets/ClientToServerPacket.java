@@ -24,7 +24,7 @@ public abstract class ClientToServerPacket {
     }
 
     public boolean tryCancel() {
-        return cancelSupport.cancel();
+        return cancelSupport.cancelIfNotStarted();
     }
 
     public boolean wasCancelled(){
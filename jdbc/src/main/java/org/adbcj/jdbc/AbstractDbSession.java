@@ -18,10 +18,14 @@ package org.adbcj.jdbc;
 
 import org.adbcj.*;
 import org.adbcj.support.*;
+import org.adbcj.support.DefaultRequestTimings;
+import org.adbcj.support.metrics.ConnectionMetrics;
+import org.adbcj.support.metrics.NoMetrics;
 import org.adbcj.support.stacktracing.StackTracingOptions;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * @deprecated To complex. Need to be more like H2 driver. Better not abstract implementation mabye?
@@ -40,46 +44,98 @@ public abstract class AbstractDbSession implements DbSession {
     private boolean pipelining = false; // Access must be synchronized on lock
 
     private final StackTracingOptions stackTracingOptions;
-    private final int maxQueueSize;
+    private final Executor callbackExecutor;
+    private final OverflowQueue<Request<?>> overflow; // Access must by synchronized on lock
 
 
     protected abstract Logger logger();
 
     protected AbstractDbSession(StackTracingOptions stackTracingOptions,int maxQueueSize) {
+        this(stackTracingOptions, null, maxQueueSize);
+    }
+
+    protected AbstractDbSession(StackTracingOptions stackTracingOptions,Executor callbackExecutor,int maxQueueSize) {
+        this(stackTracingOptions, callbackExecutor, maxQueueSize, 0);
+    }
+
+    /**
+     * @param queueOverflowLength how many requests over the maxQueueSize are parked, see {@link StandardProperties#QUEUE_OVERFLOW}
+     */
+    protected AbstractDbSession(StackTracingOptions stackTracingOptions,Executor callbackExecutor,int maxQueueSize,int queueOverflowLength) {
         this.stackTracingOptions = stackTracingOptions;
-        this.maxQueueSize = maxQueueSize;
+        this.callbackExecutor = callbackExecutor;
         synchronized (lock){
             requestQueue = new ArrayDeque<Request<?>>(maxQueueSize+1);
+            overflow = new OverflowQueue<Request<?>>(maxQueueSize, queueOverflowLength);
         }
     }
 
     protected <E> Request<E> enqueueRequest(final Request<E> request) {
-        // Check to see if the request can be pipelined
         synchronized (lock) {
-            if(requestQueue.size()>=maxQueueSize){
-                throw new DbException("To many pending requests. The current maximum is "+maxQueueSize+"."+
-                    "Ensure that your not overloading the database with requests. " +
-                        "Also check the "+StandardProperties.MAX_QUEUE_LENGTH+" property");
+            final boolean queueNow = overflow.offer(request, pendingRequests());
+            final RequestTimer timer = requestTimer();
+            if (RequestTimer.DISABLED != timer) {
+                timer.start(request.futureToComplete, request.toString());
             }
-            if (request.isPipelinable()) {
-                // Check to see if we're in a piplinging state
-                if (pipelining) {
-                    invokeExecuteWithCatch(request);
-                    // If the request errors out on execution, return
-                    if (request.isDone()) {
-                        return request;
-                    }
+            applyDefaultDeadline(request.futureToComplete);
+            if (queueNow) {
+                queue(request);
+            }
+        }
+        return request;
+    }
 
+    /**
+     * Expects that it is executed withing the lock
+     */
+    private void queue(Request<?> request) {
+        RequestMetrics.track(metrics(), request.futureToComplete, requestQueue.size() + 1);
+        // Check to see if the request can be pipelined
+        if (request.isPipelinable()) {
+            // Check to see if we're in a piplinging state
+            if (pipelining) {
+                invokeExecuteWithCatch(request);
+                // If the request errors out on execution, return
+                if (request.isDone()) {
+                    return;
                 }
-            } else {
-                pipelining = false;
+
             }
-            requestQueue.offer(request);
-            if (activeRequest == null) {
-                makeNextRequestActive();
+        } else {
+            pipelining = false;
+        }
+        requestQueue.offer(request);
+        if (activeRequest == null) {
+            makeNextRequestActive();
+        }
+    }
+
+    /**
+     * Queues the parked requests for which there is room again.
+     * Expects that it is executed withing the lock
+     */
+    private void queueParkedRequests() {
+        Request<?> parked = overflow.poll(pendingRequests());
+        while (null != parked) {
+            if (!parked.isDone()) {
+                queue(parked);
             }
+            parked = overflow.poll(pendingRequests());
+        }
+    }
+
+    /**
+     * The queued requests and the one which is active, or about to be.
+     * Expects that it is executed withing the lock
+     */
+    private int pendingRequests() {
+        return requestQueue.size() + 1;
+    }
+
+    public DbFuture<Void> whenWritable() {
+        synchronized (lock) {
+            return overflow.whenWritable(pendingRequests(), stackTracingOptions, callbackExecutor);
         }
-        return request;
     }
 
     @SuppressWarnings("unchecked")
@@ -101,6 +157,7 @@ public abstract class AbstractDbSession implements DbSession {
             }
 
             activeRequest = request;
+            queueParkedRequests();
         }
         if (request != null) {
             invokeExecuteWithCatch(request);
@@ -161,6 +218,11 @@ public abstract class AbstractDbSession implements DbSession {
 
                 request = requestQueue.poll();
             }
+            for (Request<?> parked : overflow.drain()) {
+                if (!parked.isDone()) {
+                    parked.error(DbException.wrap(exception));
+                }
+            }
             if (activeRequest != null && !activeRequest.isDone()) {
                 activeRequest.error(DbException.wrap(exception));
             }
@@ -171,6 +233,10 @@ public abstract class AbstractDbSession implements DbSession {
         return stackTracingOptions;
     }
 
+    public Executor callbackExecutor(){
+        return callbackExecutor;
+    }
+
     /**
      * Throws {@link DbSessionClosedException} if session is closed
      *
@@ -179,9 +245,38 @@ public abstract class AbstractDbSession implements DbSession {
     protected abstract void checkClosed() throws DbSessionClosedException;
 
     public DbFuture<ResultSet> executeQuery(String sql) {
-        ResultHandler<DefaultResultSet> eventHandler = new DefaultResultEventsHandler();
-        DefaultResultSet resultSet = new DefaultResultSet();
-        return (DbFuture) executeQuery(sql, eventHandler, resultSet);
+        return executeQuery(sql, resultSetLayout());
+    }
+
+    public DbFuture<ResultSet> executeQuery(String sql, ResultSetLayout layout) {
+        return layout.executeQuery(this, sql);
+    }
+
+    /**
+     * @return layout of the results of {@link #executeQuery(String)}
+     */
+    protected ResultSetLayout resultSetLayout() {
+        return ResultSetLayout.ROWS;
+    }
+
+    /**
+     * @return receiver of the metrics of this session
+     */
+    protected ConnectionMetrics metrics() {
+        return NoMetrics.INSTANCE;
+    }
+
+    /**
+     * @return times the requests of this session
+     */
+    protected RequestTimer requestTimer() {
+        return RequestTimer.DISABLED;
+    }
+
+    /**
+     * Gives a request which is queued its default deadline, if there is one
+     */
+    protected void applyDefaultDeadline(DbFuture<?> request) {
     }
 
 
@@ -424,7 +519,7 @@ public abstract class AbstractDbSession implements DbSession {
                 public boolean cancel() {
                     return Request.this.doCancel();
                 }
-            });
+            }, session.callbackExecutor());
             this.session = session;
             this.logger = session.logger();
         }
@@ -446,16 +541,36 @@ public abstract class AbstractDbSession implements DbSession {
                         logger.debug("Request is sent to database: "+this);
                     }
                     executed = true;
+                    final DefaultRequestTimings timings = futureToComplete.getTimings();
+                    if (null != timings) {
+                        timings.markWritten();
+                    }
                     execute();
                 }
             }
         }
 
+        /**
+         * The database started to answer this request, see {@link RequestTimings}
+         */
+        protected final void markFirstResponse() {
+            final DefaultRequestTimings timings = futureToComplete.getTimings();
+            if (null != timings) {
+                timings.markFirstResponse();
+            }
+        }
+
         public final boolean doCancel() {
             synchronized (session.lock){
-                if (executed) {
-                    return false;
+                if (!executed) {
+                    return cancelQueued();
                 }
+            }
+            return cancelRunning();
+        }
+
+        private boolean cancelQueued() {
+            synchronized (session.lock){
                 cancelled = cancelRequest();
 
                 // The the request was cancelled and it can be removed
@@ -474,6 +589,16 @@ public abstract class AbstractDbSession implements DbSession {
 
         protected abstract void execute() throws Exception;
 
+        /**
+         * Stops this request while the JDBC driver executes it. Not called with the session lock held,
+         * because the driver holds the connection while it executes.
+         *
+         * @return false if the request cannot be stopped anymore
+         */
+        protected boolean cancelRunning() {
+            return false;
+        }
+
         protected boolean cancelRequest() {
             return !executed;
         }
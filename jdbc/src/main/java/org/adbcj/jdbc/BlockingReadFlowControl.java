@@ -0,0 +1,30 @@
+package org.adbcj.jdbc;
+
+import org.adbcj.support.ReadFlowControl;
+
+/**
+ * JDBC reads results on a worker thread. So pausing just blocks that thread
+ * between rows, until reading is resumed.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+final class BlockingReadFlowControl implements ReadFlowControl {
+    private boolean paused = false; // Access must by synchronized on this
+
+    @Override
+    public synchronized void pauseReading() {
+        paused = true;
+    }
+
+    @Override
+    public synchronized void resumeReading() {
+        paused = false;
+        notifyAll();
+    }
+
+    synchronized void awaitResumed() throws InterruptedException {
+        while (paused) {
+            wait();
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package org.adbcj.jdbc;
 
 import org.adbcj.*;
+import org.adbcj.support.ChunkedBatch;
+import org.adbcj.support.DefaultDbFuture;
 import org.adbcj.support.DefaultResultEventsHandler;
 import org.adbcj.support.DefaultResultSet;
 
 import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
 
 import static org.adbcj.jdbc.ResultSetCopier.fillResultSet;
 
@@ -102,6 +108,12 @@ class JDBCPreparedQuery extends JDBCPreparedStatement<ResultSet> implements Prep
         super(connection, sqlStatement);
     }
 
+    @Override
+    public DbFuture<ResultSet> execute(Object... params) {
+        connection.checkClosed();
+        return connection.resultSetLayout().execute(this, params);
+    }
+
     @Override
     public <T> DbFuture<T> executeWithCallback(final ResultHandler<T> eventHandler, final T accumulator, Object... params) {
         return executeWithCompletion(new CompletionProducerFunction<T>() {
@@ -153,4 +165,59 @@ class JDBCPreparedUpdate extends JDBCPreparedStatement<Result> implements Prepar
             return new JDBCResult(affectedRows, Collections.<String>emptyList(), sqlStatement.getGeneratedKeys());
         }
     }
+
+    @Override
+    public DbFuture<List<Result>> executeBatch(Iterable<Object[]> parameterSets) {
+        connection.checkClosed();
+        DefaultDbFuture<List<Result>> batchFuture = new DefaultDbFuture<List<Result>>(
+                connection.stackTracingOptions(), null, connection.callbackExecutor());
+        return new ChunkedBatch(parameterSets, batchFuture, ChunkedBatch.DEFAULT_CHUNK_SIZE) {
+            @Override
+            protected DbFuture<List<Result>> executeChunk(List<Object[]> chunk) {
+                for (Object[] params : chunk) {
+                    validateParameters(params);
+                }
+                return executeChunkAsBatch(chunk);
+            }
+        }.start();
+    }
+
+    private DbFuture<List<Result>> executeChunkAsBatch(final List<Object[]> chunk) {
+        return connection.enqueueTransactionalRequest(new AbstractDbSession.Request<List<Result>>(connection) {
+            @Override
+            protected void execute() throws Exception {
+                synchronized (connection.lock()) {
+                    try {
+                        for (Object[] params : chunk) {
+                            int index = 1;
+                            for (Object param : params) {
+                                sqlStatement.setObject(index, param);
+                                index++;
+                            }
+                            sqlStatement.addBatch();
+                        }
+                        int[] updateCounts = sqlStatement.executeBatch();
+                        // JDBC reports the warnings of the whole batch
+                        List<String> warnings = new LinkedList<String>();
+                        SQLWarning sqlWarnings = sqlStatement.getWarnings();
+                        while (sqlWarnings != null) {
+                            warnings.add(sqlWarnings.getLocalizedMessage());
+                            sqlWarnings = sqlWarnings.getNextWarning();
+                        }
+                        List<Result> results = new ArrayList<Result>(updateCounts.length);
+                        for (int updateCount : updateCounts) {
+                            results.add(new JDBCResult((long) updateCount, warnings, new DefaultResultSet()));
+                        }
+                        complete(results);
+                    } finally {
+                        sqlStatement.clearBatch();
+                    }
+                }
+            }
+
+            public String toString() {
+                return "Request: prepared batch of " + chunk.size() + " parameter sets";
+            }
+        });
+    }
 }
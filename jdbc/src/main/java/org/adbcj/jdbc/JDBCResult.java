@@ -29,6 +29,13 @@ class JDBCResult extends DefaultResult {
         }
     }
 
+    public JDBCResult(long affectedRows,
+                      List<String> warnings,
+                      ResultSet generatedKeys) {
+        super(affectedRows, warnings);
+        this.generatedKeys = generatedKeys;
+    }
+
     @Override
     public ResultSet getGeneratedKeys() {
         return generatedKeys;
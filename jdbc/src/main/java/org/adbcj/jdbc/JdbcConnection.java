@@ -17,36 +17,49 @@
 package org.adbcj.jdbc;
 
 import org.adbcj.*;
+import org.adbcj.support.BackpressureResultHandler;
+import org.adbcj.support.DefaultResultSet;
+import org.adbcj.support.RequestTimer;
+import org.adbcj.support.RowPublisher;
+import org.adbcj.support.metrics.ConnectionMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.adbcj.jdbc.ResultSetCopier.fillResultSet;
 
 public class JdbcConnection extends AbstractDbSession implements Connection {
 
+    private static final int STREAMING_FETCH_SIZE = 256;
+
     private final Logger logger = LoggerFactory.getLogger(JdbcConnection.class);
 
     private final JdbcConnectionManager connectionManager;
     private final java.sql.Connection jdbcConnection;
     private final ExecutorService threadPool;
+    private final ConnectionMetrics metrics;
     private volatile DbFuture<Void> closeFuture = null;
 
     public JdbcConnection(JdbcConnectionManager connectionManager,
                           java.sql.Connection jdbcConnection,
                           ExecutorService threadPool) {
-        super(connectionManager.stackTracingOptions(),connectionManager.maxQueueLength());
+        super(connectionManager.stackTracingOptions(),connectionManager.callbackExecutor(),connectionManager.maxQueueLength(),
+                connectionManager.queueOverflowLength());
         this.connectionManager = connectionManager;
         this.jdbcConnection = jdbcConnection;
         this.threadPool = threadPool;
+        this.metrics = connectionManager.metrics().connectionOpened();
     }
 
     @Override
@@ -54,6 +67,26 @@ public class JdbcConnection extends AbstractDbSession implements Connection {
         return logger;
     }
 
+    @Override
+    protected ResultSetLayout resultSetLayout() {
+        return connectionManager.resultSetLayout();
+    }
+
+    @Override
+    protected ConnectionMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    protected RequestTimer requestTimer() {
+        return connectionManager.requestTimer();
+    }
+
+    @Override
+    protected void applyDefaultDeadline(DbFuture<?> request) {
+        connectionManager.applyDefaultDeadline(request);
+    }
+
     public ConnectionManager getConnectionManager() {
         return connectionManager;
     }
@@ -92,6 +125,12 @@ public class JdbcConnection extends AbstractDbSession implements Connection {
                 errorPendingRequests(new DbException("Connection was closed"));
             }
             closeFuture = enqueueRequest(closeRequest).getFuture();
+            closeFuture.addListener(new DbListener<Void>() {
+                @Override
+                public void onCompletion(DbFuture<Void> future) {
+                    metrics.connectionClosed();
+                }
+            });
         }
         return closeFuture;
     }
@@ -108,6 +147,13 @@ public class JdbcConnection extends AbstractDbSession implements Connection {
     public <T> DbFuture<T> executeQuery(final String sql, final ResultHandler<T> eventHandler, final T accumulator) {
         checkClosed();
         logger.trace("Scheduling query '{}'", sql);
+        final BlockingReadFlowControl flowControl;
+        if (eventHandler instanceof BackpressureResultHandler) {
+            flowControl = new BlockingReadFlowControl();
+            ((BackpressureResultHandler<T>) eventHandler).useFlowControl(flowControl);
+        } else {
+            flowControl = null;
+        }
         return enqueueTransactionalRequest(new CallableRequest<T>() {
             @Override
             protected T doCall() throws Exception {
@@ -117,10 +163,16 @@ public class JdbcConnection extends AbstractDbSession implements Connection {
                 synchronized (jdbcConnection) {
                     Statement jdbcStatement = jdbcConnection.createStatement();
                     java.sql.ResultSet jdbcResultSet = null;
+                    running(jdbcStatement);
                     try {
+                        if (flowControl != null) {
+                            // Ask the driver to fetch in chunks instead of loading the whole result
+                            jdbcStatement.setFetchSize(STREAMING_FETCH_SIZE);
+                        }
                         // Execute query
                         jdbcResultSet = jdbcStatement.executeQuery(sql);
-                        fillResultSet(jdbcResultSet, eventHandler, accumulator);
+                        markFirstResponse();
+                        fillResultSet(jdbcResultSet, eventHandler, accumulator, flowControl);
 
 
                         return accumulator;
@@ -128,6 +180,7 @@ public class JdbcConnection extends AbstractDbSession implements Connection {
                         eventHandler.exception(e, accumulator);
                         throw e;
                     } finally {
+                        running(null);
                         if (jdbcResultSet != null) {
                             jdbcResultSet.close();
                         }
@@ -147,12 +200,18 @@ public class JdbcConnection extends AbstractDbSession implements Connection {
         );
     }
 
+    public Flow.Publisher<Row> streamQuery(String sql) {
+        checkClosed();
+        return new RowPublisher(this, sql);
+    }
+
     public DbFuture<Result> executeUpdate(final String sql) {
         checkClosed();
         return enqueueTransactionalRequest(new CallableRequest<Result>() {
             public Result doCall() throws Exception {
                 synchronized (jdbcConnection) {
                     Statement statement = jdbcConnection.createStatement();
+                    running(statement);
                     try {
                         statement.executeUpdate(sql, Statement.RETURN_GENERATED_KEYS);
                         List<String> warnings = new LinkedList<String>();
@@ -164,10 +223,64 @@ public class JdbcConnection extends AbstractDbSession implements Connection {
                         return new JDBCResult((long) statement.getUpdateCount(),
                                 warnings, statement.getGeneratedKeys());
                     } finally {
+                        running(null);
                         statement.close();
                     }
                 }
             }
+
+            public String toString() {
+                return "CallableRequest: " + sql;
+            }
+        });
+    }
+
+    /**
+     * The requests run one after the other on the JDBC connection, there is nothing to send together
+     */
+    @Override
+    public BatchBuilder newBatch() {
+        return new BatchBuilder(this);
+    }
+
+    @Override
+    public void batch(Runnable requests) {
+        checkClosed();
+        requests.run();
+    }
+
+    public DbFuture<List<Result>> executeBatch(final List<String> statements) {
+        checkClosed();
+        return enqueueTransactionalRequest(new CallableRequest<List<Result>>() {
+            public List<Result> doCall() throws Exception {
+                synchronized (jdbcConnection) {
+                    Statement statement = jdbcConnection.createStatement();
+                    try {
+                        for (String sql : statements) {
+                            statement.addBatch(sql);
+                        }
+                        int[] updateCounts = statement.executeBatch();
+                        // JDBC reports the warnings of the whole batch
+                        List<String> warnings = new LinkedList<String>();
+                        SQLWarning sqlWarnings = statement.getWarnings();
+                        while (sqlWarnings != null) {
+                            warnings.add(sqlWarnings.getLocalizedMessage());
+                            sqlWarnings = sqlWarnings.getNextWarning();
+                        }
+                        List<Result> results = new ArrayList<Result>(updateCounts.length);
+                        for (int updateCount : updateCounts) {
+                            results.add(new JDBCResult((long) updateCount, warnings, new DefaultResultSet()));
+                        }
+                        return results;
+                    } finally {
+                        statement.close();
+                    }
+                }
+            }
+
+            public String toString() {
+                return "CallableRequest: batch of " + statements.size() + " statements";
+            }
         });
     }
 
@@ -281,6 +394,10 @@ public class JdbcConnection extends AbstractDbSession implements Connection {
 
     private abstract class CallableRequest<E> extends Request<E> implements Callable<E> {
         private Future<E> future = null;
+        /**
+         * The statement the JDBC driver executes right now, or null
+         */
+        private volatile Statement runningStatement = null;
 
         protected CallableRequest() {
             super(JdbcConnection.this);
@@ -294,6 +411,39 @@ public class JdbcConnection extends AbstractDbSession implements Connection {
             return future.cancel(true);
         }
 
+        /**
+         * Stops the running statement with {@link Statement#cancel()}, which the driver allows from another thread.
+         * The statement then fails and the next request runs as usual.
+         * Drivers may block while cancelling, for example to open a connection for it, so the cancel runs
+         * on the executor of the connection manager and not on the thread cancelling the future.
+         */
+        @Override
+        protected boolean cancelRunning() {
+            final Statement statement = runningStatement;
+            if (null == statement) {
+                return false;
+            }
+            try {
+                connectionManager.getExecutorService().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            statement.cancel();
+                        } catch (SQLException e) {
+                            logger.warn("Could not cancel " + CallableRequest.this, e);
+                        }
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        protected final void running(Statement statement) {
+            this.runningStatement = statement;
+        }
+
         @Override
         final public void execute() {
             logger.trace("In CallableRequest.execute() processing request {}", this);
@@ -362,4 +512,4 @@ public class JdbcConnection extends AbstractDbSession implements Connection {
         }
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
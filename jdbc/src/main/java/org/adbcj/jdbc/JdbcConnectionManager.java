@@ -19,8 +19,11 @@ package org.adbcj.jdbc;
 import org.adbcj.*;
 import org.adbcj.support.AbstractConnectionManager;
 import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.FutureUtils;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
@@ -45,7 +48,7 @@ public class JdbcConnectionManager extends AbstractConnectionManager implements
         if (isClosed()) {
             throw new DbException("This connection manager is closed");
         }
-        final DefaultDbFuture<Connection> future = new DefaultDbFuture<Connection>(stackTracingOptions());
+        final DefaultDbFuture<Connection> future = new DefaultDbFuture<Connection>(stackTracingOptions(),null,callbackExecutor());
         executorService.execute(new Runnable() {
             public void run() {
                 try {
@@ -74,25 +77,23 @@ public class JdbcConnectionManager extends AbstractConnectionManager implements
     @Override
     public DbFuture<Void> doClose(CloseMode mode) throws DbException {
         synchronized (lock) {
-            final DefaultDbFuture closeFuture = new DefaultDbFuture<Void>(stackTracingOptions());
+            final DefaultDbFuture closeFuture = new DefaultDbFuture<Void>(stackTracingOptions(),null,callbackExecutor());
             closeFuture.addListener(new DbListener<Void>() {
                 @Override
                 public void onCompletion(DbFuture<Void> future) {
                     executorService.shutdown();
                 }
             });
-            final AtomicInteger latch = new AtomicInteger(connections.size());
+            List<DbFuture<Void>> closingConnections = new ArrayList<DbFuture<Void>>(connections.size());
             for (JdbcConnection connection : connections) {
-                connection.close(mode).addListener(new DbListener<Void>() {
-                    @Override
-                    public void onCompletion(DbFuture<Void> future) {
-                        final int currentCount = latch.decrementAndGet();
-                        if (currentCount <= 0) {
-                            closeFuture.trySetResult(null);
-                        }
-                    }
-                });
+                closingConnections.add(connection.close(mode));
             }
+            FutureUtils.allOf(closingConnections).addListener(new DbListener<List<Void>>() {
+                @Override
+                public void onCompletion(DbFuture<List<Void>> future) {
+                    closeFuture.trySetResult(null);
+                }
+            });
             return closeFuture;
         }
     }
@@ -1,6 +1,7 @@
 package org.adbcj.jdbc;
 
 import org.adbcj.Field;
+import org.adbcj.PrimitiveResultHandler;
 import org.adbcj.ResultHandler;
 import org.adbcj.Type;
 import org.adbcj.support.DefaultField;
@@ -18,6 +19,20 @@ import java.util.List;
 public class ResultSetCopier {
     static <T> void fillResultSet(java.sql.ResultSet jdbcResultSet,
                                   ResultHandler<T> eventHandler, T accumulator) throws SQLException {
+        try {
+            fillResultSet(jdbcResultSet, eventHandler, accumulator, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while reading results", e);
+        }
+    }
+
+    /**
+     * @param flowControl if not null, waits after each row while reading is paused
+     */
+    static <T> void fillResultSet(java.sql.ResultSet jdbcResultSet,
+                                  ResultHandler<T> eventHandler, T accumulator,
+                                  BlockingReadFlowControl flowControl) throws SQLException, InterruptedException {
         ResultSetMetaData metaData = jdbcResultSet.getMetaData();
         int columnCount = metaData.getColumnCount();
         List<Field> fields = new ArrayList<Field>(columnCount);
@@ -49,11 +64,16 @@ public class ResultSetCopier {
 
         eventHandler.endFields(accumulator);
 
+        final PrimitiveResultHandler<T> primitiveHandler = eventHandler instanceof PrimitiveResultHandler
+                ? (PrimitiveResultHandler<T>) eventHandler : null;
         eventHandler.startResults(accumulator);
         while (jdbcResultSet.next()) {
             eventHandler.startRow(accumulator);
             for (int i = 1; i <= columnCount; i++) {
                 Field field = fields.get(i - 1);
+                if (null != primitiveHandler && copyPrimitive(jdbcResultSet, i, field, primitiveHandler, accumulator)) {
+                    continue;
+                }
                 Object value = null;
                 switch (field.getColumnType()) {
                     case BIGINT:
@@ -98,8 +118,50 @@ public class ResultSetCopier {
                 eventHandler.value(new DefaultValue(value), accumulator);
             }
             eventHandler.endRow(accumulator);
+            if (flowControl != null) {
+                flowControl.awaitResumed();
+            }
         }
         eventHandler.endResults(accumulator);
     }
 
+    /**
+     * @return false if the column has no primitive representation
+     */
+    private static <T> boolean copyPrimitive(java.sql.ResultSet jdbcResultSet, int column, Field field,
+                                             PrimitiveResultHandler<T> handler, T accumulator) throws SQLException {
+        final int index = column - 1;
+        switch (field.getColumnType()) {
+            case BIGINT:
+                final long longValue = jdbcResultSet.getLong(column);
+                if (jdbcResultSet.wasNull()) {
+                    handler.nullValue(index, accumulator);
+                } else {
+                    handler.longValue(index, longValue, accumulator);
+                }
+                return true;
+            case INTEGER:
+                final int intValue = jdbcResultSet.getInt(column);
+                if (jdbcResultSet.wasNull()) {
+                    handler.nullValue(index, accumulator);
+                } else {
+                    handler.intValue(index, intValue, accumulator);
+                }
+                return true;
+            case DOUBLE:
+                final double doubleValue = jdbcResultSet.getDouble(column);
+                if (jdbcResultSet.wasNull()) {
+                    handler.nullValue(index, accumulator);
+                } else {
+                    handler.doubleValue(index, doubleValue, accumulator);
+                }
+                return true;
+            case NULL:
+                handler.nullValue(index, accumulator);
+                return true;
+            default:
+                return false;
+        }
+    }
+
 }
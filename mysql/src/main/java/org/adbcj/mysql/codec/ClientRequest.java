@@ -58,6 +58,6 @@ public abstract class ClientRequest {
     }
 
     public boolean tryCancel(){
-        return cancelSupport.cancel();
+        return cancelSupport.cancelIfNotStarted();
     }
 }
@@ -18,7 +18,12 @@
  */
 package org.adbcj.mysql.codec;
 
-import java.io.*;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
 import java.util.Calendar;
 import java.util.EnumSet;
 import java.util.Set;
@@ -26,6 +31,22 @@ import java.util.Set;
 public final class IoUtils {
 
     public static final int NULL_VALUE = 0xfb;
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    /**
+     * 5^0 to 5^26. Twice the largest one still fits a long
+     */
+    private static final long[] POWERS_OF_FIVE = new long[27];
+
+    static {
+        POWERS_OF_FIVE[0] = 1;
+        for (int i = 1; i < POWERS_OF_FIVE.length; i++) {
+            POWERS_OF_FIVE[i] = POWERS_OF_FIVE[i - 1] * 5;
+        }
+    }
 
     private IoUtils() {
         // Non-instantiable
@@ -33,20 +54,15 @@ public final class IoUtils {
 
     /**
      * @return an unsigned byte
-     * @throws IOException  if there is an error reading from the stream
-     * @throws EOFException if the end of the stream is reached
+     * @throws IndexOutOfBoundsException if the end of the packet is reached
      */
-    public static int safeRead(InputStream in) throws IOException {
-        int i = in.read();
-        if (i < 0) {
-            throw new EOFException();
-        }
-        return i;
+    public static int safeRead(ByteBuf in) {
+        return in.readUnsignedByte();
     }
 
-    public static int readShort(InputStream in) throws IOException {
-        int b0 = safeRead(in);
-        int b1 = safeRead(in);
+    public static int readShort(ByteBuf in) {
+        int b0 = in.readUnsignedByte();
+        int b1 = in.readUnsignedByte();
         int i = b1 << 8 | b0;
         if ((b1 & 0x80) == 0x80) {
             i |= 0xffff0000;
@@ -54,9 +70,9 @@ public final class IoUtils {
         return i;
     }
 
-    public static int readUnsignedShort(InputStream in) throws IOException {
-        int b0 = safeRead(in);
-        int b1 = safeRead(in);
+    public static int readUnsignedShort(ByteBuf in) {
+        int b0 = in.readUnsignedByte();
+        int b1 = in.readUnsignedByte();
         return b1 << 8 | b0;
     }
 
@@ -75,17 +91,17 @@ public final class IoUtils {
     /**
      * Reads a little-endian 3-byte unsigned integer
      */
-    public static int readUnsignedMediumInt(InputStream in) throws IOException {
-        int b0 = safeRead(in);
-        int b1 = safeRead(in);
-        int b2 = safeRead(in);
+    public static int readUnsignedMediumInt(ByteBuf in) {
+        int b0 = in.readUnsignedByte();
+        int b1 = in.readUnsignedByte();
+        int b2 = in.readUnsignedByte();
         return b2 << 16 | b1 << 8 | b0;
     }
 
-    public static int readMediumInt(InputStream in) throws IOException {
-        int b0 = safeRead(in);
-        int b1 = safeRead(in);
-        int b2 = safeRead(in);
+    public static int readMediumInt(ByteBuf in) {
+        int b0 = in.readUnsignedByte();
+        int b1 = in.readUnsignedByte();
+        int b2 = in.readUnsignedByte();
         int i = b2 << 16 | b1 << 8 | b0;
         if ((b2 & 0x80) == 0x80) {
             i |= 0xff000000;
@@ -93,39 +109,39 @@ public final class IoUtils {
         return i;
     }
 
-    public static int readInt(InputStream in) throws IOException {
-        int b0 = safeRead(in);
-        int b1 = safeRead(in);
-        int b2 = safeRead(in);
-        int b3 = safeRead(in);
+    public static int readInt(ByteBuf in) {
+        int b0 = in.readUnsignedByte();
+        int b1 = in.readUnsignedByte();
+        int b2 = in.readUnsignedByte();
+        int b3 = in.readUnsignedByte();
         return b3 << 24 | b2 << 16 | b1 << 8 | b0;
     }
 
-    public static long readUnsignedInt(InputStream in) throws IOException {
-        long b0 = safeRead(in);
-        long b1 = safeRead(in);
-        long b2 = safeRead(in);
-        long b3 = safeRead(in);
+    public static long readUnsignedInt(ByteBuf in) {
+        long b0 = in.readUnsignedByte();
+        long b1 = in.readUnsignedByte();
+        long b2 = in.readUnsignedByte();
+        long b3 = in.readUnsignedByte();
         return b3 << 24 | b2 << 16 | b1 << 8 | b0;
     }
 
-    public static long readLong(InputStream in) throws IOException {
-        long b0 = safeRead(in);
-        long b1 = safeRead(in);
-        long b2 = safeRead(in);
-        long b3 = safeRead(in);
-        long b4 = safeRead(in);
-        long b5 = safeRead(in);
-        long b6 = safeRead(in);
-        long b7 = safeRead(in);
+    public static long readLong(ByteBuf in) {
+        long b0 = in.readUnsignedByte();
+        long b1 = in.readUnsignedByte();
+        long b2 = in.readUnsignedByte();
+        long b3 = in.readUnsignedByte();
+        long b4 = in.readUnsignedByte();
+        long b5 = in.readUnsignedByte();
+        long b6 = in.readUnsignedByte();
+        long b7 = in.readUnsignedByte();
         return b7 << 56 | b6 << 48 | b5 << 40 | b4 << 32 | b3 << 24 | b2 << 16 | b1 << 8 | b0;
     }
 
-    public static long readBinaryLengthEncoding(InputStream in) throws IOException {
-        return readBinaryLengthEncoding(in, safeRead(in));
+    public static long readBinaryLengthEncoding(ByteBuf in) {
+        return readBinaryLengthEncoding(in, in.readUnsignedByte());
     }
 
-    public static long readBinaryLengthEncoding(InputStream in, int firstByte) throws IOException {
+    public static long readBinaryLengthEncoding(ByteBuf in, int firstByte) {
         // This is documented at
         // http://forge.mysql.com/wiki/MySQL_Internals_ClientServer_Protocol#Elements
         if (firstByte <= 250) {
@@ -150,11 +166,20 @@ public final class IoUtils {
         throw new IllegalStateException("Recieved a length value we don't know how to handle");
     }
 
-    public static String readLengthCodedString(InputStream in, String charset) throws IOException {
-        return readLengthCodedString(in, safeRead(in), charset);
+    public static String readLengthCodedString(ByteBuf in, String charset) throws IOException {
+        return readLengthCodedString(in, in.readUnsignedByte(), charset);
     }
 
-    public static String readLengthCodedString(InputStream in, int firstByte, String charset) throws IOException {
+    public static String readLengthCodedString(ByteBuf in, int firstByte, String charset) throws IOException {
+        long length = readBinaryLengthEncoding(in, firstByte);
+        return readFixedLengthString(in, (int) length, charset);
+    }
+
+    public static String readLengthCodedString(ByteBuf in, MysqlCharacterSet charset) {
+        return readLengthCodedString(in, in.readUnsignedByte(), charset);
+    }
+
+    public static String readLengthCodedString(ByteBuf in, int firstByte, MysqlCharacterSet charset) {
         long length = readBinaryLengthEncoding(in, firstByte);
         return readFixedLengthString(in, (int) length, charset);
     }
@@ -191,37 +216,284 @@ public final class IoUtils {
     }
 
 
-    public static String readNullTerminatedString(BoundedInputStream in, String charset) throws IOException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        if(in.getRemaining()<=0){
+    /**
+     * Reads up to the next 0 byte, or to the end of the packet if there is none
+     */
+    public static String readNullTerminatedString(ByteBuf in, String charset) throws IOException {
+        final int length = in.bytesBefore((byte) 0);
+        if (length < 0) {
+            return readFixedLengthString(in, in.readableBytes(), charset);
+        }
+        final String value = readFixedLengthString(in, length, charset);
+        in.skipBytes(1);
+        return value;
+    }
+
+    /**
+     * Decodes the string right from the packet buffer when it is backed by an array.
+     *
+     * @throws IndexOutOfBoundsException if the packet has less than {@code length} bytes left
+     */
+    public static String readFixedLengthString(ByteBuf in, int length, String charset) throws IOException {
+        if (length == 0) {
             return "";
         }
-        int c = in.read();
-        while (c > 0 && in.getRemaining()>0) {
-            out.write(c);
-            c = in.read();
+        if (length > in.readableBytes()) {
+            throw new IndexOutOfBoundsException("Buffer overrun. Expected " + length
+                    + " bytes, but the packet has " + in.readableBytes() + " left");
         }
-        return new String(out.toByteArray(), charset);
-
+        final String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.readerIndex(), length, charset);
+        } else {
+            byte[] buffer = new byte[length];
+            in.getBytes(in.readerIndex(), buffer);
+            value = new String(buffer, charset);
+        }
+        in.skipBytes(length);
+        return value;
     }
 
-    public static String readFixedLengthString(InputStream in, int length, String charset) throws IOException {
+    /**
+     * Decodes the string right from the packet buffer when it is backed by an array, with the cached charset.
+     *
+     * @throws IndexOutOfBoundsException if the packet has less than {@code length} bytes left
+     */
+    public static String readFixedLengthString(ByteBuf in, int length, MysqlCharacterSet charset) {
         if (length == 0) {
             return "";
         }
-        byte[] buffer = new byte[length];
-        int readBytes = in.read(buffer);
-        if (readBytes < length) {
-            throw new IOException("Buffer overrun");
+        if (length > in.readableBytes()) {
+            throw new IndexOutOfBoundsException("Buffer overrun. Expected " + length
+                    + " bytes, but the packet has " + in.readableBytes() + " left");
+        }
+        final String value;
+        if (in.hasArray()) {
+            value = charset.decode(in.array(), in.arrayOffset() + in.readerIndex(), length);
+        } else {
+            value = charset.decode(copyBytes(in, in.readerIndex(), length), 0, length);
+        }
+        in.skipBytes(length);
+        return value;
+    }
+
+    /**
+     * Parses a decimal number in ASCII, like the MySQL text protocol sends it
+     *
+     * @throws NumberFormatException if the text is not a number
+     */
+    public static long parseLong(byte[] data, int offset, int length) {
+        int position = offset;
+        final int end = offset + length;
+        final boolean negative = length > 0 && data[offset] == '-';
+        if (negative || (length > 0 && data[offset] == '+')) {
+            position++;
+        }
+        // Up to 18 digits cannot overflow
+        if (position == end || end - position > 18) {
+            return Long.parseLong(asciiText(data, offset, length));
+        }
+        long result = 0;
+        for (; position < end; position++) {
+            final int digit = data[position] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a number: " + asciiText(data, offset, length));
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parses a text protocol number of the given length, right from the packet buffer
+     */
+    public static long parseLong(ByteBuf in, int length) {
+        final int start = in.readerIndex();
+        in.skipBytes(length);
+        if (in.hasArray()) {
+            return parseLong(in.array(), in.arrayOffset() + start, length);
+        }
+        return parseLong(copyBytes(in, start, length), 0, length);
+    }
+
+    /**
+     * @throws NumberFormatException if the text is not a number or the number is not in the int range
+     */
+    public static int parseInt(ByteBuf in, int length) {
+        final long value = parseLong(in, length);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of range. Value:" + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a floating point number in ASCII, like the MySQL text protocol sends it.
+     * Up to 15 significant digits and a power of ten up to 22 are exact doubles,
+     * so a single multiplication or division gives the correctly rounded result.
+     * Up to 18 digits with a fraction, like MySQL prints most doubles, are divided exactly by
+     * {@link #divideByPowerOfTen}. Everything else is left to {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException if the text is not a number
+     */
+    public static double parseDouble(byte[] data, int offset, int length) {
+        int position = offset;
+        final int end = offset + length;
+        final boolean negative = length > 0 && data[offset] == '-';
+        if (negative || (length > 0 && data[offset] == '+')) {
+            position++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        boolean fraction = false;
+        for (; position < end; position++) {
+            final byte c = data[position];
+            if (c >= '0' && c <= '9') {
+                hasDigits = true;
+                if (mantissa == 0 && c == '0') {
+                    // Leading zeros are not significant
+                } else if (++significantDigits > 18) {
+                    return Double.parseDouble(asciiText(data, offset, length));
+                } else {
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if (fraction) {
+                    exponent--;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if ((c == 'e' || c == 'E') && hasDigits && end - position <= 4) {
+                try {
+                    exponent += (int) parseLong(data, position + 1, end - position - 1);
+                } catch (NumberFormatException e) {
+                    return Double.parseDouble(asciiText(data, offset, length));
+                }
+                break;
+            } else {
+                return Double.parseDouble(asciiText(data, offset, length));
+            }
+        }
+        double value;
+        if (!hasDigits) {
+            return Double.parseDouble(asciiText(data, offset, length));
+        } else if (mantissa == 0) {
+            value = 0.0;
+        } else if (significantDigits <= 15 && exponent >= -22 && exponent <= 22) {
+            value = mantissa;
+            if (exponent < 0) {
+                value /= POWERS_OF_TEN[-exponent];
+            } else if (exponent > 0) {
+                value *= POWERS_OF_TEN[exponent];
+            }
+        } else if (exponent <= 0 && -exponent < POWERS_OF_FIVE.length) {
+            value = divideByPowerOfTen(mantissa, -exponent);
+        } else {
+            return Double.parseDouble(asciiText(data, offset, length));
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * The correctly rounded double of mantissa / 10^k, for a mantissa of 16 to 18 digits.
+     * As 10^k is 5^k * 2^k, the quotient by 5^k is computed bit by bit until it has 54 bits,
+     * rounded half to even to 53 bits and scaled by the powers of two, which is exact.
+     */
+    private static double divideByPowerOfTen(long mantissa, int k) {
+        final long divisor = POWERS_OF_FIVE[k];
+        long quotient = mantissa / divisor;
+        long remainder = mantissa % divisor;
+        int binaryExponent = -k;
+        while (quotient < (1L << 53)) {
+            quotient <<= 1;
+            remainder <<= 1;
+            if (remainder >= divisor) {
+                remainder -= divisor;
+                quotient |= 1;
+            }
+            binaryExponent--;
+        }
+        final int shift = 64 - Long.numberOfLeadingZeros(quotient) - 53;
+        final long dropped = quotient & ((1L << shift) - 1);
+        final long half = 1L << (shift - 1);
+        long significand = quotient >>> shift;
+        if (dropped > half || (dropped == half && (remainder != 0 || (significand & 1) == 1))) {
+            significand++;
         }
-        return new String(buffer, charset);
+        return Math.scalb((double) significand, binaryExponent + shift);
     }
 
-    public static Set<FieldFlag> readEnumSet(InputStream in, Class<FieldFlag> enumClass) throws IOException {
-        return toEnumSet(enumClass, safeRead(in) & 0xFFFFL);
+    /**
+     * Parses a text protocol floating point number of the given length, right from the packet buffer
+     */
+    public static double parseDouble(ByteBuf in, int length) {
+        final int start = in.readerIndex();
+        in.skipBytes(length);
+        if (in.hasArray()) {
+            return parseDouble(in.array(), in.arrayOffset() + start, length);
+        }
+        return parseDouble(copyBytes(in, start, length), 0, length);
     }
 
-    public static <E extends Enum<E>> EnumSet<E> readEnumSetShort(InputStream in, Class<E> enumClass) throws IOException {
+    /**
+     * Parses a decimal in ASCII, like the MySQL text protocol sends it.
+     * Up to 18 digits fit the unscaled long, longer ones are left to {@link BigDecimal#BigDecimal(String)}.
+     *
+     * @throws NumberFormatException if the text is not a number
+     */
+    public static BigDecimal parseBigDecimal(byte[] data, int offset, int length) {
+        int position = offset;
+        final int end = offset + length;
+        final boolean negative = length > 0 && data[offset] == '-';
+        if (negative || (length > 0 && data[offset] == '+')) {
+            position++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (; position < end; position++) {
+            final byte c = data[position];
+            if (c >= '0' && c <= '9') {
+                if (++digits > 18) {
+                    return new BigDecimal(asciiText(data, offset, length));
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return new BigDecimal(asciiText(data, offset, length));
+            }
+        }
+        if (digits == 0) {
+            return new BigDecimal(asciiText(data, offset, length));
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private static String asciiText(byte[] data, int offset, int length) {
+        return new String(data, offset, length, US_ASCII);
+    }
+
+    private static byte[] copyBytes(ByteBuf in, int index, int length) {
+        final byte[] copy = new byte[length];
+        in.getBytes(index, copy);
+        return copy;
+    }
+
+    public static void readFixedLengthBytes(ByteBuf in, byte[] buffer, int offset, int length) {
+        in.readBytes(buffer, offset, length);
+    }
+
+    public static Set<FieldFlag> readEnumSet(ByteBuf in, Class<FieldFlag> enumClass) {
+        return toEnumSet(enumClass, in.readUnsignedByte() & 0xFFFFL);
+    }
+
+    public static <E extends Enum<E>> EnumSet<E> readEnumSetShort(ByteBuf in, Class<E> enumClass) {
         return toEnumSet(enumClass, readUnsignedShort(in) & 0xFFFFL);
     }
 
@@ -272,13 +544,13 @@ public final class IoUtils {
         return nullBitsBuffer;
     }
 
-    public static String readDate(BoundedInputStream in) throws IOException {
-        int length = in.read();
+    public static String readDate(ByteBuf in) {
+        int length = in.readUnsignedByte();
         if(length<4){
             return String.format("%04d-%02d-%02d %02d:%02d:%02d",0,0,0,0,0,0);
         }
         byte[] data = new byte[length];
-        in.read(data);
+        in.readBytes(data);
 
         int year =  ((data[1] & 0xFF) << 8)+ (data[0] & 0xFF);
         int month = (data[2] & 0xFF);
@@ -310,11 +582,7 @@ public final class IoUtils {
         out.write((byte) calendar.get(Calendar.DAY_OF_MONTH));
     }
 
-    public static void safeSkip(InputStream in, long amountToSkip) throws IOException {
-        long actuallySkipped = in.skip(amountToSkip);
-        while (actuallySkipped<amountToSkip){
-            amountToSkip = amountToSkip- actuallySkipped;
-            actuallySkipped = in.skip(amountToSkip);
-        }
+    public static void safeSkip(ByteBuf in, long amountToSkip) {
+        in.skipBytes((int) amountToSkip);
     }
 }
@@ -0,0 +1,123 @@
+package org.adbcj.mysql.codec;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+
+/**
+ * The data sent for a LOAD DATA LOCAL INFILE statement, see {@link MySqlConnection#loadLocalData(String, LocalDataSource)}.
+ *
+ * The data is read on a reader thread, not on the IO thread of the connection, one packet at a time,
+ * and only after the previous packet was written to the network. So a slow network slows down reading the source,
+ * instead of the data piling up in memory. A source may block while it waits for data.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public abstract class LocalDataSource {
+
+    /**
+     * Fills the buffer with the next data. Blocks until data is available, rather than returning with an empty buffer.
+     *
+     * @return false when the end of the data is reached. The buffer may still have received data in that call.
+     */
+    public abstract boolean fill(ByteBuffer buffer) throws IOException;
+
+    /**
+     * Sends the content of the channel as is. The channel has to be in blocking mode.
+     * It is not closed when the end is reached.
+     */
+    public static LocalDataSource fromChannel(final ReadableByteChannel channel) {
+        return new LocalDataSource() {
+            @Override
+            public boolean fill(ByteBuffer buffer) throws IOException {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Sends the rows in the default format of LOAD DATA: fields terminated by tab and lines by newline,
+     * special characters escaped with a backslash and NULL as \N. Values are written with their toString() in UTF-8,
+     * so use the CHARACTER SET utf8 option of LOAD DATA.
+     */
+    public static LocalDataSource fromRows(Iterator<Object[]> rows) {
+        return new RowsAsText(rows);
+    }
+
+    private static class RowsAsText extends LocalDataSource {
+        private static final byte[] NOTHING = new byte[0];
+        private final Iterator<Object[]> rows;
+        private final StringBuilder line = new StringBuilder();
+        private byte[] pending = NOTHING;
+        private int pendingOffset = 0;
+
+        RowsAsText(Iterator<Object[]> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean fill(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (pendingOffset == pending.length) {
+                    if (!rows.hasNext()) {
+                        return false;
+                    }
+                    pending = encode(rows.next());
+                    pendingOffset = 0;
+                }
+                final int amount = Math.min(buffer.remaining(), pending.length - pendingOffset);
+                buffer.put(pending, pendingOffset, amount);
+                pendingOffset += amount;
+            }
+            return true;
+        }
+
+        private byte[] encode(Object[] row) throws UnsupportedEncodingException {
+            line.setLength(0);
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    line.append('\t');
+                }
+                if (null == row[i]) {
+                    line.append("\\N");
+                } else {
+                    appendEscaped(row[i].toString());
+                }
+            }
+            line.append('\n');
+            return line.toString().getBytes("UTF-8");
+        }
+
+        private void appendEscaped(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                switch (c) {
+                    case '\\':
+                        line.append("\\\\");
+                        break;
+                    case '\t':
+                        line.append("\\t");
+                        break;
+                    case '\n':
+                        line.append("\\n");
+                        break;
+                    case '\r':
+                        line.append("\\r");
+                        break;
+                    case '\0':
+                        line.append("\\0");
+                        break;
+                    default:
+                        line.append(c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.adbcj.mysql.codec;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import org.adbcj.DbException;
+import org.adbcj.mysql.codec.packets.LocalDataPacket;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the data of a {@link LocalDataSource} to the server, after it asked for it.
+ *
+ * The source may block, like a file or a pipe, so it is read on a reader thread and never on the event loop,
+ * which is shared by many connections. The next packet is only read from the source when the previous packet
+ * was written, so one packet buffer is reused for the whole data. The data ends with an empty packet, after which the
+ * connection continues with the requests which where held back meanwhile.
+ *
+ * When a packet cannot be written, the server still waits for the rest of the data, so the connection
+ * cannot continue. Then all its requests fail and it is closed.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class LocalDataStreamer {
+    /**
+     * Well below the default max_allowed_packet of the server
+     */
+    static final int PACKET_SIZE = 64 * 1024;
+    /**
+     * Concurrent loads share the reader threads. Each reads one packet at a time and then gives the thread
+     * to the next load, so more loads than threads take turns instead of waiting for each other to end.
+     */
+    static final int MAX_READERS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    /**
+     * Reads the sources of all connections. The threads end when they are idle.
+     */
+    private static final Executor READERS = newReaders();
+
+    private static ThreadPoolExecutor newReaders() {
+        final ThreadPoolExecutor readers = new ThreadPoolExecutor(MAX_READERS, MAX_READERS,
+                30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable task) {
+                final Thread thread = new Thread(task, "adbcj-local-data-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        readers.allowCoreThreadTimeOut(true);
+        return readers;
+    }
+
+    private final LocalDataSource source;
+    private final Channel channel;
+    private final MySqlConnection connection;
+    private final byte[] packet = new byte[PACKET_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(packet);
+    private final Runnable readNextPacket = new Runnable() {
+        @Override
+        public void run() {
+            sendNextPacket();
+        }
+    };
+    private int packetNumber;
+    private volatile Throwable failure;
+
+    /**
+     * @param packetNumber the number of the first packet
+     */
+    public LocalDataStreamer(LocalDataSource source, MySqlConnection connection, int packetNumber) {
+        this.source = source;
+        this.channel = connection.channel();
+        this.connection = connection;
+        this.packetNumber = packetNumber;
+    }
+
+    public void start() {
+        READERS.execute(readNextPacket);
+    }
+
+    /**
+     * @return the error of reading the source or writing the data, null if all data was sent
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Runs on a reader thread
+     */
+    private void sendNextPacket() {
+        boolean moreData;
+        buffer.clear();
+        try {
+            moreData = source.fill(buffer);
+            if (moreData && buffer.position() == 0) {
+                // Nothing read, but the source is not at its end yet. Let the other loads read meanwhile
+                READERS.execute(readNextPacket);
+                return;
+            }
+        } catch (Throwable e) {
+            // The server still expects the end of the data. What was read so far is sent.
+            failure = e;
+            moreData = false;
+        }
+        if (buffer.position() > 0) {
+            write(new LocalDataPacket(packet, buffer.position(), packetNumber++), moreData);
+        }
+        if (!moreData) {
+            write(new LocalDataPacket(packet, 0, packetNumber++), false);
+            connection.resumeWrites();
+        }
+    }
+
+    private void write(LocalDataPacket dataPacket, final boolean readNext) {
+        channel.write(dataPacket).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    abort(future.cause());
+                } else if (readNext) {
+                    READERS.execute(readNextPacket);
+                }
+            }
+        });
+    }
+
+    private void abort(Throwable cause) {
+        if (null == failure) {
+            failure = cause;
+        }
+        connection.abort(new DbException("Failed to send the data of LOAD DATA LOCAL INFILE: " + cause.getMessage(), cause));
+    }
+}
@@ -18,16 +18,17 @@
  */
 package org.adbcj.mysql.codec;
 
+import org.adbcj.mysql.codec.decoding.AcceptNextResponse;
 import org.adbcj.mysql.codec.decoding.DecoderState;
 import org.adbcj.mysql.codec.decoding.ResultAndState;
 import org.adbcj.mysql.codec.packets.FailedToParseInput;
 import org.adbcj.mysql.codec.packets.ServerPacket;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
 
 /**
  * Client stateful decoder.  Being stateful, each client connection must have its own decoder instance to function
@@ -37,6 +38,10 @@ import java.io.InputStream;
  */
 public class MySqlClientDecoder {
     private static final Logger logger = LoggerFactory.getLogger(MySqlClientDecoder.class);
+    /**
+     * 3 bytes packet length and 1 byte packet number
+     */
+    private static final int HEADER_LENGTH = 4;
 
 
     private DecoderState state;
@@ -46,61 +51,52 @@ public class MySqlClientDecoder {
     }
 
     /**
-     * Decodes a message from a MySql server.
+     * Decodes the next packet from a MySql server.
+     * The packet is framed by its length header and the states parse it right in the given buffer:
+     * While parsing, the writer index is limited to the end of the packet,
+     * so a state cannot read past it. Afterwards the buffer is positioned at the next packet.
      *
-     *
-     * @param input the {@code InputStream} from which to decode the message
+     * @param buffer the received bytes, positioned at the start of a packet
      * @param channel
-     *@param block true if the decoder can block, false otherwise  @return the decode message, null if the {@code block} is {@code} false and there is not enough data available
-     *         to decode the message without blocking
-     * @throws IOException thrown if an error occurs reading data from the inputstream
+     * @return the decode message, null if the buffer does not contain a complete packet yet
+     * @throws IOException thrown if the packet cannot be decoded
      */
-    public ServerPacket decode(InputStream input, Channel channel, boolean block) throws IOException {
-        // If mark is not support and we can't block, throw an exception
-        if (!input.markSupported() && !block) {
-            throw new IllegalArgumentException("Non-blocking decoding requires an InputStream that supports marking");
+    public ServerPacket decode(ByteBuf buffer, Channel channel) throws IOException {
+        final int start = buffer.readerIndex();
+        if (buffer.readableBytes() < HEADER_LENGTH) {
+            return null;
+        }
+        final int length = buffer.getUnsignedByte(start)
+                | buffer.getUnsignedByte(start + 1) << 8
+                | buffer.getUnsignedByte(start + 2) << 16;
+        if (buffer.readableBytes() < HEADER_LENGTH + length) {
+            return null;
         }
-        // TODO This should be the max packet size - make this configurable
-        input.mark(Integer.MAX_VALUE);
-        ServerPacket message = null;
+        final int packetNumber = buffer.getUnsignedByte(start + 3);
+        final int packetEnd = start + HEADER_LENGTH + length;
+        final int writerIndex = buffer.writerIndex();
+        buffer.setIndex(start + HEADER_LENGTH, packetEnd);
         try {
-            message = doDecode( input,channel, block);
+            return doDecode(length, packetNumber, buffer, channel);
         } finally {
-            if (message == null) {
-                input.reset();
-            }
+            buffer.setIndex(packetEnd, writerIndex);
         }
-        return message;
     }
 
-    protected ServerPacket doDecode(InputStream input, Channel channel, boolean block) throws IOException {
-        // If we can't block, make sure there's enough data available to read
-        if (!block) {
-            if (input.available() < 3) {
-                return null;
-            }
-        }
-        // Read the packet length
-        final int length = IoUtils.readUnsignedMediumInt(input);
-
-        // If we can't block, make sure the stream has enough data
-        if (!block) {
-            // Make sure we have enough data for the packet length and the packet number
-            if (input.available() < length + 1) {
-                return null;
-            }
-        }
-        final int packetNumber = IoUtils.safeRead(input);
-        BoundedInputStream in = new BoundedInputStream(input, length);
+    protected ServerPacket doDecode(int length, int packetNumber, ByteBuf in, Channel channel) throws IOException {
         logger.trace("Decoding in state {}", state);
         ResultAndState stateAndResult = state.parse(length, packetNumber, in, channel);
         if(logger.isDebugEnabled() && (state!=stateAndResult.getNewState())){
             logger.debug("New state of the decoding is: {}",stateAndResult.getNewState());
         }
+        final DecoderState previousState = state;
         state = stateAndResult.getNewState();
-        if (in.getRemaining() > 0) {
+        if (previousState != state && state instanceof AcceptNextResponse) {
+            ((AcceptNextResponse) state).responseCompleted();
+        }
+        if (in.isReadable()) {
             final String message = "Didn't read all input. Maybe this input belongs to a failed request. " +
-                    "Remaining bytes: " + in.getRemaining();
+                    "Remaining bytes: " + in.readableBytes();
             return new FailedToParseInput(length, packetNumber, new IllegalStateException(message));
         }
         return stateAndResult.getResult();
@@ -18,30 +18,43 @@
 */
 package org.adbcj.mysql.codec;
 
+import org.adbcj.mysql.codec.packets.BatchCommandRequest;
+
 import java.io.IOException;
 import java.io.OutputStream;
 import java.security.NoSuchAlgorithmException;
 
 public class MySqlClientEncoder {
+    /**
+     * Length and packet number
+     */
+    public static final int PACKET_HEADER_LENGTH = 4;
 
 	public void encode(ClientRequest request, OutputStream out) throws IOException, NoSuchAlgorithmException {
         if(request.startWriteOrCancel()){
-            int length = request.getLength();
-
-            // Write the length of the packet
-            out.write(length & 0xFF);
-            out.write(length >> 8 & 0xFF);
-            out.write(length >> 16 & 0xFF);
+            if(request instanceof BatchCommandRequest){
+                // Consists of multiple packets, with their own headers
+                request.writeToOutputStream(out);
+            } else{
+                writePacket(request, out);
+            }
+        }
+	}
 
+    public static void writePacket(ClientRequest request, OutputStream out) throws IOException {
+        int length = request.getLength();
 
-            // Write the packet number
-            out.write(request.getPacketNumber());
+        // Write the length of the packet
+        out.write(length & 0xFF);
+        out.write(length >> 8 & 0xFF);
+        out.write(length >> 16 & 0xFF);
 
-            request.writeToOutputStream(out);
-        }
 
+        // Write the packet number
+        out.write(request.getPacketNumber());
 
-	}
+        request.writeToOutputStream(out);
+    }
 
 
 }
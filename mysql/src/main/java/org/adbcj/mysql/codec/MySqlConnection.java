@@ -2,39 +2,79 @@ package org.adbcj.mysql.codec;
 
 import org.adbcj.*;
 import org.adbcj.mysql.netty.MysqlConnectionManager;
+import org.adbcj.netty.AutoReadFlowControl;
+import org.adbcj.netty.WriteCoalescer;
+import org.adbcj.support.BackpressureResultHandler;
 import org.adbcj.support.DefaultDbFuture;
-import org.adbcj.support.DefaultResultEventsHandler;
-import org.adbcj.support.DefaultResultSet;
+import org.adbcj.support.DefaultRequestTimings;
+import org.adbcj.support.EventLoopBound;
+import org.adbcj.support.OverflowQueue;
+import org.adbcj.support.ReadFlowControl;
+import org.adbcj.support.RequestMetrics;
+import org.adbcj.support.RowPublisher;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import org.adbcj.support.metrics.ConnectionMetrics;
 import org.adbcj.support.stacktracing.StackTracingOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 
-public class MySqlConnection implements Connection {
+public class MySqlConnection implements Connection, EventLoopBound {
 
     private static final Logger logger = LoggerFactory.getLogger(MySqlConnection.class);
 
-    private final int maxQueueSize;
+    private final OverflowQueue<MySqlRequest> overflow;
     private final MysqlConnectionManager connectionManager;
     private final Channel channel;
 
     protected final int id;
 
     private final ArrayDeque<MySqlRequest> requestQueue;
+    /**
+     * Requests waiting for the data of a LOAD DATA LOCAL INFILE being sent. Null while requests are written right away.
+     */
+    private ArrayDeque<MySqlRequest> heldWrites = null;
+    /**
+     * The request whose response is decoded right now. Null between responses
+     */
+    private MySqlRequest responseInProgress = null;
+    /**
+     * A KILL QUERY is on its way. Writes are held back until the server acknowledged it,
+     * so that it cannot stop a request written after the stopped one
+     */
+    private boolean killPending = false;
+    /**
+     * The id of this connection on the server, needed to stop its queries
+     */
+    private volatile int threadId;
 
     private final Object lock = new Object();
+    private final ReadFlowControl readFlowControl;
+    private final WriteCoalescer writes;
+    private final ConnectionMetrics metrics;
     private volatile DefaultDbFuture<Void> closeFuture;
     private volatile boolean isInTransaction = false;
 
     public MySqlConnection(int maxQueueSize, MysqlConnectionManager connectionManager, Channel channel) {
-        this.maxQueueSize = maxQueueSize;
+        this.overflow = new OverflowQueue<MySqlRequest>(maxQueueSize, connectionManager.queueOverflowLength());
         this.connectionManager = connectionManager;
         this.channel = channel;
+        this.readFlowControl = new AutoReadFlowControl(channel);
+        this.writes = new WriteCoalescer(channel, connectionManager.coalescingPolicy());
         this.id = connectionManager.nextId();
+        this.metrics = connectionManager.metrics().connectionOpened();
         connectionManager.addConnection(this);
 
         synchronized (lock) {
@@ -42,6 +82,11 @@ public class MySqlConnection implements Connection {
         }
     }
 
+    @Override
+    public Executor eventLoop() {
+        return channel.eventLoop();
+    }
+
     public ConnectionManager getConnectionManager() {
         return connectionManager;
     }
@@ -96,21 +141,33 @@ public class MySqlConnection implements Connection {
 
     @Override
     public DbFuture<ResultSet> executeQuery(String sql) {
+        return executeQuery(sql, resultSetLayout());
+    }
+
+    @Override
+    public DbFuture<ResultSet> executeQuery(String sql, ResultSetLayout layout) {
         checkClosed();
-        DefaultResultSet rs = new DefaultResultSet();
-        DefaultResultEventsHandler handler = new DefaultResultEventsHandler();
-        return (DbFuture) executeQuery(sql, handler, rs);
+        return layout.executeQuery(this, sql);
     }
 
     @Override
     public <T> DbFuture<T> executeQuery(String sql, ResultHandler<T> eventHandler, T accumulator) {
         checkClosed();
+        if (eventHandler instanceof BackpressureResultHandler) {
+            ((BackpressureResultHandler<T>) eventHandler).useFlowControl(readFlowControl);
+        }
         return (DbFuture) queRequest(MySqlRequests.executeQuery(sql,
                 eventHandler,
                 accumulator,
                 this)).getFuture();
     }
 
+    @Override
+    public Flow.Publisher<Row> streamQuery(String sql) {
+        checkClosed();
+        return new RowPublisher(this, sql);
+    }
+
     @Override
     public DbFuture<Result> executeUpdate(String sql) {
         checkClosed();
@@ -118,6 +175,55 @@ public class MySqlConnection implements Connection {
                 this)).getFuture();
     }
 
+    @Override
+    public DbFuture<List<Result>> executeBatch(List<String> statements) {
+        checkClosed();
+        if (statements.isEmpty()) {
+            return DefaultDbFuture.<List<Result>>completed(Collections.<Result>emptyList());
+        }
+        return (DbFuture) queRequest(MySqlRequests.executeBatch(statements,
+                this)).getFuture();
+    }
+
+    /**
+     * Runs a LOAD DATA LOCAL INFILE statement, and sends the given rows when the server asks for the file.
+     * The rows are never written to a file. See {@link LocalDataSource#fromRows(Iterator)} for the format.
+     *
+     * @param loadDataSql the LOAD DATA LOCAL INFILE statement. The file name in it is ignored
+     * @param rows the rows to load. Iterated on a reader thread, not the IO thread, while the data is sent
+     */
+    public DbFuture<Result> loadLocalData(String loadDataSql, Iterator<Object[]> rows) {
+        return loadLocalData(loadDataSql, LocalDataSource.fromRows(rows));
+    }
+
+    /**
+     * Runs a LOAD DATA LOCAL INFILE statement, and sends the content of the channel when the server asks for the file.
+     *
+     * @param loadDataSql the LOAD DATA LOCAL INFILE statement. The file name in it is ignored
+     * @param data blocking channel with the data in the format given in the statement.
+     * Read on a reader thread, while the data is sent
+     */
+    public DbFuture<Result> loadLocalData(String loadDataSql, ReadableByteChannel data) {
+        return loadLocalData(loadDataSql, LocalDataSource.fromChannel(data));
+    }
+
+    /**
+     * Runs a LOAD DATA LOCAL INFILE statement, and sends the data of the source when the server asks for the file.
+     * The data is streamed: the next packet is read from the source once the previous one was written.
+     * Requests issued meanwhile are sent after the data.
+     *
+     * When reading the source fails, the data read so far is still loaded, and the returned future fails.
+     * Use a transaction to undo a partial load.
+     *
+     * @param loadDataSql the LOAD DATA LOCAL INFILE statement. The file name in it is ignored
+     * @param data the data in the format given in the statement
+     */
+    public DbFuture<Result> loadLocalData(String loadDataSql, LocalDataSource data) {
+        checkClosed();
+        return (DbFuture) queRequest(MySqlRequests.loadLocalData(loadDataSql, data,
+                this)).getFuture();
+    }
+
     @Override
     public DbFuture<PreparedQuery> prepareQuery(String sql) {
         checkClosed();
@@ -142,6 +248,7 @@ public class MySqlConnection implements Connection {
                     @Override
                     public void onCompletion(DbFuture<Void> future) {
                         MySqlConnection.this.connectionManager.removeConnection(MySqlConnection.this);
+                        metrics.connectionClosed();
                     }
                 });
                 if(closeMode==CloseMode.CANCEL_PENDING_OPERATIONS){
@@ -196,25 +303,260 @@ public class MySqlConnection implements Connection {
 
     public MySqlRequest queRequest(MySqlRequest request) {
         synchronized (lock) {
-
-            int requestsPending = requestQueue.size();
-            if (requestsPending > maxQueueSize) {
-                throw new DbException("To many pending requests. The current maximum is " + maxQueueSize + "." +
-                        "Ensure that your not overloading the database with requests. " +
-                        "Also check the " + StandardProperties.MAX_QUEUE_LENGTH + " property");
-            }
-            return forceQueRequest(request);
+            accept(request, overflow.offer(request, requestQueue.size()));
+            return request;
         }
     }
 
     public MySqlRequest forceQueRequest(MySqlRequest request) {
         synchronized (lock) {
-            requestQueue.add(request);
-            channel.write(request.getRequest());
+            accept(request, overflow.offerForced(request));
             return request;
         }
     }
 
+    /**
+     * Expects that it is executed withing the connection lock
+     */
+    private void accept(MySqlRequest request, boolean sendNow) {
+        connectionManager.requestTimer().start(request.getFuture(), request.getDescription());
+        connectionManager.applyDefaultDeadline(request.getFuture());
+        if (sendNow) {
+            send(request);
+        }
+    }
+
+    /**
+     * Expects that it is executed withing the connection lock
+     */
+    private void send(MySqlRequest request) {
+        requestQueue.add(request);
+        RequestMetrics.track(metrics, request.getFuture(), requestQueue.size());
+        if (null == heldWrites) {
+            write(request);
+        } else {
+            heldWrites.add(request);
+        }
+    }
+
+    /**
+     * Sends the parked requests for which there is room again.
+     * Expects that it is executed withing the connection lock
+     */
+    private void sendParkedRequests() {
+        MySqlRequest parked = overflow.poll(requestQueue.size());
+        while (null != parked) {
+            if (!parked.getRequest().wasCancelled()) {
+                send(parked);
+            }
+            parked = overflow.poll(requestQueue.size());
+        }
+    }
+
+    @Override
+    public DbFuture<Void> whenWritable() {
+        synchronized (lock) {
+            return overflow.whenWritable(requestQueue.size(), stackTraceOptions(), callbackExecutor());
+        }
+    }
+
+    /**
+     * Expects that it is executed withing the connection lock
+     */
+    private void write(MySqlRequest request) {
+        final ChannelFuture written = writes.write(request.getRequest(), encodedSize(request.getRequest()));
+        final DefaultRequestTimings timings = request.getFuture().getTimings();
+        if (null != timings) {
+            written.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    timings.markWritten();
+                }
+            });
+        }
+        if (request.holdsWrites()) {
+            heldWrites = new ArrayDeque<MySqlRequest>();
+        }
+    }
+
+    private static int encodedSize(ClientRequest request) {
+        try {
+            return MySqlClientEncoder.PACKET_HEADER_LENGTH + request.getLength();
+        } catch (UnsupportedEncodingException e) {
+            // Fails again when it is encoded, the size does not matter then
+            return 0;
+        }
+    }
+
+    @Override
+    public BatchBuilder newBatch() {
+        return new BatchBuilder(this);
+    }
+
+    @Override
+    public void batch(Runnable requests) {
+        writes.beginBatch();
+        try {
+            requests.run();
+        } finally {
+            writes.endBatch();
+        }
+    }
+
+    /**
+     * Writes the requests held back by a request which {@link MySqlRequest#holdsWrites()}, once its data is sent.
+     */
+    public void resumeWrites() {
+        synchronized (lock) {
+            if (killPending) {
+                // Resumed once the KILL QUERY is acknowledged
+                return;
+            }
+            final ArrayDeque<MySqlRequest> held = heldWrites;
+            heldWrites = null;
+            while (null != held && !held.isEmpty()) {
+                write(held.poll());
+                if (null != heldWrites) {
+                    heldWrites.addAll(held);
+                    return;
+                }
+            }
+        }
+    }
+
+    Channel channel() {
+        return channel;
+    }
+
+    /**
+     * The connection cannot continue, because the server waits for the data of a LOAD DATA LOCAL INFILE,
+     * which could not be sent.
+     * Fails all pending requests with the cause and closes the connection.
+     */
+    void abort(DbException cause) {
+        synchronized (lock) {
+            heldWrites = null;
+            killPending = false;
+            for (MySqlRequest request : requestQueue) {
+                request.getRequest().tryCancel();
+                request.getFuture().trySetException(cause);
+            }
+            requestQueue.clear();
+            for (MySqlRequest parked : overflow.drain()) {
+                parked.getRequest().tryCancel();
+                parked.getFuture().trySetException(cause);
+            }
+        }
+        close(CloseMode.CANCEL_PENDING_OPERATIONS);
+        channel.close();
+    }
+
+    public void setThreadId(int threadId) {
+        this.threadId = threadId;
+    }
+
+    /**
+     * Stops a request which was already sent, with KILL QUERY over the side connection of the manager.
+     * The server answers the request with an error, so the decoding continues with the next request as usual.
+     *
+     * KILL QUERY stops whatever the connection runs when it arrives. So it is only sent while no request
+     * was written after the stopped one, and later requests are held back until the server acknowledged it.
+     * A request which waits behind others on the server is only stopped once the responses before it are read.
+     * If requests were already written after the stopped one, it runs to its end on the server instead.
+     * Its response is read and dropped, and the requests behind it continue.
+     *
+     * @return false if the request already completed
+     */
+    boolean cancelOnServer(MySqlRequest request) {
+        synchronized (lock) {
+            final MySqlRequest running = null != responseInProgress ? responseInProgress : firstSentRequest();
+            if (running != request && !requestQueue.contains(request)) {
+                return false;
+            }
+            if (sentAfter(request)) {
+                request.dropResponse();
+                return true;
+            }
+            holdWritesForKill();
+            if (running == request) {
+                killRunningQuery();
+            } else {
+                request.stopWhenStarted(true);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The response of the current request was read completely. The server continues with the next request
+     */
+    public void responseCompleted() {
+        synchronized (lock) {
+            responseInProgress = null;
+            final MySqlRequest next = firstSentRequest();
+            if (null != next && next.stopWhenStarted()) {
+                next.stopWhenStarted(false);
+                killRunningQuery();
+            }
+        }
+    }
+
+    /**
+     * Expects that it is executed withing the connection lock
+     */
+    private MySqlRequest firstSentRequest() {
+        for (MySqlRequest request : requestQueue) {
+            if (!request.getRequest().wasCancelled()) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Expects that it is executed withing the connection lock
+     *
+     * @return true if a request was written after the given one
+     */
+    private boolean sentAfter(MySqlRequest request) {
+        boolean after = request == responseInProgress;
+        for (MySqlRequest queued : requestQueue) {
+            if (after && !queued.getRequest().wasCancelled()
+                    && (null == heldWrites || !heldWrites.contains(queued))) {
+                return true;
+            }
+            if (queued == request) {
+                after = true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Expects that it is executed withing the connection lock
+     */
+    private void holdWritesForKill() {
+        if (null == heldWrites) {
+            heldWrites = new ArrayDeque<MySqlRequest>();
+        }
+        killPending = true;
+    }
+
+    /**
+     * Expects that it is executed withing the connection lock
+     */
+    private void killRunningQuery() {
+        connectionManager.killQuery(threadId).addListener(new DbListener<Void>() {
+            @Override
+            public void onCompletion(DbFuture<Void> future) {
+                synchronized (lock) {
+                    killPending = false;
+                    resumeWrites();
+                }
+            }
+        });
+    }
+
     public void tryCompleteClose() {
         synchronized (lock) {
             if (null != closeFuture) {
@@ -226,6 +568,7 @@ public class MySqlConnection implements Connection {
     public MySqlRequest dequeRequest() {
             synchronized (lock){
                 final MySqlRequest request = requestQueue.poll();
+                sendParkedRequests();
                 if(logger.isDebugEnabled()){
                     logger.debug("Dequeued request: {}",request);
                 }
@@ -235,6 +578,11 @@ public class MySqlConnection implements Connection {
                     }
                     return dequeRequest();
                 }
+                responseInProgress = request;
+                final DefaultRequestTimings timings = request.getFuture().getTimings();
+                if (null != timings) {
+                    timings.markFirstResponse();
+                }
                 return request;
         }
     }
@@ -247,6 +595,26 @@ public class MySqlConnection implements Connection {
         return this.connectionManager.stackTracingOptions();
     }
 
+    public Executor callbackExecutor(){
+        return this.connectionManager.callbackExecutor();
+    }
+
+    public ResultSetLayout resultSetLayout(){
+        return this.connectionManager.resultSetLayout();
+    }
+
+    public boolean lazyValueDecoding(){
+        return this.connectionManager.lazyValueDecoding();
+    }
+
+    public boolean stringDeduplication(){
+        return this.connectionManager.stringDeduplication();
+    }
+
+    public ConnectionMetrics metrics(){
+        return metrics;
+    }
+
 
     private void forceCloseOnPendingRequests() {
         for (MySqlRequest request : requestQueue) {
@@ -254,5 +622,10 @@ public class MySqlConnection implements Connection {
                 request.getFuture().trySetException(new DbSessionClosedException("Connection is closed"));
             }
         }
+        for (MySqlRequest parked : overflow.drain()) {
+            if(parked.getRequest().tryCancel()){
+                parked.getFuture().trySetException(new DbSessionClosedException("Connection is closed"));
+            }
+        }
     }
 }
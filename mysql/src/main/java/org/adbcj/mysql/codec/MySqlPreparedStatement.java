@@ -2,9 +2,10 @@ package org.adbcj.mysql.codec;
 
 import org.adbcj.*;
 import org.adbcj.mysql.codec.packets.StatementPreparedEOF;
+import org.adbcj.support.ChunkedBatch;
 import org.adbcj.support.DefaultDbFuture;
-import org.adbcj.support.DefaultResultEventsHandler;
-import org.adbcj.support.DefaultResultSet;
+
+import java.util.List;
 
 /**
  * @author roman.stoffel@gamlor.info
@@ -35,7 +36,7 @@ public class MySqlPreparedStatement implements PreparedQuery, PreparedUpdate {
     @Override
     public DbFuture execute(Object... params) {
         connection.checkClosed();
-        return (DbFuture)executeWithCallback(new DefaultResultEventsHandler(),new DefaultResultSet(),params);
+        return connection.resultSetLayout().execute(this, params);
     }
 
     @Override
@@ -48,6 +49,25 @@ public class MySqlPreparedStatement implements PreparedQuery, PreparedUpdate {
                 )).getFuture();
     }
 
+    @Override
+    public DbFuture<List<Result>> executeBatch(Iterable<Object[]> parameterSets) {
+        connection.checkClosed();
+        DefaultDbFuture<List<Result>> batchFuture = new DefaultDbFuture<List<Result>>(
+                connection.stackTraceOptions(),null,connection.callbackExecutor());
+        return new ChunkedBatch(parameterSets, batchFuture, ChunkedBatch.DEFAULT_CHUNK_SIZE) {
+            @Override
+            protected DbFuture<List<Result>> executeChunk(List<Object[]> chunk) {
+                for (Object[] params : chunk) {
+                    validateParameters(params);
+                }
+                return (DbFuture<List<Result>>) connection.queRequest(
+                        MySqlRequests.executePreparedBatch(
+                                statementInfo, chunk, connection
+                        )).getFuture();
+            }
+        }.start();
+    }
+
     @Override
     public boolean isClosed() {
         return closeFuture!=null || connection.isClosed();
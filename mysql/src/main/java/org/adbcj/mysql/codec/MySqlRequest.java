@@ -11,15 +11,39 @@ public class MySqlRequest {
     private final DefaultDbFuture toComplete;
     private final DecoderState startState;
     private final ClientRequest request;
+    /**
+     * Requests written after this one are held back until {@link MySqlConnection#resumeWrites()},
+     * because the request continues with data which is sent later.
+     */
+    private final boolean holdsWrites;
+    /**
+     * The request was cancelled while it waited behind other requests on the server.
+     * It is stopped once the server starts it. Guarded by the connection lock
+     */
+    private boolean stopWhenStarted = false;
+    /**
+     * The request was cancelled after later requests were already sent, so it cannot be stopped on the server.
+     * Its response is read and dropped. Set within the connection lock, read by the decoder
+     */
+    private volatile boolean dropResponse = false;
 
     MySqlRequest(String description,
                  DefaultDbFuture toComplete,
                  DecoderState startState,
                  ClientRequest request) {
+        this(description, toComplete, startState, request, false);
+    }
+
+    MySqlRequest(String description,
+                 DefaultDbFuture toComplete,
+                 DecoderState startState,
+                 ClientRequest request,
+                 boolean holdsWrites) {
         this.description = description;
         this.toComplete = toComplete;
         this.startState = startState;
         this.request = request;
+        this.holdsWrites = holdsWrites;
     }
 
     @Override
@@ -27,6 +51,10 @@ public class MySqlRequest {
         return "MySqlRequest{"+ description +  '}';
     }
 
+    public String getDescription() {
+        return description;
+    }
+
     public ClientRequest getRequest() {
         return request;
     }
@@ -35,6 +63,26 @@ public class MySqlRequest {
         return startState;
     }
 
+    public boolean holdsWrites() {
+        return holdsWrites;
+    }
+
+    boolean stopWhenStarted() {
+        return stopWhenStarted;
+    }
+
+    void stopWhenStarted(boolean stop) {
+        this.stopWhenStarted = stop;
+    }
+
+    public boolean dropsResponse() {
+        return dropResponse;
+    }
+
+    void dropResponse() {
+        this.dropResponse = true;
+    }
+
     public DefaultDbFuture getFuture() {
         return toComplete;
     }
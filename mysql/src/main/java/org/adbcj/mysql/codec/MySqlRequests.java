@@ -7,6 +7,8 @@ import org.adbcj.mysql.codec.decoding.*;
 import org.adbcj.mysql.codec.packets.*;
 import org.adbcj.support.*;
 
+import java.util.List;
+
 /**
  * @author roman.stoffel@gamlor.info
  */
@@ -19,23 +21,23 @@ public final class MySqlRequests {
     };
 
     public static MySqlRequest createCloseRequest(MySqlConnection connection) {
-        DefaultDbFuture<Void> future = new DefaultDbFuture<Void>(connection.stackTraceOptions());
+        DefaultDbFuture<Void> future = new DefaultDbFuture<Void>(connection.stackTraceOptions(),null,connection.callbackExecutor());
 
         return new MySqlRequest("Close",future, new ExpectOK<Void>(future, connection),new CommandRequest(Command.QUIT));
     }
     public static <T> MySqlRequest executeQuery(String query, ResultHandler<T> eventHandler, T accumulator, MySqlConnection connection) {
         CancellationToken cancelSupport = new CancellationToken();
-        DefaultDbFuture<T> future = new DefaultDbFuture<T>(connection.stackTraceOptions(),cancelSupport);
+        DefaultDbFuture<T> future = new DefaultDbFuture<T>(connection.stackTraceOptions(),cancelSupport,connection.callbackExecutor());
         ResultHandler<T> handleFailures = SafeResultHandlerDecorator.wrap(eventHandler, future);
-        return new MySqlRequest("Query: "+query,future,
+        return cancellableOnServer(new MySqlRequest("Query: "+query,future,
                 new ExpectQueryResult<T>(Row.RowDecodingType.STRING_BASED, future,connection, handleFailures,accumulator),
-                new StringCommandRequest(Command.QUERY,query,cancelSupport));
+                new StringCommandRequest(Command.QUERY,query,cancelSupport)), cancelSupport, connection);
     }
     public static <T> MySqlRequest executePreparedQuery(StatementPreparedEOF stmp,
                                                         Object[] data,
                                                         ResultHandler<T> eventHandler,
                                                         T accumulator, MySqlConnection connection) {
-        DefaultDbFuture<T> future = new DefaultDbFuture<T>(connection.stackTraceOptions());
+        DefaultDbFuture<T> future = new DefaultDbFuture<T>(connection.stackTraceOptions(),null,connection.callbackExecutor());
         ResultHandler<T> handleFailures = SafeResultHandlerDecorator.wrap(eventHandler, future);
         return new MySqlRequest("Execute-Statement",future,
                 new ExpectStatementResult(Row.RowDecodingType.BINARY, future,connection, handleFailures,accumulator),
@@ -44,15 +46,61 @@ public final class MySqlRequests {
 
     public static MySqlRequest executeUpdate(String sql, MySqlConnection connection) {
         CancellationToken cancelSupport = new CancellationToken();
-        DefaultDbFuture<Result> future = new DefaultDbFuture<Result>(connection.stackTraceOptions(),cancelSupport);
-        return new MySqlRequest("Update: "+sql,future,
+        DefaultDbFuture<Result> future = new DefaultDbFuture<Result>(connection.stackTraceOptions(),cancelSupport,connection.callbackExecutor());
+        return cancellableOnServer(new MySqlRequest("Update: "+sql,future,
                 new ExpectUpdateResult(future,connection),
-                new StringCommandRequest(Command.QUERY,sql,cancelSupport));
+                new StringCommandRequest(Command.QUERY,sql,cancelSupport)), cancelSupport, connection);
+    }
+
+    /**
+     * Once sent, cancelling the request stops it on the server
+     */
+    private static MySqlRequest cancellableOnServer(final MySqlRequest request,
+                                                    CancellationToken cancelSupport,
+                                                    final MySqlConnection connection) {
+        cancelSupport.cancelWhileRunningWith(new CancellationAction() {
+            @Override
+            public boolean cancel() {
+                return connection.cancelOnServer(request);
+            }
+        });
+        return request;
+    }
+
+    public static MySqlRequest executeBatch(List<String> statements, MySqlConnection connection) {
+        CancellationToken cancelSupport = new CancellationToken();
+        DefaultDbFuture<List<Result>> future = new DefaultDbFuture<List<Result>>(connection.stackTraceOptions(),cancelSupport,connection.callbackExecutor());
+        return new MySqlRequest("Batch: "+statements.size()+" statements",future,
+                new ExpectBatchResult(new BatchResults(future, statements.size()), statements.size(), connection),
+                new BatchCommandRequest(Command.QUERY,statements,cancelSupport));
+    }
+
+    public static MySqlRequest executePreparedBatch(StatementPreparedEOF stmp,
+                                                    List<Object[]> parameterSets,
+                                                    MySqlConnection connection) {
+        CancellationToken cancelSupport = new CancellationToken();
+        DefaultDbFuture<List<Result>> future = new DefaultDbFuture<List<Result>>(connection.stackTraceOptions(),cancelSupport,connection.callbackExecutor());
+        ClientRequest[] executes = new ClientRequest[parameterSets.size()];
+        for (int i = 0; i < executes.length; i++) {
+            executes[i] = new PreparedStatementRequest(stmp.getHandlerId(),stmp.getParametersTypes(),parameterSets.get(i));
+        }
+        return new MySqlRequest("Execute-Statement-Batch: "+executes.length+" parameter sets",future,
+                new ExpectBatchResult(new BatchResults(future, executes.length), executes.length, connection),
+                new BatchCommandRequest(executes,cancelSupport));
+    }
+
+    public static MySqlRequest loadLocalData(String sql, LocalDataSource data, MySqlConnection connection) {
+        // Not cancellable: once sent, the server has to receive the end of the data
+        DefaultDbFuture<Result> future = new DefaultDbFuture<Result>(connection.stackTraceOptions(),null,connection.callbackExecutor());
+        return new MySqlRequest("Load-Local-Data: "+sql,future,
+                new ExpectLocalData(future,data,connection),
+                new StringCommandRequest(Command.QUERY,sql,CancellationToken.NO_CANCELLATION),
+                true);
     }
 
     public static MySqlRequest prepareQuery(String sql, MySqlConnection connection) {
         CancellationToken cancelSupport = new CancellationToken();
-        DefaultDbFuture<PreparedQuery> future = new DefaultDbFuture<PreparedQuery>(connection.stackTraceOptions(),cancelSupport);
+        DefaultDbFuture<PreparedQuery> future = new DefaultDbFuture<PreparedQuery>(connection.stackTraceOptions(),cancelSupport,connection.callbackExecutor());
 
         return new MySqlRequest("Prepare-Query: "+sql,future,
                 new ExpectPreparQuery(future,connection),
@@ -60,7 +108,7 @@ public final class MySqlRequests {
     }
 
     public static MySqlRequest closeStatemeent(StatementPreparedEOF statementInfo, MySqlConnection connection) {
-        DefaultDbFuture<Void> future = new DefaultDbFuture<Void>(connection.stackTraceOptions());
+        DefaultDbFuture<Void> future = new DefaultDbFuture<Void>(connection.stackTraceOptions(),null,connection.callbackExecutor());
         future.setResult(null);
         return new MySqlRequest("Close-Statement: ",future,
                 new AcceptNextResponse(connection),
@@ -68,20 +116,20 @@ public final class MySqlRequests {
     }
 
     public static MySqlRequest beginTransaction(MySqlConnection connection) {
-        DefaultDbFuture<Result> future = new DefaultDbFuture<Result>(connection.stackTraceOptions());
+        DefaultDbFuture<Result> future = new DefaultDbFuture<Result>(connection.stackTraceOptions(),null,connection.callbackExecutor());
         return new MySqlRequest("Begin-Transaction: ",future,
                 new ExpectUpdateResult(future,connection),
                 new StringCommandRequest(Command.QUERY, "begin",CancellationToken.NO_CANCELLATION));
     }
 
     public static MySqlRequest commitTransaction(MySqlConnection connection) {
-        DefaultDbFuture<Result> future = new DefaultDbFuture<Result>(connection.stackTraceOptions());
+        DefaultDbFuture<Result> future = new DefaultDbFuture<Result>(connection.stackTraceOptions(),null,connection.callbackExecutor());
         return new MySqlRequest("Commit-Transaction: ",future,
                 new ExpectUpdateResult(future,connection,TO_VOID),
                 new StringCommandRequest(Command.QUERY, "commit",CancellationToken.NO_CANCELLATION));
     }
     public static MySqlRequest rollbackTransaction(MySqlConnection connection) {
-        DefaultDbFuture<Result> future = new DefaultDbFuture<Result>(connection.stackTraceOptions());
+        DefaultDbFuture<Result> future = new DefaultDbFuture<Result>(connection.stackTraceOptions(),null,connection.callbackExecutor());
         return new MySqlRequest("Rollback-Transaction: ",future,
                 new ExpectUpdateResult(future,connection,TO_VOID),
                 new StringCommandRequest(Command.QUERY, "rollback",CancellationToken.NO_CANCELLATION));
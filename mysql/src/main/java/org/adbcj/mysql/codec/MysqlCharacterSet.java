@@ -149,9 +149,18 @@ public enum MysqlCharacterSet {
 	UTF8_ESPERANTO_CI    ((byte)209, "UTF-8"),
 	UTF8_HUNGARIAN_CI    ((byte)210, "UTF-8");
 
+	private static final MysqlCharacterSet[] BY_ID = new MysqlCharacterSet[256];
+
+	static {
+		for (MysqlCharacterSet charset : values()) {
+			BY_ID[charset.id & 0xFF] = charset;
+		}
+	}
+
 	private byte id;
 	private String charsetName;
 	private Charset charset;
+	private boolean asciiCompatible;
 
 	MysqlCharacterSet(byte id, String charsetName) {
 		 this.id = id;
@@ -161,17 +170,40 @@ public enum MysqlCharacterSet {
 		 } catch (UnsupportedCharsetException e) {
 			 this.charset = null;
 		 }
+		 this.asciiCompatible = null != charset && decodesAsciiAsItself(charset);
 	 }
 
+	/**
+	 * @param id the character set number the server sends, 0 to 255
+	 * @return the character set, null if it is not known
+	 */
 	public static MysqlCharacterSet findById(int id) {
-		 for (MysqlCharacterSet charset : values()) {
-			 if (charset.id == id) {
-				 return charset;
-			 }
+		 if (id < 0 || id >= BY_ID.length) {
+			 return null;
 		 }
-		 return null;
+		 return BY_ID[id];
 	 }
 
+	/**
+	 * Decodes text of this character set.
+	 * Text which is pure ASCII is copied straight into the string when this character set
+	 * decodes ASCII bytes as themselves, which is the case for most character sets except UCS2.
+	 */
+	@SuppressWarnings("deprecation")
+	public String decode(byte[] data, int offset, int length) {
+		if (asciiCompatible && isAscii(data, offset, length)) {
+			return new String(data, 0, offset, length);
+		}
+		return new String(data, offset, length, charset);
+	}
+
+	/**
+	 * @return true if the character set is supported by the JVM
+	 */
+	public boolean isSupported() {
+		return null != charset;
+	}
+
 	public String getCharsetName() {
 		return charsetName;
 	}
@@ -184,6 +216,26 @@ public enum MysqlCharacterSet {
 		return id;
 	}
 
+	private static boolean isAscii(byte[] data, int offset, int length) {
+		final int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			if (data[i] < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean decodesAsciiAsItself(Charset charset) {
+		final byte[] ascii = new byte[128];
+		final char[] expected = new char[128];
+		for (int i = 0; i < ascii.length; i++) {
+			ascii[i] = (byte) i;
+			expected[i] = (char) i;
+		}
+		return new String(expected).equals(new String(ascii, charset));
+	}
+
 //	 public int encodedLength(CharSequence s) throws CharacterCodingException {
 //		 if (s == null || s.length() == 0) {
 //			 return 0;
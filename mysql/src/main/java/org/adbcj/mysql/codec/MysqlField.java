@@ -28,6 +28,7 @@ public class MysqlField extends DefaultField {
 
 	private final MysqlType mysqlType;
 	private final MysqlCharacterSet characterSet;
+	private final MysqlCharacterSet textCharacterSet;
 	private final long length;
 	private final Set<FieldFlag> flags;
 	private final long fieldDefault;
@@ -68,6 +69,7 @@ public class MysqlField extends DefaultField {
 				mysqlType.getClassName());
 		this.mysqlType = mysqlType;
 		this.characterSet = characterSet;
+		this.textCharacterSet = textCharacterSet(characterSet);
 		this.length = length;
 		this.flags = flags;
 		this.fieldDefault = fieldDefault;
@@ -81,6 +83,14 @@ public class MysqlField extends DefaultField {
 		return characterSet;
 	}
 
+	/**
+	 * @return the character set to decode the text of this column with. Binary columns and
+	 * character sets which the JVM does not support are decoded as UTF-8, the character set of the connection
+	 */
+	public MysqlCharacterSet getTextCharacterSet() {
+		return textCharacterSet;
+	}
+
 	public long getLength() {
 		return length;
 	}
@@ -93,6 +103,13 @@ public class MysqlField extends DefaultField {
 		return fieldDefault;
 	}
 
+	private static MysqlCharacterSet textCharacterSet(MysqlCharacterSet characterSet) {
+		if (null == characterSet || characterSet == MysqlCharacterSet.BINARY || !characterSet.isSupported()) {
+			return MysqlCharacterSet.UTF8_GENERAL_CI;
+		}
+		return characterSet;
+	}
+
 	@Override
 	public String toString() {
 		return getColumnType() + " (" + mysqlType + ")";
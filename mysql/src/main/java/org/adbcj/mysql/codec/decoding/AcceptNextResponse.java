@@ -1,8 +1,8 @@
 package org.adbcj.mysql.codec.decoding;
 
-import org.adbcj.mysql.codec.BoundedInputStream;
 import org.adbcj.mysql.codec.MySqlConnection;
 import org.adbcj.mysql.codec.MySqlRequest;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 
 import java.io.IOException;
@@ -17,12 +17,25 @@ public class AcceptNextResponse extends DecoderState {
         this.connection = connection;
     }
 
+    /**
+     * Called when the decoding arrives in this state, after the response of a request was read
+     */
+    public void responseCompleted() {
+        // Decoding without a connection happens in tests only
+        if (null != connection) {
+            connection.responseCompleted();
+        }
+    }
+
     @Override
-    public ResultAndState parse(int length, int packetNumber, BoundedInputStream in, Channel channel) throws IOException {
+    public ResultAndState parse(int length, int packetNumber, ByteBuf in, Channel channel) throws IOException {
         final MySqlRequest request = connection.dequeRequest();
         if(logger.isDebugEnabled()){
             logger.debug("Start parsing request: {}",request);
         }
+        if (request.dropsResponse()) {
+            return new DropResponse(connection).parse(length, packetNumber, in, channel);
+        }
         return request.getDecoderState().parse(length, packetNumber, in, channel);
     }
 }
@@ -6,6 +6,7 @@ import org.adbcj.mysql.codec.packets.LoginRequest;
 import org.adbcj.mysql.codec.packets.ServerGreeting;
 import org.adbcj.support.DefaultDbFuture;
 import org.adbcj.support.LoginCredentials;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 
 import java.io.IOException;
@@ -47,9 +48,10 @@ public class Connecting extends DecoderState {
     @Override
     public ResultAndState parse(int length,
                                 int packetNumber,
-                                BoundedInputStream in,
+                                ByteBuf in,
                                 Channel channel) throws IOException {
         ServerGreeting serverGreeting = decodeServerGreeting(in, length, packetNumber);
+        connection.setThreadId(serverGreeting.getThreadId());
         LoginRequest loginRequest = new LoginRequest(loginWith,
                 connection.getClientCapabilities(),
                 connection.getExtendedClientCapabilities(),
@@ -58,24 +60,24 @@ public class Connecting extends DecoderState {
         return result(new FinishLogin(connectFuture, connection),serverGreeting);
     }
 
-    protected ServerGreeting decodeServerGreeting(BoundedInputStream in, int length, int packetNumber) throws IOException {
+    protected ServerGreeting decodeServerGreeting(ByteBuf in, int length, int packetNumber) throws IOException {
         int protocol = IoUtils.safeRead(in);
         String version = IoUtils.readNullTerminatedString(in, "ASCII");
         int threadId = IoUtils.readInt(in);
 
         byte[] salt = new byte[SALT_SIZE + SALT2_SIZE];
-        in.read(salt, 0, SALT_SIZE);
-        in.read(); // Throw away 0 byte
+        in.readBytes(salt, 0, SALT_SIZE);
+        in.readUnsignedByte(); // Throw away 0 byte
 
         Set<ClientCapabilities> serverCapabilities = IoUtils.readEnumSetShort(in, ClientCapabilities.class);
-        MysqlCharacterSet charSet = MysqlCharacterSet.findById(in.read());
+        MysqlCharacterSet charSet = MysqlCharacterSet.findById(in.readUnsignedByte());
         Set<ServerStatus> serverStatus = IoUtils.readEnumSetShort(in, ServerStatus.class);
         safeSkip(in, GREETING_UNUSED_SIZE);
 
-        in.read(salt, SALT_SIZE, SALT2_SIZE);
+        in.readBytes(salt, SALT_SIZE, SALT2_SIZE);
         // skip all plugin data for now
-        in.read(new byte[in.getRemaining()-1]);
-        in.read(); // Throw away 0 byte
+        safeSkip(in, in.readableBytes()-1);
+        in.readUnsignedByte(); // Throw away 0 byte
 
         return new ServerGreeting(length,
                 packetNumber,
@@ -0,0 +1,29 @@
+package org.adbcj.mysql.codec.decoding;
+
+import org.adbcj.AbstractResultHandler;
+import org.adbcj.mysql.codec.MySqlConnection;
+import org.adbcj.mysql.codec.packets.OkResponse;
+import org.adbcj.support.DefaultDbFuture;
+
+/**
+ * Reads the response of a request which was cancelled after later requests were already sent,
+ * and drops it. The decoding then continues with the response of the next request.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class DropResponse extends ExpectQueryResult<Void> {
+
+    public DropResponse(MySqlConnection connection) {
+        super(Row.RowDecodingType.STRING_BASED,
+                new DefaultDbFuture<Void>(connection.stackTraceOptions()),
+                connection,
+                new AbstractResultHandler<Void>() {
+                },
+                null);
+    }
+
+    @Override
+    protected ResultAndState handleOk(OkResponse.RegularOK regularOK) {
+        return new ResultAndState(new AcceptNextResponse(connection), regularOK);
+    }
+}
@@ -0,0 +1,53 @@
+package org.adbcj.mysql.codec.decoding;
+
+import org.adbcj.mysql.codec.MySqlConnection;
+import org.adbcj.mysql.codec.packets.ErrorResponse;
+import org.adbcj.mysql.codec.packets.OkResponse;
+import org.adbcj.mysql.codec.packets.ServerPacket;
+import org.adbcj.support.BatchResults;
+
+/**
+ * Expects the response of each statement of a batch, in order.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class ExpectBatchResult extends ResponseStart {
+    private final BatchResults results;
+    private final int statement;
+    private final int statements;
+
+    public ExpectBatchResult(BatchResults results, int statements, MySqlConnection connection) {
+        this(results, 0, statements, connection);
+    }
+
+    private ExpectBatchResult(BatchResults results, int statement, int statements, MySqlConnection connection) {
+        super(connection);
+        this.results = results;
+        this.statement = statement;
+        this.statements = statements;
+    }
+
+    @Override
+    protected ResultAndState handleError(ErrorResponse errorResponse) {
+        results.failed(statement, errorResponse.toException());
+        return nextStatement(errorResponse);
+    }
+
+    @Override
+    protected ResultAndState handleOk(OkResponse.RegularOK regularOK) {
+        results.succeeded(statement, ExpectUpdateResult.toResult(regularOK));
+        return nextStatement(regularOK);
+    }
+
+    private ResultAndState nextStatement(ServerPacket response) {
+        if (statement + 1 < statements) {
+            return new ResultAndState(new ExpectBatchResult(results, statement + 1, statements, connection), response);
+        }
+        return new ResultAndState(new AcceptNextResponse(connection), response);
+    }
+
+    @Override
+    public String toString() {
+        return "ExpectBatchResult{statement " + (statement + 1) + " of " + statements + "}";
+    }
+}
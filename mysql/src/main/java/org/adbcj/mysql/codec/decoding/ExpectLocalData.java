@@ -0,0 +1,84 @@
+package org.adbcj.mysql.codec.decoding;
+
+import org.adbcj.DbException;
+import org.adbcj.Result;
+import io.netty.buffer.ByteBuf;
+import org.adbcj.mysql.codec.IoUtils;
+import org.adbcj.mysql.codec.LocalDataSource;
+import org.adbcj.mysql.codec.LocalDataStreamer;
+import org.adbcj.mysql.codec.MySqlConnection;
+import org.adbcj.mysql.codec.packets.ErrorResponse;
+import org.adbcj.mysql.codec.packets.LocalInfileResponse;
+import org.adbcj.mysql.codec.packets.OkResponse;
+import org.adbcj.support.DefaultDbFuture;
+
+import java.io.IOException;
+
+/**
+ * Expects the server to ask for the data of a LOAD DATA LOCAL INFILE statement, and then
+ * the result of loading it.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class ExpectLocalData extends ResponseStart {
+    public static final int RESPONSE_LOCAL_INFILE = 0xfb;
+
+    private final DefaultDbFuture<Result> future;
+    private final LocalDataSource source;
+    /**
+     * Null until the server asked for the data
+     */
+    private final LocalDataStreamer streamer;
+
+    public ExpectLocalData(DefaultDbFuture<Result> future, LocalDataSource source, MySqlConnection connection) {
+        this(future, source, null, connection);
+    }
+
+    private ExpectLocalData(DefaultDbFuture<Result> future,
+                            LocalDataSource source,
+                            LocalDataStreamer streamer,
+                            MySqlConnection connection) {
+        super(connection);
+        this.future = future;
+        this.source = source;
+        this.streamer = streamer;
+    }
+
+    @Override
+    protected ResultAndState parseAsResult(int length, int packetNumber, ByteBuf in, int fieldCount) throws IOException {
+        if (RESPONSE_LOCAL_INFILE != fieldCount || null != streamer) {
+            return super.parseAsResult(length, packetNumber, in, fieldCount);
+        }
+        final String fileName = IoUtils.readFixedLengthString(in, in.readableBytes(), CHARSET);
+        final LocalDataStreamer dataStreamer = new LocalDataStreamer(source, connection, packetNumber + 1);
+        dataStreamer.start();
+        return new ResultAndState(new ExpectLocalData(future, source, dataStreamer, connection),
+                new LocalInfileResponse(length, packetNumber, fileName));
+    }
+
+    @Override
+    protected ResultAndState handleError(ErrorResponse errorResponse) {
+        if (null == streamer) {
+            // The server refused to load the data, so it does not ask for it
+            connection.resumeWrites();
+        }
+        future.trySetException(errorResponse.toException());
+        return new ResultAndState(new AcceptNextResponse(connection), errorResponse);
+    }
+
+    @Override
+    protected ResultAndState handleOk(OkResponse.RegularOK regularOK) {
+        if (null == streamer) {
+            // Not a statement which loads local data
+            connection.resumeWrites();
+        }
+        final Throwable failure = null == streamer ? null : streamer.getFailure();
+        if (null == failure) {
+            future.trySetResult(ExpectUpdateResult.toResult(regularOK));
+        } else {
+            future.trySetException(new DbException("Failed to send the data. The server loaded the data sent before the failure: "
+                    + failure.getMessage(), failure));
+        }
+        return new ResultAndState(new AcceptNextResponse(connection), regularOK);
+    }
+}
@@ -1,7 +1,6 @@
 package org.adbcj.mysql.codec.decoding;
 
 import org.adbcj.PreparedQuery;
-import org.adbcj.mysql.codec.BoundedInputStream;
 import org.adbcj.mysql.codec.MySqlConnection;
 import org.adbcj.mysql.codec.MySqlPreparedStatement;
 import org.adbcj.mysql.codec.packets.ErrorResponse;
@@ -9,6 +8,7 @@ import org.adbcj.mysql.codec.packets.OkResponse;
 import org.adbcj.mysql.codec.packets.PreparedStatementToBuild;
 import org.adbcj.mysql.codec.packets.StatementPreparedEOF;
 import org.adbcj.support.DefaultDbFuture;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 
 import java.io.IOException;
@@ -28,8 +28,8 @@ public class ExpectPreparQuery extends DecoderState {
     }
 
     @Override
-    public ResultAndState parse(int length, int packetNumber, BoundedInputStream in, Channel channel) throws IOException {
-        int fieldCount = in.read();
+    public ResultAndState parse(int length, int packetNumber, ByteBuf in, Channel channel) throws IOException {
+        int fieldCount = in.readUnsignedByte();
         if (fieldCount == ResponseStart.RESPONSE_OK) {
             return handlePrepareQuery(length,packetNumber,OkResponse.interpretAsPreparedStatement(length, packetNumber, in));
         }
@@ -1,5 +1,6 @@
 package org.adbcj.mysql.codec.decoding;
 
+import io.netty.buffer.ByteBuf;
 import org.adbcj.ResultHandler;
 import org.adbcj.mysql.codec.*;
 import org.adbcj.mysql.codec.packets.ErrorResponse;
@@ -42,20 +43,20 @@ public class ExpectQueryResult<T> extends ResponseStart {
     }
 
     @Override
-    protected ResultAndState parseAsResult(int length, int packetNumber, BoundedInputStream in, int fieldCount) throws IOException {
+    protected ResultAndState parseAsResult(int length, int packetNumber, ByteBuf in, int fieldCount) throws IOException {
         // Get the number of fields. The largest this can be is a 24-bit
         // integer so cast to int is ok
         int expectedFieldPackets = (int) IoUtils.readBinaryLengthEncoding(in, fieldCount);
         logger.trace("Field count {}", expectedFieldPackets);
 
         Long extra = null;
-        if (in.getRemaining() > 0) {
+        if (in.readableBytes() > 0) {
             extra = IoUtils.readBinaryLengthEncoding(in);
         }
         eventHandler.startFields(accumulator);
         return result(new FieldDecodingState(decodingType,
                 expectedFieldPackets,
-                new ArrayList<MysqlField>(),
+                new ArrayList<MysqlField>(expectedFieldPackets),
                 future,
                 connection,
                 eventHandler,
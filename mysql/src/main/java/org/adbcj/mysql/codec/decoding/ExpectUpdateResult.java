@@ -39,12 +39,15 @@ public class ExpectUpdateResult<T> extends ExpectOK {
                                                  DefaultDbFuture<TFutureType> futureToComplete,
                                                  MySqlConnection connection,
                                                  OneArgFunction<MysqlResult,TFutureType> transformation) {
+        futureToComplete.trySetResult(transformation.apply(toResult(regularOK)));
+        return new ResultAndState(new AcceptNextResponse(connection),regularOK );
+    }
+
+    static MysqlResult toResult(OkResponse.RegularOK regularOK) {
         ArrayList<String> warnings = new ArrayList<String>(regularOK.getWarningCount());
         for (int i = 0; i < regularOK.getWarningCount(); i++) {
             warnings.add(regularOK.getMessage());
         }
-        MysqlResult result = new MysqlResult(regularOK.getAffectedRows(),warnings,regularOK.getInsertId());
-        futureToComplete.trySetResult(transformation.apply(result));
-        return new ResultAndState(new AcceptNextResponse(connection),regularOK );
+        return new MysqlResult(regularOK.getAffectedRows(),warnings,regularOK.getInsertId());
     }
 }
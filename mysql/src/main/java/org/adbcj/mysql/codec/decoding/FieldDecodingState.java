@@ -1,5 +1,6 @@
 package org.adbcj.mysql.codec.decoding;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import org.adbcj.ResultHandler;
 import org.adbcj.mysql.codec.*;
@@ -7,8 +8,6 @@ import org.adbcj.mysql.codec.packets.ResultSetFieldResponse;
 import org.adbcj.support.DefaultDbFuture;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -16,7 +15,14 @@ import java.util.Set;
 * @since 12.04.12
 */
 public class FieldDecodingState<T> extends DecoderState {
+    /**
+     * The column metadata is sent in the character set of the connection
+     */
+    private static final MysqlCharacterSet METADATA_CHARSET = MysqlCharacterSet.UTF8_GENERAL_CI;
     private final int expectedAmountOfFields;
+    /**
+     * Filled as the field packets arrive. This state decodes all of them
+     */
     private final List<MysqlField> fields;
     private final DefaultDbFuture<T> future;
     private final MySqlConnection connection;
@@ -44,7 +50,7 @@ public class FieldDecodingState<T> extends DecoderState {
     @Override
     public ResultAndState parse(int length,
                                 int packetNumber,
-                                BoundedInputStream in, Channel channel) throws IOException {
+                                ByteBuf in, Channel channel) throws IOException {
 
         int fieldNo = fields.size();
 
@@ -55,23 +61,15 @@ public class FieldDecodingState<T> extends DecoderState {
         ResultSetFieldResponse resultSetFieldResponse = decodeFieldResponse(in, length, packetNumber,fieldNo);
 
 
-        ArrayList<MysqlField> newFields = new ArrayList<MysqlField>(fieldNo+1);
-        newFields.addAll(fields);
-        newFields.add(resultSetFieldResponse.getField());
+        fields.add(resultSetFieldResponse.getField());
         eventHandler.field(resultSetFieldResponse.getField(), accumulator);
 
 
         if (expectedAmountOfFields > (fieldNo+1)) {
-            return result(new FieldDecodingState<T>(decodingType,
-                    expectedAmountOfFields,
-                    newFields,
-                    future,
-                    connection,
-                    eventHandler,
-                    accumulator),resultSetFieldResponse);
+            return result(this,resultSetFieldResponse);
         } else{
             return result(new FieldEof<T>(decodingType,
-                    newFields,
+                    fields,
                     future,
                     connection,
                     eventHandler,
@@ -80,7 +78,7 @@ public class FieldDecodingState<T> extends DecoderState {
     }
 
 
-    private ResultSetFieldResponse decodeFieldResponse(InputStream in,
+    private ResultSetFieldResponse decodeFieldResponse(ByteBuf in,
                                                        int packetLength,
                                                        int packetNumber,
                                                        int fieldNo) throws IOException {
@@ -88,21 +86,21 @@ public class FieldDecodingState<T> extends DecoderState {
         return new ResultSetFieldResponse(packetLength, packetNumber, field);
     }
 
-    public static MysqlField parseField(InputStream in, int fieldNo) throws IOException {
-        String catalogName = IoUtils.readLengthCodedString(in, CHARSET);
-        String schemaName = IoUtils.readLengthCodedString(in, CHARSET);
-        String tableLabel = IoUtils.readLengthCodedString(in, CHARSET);
-        String tableName = IoUtils.readLengthCodedString(in, CHARSET);
-        String columnLabel = IoUtils.readLengthCodedString(in, CHARSET);
-        String columnName = IoUtils.readLengthCodedString(in, CHARSET);
-        in.read(); // Skip filler
+    public static MysqlField parseField(ByteBuf in, int fieldNo) throws IOException {
+        String catalogName = IoUtils.readLengthCodedString(in, METADATA_CHARSET);
+        String schemaName = IoUtils.readLengthCodedString(in, METADATA_CHARSET);
+        String tableLabel = IoUtils.readLengthCodedString(in, METADATA_CHARSET);
+        String tableName = IoUtils.readLengthCodedString(in, METADATA_CHARSET);
+        String columnLabel = IoUtils.readLengthCodedString(in, METADATA_CHARSET);
+        String columnName = IoUtils.readLengthCodedString(in, METADATA_CHARSET);
+        in.readUnsignedByte(); // Skip filler
         int characterSetNumber = IoUtils.readUnsignedShort(in);
         MysqlCharacterSet charSet = MysqlCharacterSet.findById(characterSetNumber);
         long length = IoUtils.readUnsignedInt(in);
-        int fieldTypeId = in.read();
+        int fieldTypeId = in.readUnsignedByte();
         MysqlType fieldType = MysqlType.findById(fieldTypeId);
         Set<FieldFlag> flags = IoUtils.readEnumSet(in, FieldFlag.class);
-        int decimals = in.read();
+        int decimals = in.readUnsignedByte();
         IoUtils.safeSkip(in, 2); // Skip filler
         long fieldDefault = IoUtils.readBinaryLengthEncoding(in);
         return new MysqlField(fieldNo, catalogName, schemaName, tableLabel, tableName, fieldType, columnLabel,
@@ -1,8 +1,8 @@
 package org.adbcj.mysql.codec.decoding;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import org.adbcj.ResultHandler;
-import org.adbcj.mysql.codec.BoundedInputStream;
 import org.adbcj.mysql.codec.MySqlConnection;
 import org.adbcj.mysql.codec.MysqlField;
 import org.adbcj.mysql.codec.packets.EofResponse;
@@ -38,8 +38,8 @@ class FieldEof<T> extends DecoderState {
     }
 
     @Override
-    public ResultAndState parse(int length, int packetNumber, BoundedInputStream in, Channel channel) throws IOException {
-        int fieldCount = in.read();
+    public ResultAndState parse(int length, int packetNumber, ByteBuf in, Channel channel) throws IOException {
+        int fieldCount = in.readUnsignedByte();
 
         eventHandler.endFields(accumulator);
         eventHandler.startResults(accumulator);
@@ -48,7 +48,7 @@ class FieldEof<T> extends DecoderState {
             throw new IllegalStateException("Expected an EOF response from the server");
         }
         EofResponse fieldEof = decodeEofResponse(in, length, packetNumber, EofResponse.Type.FIELD);
-        return result(new Row<T>(decodingType, fields,future,connection,eventHandler,accumulator),fieldEof);
+        return result(new Row<T>(decodingType, fields,future,connection,eventHandler,accumulator,connection.lazyValueDecoding(),connection.stringDeduplication()),fieldEof);
     }
 
     @Override
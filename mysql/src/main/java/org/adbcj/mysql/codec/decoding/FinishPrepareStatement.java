@@ -1,7 +1,7 @@
 package org.adbcj.mysql.codec.decoding;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
-import org.adbcj.mysql.codec.BoundedInputStream;
 import org.adbcj.mysql.codec.MySqlConnection;
 import org.adbcj.mysql.codec.MySqlPreparedStatement;
 import org.adbcj.mysql.codec.MysqlType;
@@ -32,8 +32,8 @@ abstract class FinishPrepareStatement extends DecoderState {
         this.connection = connection;
     }
 
-    protected void readAllAndIgnore(BoundedInputStream in) throws IOException {
-        in.read(new byte[in.getRemaining()]);
+    protected void readAllAndIgnore(ByteBuf in) throws IOException {
+        in.skipBytes(in.readableBytes());
     }
 
     public static DecoderState create(PreparedStatementToBuild statement,
@@ -62,7 +62,7 @@ abstract class FinishPrepareStatement extends DecoderState {
 
         @Override
         public ResultAndState parse(int length, int packetNumber,
-                                    BoundedInputStream in, Channel channel) throws IOException {
+                                    ByteBuf in, Channel channel) throws IOException {
             int typesCount = statement.getParametersTypes().size();
             MysqlType newType = FieldDecodingState.parseField(in, typesCount).getMysqlType();
             List<MysqlType> types = new ArrayList<MysqlType>(typesCount + 1);
@@ -93,8 +93,8 @@ abstract class FinishPrepareStatement extends DecoderState {
         }
 
         @Override
-        public ResultAndState parse(int length, int packetNumber, BoundedInputStream in, Channel channel) throws IOException {
-            if (in.read() == RESPONSE_EOF) {
+        public ResultAndState parse(int length, int packetNumber, ByteBuf in, Channel channel) throws IOException {
+            if (in.readUnsignedByte() == RESPONSE_EOF) {
                 EofResponse eof = decodeEofResponse(in, length, packetNumber, EofResponse.Type.STATEMENT);
                 if (statement.getColumns() == 0) {
                     final StatementPreparedEOF preparedEOF = new StatementPreparedEOF(packetNumber, packetNumber, statement);
@@ -126,7 +126,7 @@ abstract class FinishPrepareStatement extends DecoderState {
         }
 
         @Override
-        public ResultAndState parse(int length, int packetNumber, BoundedInputStream in, Channel channel) throws IOException {
+        public ResultAndState parse(int length, int packetNumber, ByteBuf in, Channel channel) throws IOException {
             readAllAndIgnore(in);
             int restOfParams = restOfColumns - 1;
             if (restOfParams > 0) {
@@ -151,8 +151,8 @@ abstract class FinishPrepareStatement extends DecoderState {
         }
 
         @Override
-        public ResultAndState parse(int length, int packetNumber, BoundedInputStream in, Channel channel) throws IOException {
-            if (in.read() == RESPONSE_EOF) {
+        public ResultAndState parse(int length, int packetNumber, ByteBuf in, Channel channel) throws IOException {
+            if (in.readUnsignedByte() == RESPONSE_EOF) {
                 EofResponse eof = decodeEofResponse(in, length, packetNumber, EofResponse.Type.STATEMENT);
 
 
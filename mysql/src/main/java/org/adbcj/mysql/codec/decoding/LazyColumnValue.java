@@ -0,0 +1,165 @@
+package org.adbcj.mysql.codec.decoding;
+
+import io.netty.buffer.Unpooled;
+import org.adbcj.DbException;
+import org.adbcj.mysql.codec.IoUtils;
+import org.adbcj.mysql.codec.MysqlField;
+import org.adbcj.support.LazyValue;
+
+import java.io.IOException;
+
+/**
+ * A column which is decoded when it is accessed. All columns of a row share
+ * the copy of the row packet, each one knows where its bytes are.
+ * Null columns are not lazy, so these values are never null.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+abstract class LazyColumnValue extends LazyValue {
+    protected final byte[] row;
+    protected final int offset;
+    protected final int length;
+    protected final MysqlField field;
+
+    LazyColumnValue(byte[] row, int offset, int length, MysqlField field) {
+        this.row = row;
+        this.offset = offset;
+        this.length = length;
+        this.field = field;
+    }
+
+    @Override
+    public boolean isNull() {
+        return false;
+    }
+
+    /**
+     * A column of the text protocol. The bytes are the text of the value.
+     */
+    static final class Text extends LazyColumnValue {
+        Text(byte[] row, int offset, int length, MysqlField field) {
+            super(row, offset, length, field);
+        }
+
+        @Override
+        protected Object decode() {
+            return Row.textValue(row, offset, length, field, null);
+        }
+
+        @Override
+        public int getInt() {
+            switch (field.getColumnType()) {
+                case TINYINT:
+                case INTEGER:
+                    return (int) parseInRange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+                default:
+                    return super.getInt();
+            }
+        }
+
+        @Override
+        public long getLong() {
+            switch (field.getColumnType()) {
+                case TINYINT:
+                case INTEGER:
+                    return parseInRange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+                case BIGINT:
+                    return IoUtils.parseLong(row, offset, length);
+                default:
+                    return super.getLong();
+            }
+        }
+
+        @Override
+        public String getString() {
+            switch (field.getColumnType()) {
+                case VARCHAR:
+                case BLOB:
+                case DATE:
+                case TIME:
+                case TIMESTAMP:
+                    return text();
+                default:
+                    return super.getString();
+            }
+        }
+
+        private long parseInRange(long min, long max) {
+            final long value = IoUtils.parseLong(row, offset, length);
+            if (value < min || value > max) {
+                // Fail like the decoded value does
+                return decoded().getLong();
+            }
+            return value;
+        }
+
+        private String text() {
+            return field.getTextCharacterSet().decode(row, offset, length);
+        }
+    }
+
+    /**
+     * A column of the binary protocol. The bytes are the encoded value, including its length.
+     */
+    static final class Binary extends LazyColumnValue {
+        Binary(byte[] row, int offset, int length, MysqlField field) {
+            super(row, offset, length, field);
+        }
+
+        @Override
+        protected Object decode() {
+            try {
+                return Row.readBinaryValue(Unpooled.wrappedBuffer(row, offset, length), field, null);
+            } catch (IOException e) {
+                throw new DbException("Could not decode column " + field.getColumnLabel(), e);
+            }
+        }
+
+        @Override
+        public int getInt() {
+            switch (field.getMysqlType()) {
+                case LONG:
+                    return readInt();
+                default:
+                    return super.getInt();
+            }
+        }
+
+        @Override
+        public long getLong() {
+            switch (field.getMysqlType()) {
+                case LONG:
+                    return readInt();
+                case LONGLONG:
+                    return readLong();
+                default:
+                    return super.getLong();
+            }
+        }
+
+        @Override
+        public double getDouble() {
+            switch (field.getMysqlType()) {
+                case DOUBLE:
+                    return Double.longBitsToDouble(readLong());
+                default:
+                    return super.getDouble();
+            }
+        }
+
+        private int readInt() {
+            return (row[offset] & 0xFF)
+                    | (row[offset + 1] & 0xFF) << 8
+                    | (row[offset + 2] & 0xFF) << 16
+                    | (row[offset + 3] & 0xFF) << 24;
+        }
+
+        private long readLong() {
+            return (readInt() & 0xFFFFFFFFL)
+                    | ((long) ((row[offset + 4] & 0xFF)
+                    | (row[offset + 5] & 0xFF) << 8
+                    | (row[offset + 6] & 0xFF) << 16
+                    | (row[offset + 7] & 0xFF) << 24)) << 32;
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package org.adbcj.mysql.codec.decoding;
 
-import org.adbcj.mysql.codec.BoundedInputStream;
 import org.adbcj.mysql.codec.IoUtils;
 import org.adbcj.mysql.codec.MySqlConnection;
 import org.adbcj.mysql.codec.packets.ErrorResponse;
 import org.adbcj.mysql.codec.packets.OkResponse;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 
 import java.io.IOException;
@@ -23,9 +23,9 @@ public abstract class ResponseStart extends DecoderState {
     }
 
     @Override
-    public ResultAndState parse(int length, int packetNumber, BoundedInputStream in, Channel channel) throws IOException {
+    public ResultAndState parse(int length, int packetNumber, ByteBuf in, Channel channel) throws IOException {
 
-        int fieldCount = in.read();
+        int fieldCount = in.readUnsignedByte();
         if (fieldCount == RESPONSE_OK) {
             return handleOk(OkResponse.interpretAsRegularOk(length, packetNumber, in));
         }
@@ -49,16 +49,16 @@ public abstract class ResponseStart extends DecoderState {
 
     protected ResultAndState parseAsResult(int length,
                                          int packetNumber,
-                                         BoundedInputStream in,
+                                         ByteBuf in,
                                          int fieldCount) throws IOException {
         throw new IllegalStateException("This state: "+this+" does not expect a result which can be interpreted as " +
                 "query result");
     }
 
 
-    public static ErrorResponse decodeErrorResponse(BoundedInputStream in, int length, int packetNumber) throws IOException {
+    public static ErrorResponse decodeErrorResponse(ByteBuf in, int length, int packetNumber) throws IOException {
         int errorNumber = IoUtils.readUnsignedShort(in);
-        in.read(); // Throw away sqlstate marker
+        in.readUnsignedByte(); // Throw away sqlstate marker
         String sqlState = IoUtils.readNullTerminatedString(in, CHARSET);
         String message = IoUtils.readNullTerminatedString(in, CHARSET);
         return new ErrorResponse(length, packetNumber, errorNumber, sqlState, message);
@@ -3,14 +3,23 @@ package org.adbcj.mysql.codec.decoding;
 import org.adbcj.mysql.codec.packets.ServerPacket;
 
 public class ResultAndState{
-    private final ServerPacket result;
-    private final DecoderState newState;
+    private ServerPacket result;
+    private DecoderState newState;
 
     ResultAndState(DecoderState newState,ServerPacket result) {
         this.result = result;
         this.newState = newState;
     }
 
+    /**
+     * For states which decode many packets in a row and reuse their result, like {@link Row}
+     */
+    ResultAndState set(DecoderState newState,ServerPacket result) {
+        this.result = result;
+        this.newState = newState;
+        return this;
+    }
+
     public ServerPacket getResult() {
         return result;
     }
@@ -1,119 +1,276 @@
 package org.adbcj.mysql.codec.decoding;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
-import org.adbcj.Field;
+import org.adbcj.Type;
+import org.adbcj.PrimitiveResultHandler;
 import org.adbcj.ResultHandler;
 import org.adbcj.Value;
-import org.adbcj.mysql.codec.BoundedInputStream;
 import org.adbcj.mysql.codec.IoUtils;
+import org.adbcj.mysql.codec.MysqlCharacterSet;
 import org.adbcj.mysql.codec.MySqlConnection;
+import org.adbcj.mysql.codec.MysqlException;
 import org.adbcj.mysql.codec.MysqlField;
 import org.adbcj.mysql.codec.packets.EofResponse;
+import org.adbcj.mysql.codec.packets.ErrorResponse;
 import org.adbcj.mysql.codec.packets.ResultSetRowResponse;
 import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.DefaultRequestTimings;
 import org.adbcj.support.DefaultValue;
 
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
  * @since 12.04.12
  */
 public class Row<T> extends DecoderState {
+    private static final Value[] NO_VALUES = new Value[0];
+    private static final Value NULL_VALUE = new DefaultValue(null);
     private final RowDecodingType rowDecoding;
     private final List<MysqlField> fields;
+    private final MysqlField[] columns;
     private final DefaultDbFuture<T> future;
     private final MySqlConnection connection;
     private final ResultHandler<T> eventHandler;
     private final T accumulator;
+    private final PrimitiveResultHandler<T> primitiveHandler;
+    private final boolean lazyDecoding;
+    /**
+     * One dictionary per string column when the strings are deduplicated, otherwise null
+     */
+    private final StringDictionary[] dictionaries;
+    /**
+     * Reused for all byte columns of a {@link PrimitiveResultHandler}
+     */
+    private ByteBuffer columnBytes;
+    /**
+     * Reused for the null bitmap of every binary row
+     */
+    private final byte[] nullBits;
+    /**
+     * This state decodes all rows of the result. The response and result are reused for every row
+     */
+    private final ResultSetRowResponse rowResponse = new ResultSetRowResponse(0, 0, NO_VALUES);
+    private final ResultAndState rowResult = new ResultAndState(this, rowResponse);
 
     public Row(RowDecodingType rowDecoding,
                List<MysqlField> fields,
                DefaultDbFuture<T> future,
                MySqlConnection connection,
                ResultHandler<T> eventHandler,
-               T accumulator) {
+               T accumulator,
+               boolean lazyDecoding,
+               boolean stringDeduplication) {
         this.rowDecoding = rowDecoding;
         this.fields = fields;
+        this.columns = fields.toArray(new MysqlField[fields.size()]);
+        this.nullBits = new byte[(columns.length + 7 + 2) / 8];
         this.future = future;
         this.connection = connection;
         this.eventHandler = eventHandler;
         this.accumulator = accumulator;
+        this.lazyDecoding = lazyDecoding;
+        // Lazy values are decoded later, on any thread, so they cannot share the dictionaries
+        this.dictionaries = stringDeduplication && !lazyDecoding ? dictionariesFor(columns) : null;
+        if (eventHandler instanceof PrimitiveResultHandler) {
+            this.primitiveHandler = (PrimitiveResultHandler<T>) eventHandler;
+        } else {
+            this.primitiveHandler = null;
+        }
     }
 
     @Override
     public ResultAndState parse(int length, int packetNumber,
-                                BoundedInputStream in, Channel channel) throws IOException {
-        int fieldCount = in.read(); // This is only for checking for EOF
+                                ByteBuf in, Channel channel) throws IOException {
+        int fieldCount = in.readUnsignedByte(); // This is only for checking for EOF
         if (fieldCount == RESPONSE_EOF) {
+            final DefaultRequestTimings timings = future.getTimings();
+            if (null != timings) {
+                timings.markLastRow();
+            }
             eventHandler.endResults(accumulator);
             future.trySetResult(accumulator);
             EofResponse rowEof = decodeEofResponse(in, length, packetNumber, EofResponse.Type.ROW);
             return result(new AcceptNextResponse(connection), rowEof);
         }
+        if (fieldCount == ResponseStart.RESPONSE_ERROR) {
+            // The query was stopped or failed while sending rows. The error ends the response
+            ErrorResponse error = ResponseStart.decodeErrorResponse(in, length, packetNumber);
+            final MysqlException failure = error.toException();
+            eventHandler.exception(failure, accumulator);
+            future.trySetException(failure);
+            return result(new AcceptNextResponse(connection), error);
+        }
 
-        Value[] values = rowDecoding.decode(in, fieldCount, this);
+        if (null != primitiveHandler) {
+            eventHandler.startRow(accumulator);
+            rowDecoding.decode(in, fieldCount, this, primitiveHandler);
+            eventHandler.endRow(accumulator);
+            return rowResult.set(this, rowResponse.nextRow(length, packetNumber, NO_VALUES));
+        }
+        final Value[] values;
+        if (lazyDecoding) {
+            byte[] row = new byte[length];
+            row[0] = (byte) fieldCount;
+            IoUtils.readFixedLengthBytes(in, row, 1, length - 1);
+            values = rowDecoding.decodeLazy(row, fields);
+        } else {
+            values = rowDecoding.decode(in, fieldCount, this);
+        }
         eventHandler.startRow(accumulator);
         for (Value value : values) {
             eventHandler.value(value, accumulator);
         }
         eventHandler.endRow(accumulator);
-        return result(new Row<T>(rowDecoding, fields, future,connection, eventHandler, accumulator), new ResultSetRowResponse(length, packetNumber, values));
+        return rowResult.set(this, rowResponse.nextRow(length, packetNumber, values));
+
+    }
+
+    private static StringDictionary[] dictionariesFor(MysqlField[] columns) {
+        final StringDictionary[] dictionaries = new StringDictionary[columns.length];
+        for (MysqlField column : columns) {
+            if (column.getColumnType() == Type.VARCHAR) {
+                dictionaries[column.getIndex()] = new StringDictionary(column.getTextCharacterSet());
+            }
+        }
+        return dictionaries;
+    }
+
+    private StringDictionary dictionaryFor(MysqlField field) {
+        return null == dictionaries ? null : dictionaries[field.getIndex()];
+    }
+
+    /**
+     * Reads a length coded column into the reused column buffer
+     */
+    private ByteBuffer readLengthCodedBytes(ByteBuf in, int firstByte) throws IOException {
+        final int length = (int) IoUtils.readBinaryLengthEncoding(in, firstByte);
+        if (null == columnBytes || columnBytes.capacity() < length) {
+            columnBytes = ByteBuffer.allocate(Math.max(length, 64));
+        }
+        columnBytes.clear();
+        IoUtils.readFixedLengthBytes(in, columnBytes.array(), 0, length);
+        columnBytes.limit(length);
+        return columnBytes;
+    }
+
+    /**
+     * Reads a value of the binary protocol, which is not null
+     *
+     * @param dictionary deduplicates the strings of the column, null to decode every value
+     */
+    static Object readBinaryValue(ByteBuf in, MysqlField field, StringDictionary dictionary) throws IOException {
+        switch (field.getMysqlType()) {
+            case LONG:
+                return IoUtils.readInt(in);
+            case LONGLONG:
+                return IoUtils.readLong(in);
+            case VAR_STRING:
+                if (null != dictionary) {
+                    return readTextValue(in, in.readUnsignedByte(), field, dictionary);
+                }
+                return IoUtils.readLengthCodedString(in, in.readUnsignedByte(), field.getTextCharacterSet());
+            case NEWDECIMAL:
+                return IoUtils.readLengthCodedString(in, in.readUnsignedByte(), field.getTextCharacterSet());
+            case DATE:
+                return IoUtils.readDate(in);
+            case DATETIME:
+                return IoUtils.readDate(in);
+            case TIME:
+                return IoUtils.readDate(in);
+            case TIMESTAMP:
+                return IoUtils.readDate(in);
+            case DOUBLE:
+                return Double.longBitsToDouble(IoUtils.readLong(in));
+            case BLOB:
+                return IoUtils.readLengthCodedString(in, in.readUnsignedByte(), field.getTextCharacterSet());
+            case NULL:
+                return null;
+            default:
+                throw new IllegalStateException("Not yet implemented for type " + field.getMysqlType());
+        }
+    }
+
+    /**
+     * Reads a value of the text protocol, which is not null, right from the packet buffer
+     *
+     * @param dictionary deduplicates the strings of the column, null to decode every value
+     */
+    static Object readTextValue(ByteBuf in, int firstByte, MysqlField field, StringDictionary dictionary) {
+        final int length = (int) IoUtils.readBinaryLengthEncoding(in, firstByte);
+        final int start = in.readerIndex();
+        in.skipBytes(length);
+        if (in.hasArray()) {
+            return textValue(in.array(), in.arrayOffset() + start, length, field, dictionary);
+        }
+        final byte[] text = new byte[length];
+        in.getBytes(start, text);
+        return textValue(text, 0, length, field, dictionary);
+    }
 
+    /**
+     * Converts a value of the text protocol, which is not null.
+     * Numbers are parsed from the bytes, without creating a string first.
+     * Text is decoded with the character set of the column.
+     *
+     * @param dictionary deduplicates the strings of the column, null to decode every value
+     */
+    static Object textValue(byte[] data, int offset, int length, MysqlField field, StringDictionary dictionary) {
+        final MysqlCharacterSet charset = field.getTextCharacterSet();
+        switch (field.getColumnType()) {
+            case TINYINT:
+                final long tinyInt = IoUtils.parseLong(data, offset, length);
+                if (tinyInt < Byte.MIN_VALUE || tinyInt > Byte.MAX_VALUE) {
+                    throw new NumberFormatException("Value out of range. Value:" + tinyInt);
+                }
+                return (byte) tinyInt;
+            case INTEGER:
+                final long integer = IoUtils.parseLong(data, offset, length);
+                if (integer < Integer.MIN_VALUE || integer > Integer.MAX_VALUE) {
+                    throw new NumberFormatException("Value out of range. Value:" + integer);
+                }
+                return (int) integer;
+            case BIGINT:
+                return IoUtils.parseLong(data, offset, length);
+            case VARCHAR:
+                if (null != dictionary) {
+                    return dictionary.decode(data, offset, length);
+                }
+                return charset.decode(data, offset, length);
+            case DECIMAL:
+                return IoUtils.parseBigDecimal(data, offset, length);
+            case DATE:
+                return charset.decode(data, offset, length);
+            case TIME:
+                return charset.decode(data, offset, length);
+            case TIMESTAMP:
+                return charset.decode(data, offset, length);
+            case DOUBLE:
+                return IoUtils.parseDouble(data, offset, length);
+            case BLOB:
+                return charset.decode(data, offset, length);
+            default:
+                throw new IllegalStateException("Don't know how to handle column type of "
+                        + field.getColumnType());
+        }
     }
 
     public enum RowDecodingType {
         BINARY {
             @Override
-            public <T> Value[] decode(BoundedInputStream in, int fieldCount, Row<T> row) throws IOException {
-                Value[] values = new Value[row.fields.size()];
+            public <T> Value[] decode(ByteBuf in, int fieldCount, Row<T> row) throws IOException {
+                Value[] values = new Value[row.columns.length];
                 // 0 (packet header)   should have been read by the calling method
-                byte[] nullBits = new byte[(values.length + 7 + 2) / 8];
-                in.read(nullBits);
-                for (MysqlField field : row.fields) {
+                final byte[] nullBits = row.nullBits;
+                in.readBytes(nullBits);
+                for (MysqlField field : row.columns) {
                     Object value = null;
                     if (hasValue(field.getIndex(), nullBits)) {
-                        switch (field.getMysqlType()) {
-                            case LONG:
-                                value = IoUtils.readInt(in);
-                                break;
-                            case LONGLONG:
-                                value = IoUtils.readLong(in);
-                                break;
-                            case VAR_STRING:
-                                value = IoUtils.readLengthCodedString(in, in.read(), CHARSET);
-                                break;
-                            case NEWDECIMAL:
-                                value = IoUtils.readLengthCodedString(in, in.read(), CHARSET);
-                                break;
-                            case DATE:
-                                value = IoUtils.readDate(in);
-                                break;
-                            case DATETIME:
-                                value = IoUtils.readDate(in);
-                                break;
-                            case TIME:
-                                value = IoUtils.readDate(in);
-                                break;
-                            case TIMESTAMP:
-                                value = IoUtils.readDate(in);
-                                break;
-                            case DOUBLE:
-                                value = Double.longBitsToDouble(IoUtils.readLong(in));
-                                break;
-                            case BLOB:
-                                value = IoUtils.readLengthCodedString(in, in.read(), CHARSET);
-                                break;
-                            case NULL:
-                                value = null;
-                                break;
-                            default:
-                                throw new IllegalStateException("Not yet implemented for type " + field.getMysqlType());
-                        }
-
+                        value = readBinaryValue(in, field, row.dictionaryFor(field));
                     }
-
                     values[field.getIndex()] = new DefaultValue(value);
                 }
 
@@ -121,83 +278,200 @@ public class Row<T> extends DecoderState {
             }
 
 
-            private boolean hasValue(int valuePos, byte[] nullBitMap) {
-                int bit = 4; // first two bits are reserved for future use
-                int nullMaskPos = 0;
-                boolean hasValue = false;
-                for (int i = 0; i <= valuePos; i++) {
-                    if ((nullBitMap[nullMaskPos] & bit) > 0) {
-                        hasValue = false;
-                    } else {
-                        hasValue = true;
+            @Override
+            public <T> void decode(ByteBuf in, int fieldCount, Row<T> row,
+                                   PrimitiveResultHandler<T> handler) throws IOException {
+                final T accumulator = row.accumulator;
+                final byte[] nullBits = row.nullBits;
+                in.readBytes(nullBits);
+                for (MysqlField field : row.columns) {
+                    final int column = field.getIndex();
+                    if (!hasValue(column, nullBits)) {
+                        handler.nullValue(column, accumulator);
+                        continue;
                     }
-                    if (((bit <<= 1) & 255) == 0) {
-                        bit = 1;
-                        nullMaskPos++;
+                    switch (field.getMysqlType()) {
+                        case LONG:
+                            handler.intValue(column, IoUtils.readInt(in), accumulator);
+                            break;
+                        case LONGLONG:
+                            handler.longValue(column, IoUtils.readLong(in), accumulator);
+                            break;
+                        case DOUBLE:
+                            handler.doubleValue(column, Double.longBitsToDouble(IoUtils.readLong(in)), accumulator);
+                            break;
+                        case VAR_STRING:
+                        case NEWDECIMAL:
+                        case BLOB:
+                            handler.bytesValue(column, row.readLengthCodedBytes(in, in.readUnsignedByte()), accumulator);
+                            break;
+                        case DATE:
+                        case DATETIME:
+                        case TIME:
+                        case TIMESTAMP:
+                            handler.value(new DefaultValue(IoUtils.readDate(in)), accumulator);
+                            break;
+                        case NULL:
+                            handler.nullValue(column, accumulator);
+                            break;
+                        default:
+                            throw new IllegalStateException("Not yet implemented for type " + field.getMysqlType());
                     }
                 }
-                return hasValue;
+            }
+
+            @Override
+            public Value[] decodeLazy(byte[] row, List<MysqlField> fields) throws IOException {
+                final Value[] values = new Value[fields.size()];
+                final ByteBuf scan = Unpooled.wrappedBuffer(row);
+                IoUtils.safeSkip(scan, 1); // packet header
+                byte[] nullBits = new byte[(values.length + 7 + 2) / 8];
+                scan.readBytes(nullBits);
+                for (MysqlField field : fields) {
+                    if (!hasValue(field.getIndex(), nullBits)) {
+                        values[field.getIndex()] = NULL_VALUE;
+                        continue;
+                    }
+                    final int start = scan.readerIndex();
+                    switch (field.getMysqlType()) {
+                        case LONG:
+                            IoUtils.safeSkip(scan, 4);
+                            break;
+                        case LONGLONG:
+                        case DOUBLE:
+                            IoUtils.safeSkip(scan, 8);
+                            break;
+                        case VAR_STRING:
+                        case NEWDECIMAL:
+                        case BLOB:
+                            IoUtils.safeSkip(scan, IoUtils.readBinaryLengthEncoding(scan, IoUtils.safeRead(scan)));
+                            break;
+                        case DATE:
+                        case DATETIME:
+                        case TIME:
+                        case TIMESTAMP:
+                            IoUtils.safeSkip(scan, IoUtils.safeRead(scan));
+                            break;
+                        case NULL:
+                            values[field.getIndex()] = NULL_VALUE;
+                            continue;
+                        default:
+                            throw new IllegalStateException("Not yet implemented for type " + field.getMysqlType());
+                    }
+                    final int end = scan.readerIndex();
+                    values[field.getIndex()] = new LazyColumnValue.Binary(row, start, end - start, field);
+                }
+                return values;
+            }
+
+            private boolean hasValue(int valuePos, byte[] nullBitMap) {
+                final int bit = valuePos + 2; // first two bits are reserved for future use
+                return (nullBitMap[bit >> 3] & (1 << (bit & 7))) == 0;
             }
         },
         STRING_BASED {
             @Override
-            public <T> Value[] decode(BoundedInputStream in, int fieldCount, Row<T> row) throws IOException {
-                Value[] values = new Value[row.fields.size()];
+            public <T> Value[] decode(ByteBuf in, int fieldCount, Row<T> row) throws IOException {
+                Value[] values = new Value[row.columns.length];
                 int i = 0;
-                for (Field field : row.fields) {
+                for (MysqlField field : row.columns) {
                     Object value = null;
                     if (fieldCount != IoUtils.NULL_VALUE) {
                         // We will have to move this as some datatypes will not be sent across the wire as strings
-                        String strVal = IoUtils.readLengthCodedString(in, fieldCount, CHARSET);
+                        value = readTextValue(in, fieldCount, field, row.dictionaryFor(field));
+                    }
+                    values[field.getIndex()] = new DefaultValue(value);
+                    i++;
+                    if (i < row.columns.length) {
+                        fieldCount = in.readUnsignedByte();
+                    }
+                }
+                return values;
+            }
 
+            @Override
+            public <T> void decode(ByteBuf in, int fieldCount, Row<T> row,
+                                   PrimitiveResultHandler<T> handler) throws IOException {
+                final T accumulator = row.accumulator;
+                int i = 0;
+                for (MysqlField field : row.columns) {
+                    if (fieldCount == IoUtils.NULL_VALUE) {
+                        handler.nullValue(i, accumulator);
+                    } else {
                         switch (field.getColumnType()) {
                             case TINYINT:
-                                value = Byte.valueOf(strVal);
-                                break;
                             case INTEGER:
-                                value = Integer.valueOf(strVal);
+                                handler.intValue(i,
+                                        IoUtils.parseInt(in, (int) IoUtils.readBinaryLengthEncoding(in, fieldCount)),
+                                        accumulator);
                                 break;
                             case BIGINT:
-                                value = Long.valueOf(strVal);
+                                handler.longValue(i,
+                                        IoUtils.parseLong(in, (int) IoUtils.readBinaryLengthEncoding(in, fieldCount)),
+                                        accumulator);
                                 break;
-                            case VARCHAR:
-                                value = strVal;
+                            case DOUBLE:
+                                handler.doubleValue(i,
+                                        IoUtils.parseDouble(in, (int) IoUtils.readBinaryLengthEncoding(in, fieldCount)),
+                                        accumulator);
                                 break;
+                            case VARCHAR:
                             case DECIMAL:
-                                value = new BigDecimal(strVal);
+                            case BLOB:
+                                handler.bytesValue(i, row.readLengthCodedBytes(in, fieldCount), accumulator);
                                 break;
                             case DATE:
-                                value = strVal;
-                                break;
                             case TIME:
-                                value = strVal;
-                                break;
                             case TIMESTAMP:
-                                value = strVal;
-                                break;
-                            case DOUBLE:
-                                value = Double.parseDouble(strVal);
-                                break;
-                            case BLOB:
-                                value = strVal;
+                                handler.value(new DefaultValue(readTextValue(in, fieldCount, field, null)),
+                                        accumulator);
                                 break;
                             default:
                                 throw new IllegalStateException("Don't know how to handle column type of "
                                         + field.getColumnType());
                         }
                     }
-                    values[field.getIndex()] = new DefaultValue(value);
                     i++;
-                    if (i < row.fields.size()) {
-                        fieldCount = in.read();
+                    if (i < row.columns.length) {
+                        fieldCount = in.readUnsignedByte();
                     }
                 }
+            }
+
+            @Override
+            public Value[] decodeLazy(byte[] row, List<MysqlField> fields) throws IOException {
+                final Value[] values = new Value[fields.size()];
+                final ByteBuf scan = Unpooled.wrappedBuffer(row);
+                for (MysqlField field : fields) {
+                    final int firstByte = IoUtils.safeRead(scan);
+                    if (firstByte == IoUtils.NULL_VALUE) {
+                        values[field.getIndex()] = NULL_VALUE;
+                        continue;
+                    }
+                    final int length = (int) IoUtils.readBinaryLengthEncoding(scan, firstByte);
+                    final int start = scan.readerIndex();
+                    IoUtils.safeSkip(scan, length);
+                    values[field.getIndex()] = new LazyColumnValue.Text(row, start, length, field);
+                }
                 return values;
             }
         };
 
 
-        public abstract <T> Value[] decode(BoundedInputStream in, int fieldCount, Row<T> row) throws IOException;
+        public abstract <T> Value[] decode(ByteBuf in, int fieldCount, Row<T> row) throws IOException;
+
+        /**
+         * Finds the columns in the row packet. The values are decoded when they are accessed.
+         *
+         * @param row the complete row packet
+         */
+        public abstract Value[] decodeLazy(byte[] row, List<MysqlField> fields) throws IOException;
+
+        /**
+         * Decodes a row straight into the callbacks of the handler, without creating {@link Value}s
+         */
+        public abstract <T> void decode(ByteBuf in, int fieldCount, Row<T> row,
+                                        PrimitiveResultHandler<T> handler) throws IOException;
     }
 
 }
@@ -0,0 +1,119 @@
+package org.adbcj.mysql.codec.decoding;
+
+import org.adbcj.StandardProperties;
+import org.adbcj.mysql.codec.MysqlCharacterSet;
+
+import java.util.Arrays;
+
+/**
+ * Deduplicates the strings of one column while a result is decoded, see {@link StandardProperties#STRING_DEDUPLICATION}.
+ * Low cardinality columns, like a status or a country code, repeat the same few values in every row.
+ * A value which is already in the dictionary is looked up by its bytes and returned without decoding it again,
+ * so all rows share one string instance.
+ *
+ * Columns which turn out to have many distinct values stop adding to the dictionary,
+ * and long values are not added at all, so that the dictionary stays small.
+ *
+ * This class is not thread safe, it belongs to the decoder of one result.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+final class StringDictionary {
+    /**
+     * Longer values are rarely repeated. They are decoded as usual
+     */
+    static final int MAX_VALUE_LENGTH = 64;
+    /**
+     * A column with more distinct values is not a low cardinality column
+     */
+    static final int MAX_ENTRIES = 256;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final MysqlCharacterSet charset;
+    private byte[][] keys;
+    private String[] values;
+    private int size = 0;
+
+    StringDictionary(MysqlCharacterSet charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * @return the string for the bytes, the same instance for the same bytes as long as the dictionary is not full
+     */
+    String decode(byte[] data, int offset, int length) {
+        if (length > MAX_VALUE_LENGTH) {
+            return charset.decode(data, offset, length);
+        }
+        if (null == keys) {
+            keys = new byte[INITIAL_CAPACITY][];
+            values = new String[INITIAL_CAPACITY];
+        }
+        final int mask = keys.length - 1;
+        int index = hash(data, offset, length) & mask;
+        byte[] key;
+        while (null != (key = keys[index])) {
+            if (matches(key, data, offset, length)) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        final String value = charset.decode(data, offset, length);
+        if (size < MAX_ENTRIES) {
+            keys[index] = Arrays.copyOfRange(data, offset, offset + length);
+            values[index] = value;
+            size++;
+            // Keep the table at most half full, so that misses find an empty slot quickly
+            if (size * 2 > keys.length) {
+                grow();
+            }
+        }
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        final byte[][] oldKeys = keys;
+        final String[] oldValues = values;
+        keys = new byte[oldKeys.length * 2][];
+        values = new String[oldKeys.length * 2];
+        final int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            final byte[] key = oldKeys[i];
+            if (null == key) {
+                continue;
+            }
+            int index = hash(key, 0, key.length) & mask;
+            while (null != keys[index]) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = oldValues[i];
+        }
+    }
+
+    private static int hash(byte[] data, int offset, int length) {
+        int hash = 1;
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            hash = 31 * hash + data[i];
+        }
+        // Spread the bits, the table index only uses the lower ones
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(byte[] key, byte[] data, int offset, int length) {
+        if (key.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key[i] != data[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package org.adbcj.mysql.codec.packets;
+
+import org.adbcj.mysql.codec.ClientRequest;
+import org.adbcj.mysql.codec.MySqlClientEncoder;
+import org.adbcj.support.CancellationToken;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+
+/**
+ * Several commands, each sent as its own packet, but written together in one buffer.
+ * The server answers each command in order.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class BatchCommandRequest extends ClientRequest {
+    private final ClientRequest[] commands;
+
+    public BatchCommandRequest(Command command, List<String> payloads, CancellationToken cancelSupport) {
+        super(cancelSupport);
+        this.commands = new ClientRequest[payloads.size()];
+        for (int i = 0; i < commands.length; i++) {
+            commands[i] = new StringCommandRequest(command, payloads.get(i), CancellationToken.NO_CANCELLATION);
+        }
+    }
+
+    /**
+     * @param commands commands which cannot be cancelled on their own
+     */
+    public BatchCommandRequest(ClientRequest[] commands, CancellationToken cancelSupport) {
+        super(cancelSupport);
+        this.commands = commands;
+    }
+
+    public int size() {
+        return commands.length;
+    }
+
+    /**
+     * @return the length of all packets, including their headers
+     */
+    @Override
+    public int getLength() throws UnsupportedEncodingException {
+        int length = 0;
+        for (ClientRequest command : commands) {
+            length += MySqlClientEncoder.PACKET_HEADER_LENGTH + command.getLength();
+        }
+        return length;
+    }
+
+    @Override
+    protected boolean hasPayload() {
+        return true;
+    }
+
+    /**
+     * Writes the complete packets, including their headers
+     */
+    @Override
+    public void writeToOutputStream(OutputStream out) throws IOException {
+        for (ClientRequest command : commands) {
+            MySqlClientEncoder.writePacket(command, out);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BatchCommandRequest{" + commands.length + " commands}";
+    }
+}
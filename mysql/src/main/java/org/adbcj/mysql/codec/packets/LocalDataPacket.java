@@ -0,0 +1,56 @@
+package org.adbcj.mysql.codec.packets;
+
+import org.adbcj.mysql.codec.ClientRequest;
+import org.adbcj.support.CancellationToken;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A packet of the data for a LOAD DATA LOCAL INFILE statement. An empty packet ends the data.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class LocalDataPacket extends ClientRequest {
+    private final byte[] data;
+    private final int length;
+    private final int packetNumber;
+
+    /**
+     * @param data the data, which is written to the network before the packet is completed
+     */
+    public LocalDataPacket(byte[] data, int length, int packetNumber) {
+        super(CancellationToken.NO_CANCELLATION);
+        this.data = data;
+        this.length = length;
+        this.packetNumber = packetNumber;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public int getPacketNumber() {
+        return packetNumber;
+    }
+
+    @Override
+    protected boolean hasPayload() {
+        return length > 0;
+    }
+
+    @Override
+    public void writeToOutputStream(OutputStream out) throws IOException {
+        out.write(data, 0, length);
+    }
+
+    @Override
+    public String toString() {
+        return "LocalDataPacket{" +
+                "packetNumber=" + packetNumber +
+                ", length=" + length +
+                '}';
+    }
+}
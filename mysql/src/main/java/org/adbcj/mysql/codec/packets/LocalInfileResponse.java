@@ -0,0 +1,26 @@
+package org.adbcj.mysql.codec.packets;
+
+/**
+ * The server asks for the content of a local file, in response to a LOAD DATA LOCAL INFILE statement.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class LocalInfileResponse extends ServerPacket {
+    private final String fileName;
+
+    public LocalInfileResponse(int packetLength, int packetNumber, String fileName) {
+        super(packetLength, packetNumber);
+        this.fileName = fileName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    @Override
+    public String toString() {
+        return "LocalInfileResponse{" +
+                "fileName='" + fileName + '\'' +
+                '}';
+    }
+}
@@ -18,7 +18,7 @@
  */
 package org.adbcj.mysql.codec.packets;
 
-import org.adbcj.mysql.codec.BoundedInputStream;
+import io.netty.buffer.ByteBuf;
 import org.adbcj.mysql.codec.IoUtils;
 import org.adbcj.mysql.codec.ServerStatus;
 
@@ -32,20 +32,20 @@ public abstract class OkResponse extends ServerPacket{
         super(packetLength, packetNumber);
     }
 
-    public static RegularOK interpretAsRegularOk(int packetLength, int packetNumber,BoundedInputStream toParse) throws IOException {
+    public static RegularOK interpretAsRegularOk(int packetLength, int packetNumber,ByteBuf toParse) throws IOException {
         long affectedRows = IoUtils.readBinaryLengthEncoding(toParse);
         long insertId = IoUtils.readBinaryLengthEncoding(toParse);
         Set<ServerStatus> serverStatus = IoUtils.readEnumSetShort(toParse, ServerStatus.class);
         int warningCount = IoUtils.readUnsignedShort(toParse);
-        String message = IoUtils.readFixedLengthString(toParse, toParse.getRemaining(), "UTF8");
+        String message = IoUtils.readFixedLengthString(toParse, toParse.readableBytes(), "UTF8");
         return new RegularOK(packetLength, packetNumber, affectedRows, insertId, serverStatus, warningCount, message);
     }
 
-    public static PreparedStatementOK interpretAsPreparedStatement(int packetLength, int packetNumber,BoundedInputStream toParse) throws IOException {
+    public static PreparedStatementOK interpretAsPreparedStatement(int packetLength, int packetNumber,ByteBuf toParse) throws IOException {
         int handlerId= IoUtils.readInt(toParse);
         int columns= IoUtils.readShort(toParse);
         int params= IoUtils.readShort(toParse);
-        int filler = toParse.read();
+        int filler = toParse.readUnsignedByte();
         int warnings = IoUtils.readShort(toParse);
         return new PreparedStatementOK(packetLength, packetNumber,handlerId,columns,params,warnings);
     }
@@ -22,13 +22,24 @@ import org.adbcj.Value;
 
 public class ResultSetRowResponse extends ServerPacket{
 
-	private final Value[] values;
+	private Value[] values;
 
 	public ResultSetRowResponse(int packetLength, int packetNumber, Value[] values) {
 		super(packetLength, packetNumber);
 		this.values = values;
 	}
 
+	/**
+	 * The row decoding reuses one response for all rows of a result.
+	 *
+	 * @return this response, describing the given row
+	 */
+	public ResultSetRowResponse nextRow(int packetLength, int packetNumber, Value[] values) {
+		setHeader(packetLength, packetNumber);
+		this.values = values;
+		return this;
+	}
+
 	public Value[] getValues() {
 		return values;
 	}
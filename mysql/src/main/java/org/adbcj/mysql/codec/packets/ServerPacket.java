@@ -26,14 +26,22 @@ package org.adbcj.mysql.codec.packets;
  */
 public abstract class ServerPacket {
 
-	private final int packetLength;
-	private final int packetNumber;
+	private int packetLength;
+	private int packetNumber;
 
 	public ServerPacket(int packetLength, int packetNumber) {
 		this.packetLength = packetLength;
 		this.packetNumber = packetNumber;
 	}
 
+	/**
+	 * For packets which are reused for every packet of a kind, like the rows of a result
+	 */
+	protected void setHeader(int packetLength, int packetNumber) {
+		this.packetLength = packetLength;
+		this.packetNumber = packetNumber;
+	}
+
 	public int getPacketLength() {
 		return packetLength;
 	}
@@ -2,11 +2,8 @@ package org.adbcj.mysql.netty;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.MessageToByteEncoder;
 import org.adbcj.*;
@@ -18,14 +15,18 @@ import org.adbcj.mysql.codec.decoding.Connecting;
 import org.adbcj.mysql.codec.decoding.DecoderState;
 import org.adbcj.support.AbstractConnectionManager;
 import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.netty.EventLoopRuntime;
+import org.adbcj.support.FutureUtils;
 import org.adbcj.support.LoginCredentials;
+import org.adbcj.support.metrics.ConnectionMetrics;
+import org.adbcj.support.metrics.NoMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -37,11 +38,18 @@ public class MysqlConnectionManager extends AbstractConnectionManager {
 
 	private static final String ENCODER = MysqlConnectionManager.class.getName() + ".encoder";
 	private static final String DECODER = MysqlConnectionManager.class.getName() + ".decoder";
+    private static final Encoder ENCODER_WITHOUT_METRICS = new Encoder(NoMetrics.INSTANCE);
     private final LoginCredentials credentials;
 
+	private final EventLoopRuntime runtime;
+	private final InetSocketAddress address;
 	private final Bootstrap bootstrap;
     private final Set<MySqlConnection> connections = new HashSet<MySqlConnection>();
     private final AtomicInteger idCounter = new AtomicInteger();
+    /**
+     * Sends the KILL QUERY statements of all connections. Opened on the first use, guarded by {@link #connections}
+     */
+    private DbFuture<Connection> killingConnection = null;
 
     public MysqlConnectionManager(String host,
                                   int port,
@@ -49,26 +57,41 @@ public class MysqlConnectionManager extends AbstractConnectionManager {
                                   String password,
                                   String schema,
                                   Map<String,String> properties) {
-        super(properties);
+        this(host, port, username, password, schema, properties, EventLoopRuntime.forManager(properties));
+    }
+
+    /**
+     * @param runtime serves the connections. It is shut down with this manager if it is dedicated to it.
+     */
+    public MysqlConnectionManager(String host,
+                                  int port,
+                                  String username,
+                                  String password,
+                                  String schema,
+                                  Map<String,String> properties,
+                                  EventLoopRuntime runtime) {
+        super(properties, runtime.deadlineTimer());
         credentials = new LoginCredentials(username, password, schema);
+        this.runtime = runtime;
+
+        this.address = new InetSocketAddress(host, port);
+		bootstrap = configure(runtime.newBootstrap());
+	}
 
-		bootstrap = new Bootstrap()
-                .group(new NioEventLoopGroup())
-                .channel(NioSocketChannel.class)
-                .option(ChannelOption.TCP_NODELAY, true)
-                .option(ChannelOption.SO_KEEPALIVE,true)
+    private Bootstrap configure(Bootstrap bootstrap) {
+        return bootstrap
                 .option(ChannelOption.AUTO_READ,false)
-                .remoteAddress(new InetSocketAddress(host,port))
+                .remoteAddress(address)
                 .handler(new ChannelInitializer() {
 
                     @Override
                     public void initChannel(Channel ch) throws Exception {
                         ch.config().setAutoRead(false);
-                        ch.pipeline().addLast(ENCODER, new Encoder());
+                        ch.pipeline().addLast(ENCODER, ENCODER_WITHOUT_METRICS);
 
                     }
                 });
-	}
+    }
 
 
 
@@ -76,23 +99,19 @@ public class MysqlConnectionManager extends AbstractConnectionManager {
         final DefaultDbFuture closeFuture;
         ArrayList<MySqlConnection> connectionsCopy;
         synchronized (connections) {
-            closeFuture = new DefaultDbFuture<Void>(stackTracingOptions());
+            closeFuture = new DefaultDbFuture<Void>(stackTracingOptions(),null,callbackExecutor());
             connectionsCopy = new ArrayList<MySqlConnection>(connections);
         }
-        final AtomicInteger toCloseCount = new AtomicInteger(connectionsCopy.size());
+        List<DbFuture<Void>> closingConnections = new ArrayList<DbFuture<Void>>(connectionsCopy.size());
         for (MySqlConnection connection : connectionsCopy) {
-            connection.close(closeMode).addListener(new DbListener<Void>() {
-                @Override
-                public void onCompletion(DbFuture<Void> future) {
-                    if(0==toCloseCount.decrementAndGet()){
-                        shutdownBootraper(closeFuture);
-                    }
-                }
-            });
-        }
-        if(connectionsCopy.isEmpty()){
-            shutdownBootraper(closeFuture);
+            closingConnections.add(connection.close(closeMode));
         }
+        FutureUtils.allOf(closingConnections).addListener(new DbListener<List<Void>>() {
+            @Override
+            public void onCompletion(DbFuture<List<Void>> future) {
+                shutdownBootraper(closeFuture);
+            }
+        });
         return closeFuture;
     }
 
@@ -100,7 +119,7 @@ public class MysqlConnectionManager extends AbstractConnectionManager {
         new Thread("Closing MySQL ConnectionManager"){
             @Override
             public void run() {
-                bootstrap.shutdown();
+                runtime.release();
                 closeFuture.setResult(null);
             }
         }.start();
@@ -112,9 +131,12 @@ public class MysqlConnectionManager extends AbstractConnectionManager {
         }
         logger.debug("Starting connection");
 
-        final ChannelFuture channelFuture = bootstrap.connect();
+        final EventLoop callerEventLoop = callerEventLoop();
+        final ChannelFuture channelFuture = null == callerEventLoop
+                ? bootstrap.connect()
+                : configure(runtime.newBootstrap(callerEventLoop)).connect();
 
-        final DefaultDbFuture<Connection> connectFuture = new DefaultDbFuture<Connection>(stackTracingOptions());
+        final DefaultDbFuture<Connection> connectFuture = new DefaultDbFuture<Connection>(stackTracingOptions(),null,callbackExecutor());
 
         channelFuture.addListener(new ChannelFutureListener() {
             @Override
@@ -132,6 +154,9 @@ public class MysqlConnectionManager extends AbstractConnectionManager {
                 }
 
                 MySqlConnection connection = new MySqlConnection(maxQueueLength(), MysqlConnectionManager.this, channel);
+                if (NoMetrics.INSTANCE != connection.metrics()) {
+                    channel.pipeline().replace(ENCODER, ENCODER, new Encoder(connection.metrics()));
+                }
                 channel.pipeline().addLast(DECODER, new Decoder(
                         new Connecting(connectFuture, connection, credentials),connection));
                 channel.pipeline().addLast("end-handler", new Handler(connection));
@@ -150,6 +175,75 @@ public class MysqlConnectionManager extends AbstractConnectionManager {
 
 
 
+    /**
+     * With {@link StandardProperties#EVENT_LOOP_AFFINITY} a connection opened from an I/O thread stays on that thread
+     */
+    @Override
+    public EventLoop callerEventLoop() {
+        return eventLoopAffinity() ? runtime.currentEventLoop() : null;
+    }
+
+    /**
+     * @return the I/O threads and buffers of the connections
+     */
+    public EventLoopRuntime runtime() {
+        return runtime;
+    }
+
+    /**
+     * Stops the query the given connection runs right now, with KILL QUERY over a side connection.
+     * The side connection is opened on the first use and shared by all connections of this manager.
+     *
+     * @return completes once the server answered the KILL QUERY, also when it failed
+     */
+    public DbFuture<Void> killQuery(final int threadId) {
+        final String killQuery = "KILL QUERY " + threadId;
+        final DefaultDbFuture<Void> acknowledged = new DefaultDbFuture<Void>(stackTracingOptions(), null, null);
+        final DbFuture<Connection> connecting;
+        try {
+            connecting = killingConnection();
+        } catch (DbException e) {
+            logger.warn("Could not open a connection for " + killQuery + ": " + e.getMessage());
+            acknowledged.setResult(null);
+            return acknowledged;
+        }
+        connecting.addListener(new DbListener<Connection>() {
+            @Override
+            public void onCompletion(DbFuture<Connection> future) {
+                if (future.getState() != FutureState.SUCCESS) {
+                    logger.warn("Could not open a connection for " + killQuery, future.getException());
+                    acknowledged.trySetResult(null);
+                    return;
+                }
+                future.getResult().executeUpdate(killQuery).addListener(new DbListener<Result>() {
+                    @Override
+                    public void onCompletion(DbFuture<Result> killed) {
+                        if (killed.getState() == FutureState.FAILURE) {
+                            // The query may have completed meanwhile
+                            logger.debug("{} failed: {}", killQuery, killed.getException().getMessage());
+                        }
+                        acknowledged.trySetResult(null);
+                    }
+                });
+            }
+        });
+        return acknowledged;
+    }
+
+    private DbFuture<Connection> killingConnection() {
+        synchronized (connections) {
+            if (null == killingConnection || isBroken(killingConnection)) {
+                killingConnection = connect();
+            }
+            return killingConnection;
+        }
+    }
+
+    private static boolean isBroken(DbFuture<Connection> connection) {
+        return connection.isDone()
+                && (connection.getState() != FutureState.SUCCESS || connection.getResult().isClosed());
+    }
+
     public int nextId() {
         return idCounter.incrementAndGet();
     }
@@ -180,16 +274,13 @@ class Decoder extends ByteToMessageDecoder {
 
     @Override
     public Object decode(ChannelHandlerContext ctx, ByteBuf buffer) throws Exception {
-        InputStream in = new ByteBufInputStream(buffer);
-        try {
-            Object obj= decoder.decode(in,ctx.channel(), false);
-            if(log.isDebugEnabled()&&null!=obj){
-                log.debug("Decoded message: {}",obj);
-            }
-            return null;
-        } finally {
-            in.close();
+        final int startIndex = buffer.readerIndex();
+        Object obj= decoder.decode(buffer,ctx.channel());
+        connection.metrics().bytesRead(buffer.readerIndex() - startIndex);
+        if(log.isDebugEnabled()&&null!=obj){
+            log.debug("Decoded message: {}",obj);
         }
+        return null;
     }
 
 
@@ -240,6 +331,11 @@ class Encoder extends MessageToByteEncoder<ClientRequest> {
     private final static Logger log = LoggerFactory.getLogger(Encoder.class);
 
 	private final MySqlClientEncoder encoder = new MySqlClientEncoder();
+    private final ConnectionMetrics metrics;
+
+    Encoder(ConnectionMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     @Override
     public void encode(ChannelHandlerContext ctx, ClientRequest msg, ByteBuf buffer) throws Exception {
@@ -247,9 +343,11 @@ class Encoder extends MessageToByteEncoder<ClientRequest> {
             log.debug("Sending request: {}", msg);
         }
 
+        final int startIndex = buffer.writerIndex();
         ByteBufOutputStream out = new ByteBufOutputStream(buffer);
         encoder.encode(msg, out);
         out.flush();
+        metrics.bytesWritten(buffer.writerIndex() - startIndex);
     }
 }
 
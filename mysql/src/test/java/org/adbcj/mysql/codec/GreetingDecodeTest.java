@@ -4,13 +4,13 @@ import org.adbcj.mysql.codec.decoding.Connecting;
 import org.adbcj.mysql.codec.packets.ServerGreeting;
 import org.adbcj.mysql.netty.MysqlConnectionManager;
 import org.adbcj.support.LoginCredentials;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.EnumSet;
 import java.util.HashMap;
 
@@ -40,7 +40,7 @@ public class GreetingDecodeTest {
 
 	@Test
 	public void decodeGreeting1() throws IOException {
-		InputStream in = new ByteArrayInputStream(GREETING1);
+		ByteBuf in = Unpooled.wrappedBuffer(GREETING1);
 		MySqlClientDecoder decoder = new MySqlClientDecoder(
                 new Connecting(null, createMockConnection(), login));
 		ServerGreeting greeting = castToServerGreeting(in, decoder);
@@ -76,7 +76,7 @@ public class GreetingDecodeTest {
 
 	@Test
 	public void decodeGreeting2() throws IOException {
-		InputStream in = new ByteArrayInputStream(GREETING2);
+		ByteBuf in = Unpooled.wrappedBuffer(GREETING2);
 		MySqlClientDecoder decoder = new MySqlClientDecoder(new Connecting(null,createMockConnection(), login));
 		ServerGreeting greeting = castToServerGreeting(in, decoder);
 
@@ -91,8 +91,8 @@ public class GreetingDecodeTest {
 		Assert.assertEquals(greeting.getServerStatus(), EnumSet.of(ServerStatus.AUTO_COMMIT));
 	}
 
-    private ServerGreeting castToServerGreeting(InputStream in, MySqlClientDecoder decoder) throws IOException {
-        return (ServerGreeting) decoder.decode(in, mock(Channel.class), true);
+    private ServerGreeting castToServerGreeting(ByteBuf in, MySqlClientDecoder decoder) throws IOException {
+        return (ServerGreeting) decoder.decode(in, mock(Channel.class));
     }
 
     private MySqlConnection createMockConnection() {
@@ -1,12 +1,13 @@
 package org.adbcj.mysql.codec;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import java.io.ByteArrayInputStream;
-import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Random;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -14,14 +15,14 @@ public class IoUtilsTest {
 
 	@Test
 	public void testSafeRead() throws IOException {
-		InputStream in = new ByteArrayInputStream(new byte[] {0,1,2});
+		ByteBuf in = Unpooled.wrappedBuffer(new byte[] {0,1,2});
 		Assert.assertEquals(IoUtils.safeRead(in), 0);
 		Assert.assertEquals(IoUtils.safeRead(in), 1);
 		Assert.assertEquals(IoUtils.safeRead(in), 2);
 		try {
 			IoUtils.safeRead(in);
-			Assert.fail("Did not throw EOF exception");
-		} catch (EOFException e) {
+			Assert.fail("Did not throw on the end of the packet");
+		} catch (IndexOutOfBoundsException e) {
 			// Pass
 		}
 	}
@@ -31,7 +32,7 @@ public class IoUtilsTest {
 		ByteBuffer buffer = ByteBuffer.allocate(1024);
 		buffer.order(ByteOrder.LITTLE_ENDIAN);
 		buffer.putShort((short)0).putShort((short)1).putShort((short)2).putShort((short)-1).putShort((short)-2);
-		InputStream in = new ByteArrayInputStream(buffer.array(), 0, buffer.position());
+		ByteBuf in = Unpooled.wrappedBuffer(buffer.array(), 0, buffer.position());
 		Assert.assertEquals(IoUtils.readShort(in), 0);
 		Assert.assertEquals(IoUtils.readShort(in), 1);
 		Assert.assertEquals(IoUtils.readShort(in), 2);
@@ -44,7 +45,7 @@ public class IoUtilsTest {
 		ByteBuffer buffer = ByteBuffer.allocate(1024);
 		buffer.order(ByteOrder.LITTLE_ENDIAN);
 		buffer.putShort((short)0).putShort((short)1).putShort((short)2).putShort((short)-1).putShort((short)-2);
-		InputStream in = new ByteArrayInputStream(buffer.array(), 0, buffer.position());
+		ByteBuf in = Unpooled.wrappedBuffer(buffer.array(), 0, buffer.position());
 		Assert.assertEquals(IoUtils.readUnsignedShort(in), 0);
 		Assert.assertEquals(IoUtils.readUnsignedShort(in), 1);
 		Assert.assertEquals(IoUtils.readUnsignedShort(in), 2);
@@ -61,12 +62,80 @@ public class IoUtilsTest {
 		byte[] newBytes = new byte[firstBytes.length + secondBytes.length + 1];
 		System.arraycopy(firstBytes, 0, newBytes, 0, firstBytes.length);
 		System.arraycopy(secondBytes, 0, newBytes, firstBytes.length + 1, secondBytes.length);
-        InputStream nativeInputStream = new ByteArrayInputStream(newBytes);
-        BoundedInputStream in = new BoundedInputStream(nativeInputStream,newBytes.length+1);
+        ByteBuf in = Unpooled.wrappedBuffer(newBytes);
 
 		Assert.assertEquals(IoUtils.readNullTerminatedString(in, "UTF-8"), first);
 		Assert.assertEquals(IoUtils.readNullTerminatedString(in, "UTF-8"), second);
 	}
+	@Test
+	public void parseDoubleLikeTheJdk() throws IOException {
+		String[] numbers = {"0", "-0", "42", "42.42", "-42.42", "0.05", ".5", "1.50", "123456789012345",
+				"1234567890123456789", "0.1", "0.3", "2.2250738585072014E-308", "1.7976931348623157e308",
+				"1e22", "1e23", "1E-5", "-3.5e+2", "9007199254740993", "+7",
+				"142.85714285714286", "0.14285714285714285", "0.000000000000000000000000", "123456789012345678.5",
+				"0.30000000000000004", "9007199254740993.0", "4.9406564584124654E-324", "-1.0000000000000002"};
+		for (String number : numbers) {
+			Assert.assertEquals(IoUtils.parseDouble(ascii(number), 0, number.length()), Double.parseDouble(number), 0.0,
+					number);
+		}
+		try {
+			IoUtils.parseDouble(ascii("4x2"), 0, 3);
+			Assert.fail("Expect a failure for a broken number");
+		} catch (NumberFormatException e) {
+			// Pass
+		}
+	}
+
+	@Test
+	public void parseRandomDoublesLikeTheJdk() throws IOException {
+		Random random = new Random(42);
+		for (int i = 0; i < 200000; i++) {
+			final String number;
+			if (i % 2 == 0) {
+				number = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(30) - 15));
+			} else {
+				StringBuilder digits = new StringBuilder();
+				for (int digit = 0; digit < 15 + random.nextInt(4); digit++) {
+					digits.append(random.nextInt(10));
+				}
+				digits.insert(random.nextInt(digits.length()), '.');
+				number = digits.toString();
+			}
+			Assert.assertEquals(Double.doubleToLongBits(IoUtils.parseDouble(ascii(number), 0, number.length())),
+					Double.doubleToLongBits(Double.parseDouble(number)), number);
+		}
+	}
+
+	@Test
+	public void parseBigDecimalLikeTheJdk() throws IOException {
+		String[] numbers = {"0", "0.00", "-0.00", "42", "42.50", "-42.42", "42.", ".5",
+				"123456789012345678", "1234567890.1234567890123", "-99999999999999999999.99"};
+		for (String number : numbers) {
+			Assert.assertEquals(IoUtils.parseBigDecimal(ascii(number), 0, number.length()), new BigDecimal(number),
+					number);
+		}
+	}
+
+	@Test
+	public void parseNumbersFromBuffer() throws IOException {
+		ByteBuf in = Unpooled.wrappedBuffer(ascii("x-2147483648" + "9223372036854775807" + "42.5x"));
+		in.skipBytes(1);
+		Assert.assertEquals(IoUtils.parseInt(in, 11), Integer.MIN_VALUE);
+		Assert.assertEquals(IoUtils.parseLong(in, 19), Long.MAX_VALUE);
+		Assert.assertEquals(IoUtils.parseDouble(in, 4), 42.5);
+		Assert.assertEquals(in.readableBytes(), 1);
+		try {
+			IoUtils.parseInt(Unpooled.wrappedBuffer(ascii("2147483648")), 10);
+			Assert.fail("Expect a failure for a number out of the int range");
+		} catch (NumberFormatException e) {
+			// Pass
+		}
+	}
+
+	private static byte[] ascii(String text) throws IOException {
+		return text.getBytes("US-ASCII");
+	}
+
 	@Test
 	public void allNullOneByte() throws IOException {
         Object[] noNullValueOneElement = new Object[]{1};
@@ -0,0 +1,66 @@
+package org.adbcj.mysql.codec;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class LocalDataSourceTest {
+
+    @Test
+    public void writesRowsAsTabSeparatedLines() throws Exception {
+        LocalDataSource source = LocalDataSource.fromRows(Arrays.asList(
+                new Object[]{1, "plain"},
+                new Object[]{2, null}
+        ).iterator());
+
+        Assert.assertEquals(readAll(source, 1024), "1\tplain\n2\t\\N\n");
+    }
+
+    @Test
+    public void escapesSpecialCharacters() throws Exception {
+        LocalDataSource source = LocalDataSource.fromRows(Arrays.<Object[]>asList(
+                new Object[]{"tab\there", "line\nbreak", "back\\slash", "nul\0"}
+        ).iterator());
+
+        Assert.assertEquals(readAll(source, 1024), "tab\\there\tline\\nbreak\tback\\\\slash\tnul\\0\n");
+    }
+
+    @Test
+    public void splitsRowsAcrossPackets() throws Exception {
+        LocalDataSource source = LocalDataSource.fromRows(Arrays.asList(
+                new Object[]{"first row"},
+                new Object[]{"second row"}
+        ).iterator());
+
+        Assert.assertEquals(readAll(source, 3), "first row\nsecond row\n");
+    }
+
+    @Test
+    public void readsChannelUntilEnd() throws Exception {
+        byte[] data = "1,2,3\n".getBytes("UTF-8");
+        LocalDataSource source = LocalDataSource.fromChannel(Channels.newChannel(new ByteArrayInputStream(data)));
+
+        Assert.assertEquals(readAll(source, 4), "1,2,3\n");
+    }
+
+    private static String readAll(LocalDataSource source, int packetSize) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(packetSize);
+        boolean moreData = true;
+        while (moreData) {
+            buffer.clear();
+            moreData = source.fill(buffer);
+            result.write(buffer.array(), 0, buffer.position());
+        }
+        return result.toString("UTF-8");
+    }
+}
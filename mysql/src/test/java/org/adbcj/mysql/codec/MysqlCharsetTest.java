@@ -17,13 +17,40 @@
 package org.adbcj.mysql.codec;
 
 import org.adbcj.mysql.codec.MysqlCharacterSet;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.UnsupportedEncodingException;
+
 public class MysqlCharsetTest {
 
 	@Test
 	public void testCharset() {
 		MysqlCharacterSet.findById(0);
 	}
+
+	@Test
+	public void findsCharsetsAboveByteRange() {
+		Assert.assertEquals(MysqlCharacterSet.findById(33), MysqlCharacterSet.UTF8_GENERAL_CI);
+		Assert.assertEquals(MysqlCharacterSet.findById(192), MysqlCharacterSet.UTF8_UNICODE_CI);
+		Assert.assertEquals(MysqlCharacterSet.findById(210), MysqlCharacterSet.UTF8_HUNGARIAN_CI);
+		Assert.assertNull(MysqlCharacterSet.findById(255));
+		Assert.assertNull(MysqlCharacterSet.findById(256));
+	}
+
+	@Test
+	public void decodeText() throws UnsupportedEncodingException {
+		byte[] text = "xAscii and \u00fcml\u00e4ute".getBytes("UTF-8");
+		Assert.assertEquals(MysqlCharacterSet.UTF8_GENERAL_CI.decode(text, 1, 5), "Ascii");
+		Assert.assertEquals(MysqlCharacterSet.UTF8_GENERAL_CI.decode(text, 1, text.length - 1),
+				"Ascii and \u00fcml\u00e4ute");
+
+		byte[] latin1 = "\u00fcml\u00e4ute".getBytes("ISO-8859-1");
+		Assert.assertEquals(MysqlCharacterSet.LATIN1_SWEDISH_CI.decode(latin1, 0, latin1.length), "\u00fcml\u00e4ute");
+
+		// UCS2 text is not ASCII, even when every byte is
+		byte[] ucs2 = "ab".getBytes("UTF-16BE");
+		Assert.assertEquals(MysqlCharacterSet.UCS2_GENERAL_CI.decode(ucs2, 0, ucs2.length), "ab");
+	}
 	
 }
@@ -1,14 +1,14 @@
 package org.adbcj.mysql.codec;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.adbcj.mysql.codec.decoding.ExpectOK;
 import org.adbcj.mysql.codec.packets.OkResponse;
 import org.adbcj.support.DefaultDbFuture;
 import org.adbcj.support.stacktracing.StackTracingOptions;
 import org.testng.annotations.Test;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.EnumSet;
 
 import static org.testng.Assert.assertEquals;
@@ -30,7 +30,7 @@ public class OkResponseDecodeTest {
 
 	@Test
 	public void okRepsonseWithMessage() throws Exception {
-		InputStream in = new ByteArrayInputStream(OK_RESPONSE_WITH_MESSAGE);
+		ByteBuf in = Unpooled.wrappedBuffer(OK_RESPONSE_WITH_MESSAGE);
         MySqlClientDecoder decoder = new MySqlClientDecoder(new ExpectOK<Void>(
                 new DefaultDbFuture<Void>(StackTracingOptions.GLOBAL_DEFAULT), null));
         OkResponse.RegularOK response = castToOk(in, decoder);
@@ -55,7 +55,7 @@ public class OkResponseDecodeTest {
 
 	@Test
 	public void okResponseOneAffectedRow() throws Exception {
-		InputStream in = new ByteArrayInputStream(OK_RESPONSE_ONE_AFFECTED_ROW);
+		ByteBuf in = Unpooled.wrappedBuffer(OK_RESPONSE_ONE_AFFECTED_ROW);
 		MySqlClientDecoder decoder = new MySqlClientDecoder(new ExpectOK<Void>(
                 new DefaultDbFuture<Void>(StackTracingOptions.FORCED_BY_INSTANCE), null));
         OkResponse.RegularOK response = castToOk(in, decoder);
@@ -67,8 +67,8 @@ public class OkResponseDecodeTest {
 		assertEquals(response.getMessage(), "");
 	}
 
-    private OkResponse.RegularOK castToOk(InputStream in, MySqlClientDecoder decoder) throws IOException {
-        return (OkResponse.RegularOK)decoder.decode(in, null, true);
+    private OkResponse.RegularOK castToOk(ByteBuf in, MySqlClientDecoder decoder) throws IOException {
+        return (OkResponse.RegularOK)decoder.decode(in, null);
     }
 
 }
@@ -0,0 +1,424 @@
+package org.adbcj.mysql.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.adbcj.AbstractResultHandler;
+import org.adbcj.PrimitiveResultHandler;
+import org.adbcj.ResultHandler;
+import org.adbcj.Value;
+import org.adbcj.mysql.codec.decoding.Row;
+import org.adbcj.support.DefaultDbFuture;
+import org.adbcj.support.DefaultResultEventsHandler;
+import org.adbcj.support.DefaultResultSet;
+import org.adbcj.support.DefaultRow;
+import org.adbcj.support.stacktracing.StackTracingOptions;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class RowDecodeTest {
+    private static final List<String> EXPECTED_ROW = Arrays.asList(
+            "startRow", "int:0=42", "long:1=42", "double:2=42.42", "bytes:3=4242", "null:4", "endRow");
+
+    @Test
+    public void binaryRowToPrimitives() throws Exception {
+        List<String> events = new ArrayList<String>();
+        decode(Row.RowDecodingType.BINARY, binaryRow(), new RecordingHandler(), events, false);
+        Assert.assertEquals(events, EXPECTED_ROW);
+    }
+
+    @Test
+    public void textRowToPrimitives() throws Exception {
+        List<String> events = new ArrayList<String>();
+        decode(Row.RowDecodingType.STRING_BASED, textRow(), new RecordingHandler(), events, false);
+        Assert.assertEquals(events, EXPECTED_ROW);
+    }
+
+    @Test
+    public void lazyBinaryRow() throws Exception {
+        assertLazyRowIsLikeEagerRow(Row.RowDecodingType.BINARY, binaryRow());
+    }
+
+    @Test
+    public void lazyTextRow() throws Exception {
+        assertLazyRowIsLikeEagerRow(Row.RowDecodingType.STRING_BASED, textRow());
+    }
+
+    @Test
+    public void errorInPlaceOfRowEndsResult() throws Exception {
+        ByteArrayOutputStream error = new ByteArrayOutputStream();
+        error.write(0xff);
+        IoUtils.writeShort(error, 1317);
+        error.write('#');
+        error.write("70100Query execution was interrupted".getBytes("UTF8"));
+        error.write(0);
+        List<String> events = new ArrayList<String>();
+        DefaultDbFuture<List<String>> future = new DefaultDbFuture<List<String>>(StackTracingOptions.GLOBAL_DEFAULT);
+        MySqlClientDecoder decoder = decoder(Row.RowDecodingType.STRING_BASED, new RecordingHandler(), events, future, false);
+
+        decoder.decode(Unpooled.wrappedBuffer(packet(textRow())), null);
+        decoder.decode(Unpooled.wrappedBuffer(packet(error.toByteArray())), null);
+
+        Assert.assertEquals(events.subList(0, EXPECTED_ROW.size()), EXPECTED_ROW);
+        Assert.assertEquals(events.size(), EXPECTED_ROW.size() + 1);
+        Assert.assertTrue(events.get(EXPECTED_ROW.size()).startsWith("exception:"));
+        Assert.assertTrue(future.getException() instanceof MysqlException);
+    }
+
+    @Test
+    public void decodesOnlyCompletePackets() throws Exception {
+        List<String> events = new ArrayList<String>();
+        MySqlClientDecoder decoder = decoder(Row.RowDecodingType.STRING_BASED, new RecordingHandler(), events,
+                new DefaultDbFuture<List<String>>(StackTracingOptions.GLOBAL_DEFAULT), false);
+        byte[] packet = packet(textRow());
+        ByteBuf received = Unpooled.buffer();
+        received.writeBytes(packet, 0, 3);
+        Assert.assertNull(decoder.decode(received, null));
+        Assert.assertEquals(received.readerIndex(), 0);
+
+        received.writeBytes(packet, 3, packet.length - 4);
+        Assert.assertNull(decoder.decode(received, null));
+        Assert.assertEquals(received.readerIndex(), 0);
+        Assert.assertTrue(events.isEmpty());
+
+        received.writeBytes(packet, packet.length - 1, 1);
+        received.writeBytes(packet);
+        Assert.assertNotNull(decoder.decode(received, null));
+        Assert.assertEquals(received.readerIndex(), packet.length);
+        Assert.assertEquals(received.writerIndex(), 2 * packet.length);
+        Assert.assertNotNull(decoder.decode(received, null));
+        Assert.assertFalse(received.isReadable());
+        Assert.assertEquals(events.size(), 2 * EXPECTED_ROW.size());
+    }
+
+    @Test
+    public void repeatedTextStringsShareOneInstance() throws Exception {
+        assertRepeatedStringsShareOneInstance(Row.RowDecodingType.STRING_BASED, textRow());
+    }
+
+    @Test
+    public void repeatedBinaryStringsShareOneInstance() throws Exception {
+        assertRepeatedStringsShareOneInstance(Row.RowDecodingType.BINARY, binaryRow());
+    }
+
+    @Test
+    public void textIsDecodedWithTheCharsetOfTheColumn() throws Exception {
+        MysqlField latin1 = new MysqlField(0, "catalog", "schema", "table", "table", MysqlType.VAR_STRING,
+                "column0", "column0", 0, 0, MysqlCharacterSet.LATIN1_SWEDISH_CI, 0,
+                EnumSet.noneOf(FieldFlag.class), 0);
+        MysqlField binary = new MysqlField(1, "catalog", "schema", "table", "table", MysqlType.BLOB,
+                "column1", "column1", 0, 0, MysqlCharacterSet.BINARY, 0,
+                EnumSet.noneOf(FieldFlag.class), 0);
+        ByteArrayOutputStream row = new ByteArrayOutputStream();
+        IoUtils.writeLengthCodedString(row, "\u00fcml\u00e4ute", "ISO-8859-1");
+        IoUtils.writeLengthCodedString(row, "\u00fcml\u00e4ute", "UTF8");
+        for (boolean lazy : new boolean[]{false, true}) {
+            DefaultResultSet result = new DefaultResultSet();
+            MySqlClientDecoder decoder = decoder(Row.RowDecodingType.STRING_BASED, Arrays.asList(latin1, binary),
+                    new DefaultResultEventsHandler(), result,
+                    new DefaultDbFuture<DefaultResultSet>(StackTracingOptions.GLOBAL_DEFAULT), lazy, false);
+            decoder.decode(Unpooled.wrappedBuffer(packet(row.toByteArray())), null);
+
+            Value[] values = ((DefaultRow) result.get(0)).getValues();
+            Assert.assertEquals(values[0].getString(), "\u00fcml\u00e4ute");
+            Assert.assertEquals(values[1].getString(), "\u00fcml\u00e4ute");
+        }
+    }
+
+    @Test
+    public void wideBinaryRowsAreDecodedWithoutAllocating() throws Exception {
+        if (!(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean)) {
+            return;
+        }
+        final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        final MysqlType[] types = {MysqlType.LONG, MysqlType.LONGLONG, MysqlType.DOUBLE};
+        List<MysqlField> fields = new ArrayList<MysqlField>();
+        for (int i = 0; i < 64; i++) {
+            fields.add(field(i, types[i % types.length]));
+        }
+        long[] sum = new long[1];
+        MySqlClientDecoder decoder = new MySqlClientDecoder(new Row<long[]>(Row.RowDecodingType.BINARY,
+                fields,
+                new DefaultDbFuture<long[]>(StackTracingOptions.GLOBAL_DEFAULT),
+                null,
+                new SummingHandler(),
+                sum,
+                false,
+                false));
+        final int rows = 10000;
+        final byte[] packet = packet(wideBinaryRow(fields));
+        ByteBuf packets = Unpooled.buffer(rows * packet.length);
+        for (int i = 0; i < rows; i++) {
+            packets.writeBytes(packet);
+        }
+
+        decodeAll(decoder, packets);
+        final long threadId = Thread.currentThread().getId();
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        decodeAll(decoder, packets);
+        final long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        Assert.assertEquals(sum[0], 2 * rows * expectedSum(fields));
+        Assert.assertTrue(allocated < rows, "Allocated " + allocated + " bytes for " + rows + " rows");
+    }
+
+    private static void decodeAll(MySqlClientDecoder decoder, ByteBuf packets) throws Exception {
+        packets.readerIndex(0);
+        while (packets.isReadable()) {
+            decoder.decode(packets, null);
+        }
+    }
+
+    /**
+     * Every column has its index as value, every seventh column is null
+     */
+    private static byte[] wideBinaryRow(List<MysqlField> fields) throws Exception {
+        ByteArrayOutputStream row = new ByteArrayOutputStream();
+        row.write(0x00); // packet header
+        byte[] nullBits = new byte[(fields.size() + 7 + 2) / 8];
+        for (MysqlField field : fields) {
+            if (isNullInWideRow(field)) {
+                final int bit = field.getIndex() + 2;
+                nullBits[bit / 8] |= 1 << (bit % 8);
+            }
+        }
+        row.write(nullBits);
+        for (MysqlField field : fields) {
+            if (isNullInWideRow(field)) {
+                continue;
+            }
+            switch (field.getMysqlType()) {
+                case LONG:
+                    IoUtils.writeInt(row, field.getIndex());
+                    break;
+                case LONGLONG:
+                    IoUtils.writeLong(row, field.getIndex(), 8);
+                    break;
+                default:
+                    IoUtils.writeLong(row, Double.doubleToLongBits(field.getIndex()), 8);
+            }
+        }
+        return row.toByteArray();
+    }
+
+    private static long expectedSum(List<MysqlField> fields) {
+        long sum = 0;
+        for (MysqlField field : fields) {
+            if (!isNullInWideRow(field)) {
+                sum += field.getIndex();
+            }
+        }
+        return sum;
+    }
+
+    private static boolean isNullInWideRow(MysqlField field) {
+        return field.getIndex() % 7 == 6;
+    }
+
+    private void assertRepeatedStringsShareOneInstance(Row.RowDecodingType decoding, byte[] rowContent)
+            throws Exception {
+        List<MysqlField> fields = Arrays.asList(field(0, MysqlType.LONG), field(1, MysqlType.LONGLONG),
+                field(2, MysqlType.DOUBLE), field(3, MysqlType.VAR_STRING), field(4, MysqlType.LONG));
+        DefaultResultSet deduplicated = new DefaultResultSet();
+        MySqlClientDecoder decoder = decoder(decoding, fields, new DefaultResultEventsHandler(), deduplicated,
+                new DefaultDbFuture<DefaultResultSet>(StackTracingOptions.GLOBAL_DEFAULT), false, true);
+        decoder.decode(Unpooled.wrappedBuffer(packet(rowContent)), null);
+        decoder.decode(Unpooled.wrappedBuffer(packet(rowContent)), null);
+
+        Value[] first = ((DefaultRow) deduplicated.get(0)).getValues();
+        Value[] second = ((DefaultRow) deduplicated.get(1)).getValues();
+        Assert.assertEquals(first[3].getValue(), "4242");
+        Assert.assertSame(second[3].getValue(), first[3].getValue());
+        Assert.assertEquals(second[0].getValue(), first[0].getValue());
+
+        DefaultResultSet decoded = new DefaultResultSet();
+        decoder = decoder(decoding, fields, new DefaultResultEventsHandler(), decoded,
+                new DefaultDbFuture<DefaultResultSet>(StackTracingOptions.GLOBAL_DEFAULT), false, false);
+        decoder.decode(Unpooled.wrappedBuffer(packet(rowContent)), null);
+        decoder.decode(Unpooled.wrappedBuffer(packet(rowContent)), null);
+        Assert.assertNotSame(((DefaultRow) decoded.get(1)).getValues()[3].getValue(),
+                ((DefaultRow) decoded.get(0)).getValues()[3].getValue());
+    }
+
+    private void assertLazyRowIsLikeEagerRow(Row.RowDecodingType decoding, byte[] rowContent) throws Exception {
+        DefaultResultSet eager = new DefaultResultSet();
+        decode(decoding, rowContent, new DefaultResultEventsHandler(), eager, false);
+        DefaultResultSet lazy = new DefaultResultSet();
+        decode(decoding, rowContent, new DefaultResultEventsHandler(), lazy, true);
+
+        Assert.assertEquals(lazy.size(), 1);
+        Value[] expected = ((DefaultRow) eager.get(0)).getValues();
+        Value[] actual = ((DefaultRow) lazy.get(0)).getValues();
+        Assert.assertEquals(actual[0].getInt(), 42);
+        Assert.assertEquals(actual[1].getLong(), 42L);
+        Assert.assertEquals(actual[2].getDouble(), 42.42);
+        Assert.assertEquals(actual[3].getString(), "4242");
+        Assert.assertTrue(actual[4].isNull());
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(actual[i].isNull(), expected[i].isNull());
+            Assert.assertEquals(actual[i].getValue(), expected[i].getValue());
+            Assert.assertEquals(actual[i].getString(), expected[i].getString());
+            Assert.assertEquals(actual[i].getLong(), expected[i].getLong());
+        }
+    }
+
+    private static byte[] binaryRow() throws Exception {
+        ByteArrayOutputStream row = new ByteArrayOutputStream();
+        row.write(0x00); // packet header
+        row.write(0x40); // null bitmap, the fifth column is null
+        IoUtils.writeInt(row, 42);
+        IoUtils.writeLong(row, 42L, 8);
+        IoUtils.writeLong(row, Double.doubleToLongBits(42.42), 8);
+        IoUtils.writeLengthCodedString(row, "4242", "UTF8");
+        return row.toByteArray();
+    }
+
+    private static byte[] textRow() throws Exception {
+        ByteArrayOutputStream row = new ByteArrayOutputStream();
+        IoUtils.writeLengthCodedString(row, "42", "UTF8");
+        IoUtils.writeLengthCodedString(row, "42", "UTF8");
+        IoUtils.writeLengthCodedString(row, "42.42", "UTF8");
+        IoUtils.writeLengthCodedString(row, "4242", "UTF8");
+        IoUtils.writeLengthCodedString(row, null, "UTF8");
+        return row.toByteArray();
+    }
+
+    private <T> void decode(Row.RowDecodingType decoding, byte[] rowContent,
+                            ResultHandler<T> handler, T accumulator, boolean lazy) throws Exception {
+        MySqlClientDecoder decoder = decoder(decoding, handler, accumulator,
+                new DefaultDbFuture<T>(StackTracingOptions.GLOBAL_DEFAULT), lazy);
+        decoder.decode(Unpooled.wrappedBuffer(packet(rowContent)), null);
+    }
+
+    private static byte[] packet(byte[] content) throws Exception {
+        ByteArrayOutputStream packet = new ByteArrayOutputStream();
+        IoUtils.writeLong(packet, content.length, 3);
+        packet.write(1);
+        packet.write(content);
+        return packet.toByteArray();
+    }
+
+    private <T> MySqlClientDecoder decoder(Row.RowDecodingType decoding, ResultHandler<T> handler, T accumulator,
+                                           DefaultDbFuture<T> future, boolean lazy) {
+        List<MysqlField> fields = Arrays.asList(field(0, MysqlType.LONG), field(1, MysqlType.LONGLONG),
+                field(2, MysqlType.DOUBLE), field(3, MysqlType.VAR_STRING), field(4, MysqlType.LONG));
+        return decoder(decoding, fields, handler, accumulator, future, lazy, false);
+    }
+
+    private <T> MySqlClientDecoder decoder(Row.RowDecodingType decoding, List<MysqlField> fields,
+                                           ResultHandler<T> handler, T accumulator,
+                                           DefaultDbFuture<T> future, boolean lazy, boolean deduplicate) {
+        if (accumulator instanceof DefaultResultSet) {
+            for (MysqlField field : fields) {
+                handler.field(field, accumulator);
+            }
+        }
+        return new MySqlClientDecoder(new Row<T>(decoding,
+                fields,
+                future,
+                null,
+                handler,
+                accumulator,
+                lazy,
+                deduplicate));
+    }
+
+    private static MysqlField field(int index, MysqlType type) {
+        return new MysqlField(index, "catalog", "schema", "table", "table", type, "column" + index, "column" + index,
+                0, 0, null, 0, EnumSet.noneOf(FieldFlag.class), 0);
+    }
+
+    static class SummingHandler extends AbstractResultHandler<long[]> implements PrimitiveResultHandler<long[]> {
+        @Override
+        public void intValue(int column, int value, long[] accumulator) {
+            accumulator[0] += value;
+        }
+
+        @Override
+        public void longValue(int column, long value, long[] accumulator) {
+            accumulator[0] += value;
+        }
+
+        @Override
+        public void doubleValue(int column, double value, long[] accumulator) {
+            accumulator[0] += (long) value;
+        }
+
+        @Override
+        public void nullValue(int column, long[] accumulator) {
+        }
+
+        @Override
+        public void bytesValue(int column, ByteBuffer value, long[] accumulator) {
+        }
+
+        @Override
+        public void exception(Throwable t, long[] accumulator) {
+        }
+    }
+
+    static class RecordingHandler extends AbstractResultHandler<List<String>>
+            implements PrimitiveResultHandler<List<String>> {
+        @Override
+        public void startRow(List<String> accumulator) {
+            accumulator.add("startRow");
+        }
+
+        @Override
+        public void endRow(List<String> accumulator) {
+            accumulator.add("endRow");
+        }
+
+        @Override
+        public void intValue(int column, int value, List<String> accumulator) {
+            accumulator.add("int:" + column + "=" + value);
+        }
+
+        @Override
+        public void longValue(int column, long value, List<String> accumulator) {
+            accumulator.add("long:" + column + "=" + value);
+        }
+
+        @Override
+        public void doubleValue(int column, double value, List<String> accumulator) {
+            accumulator.add("double:" + column + "=" + value);
+        }
+
+        @Override
+        public void nullValue(int column, List<String> accumulator) {
+            accumulator.add("null:" + column);
+        }
+
+        @Override
+        public void bytesValue(int column, ByteBuffer value, List<String> accumulator) {
+            accumulator.add("bytes:" + column + "=" + Charset.forName("UTF-8").decode(value));
+        }
+
+        @Override
+        public void value(Value value, List<String> accumulator) {
+            accumulator.add("value:" + value);
+        }
+
+        @Override
+        public void exception(Throwable t, List<String> accumulator) {
+            accumulator.add("exception:" + t.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.adbcj.netty;
+
+import io.netty.channel.Channel;
+import org.adbcj.support.ReadFlowControl;
+
+/**
+ * Stops reading from the socket by turning off the auto read of the channel.
+ * The TCP receive window then fills up and the database stops sending.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class AutoReadFlowControl implements ReadFlowControl {
+    private final Channel channel;
+
+    public AutoReadFlowControl(Channel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void pauseReading() {
+        channel.config().setAutoRead(false);
+    }
+
+    @Override
+    public void resumeReading() {
+        channel.config().setAutoRead(true);
+    }
+}
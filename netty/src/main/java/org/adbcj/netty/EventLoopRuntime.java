@@ -0,0 +1,403 @@
+package org.adbcj.netty;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.adbcj.StandardProperties;
+import org.adbcj.support.DeadlineTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The I/O threads, buffer allocator and deadline timer of the Netty based connection managers.
+ *
+ * By default each connection manager has a dedicated runtime, which it shuts down when it is closed.
+ * With many connection managers in one JVM, for example one per tenant, that adds up to a lot of threads.
+ * Then create one runtime and pass it to the connection managers, or {@link #register} it and
+ * refer to it by name with {@link StandardProperties#EVENT_LOOP_RUNTIME}.
+ * A runtime which is not dedicated to one manager has to be shut down by its creator.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class EventLoopRuntime {
+    private static final Logger logger = LoggerFactory.getLogger(EventLoopRuntime.class);
+    private static final String EPOLL_EVENT_LOOP_GROUP = "io.netty.channel.epoll.EpollEventLoopGroup";
+    private static final String EPOLL_SOCKET_CHANNEL = "io.netty.channel.epoll.EpollSocketChannel";
+    private static final ConcurrentHashMap<String, EventLoopRuntime> registered
+            = new ConcurrentHashMap<String, EventLoopRuntime>();
+
+    private static final class SharedInstance {
+        static final EventLoopRuntime INSTANCE = builder().threadNamePrefix("adbcj-shared-io").daemonThreads(true).build();
+    }
+
+    public enum Transport {
+        /**
+         * Java NIO sockets. On Linux the JDK selector is based on epoll already.
+         */
+        NIO,
+        /**
+         * The native epoll transport of Netty, which avoids the overhead of the JDK selector.
+         * Falls back to {@link #NIO} when it is not on the class path or not supported by the platform.
+         */
+        EPOLL
+    }
+
+    private final EventLoopGroup eventLoopGroup;
+    private final Class<? extends Channel> channelType;
+    private final Transport transport;
+    private final ByteBufAllocator allocator;
+    private final DeadlineTimer deadlineTimer;
+    private final int receiveBufferSize;
+    private final int sendBufferSize;
+    private final boolean dedicated;
+
+    private EventLoopRuntime(Builder builder, boolean dedicated) {
+        this.allocator = builder.allocator;
+        this.deadlineTimer = builder.deadlineTimer;
+        this.receiveBufferSize = builder.receiveBufferSize;
+        this.sendBufferSize = builder.sendBufferSize;
+        this.dedicated = dedicated;
+        final ThreadFactory threads = new IoThreadFactory(builder.threadNamePrefix, builder.daemonThreads);
+        final EventLoopGroup epollGroup = Transport.EPOLL == builder.transport
+                ? tryCreateEpollGroup(builder.threads, threads) : null;
+        if (null != epollGroup) {
+            this.eventLoopGroup = epollGroup;
+            this.channelType = loadEpollChannel();
+            this.transport = Transport.EPOLL;
+        } else {
+            this.eventLoopGroup = new NioEventLoopGroup(builder.threads, threads);
+            this.channelType = NioSocketChannel.class;
+            this.transport = Transport.NIO;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the runtime with the default settings, shared by all connection managers
+     * which ask for the 'shared' {@link StandardProperties#EVENT_LOOP_RUNTIME}. Its threads are daemon threads
+     * and live as long as the JVM.
+     */
+    public static EventLoopRuntime shared() {
+        return SharedInstance.INSTANCE;
+    }
+
+    /**
+     * Makes the runtime available to connection managers created with the name as {@link StandardProperties#EVENT_LOOP_RUNTIME}
+     */
+    public static void register(String name, EventLoopRuntime runtime) {
+        if (null == name || name.equalsIgnoreCase("dedicated") || name.equalsIgnoreCase("shared")) {
+            throw new IllegalArgumentException("The name '" + name + "' is reserved");
+        }
+        if (null != registered.putIfAbsent(name, runtime)) {
+            throw new IllegalArgumentException("A runtime with the name '" + name + "' is already registered");
+        }
+    }
+
+    /**
+     * Connection managers created afterwards cannot use the runtime by name any more.
+     * Managers which use it already keep it.
+     *
+     * @return the runtime which was registered with the name, or null
+     */
+    public static EventLoopRuntime unregister(String name) {
+        return registered.remove(name);
+    }
+
+    /**
+     * @return the runtime for a new connection manager, as chosen by {@link StandardProperties#EVENT_LOOP_RUNTIME}
+     */
+    public static EventLoopRuntime forManager(Map<String, String> properties) {
+        final String name = properties.get(StandardProperties.EVENT_LOOP_RUNTIME);
+        if (null == name || name.equalsIgnoreCase("dedicated")) {
+            return dedicated(properties);
+        }
+        if (name.equalsIgnoreCase("shared")) {
+            return shared();
+        }
+        final EventLoopRuntime runtime = registered.get(name);
+        if (null == runtime) {
+            throw new IllegalArgumentException("The property " + StandardProperties.EVENT_LOOP_RUNTIME
+                    + " has to be 'dedicated', 'shared' or the name of a registered runtime. Got: " + name);
+        }
+        return runtime;
+    }
+
+    private static EventLoopRuntime dedicated(Map<String, String> properties) {
+        final Builder builder = builder()
+                .threads(readNumber(properties, StandardProperties.EVENT_LOOP_THREADS, 0))
+                .receiveBufferSize(readNumber(properties, StandardProperties.SOCKET_RECEIVE_BUFFER, 0))
+                .sendBufferSize(readNumber(properties, StandardProperties.SOCKET_SEND_BUFFER, 0));
+        final String transport = properties.get(StandardProperties.EVENT_LOOP_TRANSPORT);
+        if (null != transport) {
+            try {
+                builder.transport(Transport.valueOf(transport.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("The property " + StandardProperties.EVENT_LOOP_TRANSPORT
+                        + " has to be 'nio' or 'epoll', but was " + transport);
+            }
+        }
+        return new EventLoopRuntime(builder, true);
+    }
+
+    /**
+     * @return a bootstrap for connections served by this runtime, with TCP_NODELAY and SO_KEEPALIVE set
+     */
+    public Bootstrap newBootstrap() {
+        return bootstrapFor(eventLoopGroup);
+    }
+
+    private Bootstrap bootstrapFor(EventLoopGroup group) {
+        final Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(channelType)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true);
+        if (null != allocator) {
+            bootstrap.option(ChannelOption.ALLOCATOR, allocator);
+        }
+        if (receiveBufferSize > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, receiveBufferSize);
+        }
+        if (sendBufferSize > 0) {
+            bootstrap.option(ChannelOption.SO_SNDBUF, sendBufferSize);
+        }
+        return bootstrap;
+    }
+
+    public EventLoopGroup eventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    /**
+     * @return the event loop of the calling thread if it is one of this runtime's I/O threads, otherwise null
+     */
+    public EventLoop currentEventLoop() {
+        final SingleThreadEventExecutor current = SingleThreadEventExecutor.currentEventLoop();
+        if (current instanceof EventLoop && current.parent() == eventLoopGroup) {
+            return (EventLoop) current;
+        }
+        return null;
+    }
+
+    /**
+     * @return a bootstrap for connections served by the given event loop of this runtime
+     */
+    public Bootstrap newBootstrap(EventLoop eventLoop) {
+        if (eventLoop.parent() != eventLoopGroup) {
+            throw new IllegalArgumentException("The event loop " + eventLoop + " does not belong to this runtime");
+        }
+        return bootstrapFor(eventLoop);
+    }
+
+    /**
+     * @return the transport in use, which is {@link Transport#NIO} when epoll was asked for but is not available
+     */
+    public Transport transport() {
+        return transport;
+    }
+
+    /**
+     * @return the allocator of the connection buffers, null for the Netty default
+     */
+    public ByteBufAllocator allocator() {
+        return allocator;
+    }
+
+    public DeadlineTimer deadlineTimer() {
+        return deadlineTimer;
+    }
+
+    /**
+     * @return true if this runtime belongs to a single connection manager, which shuts it down
+     */
+    public boolean isDedicated() {
+        return dedicated;
+    }
+
+    /**
+     * Called by a connection manager which is closed. Shuts down a dedicated runtime, but leaves a shared one running.
+     */
+    public void release() {
+        if (dedicated) {
+            shutdown();
+        }
+    }
+
+    /**
+     * Stops the I/O threads. The connections of all connection managers using this runtime have to be closed before.
+     */
+    public void shutdown() {
+        if (this == SharedInstance.INSTANCE) {
+            throw new IllegalStateException("The shared runtime cannot be shut down");
+        }
+        eventLoopGroup.shutdown();
+    }
+
+    public boolean isShutdown() {
+        return eventLoopGroup.isShutdown();
+    }
+
+    private static EventLoopGroup tryCreateEpollGroup(int threads, ThreadFactory threadFactory) {
+        try {
+            return (EventLoopGroup) Class.forName(EPOLL_EVENT_LOOP_GROUP)
+                    .getConstructor(int.class, ThreadFactory.class)
+                    .newInstance(threads, threadFactory);
+        } catch (ClassNotFoundException e) {
+            logger.warn("The epoll transport is not on the class path, using NIO instead");
+        } catch (Exception e) {
+            logger.warn("The epoll transport is not available, using NIO instead", e);
+        } catch (LinkageError e) {
+            logger.warn("The epoll transport is not available, using NIO instead", e);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Channel> loadEpollChannel() {
+        try {
+            return (Class<? extends Channel>) Class.forName(EPOLL_SOCKET_CHANNEL);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Found the epoll event loop, but not its channel " + EPOLL_SOCKET_CHANNEL, e);
+        }
+    }
+
+    private static int readNumber(Map<String, String> properties, String property, int defaultValue) {
+        final String value = properties.get(property);
+        if (null == value) {
+            return defaultValue;
+        }
+        try {
+            final int number = Integer.parseInt(value.trim());
+            if (number < 0) {
+                throw new IllegalArgumentException("The property " + property + " cannot be negative, but was " + value);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The property " + property + " has to be a number, but was " + value);
+        }
+    }
+
+    public static final class Builder {
+        private int threads = 0;
+        private Transport transport = Transport.NIO;
+        private ByteBufAllocator allocator = null;
+        private DeadlineTimer deadlineTimer = DeadlineTimer.shared();
+        private int receiveBufferSize = 0;
+        private int sendBufferSize = 0;
+        private String threadNamePrefix = "adbcj-io";
+        private boolean daemonThreads = false;
+
+        private Builder() {
+        }
+
+        /**
+         * @param threads the number of I/O threads, 0 for twice the number of processors
+         */
+        public Builder threads(int threads) {
+            if (threads < 0) {
+                throw new IllegalArgumentException("The number of threads cannot be negative, but was " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder transport(Transport transport) {
+            if (null == transport) {
+                throw new IllegalArgumentException("The transport cannot be null");
+            }
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * @param allocator for the connection buffers, null for the Netty default
+         */
+        public Builder allocator(ByteBufAllocator allocator) {
+            this.allocator = allocator;
+            return this;
+        }
+
+        public Builder deadlineTimer(DeadlineTimer deadlineTimer) {
+            if (null == deadlineTimer) {
+                throw new IllegalArgumentException("The deadline timer cannot be null");
+            }
+            this.deadlineTimer = deadlineTimer;
+            return this;
+        }
+
+        /**
+         * @param bytes SO_RCVBUF of the connections, 0 to let the operating system decide
+         */
+        public Builder receiveBufferSize(int bytes) {
+            if (bytes < 0) {
+                throw new IllegalArgumentException("The receive buffer size cannot be negative, but was " + bytes);
+            }
+            this.receiveBufferSize = bytes;
+            return this;
+        }
+
+        /**
+         * @param bytes SO_SNDBUF of the connections, 0 to let the operating system decide
+         */
+        public Builder sendBufferSize(int bytes) {
+            if (bytes < 0) {
+                throw new IllegalArgumentException("The send buffer size cannot be negative, but was " + bytes);
+            }
+            this.sendBufferSize = bytes;
+            return this;
+        }
+
+        public Builder threadNamePrefix(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+            return this;
+        }
+
+        /**
+         * @param daemonThreads true if the I/O threads should not keep the JVM alive
+         */
+        public Builder daemonThreads(boolean daemonThreads) {
+            this.daemonThreads = daemonThreads;
+            return this;
+        }
+
+        /**
+         * @return a runtime which can be shared by connection managers. Shut it down once they are closed.
+         */
+        public EventLoopRuntime build() {
+            return new EventLoopRuntime(this, false);
+        }
+    }
+
+    private static final class IoThreadFactory implements ThreadFactory {
+        private static final AtomicInteger poolCounter = new AtomicInteger();
+        private final AtomicInteger threadCounter = new AtomicInteger();
+        private final String prefix;
+        private final boolean daemon;
+
+        IoThreadFactory(String prefix, boolean daemon) {
+            this.prefix = prefix + "-" + poolCounter.incrementAndGet() + "-";
+            this.daemon = daemon;
+        }
+
+        @Override
+        public Thread newThread(Runnable task) {
+            final Thread thread = new Thread(task, prefix + threadCounter.incrementAndGet());
+            thread.setDaemon(daemon);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.adbcj.netty;
+
+import io.netty.buffer.MessageBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import org.adbcj.support.CoalescingPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the requests of a connection, so that requests written close together are encoded into one buffer
+ * and flushed with a single write to the socket. Without it every pipelined request costs a flush and a system call.
+ *
+ * The requests are flushed as the {@link CoalescingPolicy} says: at the end of the event loop tick, after a delay,
+ * or once they add up to the max bytes. Between {@link #beginBatch()} and {@link #endBatch()} they are held
+ * until the batch ends, unless they reach the max bytes.
+ *
+ * The requests are flushed in the order they were written.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public final class WriteCoalescer {
+    private final Channel channel;
+    private final CoalescingPolicy policy;
+    private final Object lock = new Object();
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+    private List<Object> pending = new ArrayList<Object>();
+    private int pendingBytes = 0;
+    private ChannelPromise pendingFlushed = null;
+    private boolean flushScheduled = false;
+    private int batchDepth = 0;
+
+    public WriteCoalescer(Channel channel, CoalescingPolicy policy) {
+        this.channel = channel;
+        this.policy = policy;
+    }
+
+    /**
+     * @param message the request, for the encoder of the channel
+     * @param bytes about the size of the encoded request
+     * @return future which completes once the request was flushed
+     */
+    public ChannelFuture write(Object message, int bytes) {
+        if (!policy.isEnabled()) {
+            return channel.write(message);
+        }
+        final ChannelFuture flushed;
+        final boolean full;
+        final boolean scheduleFlush;
+        synchronized (lock) {
+            pending.add(message);
+            pendingBytes += bytes;
+            if (null == pendingFlushed) {
+                pendingFlushed = channel.newPromise();
+            }
+            flushed = pendingFlushed;
+            full = pendingBytes >= policy.maxBytes();
+            scheduleFlush = !full && 0 == batchDepth && !flushScheduled;
+            if (scheduleFlush) {
+                flushScheduled = true;
+            }
+        }
+        if (full) {
+            flushNow();
+        } else if (scheduleFlush) {
+            final EventLoop eventLoop = channel.eventLoop();
+            if (0 == policy.maxDelayNanos()) {
+                eventLoop.execute(flushTask);
+            } else {
+                eventLoop.schedule(flushTask, policy.maxDelayNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        return flushed;
+    }
+
+    /**
+     * Holds back the following writes until {@link #endBatch()}. Batches can be nested, the outermost one flushes.
+     */
+    public void beginBatch() {
+        synchronized (lock) {
+            batchDepth++;
+        }
+    }
+
+    public void endBatch() {
+        final boolean flush;
+        synchronized (lock) {
+            if (0 == batchDepth) {
+                throw new IllegalStateException("No batch was started");
+            }
+            batchDepth--;
+            flush = 0 == batchDepth && !pending.isEmpty();
+        }
+        if (flush) {
+            flushNow();
+        }
+    }
+
+    private void flushNow() {
+        final EventLoop eventLoop = channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            flush();
+        } else {
+            eventLoop.execute(flushTask);
+        }
+    }
+
+    /**
+     * Runs on the event loop, so that the messages reach the encoder in order
+     */
+    private void flush() {
+        final List<Object> messages;
+        final ChannelPromise flushed;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            messages = pending;
+            flushed = pendingFlushed;
+            pending = new ArrayList<Object>();
+            pendingBytes = 0;
+            pendingFlushed = null;
+        }
+        final MessageBuf<Object> out = channel.outboundMessageBuffer();
+        for (Object message : messages) {
+            out.add(message);
+        }
+        channel.flush(flushed);
+    }
+}
@@ -0,0 +1,121 @@
+package org.adbcj.netty;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.adbcj.StandardProperties;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class EventLoopRuntimeTest {
+
+    @Test
+    public void managersGetADedicatedRuntimeByDefault() {
+        final EventLoopRuntime runtime = EventLoopRuntime.forManager(new HashMap<String, String>());
+        Assert.assertTrue(runtime.isDedicated());
+        Assert.assertNotSame(runtime, EventLoopRuntime.forManager(new HashMap<String, String>()));
+
+        runtime.release();
+        Assert.assertTrue(runtime.isShutdown());
+    }
+
+    @Test
+    public void sharedRuntimeSurvivesRelease() {
+        final EventLoopRuntime runtime = EventLoopRuntime.forManager(
+                properties(StandardProperties.EVENT_LOOP_RUNTIME, "shared"));
+        Assert.assertSame(runtime, EventLoopRuntime.shared());
+
+        runtime.release();
+        Assert.assertFalse(runtime.isShutdown());
+    }
+
+    @Test
+    public void registeredRuntimeIsFoundByName() {
+        final EventLoopRuntime runtime = EventLoopRuntime.builder().threads(1).build();
+        EventLoopRuntime.register("tenants", runtime);
+        try {
+            final Map<String, String> properties = properties(StandardProperties.EVENT_LOOP_RUNTIME, "tenants");
+            Assert.assertSame(EventLoopRuntime.forManager(properties), runtime);
+            Assert.assertSame(EventLoopRuntime.forManager(properties), runtime);
+
+            runtime.release();
+            Assert.assertFalse(runtime.isShutdown());
+        } finally {
+            EventLoopRuntime.unregister("tenants");
+            runtime.shutdown();
+        }
+        Assert.assertTrue(runtime.isShutdown());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void unknownRuntimeNameIsRejected() {
+        EventLoopRuntime.forManager(properties(StandardProperties.EVENT_LOOP_RUNTIME, "not-registered"));
+    }
+
+    @Test
+    public void socketOptionsAreApplied() {
+        final Map<String, String> properties = properties(StandardProperties.SOCKET_RECEIVE_BUFFER, "65536");
+        properties.put(StandardProperties.SOCKET_SEND_BUFFER, "32768");
+        properties.put(StandardProperties.EVENT_LOOP_THREADS, "1");
+        final EventLoopRuntime runtime = EventLoopRuntime.forManager(properties);
+        try {
+            final String bootstrap = runtime.newBootstrap().toString();
+            Assert.assertTrue(bootstrap.contains(ChannelOption.SO_RCVBUF + "=65536"), bootstrap);
+            Assert.assertTrue(bootstrap.contains(ChannelOption.SO_SNDBUF + "=32768"), bootstrap);
+            Assert.assertTrue(bootstrap.contains(ChannelOption.TCP_NODELAY + "=true"), bootstrap);
+        } finally {
+            runtime.release();
+        }
+    }
+
+    @Test
+    public void epollFallsBackToNioWithoutNativeTransport() {
+        final Map<String, String> properties = properties(StandardProperties.EVENT_LOOP_TRANSPORT, "epoll");
+        properties.put(StandardProperties.EVENT_LOOP_THREADS, "1");
+        final EventLoopRuntime runtime = EventLoopRuntime.forManager(properties);
+        try {
+            Assert.assertEquals(runtime.transport(), EventLoopRuntime.Transport.NIO);
+            Assert.assertTrue(runtime.eventLoopGroup() instanceof NioEventLoopGroup);
+        } finally {
+            runtime.release();
+        }
+    }
+
+    @Test
+    public void knowsEventLoopOfCallingThread() throws Exception {
+        final EventLoopRuntime runtime = EventLoopRuntime.builder().threads(2).build();
+        final EventLoopRuntime other = EventLoopRuntime.builder().threads(1).build();
+        try {
+            Assert.assertNull(runtime.currentEventLoop());
+            final EventLoop loop = runtime.eventLoopGroup().next();
+            Assert.assertSame(loop.submit(new Callable<EventLoop>() {
+                @Override
+                public EventLoop call() {
+                    return runtime.currentEventLoop();
+                }
+            }).get(), loop);
+            Assert.assertNull(other.eventLoopGroup().next().submit(new Callable<EventLoop>() {
+                @Override
+                public EventLoop call() {
+                    return runtime.currentEventLoop();
+                }
+            }).get(), "Threads of other runtimes do not count");
+        } finally {
+            runtime.shutdown();
+            other.shutdown();
+        }
+    }
+
+    private static Map<String, String> properties(String key, String value) {
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put(key, value);
+        return properties;
+    }
+}
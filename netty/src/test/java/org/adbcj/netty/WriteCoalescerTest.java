@@ -0,0 +1,102 @@
+package org.adbcj.netty;
+
+import io.netty.buffer.MessageBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundMessageHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedMessageChannel;
+import org.adbcj.support.CoalescingPolicy;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class WriteCoalescerTest {
+
+    @Test
+    public void flushesWritesOfOneTickTogether() {
+        final CountingChannel channel = new CountingChannel();
+        final WriteCoalescer writes = new WriteCoalescer(channel, CoalescingPolicy.SAME_TICK);
+
+        final ChannelFuture first = writes.write("first", 5);
+        final ChannelFuture second = writes.write("second", 6);
+        Assert.assertEquals(channel.flushes, 0);
+
+        channel.runPendingTasks();
+        Assert.assertEquals(channel.flushes, 1);
+        Assert.assertTrue(first.isSuccess());
+        Assert.assertTrue(second.isSuccess());
+        Assert.assertEquals(channel.readOutbound(), "first");
+        Assert.assertEquals(channel.readOutbound(), "second");
+    }
+
+    @Test
+    public void disabledPolicyFlushesEachWrite() {
+        final CountingChannel channel = new CountingChannel();
+        final WriteCoalescer writes = new WriteCoalescer(channel, CoalescingPolicy.DISABLED);
+
+        writes.write("first", 5);
+        writes.write("second", 6);
+        Assert.assertEquals(channel.flushes, 2);
+    }
+
+    @Test
+    public void batchHoldsWritesUntilItEnds() {
+        final CountingChannel channel = new CountingChannel();
+        final WriteCoalescer writes = new WriteCoalescer(channel, CoalescingPolicy.SAME_TICK);
+
+        writes.beginBatch();
+        writes.write("first", 5);
+        writes.beginBatch();
+        writes.write("second", 6);
+        writes.endBatch();
+        channel.runPendingTasks();
+        Assert.assertEquals(channel.flushes, 0);
+
+        writes.endBatch();
+        Assert.assertEquals(channel.flushes, 1);
+        Assert.assertEquals(channel.readOutbound(), "first");
+        Assert.assertEquals(channel.readOutbound(), "second");
+    }
+
+    @Test
+    public void flushesOnceMaxBytesAreReached() {
+        final CountingChannel channel = new CountingChannel();
+        final WriteCoalescer writes = new WriteCoalescer(channel, CoalescingPolicy.coalesce(1, TimeUnit.SECONDS, 10));
+
+        writes.beginBatch();
+        writes.write("first", 6);
+        Assert.assertEquals(channel.flushes, 0);
+        writes.write("second", 6);
+        Assert.assertEquals(channel.flushes, 1);
+        writes.write("third", 6);
+        writes.endBatch();
+        Assert.assertEquals(channel.flushes, 2);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void endingBatchWhichWasNotStartedFails() {
+        new WriteCoalescer(new CountingChannel(), CoalescingPolicy.SAME_TICK).endBatch();
+    }
+
+    private static class CountingChannel extends EmbeddedMessageChannel {
+        int flushes = 0;
+
+        CountingChannel() {
+            super(new ChannelInboundMessageHandlerAdapter<Object>() {
+                @Override
+                public void messageReceived(ChannelHandlerContext ctx, Object msg) throws Exception {
+                }
+            });
+        }
+
+        @Override
+        protected void doFlushMessageBuffer(MessageBuf<Object> buffer) throws Exception {
+            flushes++;
+            super.doFlushMessageBuffer(buffer);
+        }
+    }
+}
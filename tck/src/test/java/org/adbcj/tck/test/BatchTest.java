@@ -0,0 +1,97 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.BatchBuilder;
+import org.adbcj.Connection;
+import org.adbcj.DbException;
+import org.adbcj.Result;
+import org.adbcj.ResultSet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class BatchTest extends AbstractWithConnectionManagerTest {
+
+    @Test
+    public void executesAllStatements() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        List<Result> results = connection.executeBatch(Arrays.asList(
+                "INSERT INTO tableWithAutoId (textData) VALUES ('batch-1')",
+                "INSERT INTO tableWithAutoId (textData) VALUES ('batch-2'),('batch-2')",
+                "UPDATE tableWithAutoId SET textData='batch-3' WHERE textData='batch-2'"
+        )).get();
+
+        Assert.assertEquals(results.size(), 3);
+        Assert.assertEquals(results.get(0).getAffectedRows(), 1L);
+        Assert.assertEquals(results.get(1).getAffectedRows(), 2L);
+        Assert.assertEquals(results.get(2).getAffectedRows(), 2L);
+
+        ResultSet rows = connection.executeQuery("SELECT textData FROM tableWithAutoId " +
+                "WHERE textData LIKE 'batch-%' ORDER BY textData").get();
+        Assert.assertEquals(rows.size(), 3);
+        Assert.assertEquals(rows.get(0).get(0).getString(), "batch-1");
+        Assert.assertEquals(rows.get(2).get(0).getString(), "batch-3");
+
+        connection.executeUpdate("DELETE FROM tableWithAutoId WHERE textData LIKE 'batch-%'").get();
+        connection.close();
+    }
+
+    @Test
+    public void builderExecutesAddedStatements() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        BatchBuilder batch = connection.newBatch()
+                .add("INSERT INTO tableWithAutoId (textData) VALUES ('builder-1')")
+                .addAll(Arrays.asList(
+                        "INSERT INTO tableWithAutoId (textData) VALUES ('builder-2')",
+                        "DELETE FROM tableWithAutoId WHERE textData='builder-1'"));
+        Assert.assertEquals(batch.size(), 3);
+
+        List<Result> results = batch.execute().get();
+        Assert.assertEquals(results.size(), 3);
+        Assert.assertEquals(results.get(0).getAffectedRows(), 1L);
+        Assert.assertEquals(results.get(1).getAffectedRows(), 1L);
+        Assert.assertEquals(results.get(2).getAffectedRows(), 1L);
+
+        ResultSet rows = connection.executeQuery("SELECT textData FROM tableWithAutoId " +
+                "WHERE textData LIKE 'builder-%'").get();
+        Assert.assertEquals(rows.size(), 1);
+        Assert.assertEquals(rows.get(0).get(0).getString(), "builder-2");
+
+        connection.executeUpdate("DELETE FROM tableWithAutoId WHERE textData LIKE 'builder-%'").get();
+        connection.close();
+    }
+
+    @Test
+    public void emptyBatchCompletesImmediately() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        List<Result> results = connection.executeBatch(Collections.<String>emptyList()).get();
+        Assert.assertTrue(results.isEmpty());
+        connection.close();
+    }
+
+    @Test
+    public void failingStatementFailsBatch() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        try {
+            connection.executeBatch(Arrays.asList(
+                    "INSERT INTO tableWithAutoId (textData) VALUES ('failing-batch')",
+                    "INSERT INTO table_which_does_not_exist (textData) VALUES ('failing-batch')"
+            )).get();
+            Assert.fail("Expected the batch to fail");
+        } catch (DbException e) {
+            // expected
+        }
+
+        // the connection still works
+        ResultSet rows = connection.executeQuery("SELECT 1").get();
+        Assert.assertEquals(rows.size(), 1);
+
+        connection.executeUpdate("DELETE FROM tableWithAutoId WHERE textData = 'failing-batch'").get();
+        connection.close();
+    }
+}
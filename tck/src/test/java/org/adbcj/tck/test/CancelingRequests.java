@@ -2,7 +2,9 @@ package org.adbcj.tck.test;
 
 import junit.framework.Assert;
 import org.adbcj.Connection;
+import org.adbcj.DbException;
 import org.adbcj.DbFuture;
+import org.adbcj.FutureState;
 import org.adbcj.ResultSet;
 import org.testng.annotations.Test;
 
@@ -15,14 +17,16 @@ public class CancelingRequests extends AbstractWithConnectionManagerTest{
 
 
     @Test
-    public void canCancelSelect() throws InterruptedException {
+    public void canCancelRunningSelect() throws InterruptedException {
         final Connection connection = connectionManager.connect().get();
 
         final DbFuture<ResultSet> result = connection.executeQuery("SELECT SLEEP(2)");
         Thread.sleep(500);
-        boolean cannotBeCanceled = result.cancel(true);
 
-        Assert.assertFalse(cannotBeCanceled);
+        Assert.assertTrue(result.cancel(true));
+        assertCancelledOrFailed(result);
+        // The connection continues with the next request
+        Assert.assertEquals(0, connection.executeQuery("SELECT SLEEP(0)").get().get(0).get(0).getInt());
 
         connection.close();
 
@@ -34,18 +38,60 @@ public class CancelingRequests extends AbstractWithConnectionManagerTest{
 
         final DbFuture<ResultSet> runningStatment = connection.executeQuery("SELECT SLEEP(1)");
         final DbFuture<ResultSet> toCancel = connection.executeQuery("SELECT SLEEP(2)");
-        boolean canCancel = toCancel.cancel(true);
-
-        if(canCancel){
-            try{
-                toCancel.get();
-                Assert.fail("Should throw CancellationException");
-            } catch (CancellationException expected){
-                //expected
-            }
-        }
+
+        Assert.assertTrue(toCancel.cancel(true));
+        assertCancelledOrFailed(toCancel);
+        Assert.assertEquals(0, runningStatment.get().get(0).get(0).getInt());
+
+        connection.close();
+
+    }
+
+    @Test
+    public void requestBehindCancelledRequestCompletes() throws InterruptedException {
+        final Connection connection = connectionManager.connect().get();
+
+        final DbFuture<ResultSet> toCancel = connection.executeQuery("SELECT SLEEP(2)");
+        Thread.sleep(500);
+        Assert.assertTrue(toCancel.cancel(true));
+        // Queued while the cancelled request is still running
+        final DbFuture<ResultSet> next = connection.executeQuery("SELECT SLEEP(0)");
+
+        assertCancelledOrFailed(toCancel);
+        Assert.assertEquals(0, next.get().get(0).get(0).getInt());
 
         connection.close();
 
     }
+
+    @Test
+    public void requestPipelinedBehindCancelledRequestCompletes() throws InterruptedException {
+        final Connection connection = connectionManager.connect().get();
+
+        final DbFuture<ResultSet> toCancel = connection.executeQuery("SELECT SLEEP(2)");
+        // Sent while the request to cancel is running
+        final DbFuture<ResultSet> next = connection.executeQuery("SELECT SLEEP(0)");
+        Thread.sleep(500);
+        Assert.assertTrue(toCancel.cancel(true));
+
+        assertCancelledOrFailed(toCancel);
+        Assert.assertEquals(0, next.get().get(0).get(0).getInt());
+        // The connection continues with the next request
+        Assert.assertEquals(0, connection.executeQuery("SELECT SLEEP(0)").get().get(0).get(0).getInt());
+
+        connection.close();
+
+    }
+
+    private static void assertCancelledOrFailed(DbFuture<ResultSet> future) throws InterruptedException {
+        try {
+            future.get();
+            Assert.fail("Expected the request to be cancelled or to fail");
+        } catch (CancellationException expected) {
+            // expected
+        } catch (DbException expected) {
+            // expected, the server stopped the request
+        }
+        Assert.assertTrue(future.isCancelled() || future.getState() == FutureState.FAILURE);
+    }
 }
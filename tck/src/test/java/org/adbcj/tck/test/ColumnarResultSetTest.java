@@ -0,0 +1,51 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.Connection;
+import org.adbcj.ResultSet;
+import org.adbcj.ResultSetLayout;
+import org.adbcj.Row;
+import org.adbcj.support.ColumnarResultSet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class ColumnarResultSetTest extends AbstractWithConnectionManagerTest {
+
+    @Test
+    public void columnarResultHasSameValues() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        final String query = "SELECT int_val, str_val FROM simple_values ORDER BY int_val";
+        ResultSet rows = connection.executeQuery(query, ResultSetLayout.ROWS).get();
+        ResultSet columns = connection.executeQuery(query, ResultSetLayout.COLUMNAR).get();
+
+        Assert.assertTrue(columns instanceof ColumnarResultSet);
+        Assert.assertEquals(columns.size(), rows.size());
+        Assert.assertEquals(columns.getFields().size(), 2);
+        for (int i = 0; i < rows.size(); i++) {
+            Row expected = rows.get(i);
+            Row actual = columns.get(i);
+            Assert.assertEquals(actual.get("int_val").isNull(), expected.get("int_val").isNull());
+            Assert.assertEquals(actual.get("int_val").getInt(), expected.get("int_val").getInt());
+            Assert.assertEquals(actual.get("str_val").getString(), expected.get("str_val").getString());
+        }
+        connection.close().get();
+    }
+
+    @Test
+    public void columnarPreparedQuery() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        ResultSet result = ResultSetLayout.COLUMNAR.execute(connection.prepareQuery(
+                "SELECT intColumn, bigIntColumn, doubleColumn, varCharColumn, decimalColumn " +
+                        "FROM supporteddatatypes").get()).get();
+
+        Row row = result.get(0);
+        Assert.assertEquals(row.get("intColumn").getInt(), 42);
+        Assert.assertEquals(row.get("bigIntColumn").getLong(), 42L);
+        Assert.assertEquals(row.get("doubleColumn").getDouble(), 42.42);
+        Assert.assertEquals(row.get("varCharColumn").getString(), "4242");
+        Assert.assertEquals(row.get("decimalColumn").getBigDecimal().doubleValue(), 42.42);
+        connection.close().get();
+    }
+}
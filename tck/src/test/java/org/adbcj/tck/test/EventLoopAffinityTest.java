@@ -0,0 +1,57 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.Connection;
+import org.adbcj.DbFuture;
+import org.adbcj.DbListener;
+import org.adbcj.ResultSet;
+import org.adbcj.StandardProperties;
+import org.adbcj.support.EventLoopBound;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class EventLoopAffinityTest extends AbstractWithConnectionManagerTest {
+    @Override
+    protected Map<String, String> properties() {
+        final Map<String, String> properties = super.properties();
+        properties.put(StandardProperties.EVENT_LOOP_AFFINITY, "true");
+        properties.put(StandardProperties.EVENT_LOOP_THREADS, "4");
+        return properties;
+    }
+
+    @Test(timeOut = 60000)
+    public void connectionOpenedInCallbackStaysOnItsEventLoop() throws Exception {
+        final Connection first = connectionManager.connect().get();
+        if (!(first instanceof EventLoopBound)) {
+            // Drivers without event loops, and pooled connections, cannot tell
+            first.close().get();
+            return;
+        }
+        final AtomicReference<DbFuture<Connection>> openedInCallback = new AtomicReference<DbFuture<Connection>>();
+        final CountDownLatch opened = new CountDownLatch(1);
+        first.executeQuery("SELECT 1").addListener(new DbListener<ResultSet>() {
+            @Override
+            public void onCompletion(DbFuture<ResultSet> future) {
+                openedInCallback.set(connectionManager.connect());
+                opened.countDown();
+            }
+        });
+        Assert.assertTrue(opened.await(10, TimeUnit.SECONDS));
+
+        final Connection second = openedInCallback.get().get();
+        try {
+            Assert.assertSame(((EventLoopBound) second).eventLoop(), ((EventLoopBound) first).eventLoop());
+            Assert.assertEquals(second.executeQuery("SELECT 2").get().get(0).get(0).getInt(), 2);
+        } finally {
+            second.close().get();
+            first.close().get();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.StandardProperties;
+
+import java.util.Map;
+
+/**
+ * Runs the data type tests with values which are only decoded on access.
+ *
+ * @author roman.stoffel@gamlor.info
+ */
+public class LazyValueDecodingTest extends SupportedDataTypesTest {
+    @Override
+    protected Map<String, String> properties() {
+        final Map<String, String> properties = super.properties();
+        properties.put(StandardProperties.LAZY_VALUE_DECODING, "true");
+        return properties;
+    }
+}
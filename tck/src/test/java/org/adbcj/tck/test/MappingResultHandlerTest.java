@@ -0,0 +1,80 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.Connection;
+import org.adbcj.PreparedQuery;
+import org.adbcj.support.MappingResultHandler;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class MappingResultHandlerTest extends AbstractWithConnectionManagerTest {
+    private static final String QUERY = "SELECT intColumn, bigIntColumn AS big_int, doubleColumn, decimalColumn, " +
+            "varCharColumn, NULL AS nothing FROM supporteddatatypes";
+
+    @Test
+    public void mapsSelectToSetters() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        List<DataTypes> result = connection.executeQuery(QUERY,
+                MappingResultHandler.of(DataTypes.class), new ArrayList<DataTypes>()).get();
+
+        assertMapped(result);
+        connection.close().get();
+    }
+
+    @Test
+    public void mapsPreparedQueryToSetters() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        PreparedQuery statement = connection.prepareQuery(QUERY).get();
+        List<DataTypes> result = statement.executeWithCallback(
+                MappingResultHandler.of(DataTypes.class), new ArrayList<DataTypes>()).get();
+
+        assertMapped(result);
+        connection.close().get();
+    }
+
+    private static void assertMapped(List<DataTypes> result) {
+        Assert.assertEquals(result.size(), 1);
+        DataTypes row = result.get(0);
+        Assert.assertEquals(row.intColumn, 42);
+        Assert.assertEquals(row.bigInt, 42L);
+        Assert.assertEquals(row.doubleColumn, 42.42);
+        Assert.assertEquals(row.decimalColumn, new BigDecimal("42.42"));
+        Assert.assertEquals(row.varCharColumn, "4242");
+        Assert.assertEquals(row.nothing, "untouched");
+    }
+
+    public static class DataTypes {
+        private int intColumn;
+        private long bigInt;
+        private double doubleColumn;
+        private BigDecimal decimalColumn;
+        private String varCharColumn;
+        private String nothing = "untouched";
+
+        public void setIntColumn(int intColumn) {
+            this.intColumn = intColumn;
+        }
+
+        public void setBigInt(long bigInt) {
+            this.bigInt = bigInt;
+        }
+
+        public void setDoubleColumn(double doubleColumn) {
+            this.doubleColumn = doubleColumn;
+        }
+
+        public void setDecimalColumn(BigDecimal decimalColumn) {
+            this.decimalColumn = decimalColumn;
+        }
+
+        public void setVarCharColumn(String varCharColumn) {
+            this.varCharColumn = varCharColumn;
+        }
+    }
+}
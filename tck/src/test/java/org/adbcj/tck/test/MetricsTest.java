@@ -0,0 +1,40 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.Connection;
+import org.adbcj.StandardProperties;
+import org.adbcj.support.AbstractConnectionManager;
+import org.adbcj.support.metrics.HistogramMetrics;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class MetricsTest extends AbstractWithConnectionManagerTest {
+    @Override
+    protected Map<String, String> properties() {
+        final Map<String, String> properties = super.properties();
+        properties.put(StandardProperties.METRICS, "histogram");
+        return properties;
+    }
+
+    @Test
+    public void recordsRequests() throws Exception {
+        final HistogramMetrics metrics = (HistogramMetrics) ((AbstractConnectionManager) connectionManager).metrics();
+        final long requestsBefore = metrics.requestLatency().count();
+
+        Connection connection = connectionManager.connect().get();
+        for (int i = 0; i < 10; i++) {
+            connection.executeQuery("SELECT intColumn FROM supporteddatatypes").get();
+        }
+        connection.close().get();
+
+        Assert.assertTrue(metrics.requestLatency().count() >= requestsBefore + 10);
+        Assert.assertTrue(metrics.requestLatency().max() > 0);
+        Assert.assertTrue(metrics.queueDepth().max() >= 1);
+        Assert.assertEquals(metrics.bytesRead() > 0, metrics.bytesWritten() > 0,
+                "Drivers which talk to the database directly count read and written bytes");
+    }
+}
@@ -4,6 +4,9 @@ import org.adbcj.*;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author roman.stoffel@gamlor.info
  */
@@ -33,6 +36,46 @@ public class PreparedUpdateTest extends AbstractWithConnectionManagerTest{
         connection.close();
     }
 
+    @Test
+    public void executeBatchInsertsEachParameterSet() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        PreparedUpdate insert
+                = connection.prepareUpdate("INSERT INTO tableWithAutoId (textData) VALUES (?)").get();
+        // More than one chunk of parameter sets
+        List<Object[]> parameterSets = new ArrayList<Object[]>();
+        for (int i = 0; i < 600; i++) {
+            parameterSets.add(new Object[]{"prepared-batch-" + i});
+        }
+        List<Result> results = insert.executeBatch(parameterSets).get();
+
+        Assert.assertEquals(results.size(), 600);
+        for (Result result : results) {
+            Assert.assertEquals(result.getAffectedRows(), 1L);
+        }
+        ResultSet rows = connection.executeQuery("SELECT COUNT(*) FROM tableWithAutoId " +
+                "WHERE textData LIKE 'prepared-batch-%'").get();
+        Assert.assertEquals(rows.get(0).get(0).getLong(), 600L);
+
+        connection.executeUpdate("DELETE FROM tableWithAutoId WHERE textData LIKE 'prepared-batch-%'").get();
+        connection.close();
+    }
+
+    @Test
+    public void executeBatchFailsOnWrongParameters() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        PreparedUpdate insert
+                = connection.prepareUpdate("INSERT INTO tableWithAutoId (textData) VALUES (?)").get();
+        List<Object[]> parameterSets = new ArrayList<Object[]>();
+        parameterSets.add(new Object[]{"wrong-parameters", "too many"});
+        try {
+            insert.executeBatch(parameterSets).get();
+            Assert.fail("Expected the batch to fail");
+        } catch (DbException e) {
+            // expected
+        }
+        connection.close();
+    }
+
     private void cleanUp(Connection connection) throws InterruptedException {
         connection.executeUpdate("DELETE FROM updates").get();
     }
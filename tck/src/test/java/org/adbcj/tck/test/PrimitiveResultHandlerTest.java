@@ -0,0 +1,91 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.AbstractResultHandler;
+import org.adbcj.Connection;
+import org.adbcj.PreparedQuery;
+import org.adbcj.PrimitiveResultHandler;
+import org.adbcj.Value;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class PrimitiveResultHandlerTest extends AbstractWithConnectionManagerTest {
+    private static final String QUERY = "SELECT intColumn, bigIntColumn, doubleColumn, varCharColumn, NULL " +
+            "FROM supporteddatatypes";
+    private static final List<String> EXPECTED_ROW = Arrays.asList(
+            "int:0=42", "long:1=42", "double:2=42.42", "text:3=4242", "null:4");
+
+    @Test
+    public void primitivesInSelect() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        List<String> result = connection.executeQuery(QUERY, new RecordingHandler(), new ArrayList<String>()).get();
+
+        Assert.assertEquals(result, EXPECTED_ROW);
+        connection.close().get();
+    }
+
+    @Test
+    public void primitivesInPreparedStatement() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        PreparedQuery statement = connection.prepareQuery(QUERY).get();
+        List<String> result = statement.executeWithCallback(new RecordingHandler(), new ArrayList<String>()).get();
+
+        Assert.assertEquals(result, EXPECTED_ROW);
+        connection.close().get();
+    }
+
+    static class RecordingHandler extends AbstractResultHandler<List<String>>
+            implements PrimitiveResultHandler<List<String>> {
+        private int column = 0;
+
+        @Override
+        public void startRow(List<String> accumulator) {
+            column = 0;
+        }
+
+        @Override
+        public void intValue(int column, int value, List<String> accumulator) {
+            record(column, accumulator, "int:" + column + "=" + value);
+        }
+
+        @Override
+        public void longValue(int column, long value, List<String> accumulator) {
+            record(column, accumulator, "long:" + column + "=" + value);
+        }
+
+        @Override
+        public void doubleValue(int column, double value, List<String> accumulator) {
+            record(column, accumulator, "double:" + column + "=" + value);
+        }
+
+        @Override
+        public void nullValue(int column, List<String> accumulator) {
+            record(column, accumulator, "null:" + column);
+        }
+
+        @Override
+        public void bytesValue(int column, ByteBuffer value, List<String> accumulator) {
+            record(column, accumulator, "text:" + column + "=" + Charset.forName("UTF-8").decode(value));
+        }
+
+        @Override
+        public void value(Value value, List<String> accumulator) {
+            // Drivers which receive text as characters pass it as value
+            record(column, accumulator, "text:" + column + "=" + value.getString());
+        }
+
+        private void record(int reportedColumn, List<String> accumulator, String entry) {
+            Assert.assertEquals(reportedColumn, column);
+            column++;
+            accumulator.add(entry);
+        }
+    }
+}
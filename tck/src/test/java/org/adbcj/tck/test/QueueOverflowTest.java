@@ -0,0 +1,64 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.Connection;
+import org.adbcj.DbFuture;
+import org.adbcj.ResultSet;
+import org.adbcj.StandardProperties;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class QueueOverflowTest extends AbstractWithConnectionManagerTest {
+    private static final int REQUESTS = 200;
+
+    @Override
+    protected Map<String, String> properties() {
+        final Map<String, String> properties = super.properties();
+        properties.put(StandardProperties.MAX_QUEUE_LENGTH, "4");
+        properties.put(StandardProperties.QUEUE_OVERFLOW, "park");
+        properties.put(StandardProperties.QUEUE_OVERFLOW_LENGTH, "" + REQUESTS);
+        return properties;
+    }
+
+    @Test(timeOut = 60000)
+    public void parksRequestsOverTheMaximum() throws Exception {
+        final Connection connection = connectionManager.connect().get();
+        try {
+            final List<DbFuture<ResultSet>> results = new ArrayList<DbFuture<ResultSet>>();
+            for (int i = 0; i < REQUESTS; i++) {
+                results.add(connection.executeQuery("SELECT " + i));
+            }
+            for (int i = 0; i < REQUESTS; i++) {
+                Assert.assertEquals(results.get(i).get().get(0).get(0).getInt(), i);
+            }
+        } finally {
+            connection.close().get();
+        }
+    }
+
+    @Test(timeOut = 60000)
+    public void producerWaitingForWritableStaysUnderTheMaximum() throws Exception {
+        final Connection connection = connectionManager.connect().get();
+        try {
+            final List<DbFuture<ResultSet>> results = new ArrayList<DbFuture<ResultSet>>();
+            for (int i = 0; i < REQUESTS; i++) {
+                connection.whenWritable().get();
+                results.add(connection.executeQuery("SELECT " + i));
+            }
+            for (int i = 0; i < REQUESTS; i++) {
+                Assert.assertEquals(results.get(i).get().get(0).get(0).getInt(), i);
+            }
+            final DbFuture<Void> writable = connection.whenWritable();
+            writable.get();
+            Assert.assertTrue(writable.isDone());
+        } finally {
+            connection.close().get();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.Connection;
+import org.adbcj.DbFuture;
+import org.adbcj.RequestTimings;
+import org.adbcj.ResultSet;
+import org.adbcj.StandardProperties;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class RequestTimingsTest extends AbstractWithConnectionManagerTest {
+    @Override
+    protected Map<String, String> properties() {
+        final Map<String, String> properties = super.properties();
+        properties.put(StandardProperties.SLOW_QUERY_THRESHOLD_MILLIS, "60000");
+        return properties;
+    }
+
+    @Test
+    public void timesRequests() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        DbFuture<ResultSet> query = connection.executeQuery("SELECT intColumn FROM supporteddatatypes");
+        query.get();
+
+        RequestTimings timings = query.getTimings();
+        Assert.assertNotNull(timings);
+        Assert.assertTrue(timings.isCompleted());
+        Assert.assertTrue(timings.getDescription().contains("SELECT intColumn FROM supporteddatatypes"));
+        Assert.assertTrue(timings.getTotalNanos() > 0);
+        Assert.assertTrue(timings.getQueuedNanos() >= 0);
+        Assert.assertTrue(timings.getServerNanos() >= 0);
+        Assert.assertTrue(timings.getReceiveNanos() >= 0);
+        Assert.assertTrue(timings.getCompletionNanos() >= 0);
+        Assert.assertEquals(timings.getQueuedNanos() + timings.getServerNanos()
+                + timings.getReceiveNanos() + timings.getCompletionNanos(), timings.getTotalNanos());
+
+        connection.close().get();
+    }
+}
@@ -0,0 +1,53 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.Connection;
+import org.adbcj.ConnectionManager;
+import org.adbcj.ConnectionManagerProvider;
+import org.adbcj.StandardProperties;
+import org.adbcj.netty.EventLoopRuntime;
+import org.testng.Assert;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class SharedEventLoopRuntimeTest {
+
+    @Parameters({"url", "user", "password"})
+    @Test(timeOut = 60000)
+    public void managersShareTheRuntime(String url, String user, String password) throws Exception {
+        final String name = "tck-" + url;
+        final EventLoopRuntime runtime = EventLoopRuntime.builder().threads(1).build();
+        EventLoopRuntime.register(name, runtime);
+        try {
+            final Map<String, String> properties = new HashMap<String, String>();
+            properties.put(StandardProperties.EVENT_LOOP_RUNTIME, name);
+            final ConnectionManager first = ConnectionManagerProvider.createConnectionManager(url, user, password, properties);
+            final ConnectionManager second = ConnectionManagerProvider.createConnectionManager(url, user, password, properties);
+
+            selectOne(first);
+            selectOne(second);
+            first.close().get();
+
+            Assert.assertFalse(runtime.isShutdown(), "A shared runtime outlives the managers using it");
+            selectOne(second);
+            second.close().get();
+        } finally {
+            EventLoopRuntime.unregister(name);
+            runtime.shutdown();
+        }
+    }
+
+    private static void selectOne(ConnectionManager connectionManager) throws Exception {
+        final Connection connection = connectionManager.connect().get();
+        try {
+            Assert.assertEquals(connection.executeQuery("SELECT 1").get().get(0).get(0).getInt(), 1);
+        } finally {
+            connection.close().get();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.Connection;
+import org.adbcj.ResultSet;
+import org.adbcj.Row;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class StreamQueryTest extends AbstractWithConnectionManagerTest {
+    private static final String MANY_ROWS = "SELECT a.int_val FROM simple_values a, simple_values b, " +
+            "simple_values c, simple_values d, simple_values e, simple_values f";
+    private static final int MANY_ROWS_COUNT = 6 * 6 * 6 * 6 * 6 * 6;
+
+    @Test
+    public void streamsAllRows() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        final CountingSubscriber subscriber = new CountingSubscriber(Long.MAX_VALUE);
+        connection.streamQuery("SELECT int_val, str_val FROM simple_values ORDER BY int_val").subscribe(subscriber);
+
+        Assert.assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        Assert.assertNull(subscriber.error.get());
+        Assert.assertEquals(subscriber.rows.get(), 6);
+        Assert.assertEquals(subscriber.lastRow.get().get("str_val").getString(), "Four");
+        connection.close();
+    }
+
+    @Test
+    public void slowSubscriberGetsAllRows() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        final CountingSubscriber subscriber = new CountingSubscriber(1);
+        connection.streamQuery(MANY_ROWS).subscribe(subscriber);
+        Thread.sleep(500);
+        Assert.assertTrue(subscriber.rows.get() <= 1);
+
+        subscriber.requestMore(Long.MAX_VALUE);
+        Assert.assertTrue(subscriber.done.await(60, TimeUnit.SECONDS));
+        Assert.assertNull(subscriber.error.get());
+        Assert.assertEquals(subscriber.rows.get(), MANY_ROWS_COUNT);
+
+        final ResultSet afterwards = connection.executeQuery("SELECT int_val FROM simple_values").get();
+        Assert.assertEquals(afterwards.size(), 6);
+        connection.close();
+    }
+
+    @Test
+    public void connectionWorksAfterCancelledStream() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        final CountingSubscriber subscriber = new CountingSubscriber(10);
+        connection.streamQuery(MANY_ROWS).subscribe(subscriber);
+        Thread.sleep(200);
+        subscriber.subscription.cancel();
+
+        final ResultSet afterwards = connection.executeQuery("SELECT int_val FROM simple_values").get(60, TimeUnit.SECONDS);
+        Assert.assertEquals(afterwards.size(), 6);
+        Assert.assertTrue(subscriber.rows.get() <= 10);
+        connection.close();
+    }
+
+    @Test
+    public void failingQueryIsReported() throws Exception {
+        Connection connection = connectionManager.connect().get();
+        final CountingSubscriber subscriber = new CountingSubscriber(Long.MAX_VALUE);
+        connection.streamQuery("SELECT * FROM table_which_does_not_exist").subscribe(subscriber);
+
+        Assert.assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        Assert.assertNotNull(subscriber.error.get());
+        connection.close();
+    }
+
+    static class CountingSubscriber implements Flow.Subscriber<Row> {
+        private final long initialRequest;
+        final AtomicInteger rows = new AtomicInteger();
+        final AtomicReference<Row> lastRow = new AtomicReference<Row>();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Flow.Subscription subscription;
+
+        CountingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        void requestMore(long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(Row item) {
+            rows.incrementAndGet();
+            lastRow.set(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.adbcj.tck.test;
+
+import org.adbcj.DbException;
+import org.adbcj.ResultSet;
+import org.adbcj.Row;
+import org.adbcj.sync.RowIterator;
+import org.adbcj.sync.SyncConnection;
+import org.adbcj.sync.SyncPreparedQuery;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author roman.stoffel@gamlor.info
+ */
+public class SyncConnectionTest extends AbstractWithConnectionManagerTest {
+    private static final String MANY_ROWS = "SELECT a.int_val FROM simple_values a, simple_values b, " +
+            "simple_values c, simple_values d, simple_values e";
+    private static final int MANY_ROWS_COUNT = 6 * 6 * 6 * 6 * 6;
+
+    @Test
+    public void queriesAndPreparedQueries() {
+        SyncConnection connection = SyncConnection.connect(connectionManager);
+        ResultSet all = connection.executeQuery("SELECT int_val FROM simple_values");
+        Assert.assertEquals(all.size(), 6);
+
+        SyncPreparedQuery query = connection.prepareQuery("SELECT str_val FROM simple_values WHERE int_val = ?");
+        Assert.assertEquals(query.execute(4).get(0).get(0).getString(), "Four");
+        query.close();
+        connection.close();
+    }
+
+    @Test
+    public void iteratesRowsWhileTheyArrive() {
+        SyncConnection connection = SyncConnection.connect(connectionManager);
+        RowIterator rows = connection.iterate(MANY_ROWS, 16);
+        int count = 0;
+        while (rows.hasNext()) {
+            Row row = rows.next();
+            Assert.assertNotNull(row.get(0));
+            count++;
+        }
+        Assert.assertEquals(count, MANY_ROWS_COUNT);
+        connection.close();
+    }
+
+    @Test
+    public void connectionWorksAfterClosedIteration() {
+        SyncConnection connection = SyncConnection.connect(connectionManager);
+        RowIterator rows = connection.iterate(MANY_ROWS);
+        for (int i = 0; i < 10; i++) {
+            rows.next();
+        }
+        rows.close();
+        Assert.assertFalse(rows.hasNext());
+
+        Assert.assertEquals(connection.executeQuery("SELECT int_val FROM simple_values").size(), 6);
+        connection.close();
+    }
+
+    @Test
+    public void failureIsThrown() {
+        SyncConnection connection = SyncConnection.connect(connectionManager);
+        try {
+            connection.executeQuery("SELECT * FROM table_which_does_not_exist");
+            Assert.fail("Expect failure");
+        } catch (DbException expected) {
+            // expected
+        }
+        connection.close();
+    }
+
+    @Test
+    public void manyThreadsBlockConcurrently() throws Exception {
+        final SyncConnection connection = SyncConnection.connect(connectionManager);
+        final AtomicInteger completed = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 50; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    if (connection.executeQuery("SELECT int_val FROM simple_values").size() == 6) {
+                        completed.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join(30000);
+        }
+        Assert.assertEquals(completed.get(), 50);
+        connection.close();
+    }
+}